@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar.
+ * <p>
+ * Accepts the standard JMH command line options and always enables the GC profiler,
+ * so that the allocation rate ({@code gc.alloc.rate.norm}, bytes per operation) is reported for every benchmark
+ * and allocation regressions in the orchestration code are as visible as timing regressions.
+ * </p>
+ */
+public class Benchmarks {
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+}
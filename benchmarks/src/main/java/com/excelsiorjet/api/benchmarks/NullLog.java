@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.benchmarks;
+
+import com.excelsiorjet.api.log.Log;
+
+/**
+ * Log that discards all messages, so that the benchmarks measure the API rather than console output.
+ */
+public class NullLog extends Log {
+
+    @Override
+    public void debug(String msg, Throwable t) {
+    }
+
+    @Override
+    public void info(String msg) {
+    }
+
+    @Override
+    public void warn(String msg) {
+    }
+
+    @Override
+    public void warn(String msg, Throwable t) {
+    }
+
+    @Override
+    public void error(String msg) {
+    }
+}
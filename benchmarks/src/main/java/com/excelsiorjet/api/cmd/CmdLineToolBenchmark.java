@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.cmd;
+
+import com.excelsiorjet.api.benchmarks.NullLog;
+import com.excelsiorjet.api.platform.Host;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Benchmark of pumping the output of a child process through {@link CmdLineTool} to the log
+ * and the output listener, as done for the compiler, the packager and Test Run.
+ * <p>
+ * The run with 0 lines measures the process start alone, so the pumping cost is the difference
+ * between the two runs.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CmdLineToolBenchmark {
+
+    @Param({"0", "1000000"})
+    public int lines;
+
+    @Benchmark
+    public long pumpOutput() throws CmdLineToolException {
+        LongAdder listened = new LongAdder();
+        String java = new File(new File(System.getProperty("java.home"), "bin"), Host.mangleExeName("java")).getAbsolutePath();
+        int exitCode = new CmdLineTool(java, "-cp", System.getProperty("java.class.path"),
+                LinePrinter.class.getName(), Integer.toString(lines))
+                .withLog(new NullLog())
+                .withOutputListener(line -> listened.increment())
+                .execute();
+        if ((exitCode != 0) || (listened.sum() != lines)) {
+            throw new IllegalStateException("Unexpected output: exit code " + exitCode + ", " + listened.sum() + " lines");
+        }
+        return listened.sum();
+    }
+}
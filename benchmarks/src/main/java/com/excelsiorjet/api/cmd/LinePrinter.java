@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.cmd;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+
+/**
+ * Child process of {@link CmdLineToolBenchmark} that prints the given number of lines to stdout.
+ */
+public class LinePrinter {
+
+    public static void main(String[] args) throws IOException {
+        int lines = Integer.parseInt(args[0]);
+        try (BufferedWriter out = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16)) {
+            for (int i = 0; i < lines; i++) {
+                out.write("[Loaded com.example.app.GeneratedClass");
+                out.write(Integer.toString(i));
+                out.write(" from file:/opt/app/lib/app.jar]");
+                out.newLine();
+            }
+        }
+    }
+}
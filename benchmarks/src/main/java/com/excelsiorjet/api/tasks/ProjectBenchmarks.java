@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.api.ExcelsiorJet;
+import com.excelsiorjet.api.JetEdition;
+import com.excelsiorjet.api.benchmarks.NullLog;
+import com.excelsiorjet.api.platform.OS;
+import com.excelsiorjet.api.tasks.config.ApplicationType;
+import com.excelsiorjet.api.tasks.config.PDBConfig;
+import com.excelsiorjet.api.tasks.config.compiler.ExecProfilesConfig;
+import com.excelsiorjet.api.tasks.config.compiler.WindowsVersionInfoConfig;
+import com.excelsiorjet.api.tasks.config.dependencies.DependencySettings;
+import com.excelsiorjet.api.tasks.config.dependencies.OptimizationPreset;
+import com.excelsiorjet.api.tasks.config.dependencies.ProjectDependency;
+import com.excelsiorjet.api.tasks.config.excelsiorinstaller.ExcelsiorInstallerConfig;
+import com.excelsiorjet.api.tasks.config.runtime.RuntimeConfig;
+import com.excelsiorjet.api.tasks.config.windowsservice.WindowsServiceConfig;
+import com.excelsiorjet.api.util.Utils;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the project model: dependency processing, dependency settings resolution,
+ * generation of the compiler project file and classpath staging for a project with many dependencies.
+ * The execution times at 100, 1000 and 10000 dependencies show how these operations scale.
+ * <p>
+ * The dependencies are spread over {@link #GROUPS} groups. Every group has a dependency settings entry
+ * and every 100th dependency has its own one, which resembles a typical large project
+ * that configures libraries by group and tunes a few artifacts individually.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProjectBenchmarks {
+
+    private static final int GROUPS = 50;
+    private static final String PROJECT_GROUP = "com.example.app";
+
+    @Param({"100", "1000", "10000"})
+    public int dependencies;
+
+    private Path baseDir;
+    private ExcelsiorJet excelsiorJet;
+    private JetProject project;
+    private List<ProjectDependency> projectDependencies;
+    private List<DependencySettings> dependencySettings;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        JetProject.configureEnvironment(new NullLog(), ResourceBundle.getBundle("Strings"));
+        baseDir = Files.createTempDirectory("excelsior-jet-api-bench");
+        Path repository = Files.createDirectories(baseDir.resolve("repository"));
+        Path buildDir = Files.createDirectories(baseDir.resolve("build"));
+        File mainJar = Files.createFile(buildDir.resolve("app.jar")).toFile();
+
+        projectDependencies = new ArrayList<>();
+        dependencySettings = new ArrayList<>();
+        for (int g = 0; g < GROUPS; g++) {
+            DependencySettings group = new DependencySettings();
+            group.groupId = group(g);
+            group.isLibrary = true;
+            group.pack = (g % 2 == 0) ? ClasspathEntry.PackType.ALL.userValue : ClasspathEntry.PackType.AUTO_DETECT.userValue;
+            dependencySettings.add(group);
+        }
+        for (int i = 0; i < dependencies; i++) {
+            File jar = Files.createFile(repository.resolve("artifact-" + i + ".jar")).toFile();
+            ProjectDependency dependency = new ProjectDependency(group(i % GROUPS), "artifact-" + i, "1.0", jar, false);
+            projectDependencies.add(dependency);
+            if (i % 100 == 0) {
+                DependencySettings artifact = new DependencySettings(dependency.groupId, dependency.artifactId, null, null);
+                artifact.protect = ClasspathEntry.ProtectionType.ALL.userValue;
+                artifact.optimize = ClasspathEntry.OptimizationType.ALL.userValue;
+                dependencySettings.add(artifact);
+            }
+        }
+
+        excelsiorJet = Mockito.mock(ExcelsiorJet.class);
+        Mockito.doReturn(OS.LINUX).when(excelsiorJet).getTargetOS();
+        Mockito.doReturn(JetEdition.ENTERPRISE).when(excelsiorJet).getEdition();
+        Mockito.doReturn(true).when(excelsiorJet).isCompactProfilesSupported();
+        Mockito.doReturn(true).when(excelsiorJet).isGlobalOptimizerSupported();
+        Mockito.doReturn(true).when(excelsiorJet).isDiskFootprintReductionSupported();
+        Mockito.doReturn(true).when(excelsiorJet).since11_3();
+        Mockito.doReturn(true).when(excelsiorJet).isPGOSupported();
+
+        PDBConfig pdbConfig = new PDBConfig();
+        pdbConfig.keepInBuildDir = true;
+        project = new JetProject("bench", "bench", PROJECT_GROUP, "1.0", ApplicationType.PLAIN,
+                buildDir.toFile(), baseDir.resolve("jetresources").toFile())
+                .mainJar(mainJar)
+                .mainClass("com.example.app.Main")
+                .inlineExpansion("tiny-methods-only")
+                .runArgs(new String[0])
+                .addWindowsVersionInfo(false)
+                .stackAllocation(true)
+                .projectDependencies(projectDependencies)
+                .dependencies(dependencySettings)
+                .jetBuildDir(buildDir.resolve("jet/build").toFile())
+                .jetAppDir(buildDir.resolve("jet/app").toFile())
+                .packageFiles(Collections.emptyList())
+                .excelsiorInstallerConfiguration(new ExcelsiorInstallerConfig())
+                .windowsServiceConfiguration(new WindowsServiceConfig())
+                .windowsVersionInfoConfiguration(new WindowsVersionInfoConfig())
+                .runtimeConfiguration(new RuntimeConfig())
+                .execProfiles(new ExecProfilesConfig())
+                .outputName("bench")
+                .stackTraceSupport("minimal")
+                .excelsiorJetPackaging("none")
+                .pdbConfiguration(pdbConfig);
+        project.processDependencies();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Utils.cleanDirectory(baseDir.toFile());
+    }
+
+    private static String group(int g) {
+        return "com.example.lib" + g;
+    }
+
+    @Benchmark
+    public List<ClasspathEntry> processDependencies() throws JetTaskFailureException {
+        project.processDependencies();
+        return project.classpathEntries();
+    }
+
+    @Benchmark
+    public void resolveDependencySettings(Blackhole blackhole) {
+        DependencySettingsResolver resolver = new DependencySettingsResolver(OptimizationPreset.TYPICAL,
+                PROJECT_GROUP, dependencySettings);
+        for (ProjectDependency dependency : projectDependencies) {
+            blackhole.consume(resolver.resolve(dependency));
+        }
+    }
+
+    @Benchmark
+    public String projectFileContent() {
+        return new CompilerArgsGenerator(project, excelsiorJet, false).projectFileContent();
+    }
+
+    @Benchmark
+    public List<ClasspathEntry> copyClasspathEntries() throws JetTaskFailureException, IOException {
+        return project.copyClasspathEntries();
+    }
+}
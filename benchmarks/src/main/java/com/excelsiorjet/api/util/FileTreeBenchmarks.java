@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.util;
+
+import com.excelsiorjet.api.benchmarks.NullLog;
+import com.excelsiorjet.api.tasks.JetProject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.ResourceBundle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the file tree operations used to assemble and package application images:
+ * directory copying and zip/tar.gz compression of a synthetic tree.
+ * <p>
+ * The tree resembles an application image: {@link #files} files of 0 to 8 KB spread over nested directories,
+ * 100 files per directory. The operations take seconds, so every invocation is measured on its own.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FileTreeBenchmarks {
+
+    private static final int FILES_PER_DIR = 100;
+    private static final int DIRS_PER_DIR = 10;
+    private static final int MAX_FILE_SIZE = 8 * 1024;
+
+    @Param("50000")
+    public int files;
+
+    private Path baseDir;
+    private File tree;
+    private File upToDateCopy;
+    private File target;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        JetProject.configureEnvironment(new NullLog(), ResourceBundle.getBundle("Strings"));
+        baseDir = Files.createTempDirectory("excelsior-jet-api-bench");
+        tree = baseDir.resolve("tree").toFile();
+        Random random = new Random(42);
+        byte[] content = new byte[MAX_FILE_SIZE];
+        for (int i = 0; i < files; i++) {
+            Path dir = tree.toPath();
+            // directory path by the digits of the directory number: 0/3/7 for the 37th directory
+            for (char digit : Integer.toString(i / FILES_PER_DIR, DIRS_PER_DIR).toCharArray()) {
+                dir = dir.resolve(String.valueOf(digit));
+            }
+            Files.createDirectories(dir);
+            random.nextBytes(content);
+            Files.write(dir.resolve("file" + i + ".class"), Arrays.copyOf(content, random.nextInt(MAX_FILE_SIZE)));
+        }
+        upToDateCopy = baseDir.resolve("up-to-date").toFile();
+        Utils.copyDirectory(tree.toPath(), upToDateCopy.toPath());
+    }
+
+    @Setup(Level.Invocation)
+    public void cleanTarget() throws IOException {
+        target = baseDir.resolve("target").toFile();
+        if (target.exists()) {
+            Utils.cleanDirectory(target);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Utils.cleanDirectory(baseDir.toFile());
+    }
+
+    @Benchmark
+    public File copyDirectory() throws IOException {
+        Utils.copyDirectory(tree.toPath(), target.toPath());
+        return target;
+    }
+
+    /**
+     * Copying into an up-to-date copy, as in repeated builds, where only changed files are copied.
+     */
+    @Benchmark
+    public File copyDirectoryUpToDate() throws IOException {
+        Utils.copyDirectory(tree.toPath(), upToDateCopy.toPath());
+        return upToDateCopy;
+    }
+
+    @Benchmark
+    public File compressToZipFile() throws IOException {
+        Files.createDirectories(target.toPath());
+        File zip = new File(target, "tree.zip");
+        Utils.compressToZipFile(tree, zip);
+        return zip;
+    }
+
+    @Benchmark
+    public File compressToTarGzFile() throws IOException {
+        Files.createDirectories(target.toPath());
+        File tarGz = new File(target, "tree.tar.gz");
+        Utils.compressToTarGzFile(tree, tarGz);
+        return tarGz;
+    }
+}
@@ -112,6 +112,14 @@ public class ExcelsiorJet {
                 .execute();
     }
 
+    /**
+     * Returns a not yet started invocation of the {@code xjava} command line tool with the given {@code args},
+     * so that the caller can set up its working directory, log and listeners before executing it.
+     */
+    public CmdLineTool xjava(String... args) {
+        return new XJava(jetHome, args);
+    }
+
     private String obtainVersionString() throws JetHomeException {
         try {
             String[] result = {null};
@@ -164,6 +172,10 @@ public class ExcelsiorJet {
         return targetOS;
     }
 
+    public CpuArch getTargetCpu() {
+        return targetCpu;
+    }
+
     private boolean isX86() {
         return targetCpu == CpuArch.X86;
     }
@@ -28,6 +28,8 @@ import com.excelsiorjet.api.util.Utils;
 import java.io.*;
 import java.lang.ProcessBuilder.Redirect;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * A wrapper around {@link ProcessBuilder} that redirects output to given log {@link Log}.
@@ -41,6 +43,9 @@ public class CmdLineTool {
     private File workDir;
     private boolean errToOut = false;
     private HashMap<String, String> env = new HashMap<>();
+    private Consumer<Process> onStart;
+    private Consumer<String> outputListener;
+    private Predicate<String> logFilter;
 
     public CmdLineTool(String... args) {
         this.args = new ArrayList<>(Arrays.asList(args));
@@ -66,6 +71,31 @@ public class CmdLineTool {
         return this;
     }
 
+    /**
+     * Sets a callback that receives the started process, e.g. to find out its pid.
+     */
+    public CmdLineTool onStart(Consumer<Process> onStart) {
+        this.onStart = onStart;
+        return this;
+    }
+
+    /**
+     * Sets a listener that receives every line the process prints to stdout or stderr
+     * as soon as the line is read, in addition to logging it.
+     */
+    public CmdLineTool withOutputListener(Consumer<String> outputListener) {
+        this.outputListener = outputListener;
+        return this;
+    }
+
+    /**
+     * Sets a filter of the lines that are logged: the lines it rejects are passed to the output listener only.
+     */
+    public CmdLineTool withLogFilter(Predicate<String> logFilter) {
+        this.logFilter = logFilter;
+        return this;
+    }
+
     public CmdLineTool arg(String arg) {
         args.add(arg);
         return this;
@@ -88,7 +118,10 @@ public class CmdLineTool {
                     if (isInterrupted()) {
                         return;
                     }
-                    if (log != null) {
+                    if (outputListener != null) {
+                        outputListener.accept(line);
+                    }
+                    if ((log != null) && ((logFilter == null) || logFilter.test(line))) {
                         if (err && !errToOut) {
                             log.error(line);
                         } else {
@@ -118,6 +151,9 @@ public class CmdLineTool {
                 penv.putAll(env);
             }
             Process process = pb.start();
+            if (onStart != null) {
+                onStart.accept(process);
+            }
             OutputReader inreader = new OutputReader(process.getInputStream(),false);
             inreader.start();
             OutputReader errreader = new OutputReader(process.getErrorStream(), true);
@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.platform;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Utility methods for native processes of the host platform.
+ */
+public class Processes {
+
+    // USER_HZ, the unit of CPU times in /proc, is 100 on all mainstream Linux platforms
+    private static final long CLOCK_TICKS_PER_SECOND = 100;
+
+    /**
+     * Returns the OS process id of the given process, or {@code -1} if it cannot be determined.
+     * <p>
+     * {@code Process.pid()} is only available since Java 9, so for Java 8 the method falls back
+     * to the private {@code pid} field of the Unix process implementation.
+     * </p>
+     */
+    public static long pid(Process process) {
+        try {
+            return (Long) Process.class.getMethod("pid").invoke(process);
+        } catch (ReflectiveOperationException | RuntimeException ignore) {
+        }
+        try {
+            Field pidField = process.getClass().getDeclaredField("pid");
+            pidField.setAccessible(true);
+            return pidField.getLong(process);
+        } catch (ReflectiveOperationException | RuntimeException ignore) {
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the OS process id of the current process, or {@code -1} if it cannot be determined.
+     */
+    public static long currentPid() {
+        // the name of the runtime MX bean has the "pid@hostname" form on all known JVMs
+        String name = ManagementFactory.getRuntimeMXBean().getName();
+        try {
+            return Long.parseLong(name.substring(0, name.indexOf('@')));
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Forcibly kills the process with the given id together with all its descendants.
+     * <p>
+     * Uses {@code ProcessHandle} if it is available (Java 9+), otherwise falls back to
+     * {@code taskkill /T /F} on Windows and to {@code pgrep -P}/{@code kill -KILL} on other systems.
+     * </p>
+     *
+     * @return {@code true} if the kill was requested successfully
+     */
+    public static boolean killTree(long pid) {
+        try {
+            Class<?> processHandle = Class.forName("java.lang.ProcessHandle");
+            Optional<?> handle = (Optional<?>) processHandle.getMethod("of", long.class).invoke(null, pid);
+            if (!handle.isPresent()) {
+                return false;
+            }
+            Method destroyForcibly = processHandle.getMethod("destroyForcibly");
+            Stream<?> descendants = (Stream<?>) processHandle.getMethod("descendants").invoke(handle.get());
+            for (Object descendant : descendants.toArray()) {
+                destroyForcibly.invoke(descendant);
+            }
+            return (Boolean) destroyForcibly.invoke(handle.get());
+        } catch (ClassNotFoundException ignore) {
+            // Java 8
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return false;
+        }
+        try {
+            if (Host.isWindows()) {
+                exec("taskkill", "/PID", String.valueOf(pid), "/T", "/F");
+                return true;
+            }
+            List<String> tree = new ArrayList<>();
+            collectTree(String.valueOf(pid), tree);
+            List<String> killCmd = new ArrayList<>();
+            killCmd.add("kill");
+            killCmd.add("-KILL");
+            killCmd.addAll(tree);
+            exec(killCmd.toArray(new String[killCmd.size()]));
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the resident set size of the process with the given id in bytes,
+     * or {@code -1} if it cannot be determined.
+     * <p>
+     * The value is read from {@code /proc/<pid>/status}, so it is only available on Linux.
+     * </p>
+     */
+    public static long residentSetSize(long pid) {
+        if (pid < 0) {
+            return -1;
+        }
+        File status = new File("/proc/" + pid + "/status");
+        if (!status.isFile()) {
+            return -1;
+        }
+        try {
+            for (String line : Files.readAllLines(status.toPath())) {
+                if (line.startsWith("VmRSS:")) {
+                    // the "VmRSS:    1234 kB" form
+                    String[] value = line.substring("VmRSS:".length()).trim().split("\\s+");
+                    return Long.parseLong(value[0]) * 1024;
+                }
+            }
+        } catch (IOException | RuntimeException ignore) {
+            // the process has exited meanwhile
+        }
+        return -1;
+    }
+
+    /**
+     * Memory usage of a process.
+     */
+    public static class MemoryUsage {
+
+        /**
+         * Resident set size in bytes: all pages of the process in physical memory, including shared ones.
+         */
+        public final long rss;
+
+        /**
+         * Proportional set size in bytes: private pages plus the process's share of the shared pages.
+         */
+        public final long pss;
+
+        /**
+         * Unique set size in bytes: pages private to the process, i.e. the memory freed when the process exits.
+         */
+        public final long uss;
+
+        public MemoryUsage(long rss, long pss, long uss) {
+            this.rss = rss;
+            this.pss = pss;
+            this.uss = uss;
+        }
+    }
+
+    /**
+     * Returns the memory usage of the process with the given id, or {@code null} if it cannot be determined.
+     * <p>
+     * The values are read from {@code /proc/<pid>/smaps_rollup} (Linux 4.14+) or summed over
+     * {@code /proc/<pid>/smaps} on older kernels, so they are only available on Linux.
+     * </p>
+     */
+    public static MemoryUsage memoryUsage(long pid) {
+        if (pid < 0) {
+            return null;
+        }
+        File smaps = new File("/proc/" + pid + "/smaps_rollup");
+        if (!smaps.isFile()) {
+            smaps = new File("/proc/" + pid + "/smaps");
+            if (!smaps.isFile()) {
+                return null;
+            }
+        }
+        long rss = 0;
+        long pss = 0;
+        long uss = 0;
+        try (BufferedReader reader = Files.newBufferedReader(smaps.toPath(), StandardCharsets.US_ASCII)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // the "Rss:    1234 kB" form, mapping headers are skipped
+                int colon = line.indexOf(':');
+                if ((colon < 0) || !line.endsWith(" kB")) {
+                    continue;
+                }
+                String field = line.substring(0, colon);
+                long bytes = Long.parseLong(line.substring(colon + 1, line.length() - 3).trim()) * 1024;
+                switch (field) {
+                    case "Rss":
+                        rss += bytes;
+                        break;
+                    case "Pss":
+                        pss += bytes;
+                        break;
+                    case "Private_Clean":
+                    case "Private_Dirty":
+                        uss += bytes;
+                        break;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // the process has exited or the file has an unexpected format
+            return null;
+        }
+        return new MemoryUsage(rss, pss, uss);
+    }
+
+    /**
+     * Returns the total CPU time consumed by the process with the given id in nanoseconds,
+     * or {@code -1} if it cannot be determined.
+     * <p>
+     * Uses {@code ProcessHandle.Info} if it is available (Java 9+), otherwise falls back
+     * to {@code /proc/<pid>/stat} that is only available on Linux.
+     * </p>
+     */
+    public static long cpuTime(long pid) {
+        if (pid < 0) {
+            return -1;
+        }
+        try {
+            Class<?> processHandle = Class.forName("java.lang.ProcessHandle");
+            Optional<?> handle = (Optional<?>) processHandle.getMethod("of", long.class).invoke(null, pid);
+            if (!handle.isPresent()) {
+                return -1;
+            }
+            Object info = processHandle.getMethod("info").invoke(handle.get());
+            Optional<?> total = (Optional<?>) Class.forName("java.lang.ProcessHandle$Info")
+                    .getMethod("totalCpuDuration").invoke(info);
+            if (total.isPresent()) {
+                return ((Duration) total.get()).toNanos();
+            }
+        } catch (ClassNotFoundException ignore) {
+            // Java 8
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return -1;
+        }
+        File stat = new File("/proc/" + pid + "/stat");
+        if (!stat.isFile()) {
+            return -1;
+        }
+        try {
+            String content = new String(Files.readAllBytes(stat.toPath()), StandardCharsets.US_ASCII);
+            // the process name in parentheses may contain spaces, so the fields are counted after it:
+            // state is the 3rd field of the file, utime and stime are the 14th and 15th ones
+            String[] fields = content.substring(content.lastIndexOf(')') + 2).trim().split("\\s+");
+            long ticks = Long.parseLong(fields[11]) + Long.parseLong(fields[12]);
+            return ticks * TimeUnit.SECONDS.toNanos(1) / CLOCK_TICKS_PER_SECOND;
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static void collectTree(String pid, List<String> tree) throws IOException {
+        tree.add(pid);
+        for (String child : exec("pgrep", "-P", pid)) {
+            collectTree(child.trim(), tree);
+        }
+    }
+
+    private static List<String> exec(String... cmd) throws IOException {
+        Process process = new ProcessBuilder(cmd).redirectErrorStream(true).start();
+        List<String> output = new ArrayList<>();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    output.add(line);
+                }
+            }
+        }
+        try {
+            process.waitFor(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return output;
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.api.ExcelsiorJet;
+import com.excelsiorjet.api.tasks.config.ApplicationType;
+import com.excelsiorjet.api.tasks.config.SizeBudgetConfig;
+import com.excelsiorjet.api.tasks.config.packagefile.PackageFile;
+import com.excelsiorjet.api.util.Json;
+import com.excelsiorjet.api.util.Txt;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.excelsiorjet.api.log.Log.logger;
+
+/**
+ * Breaks the size of the application image down into its contributors, compares it with the previous build
+ * and checks it against the size budget.
+ * <p>
+ * Each file of the image is attributed to one contributor: the executable (which also contains
+ * the compiled and packed classpath entries), a classpath entry copied to the image as is ({@code pack=none}),
+ * a package file, a group of runtime files in {@code rt/} or, failing all of them, to "other" files
+ * grouped by their top-level directory.
+ * </p>
+ *
+ * @see SizeBudgetConfig
+ */
+class AppSizeAnalyzer {
+
+    static final String REPORT_FILE = "size-report.json";
+
+    static final String EXECUTABLE = "executable";
+    static final String CLASSPATH = "classpath";
+    static final String PACKAGE_FILES = "package files";
+    static final String RUNTIME = "runtime";
+    static final String OTHER = "other";
+
+    private static final String RT_DIR = "rt";
+    private static final double MB = 1024.0 * 1024.0;
+
+    /**
+     * Files of the image attributed to one source.
+     */
+    static class Contributor {
+        final String category;
+        final String name;
+        long bytes;
+        int files;
+
+        Contributor(String category, String name) {
+            this.category = category;
+            this.name = name;
+        }
+
+        String key() {
+            return category + ": " + name;
+        }
+    }
+
+    /**
+     * Size breakdown of the image, the largest contributors first.
+     */
+    static class Report {
+        final long total;
+        final List<Contributor> contributors;
+
+        Report(List<Contributor> contributors) {
+            this.contributors = contributors;
+            this.contributors.sort(Comparator.comparingLong((Contributor c) -> -c.bytes).thenComparing(Contributor::key));
+            this.total = contributors.stream().mapToLong(c -> c.bytes).sum();
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("total", total);
+            map.put("contributors", contributors.stream().map(c -> {
+                Map<String, Object> contributor = new LinkedHashMap<>();
+                contributor.put("category", c.category);
+                contributor.put("name", c.name);
+                contributor.put("bytes", c.bytes);
+                contributor.put("files", c.files);
+                return contributor;
+            }).collect(Collectors.toList()));
+            return map;
+        }
+
+        @SuppressWarnings("unchecked")
+        static Report fromMap(Map<String, Object> map) {
+            List<Contributor> contributors = new ArrayList<>();
+            for (Object item : (List<Object>) map.get("contributors")) {
+                Map<String, Object> c = (Map<String, Object>) item;
+                Contributor contributor = new Contributor((String) c.get("category"), (String) c.get("name"));
+                contributor.bytes = ((Number) c.get("bytes")).longValue();
+                contributor.files = ((Number) c.get("files")).intValue();
+                contributors.add(contributor);
+            }
+            return new Report(contributors);
+        }
+
+        /**
+         * Returns the size changes of the contributors since the previous report, the largest changes first.
+         * Contributors that appeared or disappeared are compared against zero.
+         */
+        Map<String, Long> diff(Report previous) {
+            Map<String, Long> changes = new LinkedHashMap<>();
+            for (Contributor c : previous.contributors) {
+                changes.put(c.key(), -c.bytes);
+            }
+            for (Contributor c : contributors) {
+                changes.merge(c.key(), c.bytes, Long::sum);
+            }
+            return changes.entrySet().stream()
+                    .filter(e -> e.getValue() != 0)
+                    .sorted(Comparator.comparingLong((Map.Entry<String, Long> e) -> -Math.abs(e.getValue()))
+                            .thenComparing(Map.Entry::getKey))
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+        }
+    }
+
+    private final JetProject project;
+    private final ExcelsiorJet excelsiorJet;
+    private final SizeBudgetConfig budget;
+
+    AppSizeAnalyzer(JetProject project, ExcelsiorJet excelsiorJet) {
+        this.project = project;
+        this.excelsiorJet = excelsiorJet;
+        this.budget = project.sizeBudgetConfiguration() != null ? project.sizeBudgetConfiguration() :
+                new SizeBudgetConfig();
+    }
+
+    /**
+     * Analyzes the image, logs its size and the change since the previous build, writes the report
+     * and checks the size budget.
+     */
+    void analyzeAndCheck(File appDir) throws JetTaskFailureException {
+        // the report is kept next to the image, in the Excelsior JET output directory
+        File reportFile = new File(appDir.getAbsoluteFile().getParentFile(), REPORT_FILE);
+        try {
+            Report report = analyze(appDir);
+            Report previous = readReport(reportFile);
+            Files.write(reportFile.toPath(), Json.toJson(report.toMap()).getBytes(StandardCharsets.UTF_8));
+
+            if (previous == null) {
+                logger.info(Txt.s("AppSizeAnalyzer.Size.Info", mb(report.total), reportFile.getAbsolutePath()));
+            } else {
+                logger.info(Txt.s("AppSizeAnalyzer.SizeChange.Info", mb(report.total),
+                        signedMb(report.total - previous.total), reportFile.getAbsolutePath()));
+                report.diff(previous).entrySet().stream()
+                        .limit(budget.topContributors)
+                        .forEach(change -> logger.info(Txt.s("AppSizeAnalyzer.Change.Info", change.getKey(),
+                                signedMb(change.getValue()))));
+            }
+            check(report, previous, budget);
+        } catch (IOException e) {
+            throw new JetTaskFailureException(e.getMessage(), e);
+        }
+    }
+
+    private static Report readReport(File reportFile) {
+        if (!reportFile.isFile()) {
+            return null;
+        }
+        try {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> map = (Map<String, Object>) Json.parse(
+                    new String(Files.readAllBytes(reportFile.toPath()), StandardCharsets.UTF_8));
+            return Report.fromMap(map);
+        } catch (IOException | RuntimeException e) {
+            // the report of the previous build is damaged or of an incompatible format, so nothing to compare with
+            return null;
+        }
+    }
+
+    /**
+     * Checks the image size against the budget.
+     *
+     * @throws JetTaskFailureException if the budget is exceeded and {@link SizeBudgetConfig#failOnExceed} is set
+     */
+    static void check(Report report, Report previous, SizeBudgetConfig budget) throws JetTaskFailureException {
+        String violation = null;
+        if ((budget.maxSizeMb > 0) && (report.total > budget.maxSizeMb * MB)) {
+            violation = Txt.s("AppSizeAnalyzer.MaxSizeExceeded", mb(report.total), budget.maxSizeMb);
+        } else if ((budget.maxGrowthPercent > 0) && (previous != null) && (previous.total > 0) &&
+                (report.total - previous.total) * 100.0 / previous.total > budget.maxGrowthPercent)
+        {
+            violation = Txt.s("AppSizeAnalyzer.MaxGrowthExceeded",
+                    String.format("%.1f", (report.total - previous.total) * 100.0 / previous.total),
+                    budget.maxGrowthPercent);
+        }
+        if (violation == null) {
+            return;
+        }
+        String top = report.contributors.stream()
+                .limit(budget.topContributors)
+                .map(c -> Txt.s("AppSizeAnalyzer.Contributor", c.key(), mb(c.bytes), c.files))
+                .collect(Collectors.joining(System.lineSeparator()));
+        String message = Txt.s("AppSizeAnalyzer.BudgetExceeded", violation, top);
+        if (budget.failOnExceed) {
+            throw new JetTaskFailureException(message);
+        }
+        logger.warn(message);
+    }
+
+    /**
+     * Attributes the files of the given image to their contributors.
+     */
+    Report analyze(File appDir) throws IOException {
+        if (!appDir.isDirectory()) {
+            return new Report(new ArrayList<>());
+        }
+        Map<String, Contributor> locations = locations();
+        Map<String, Contributor> contributors = new LinkedHashMap<>();
+        Path root = appDir.toPath();
+        try (Stream<Path> walk = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) walk.filter(Files::isRegularFile)::iterator) {
+                String relativePath = root.relativize(file).toString().replace(File.separatorChar, '/');
+                Contributor attributed = attribute(relativePath, locations);
+                Contributor contributor = contributors.computeIfAbsent(attributed.key(),
+                        k -> new Contributor(attributed.category, attributed.name));
+                contributor.bytes += Files.size(file);
+                contributor.files++;
+            }
+        }
+        return new Report(new ArrayList<>(contributors.values()));
+    }
+
+    /**
+     * Returns the locations of the known contributors in the image relative to its root.
+     */
+    private Map<String, Contributor> locations() {
+        Map<String, Contributor> locations = new LinkedHashMap<>();
+        locations.put(project.exeRelativePath(excelsiorJet), new Contributor(EXECUTABLE, project.exeRelativePath(excelsiorJet)));
+        if (project.appType() != ApplicationType.TOMCAT) {
+            for (ClasspathEntry entry : project.classpathEntries()) {
+                if ((entry.getEffectivePack() == ClasspathEntry.PackType.NONE) &&
+                        ((project.appType() != ApplicationType.SPRING_BOOT) || entry.isMainArtifact) &&
+                        !Boolean.TRUE.equals(entry.disableCopyToPackage))
+                {
+                    String location = project.toPathRelativeToJetBuildDir(entry).toString().replace(File.separatorChar, '/');
+                    locations.put(location, new Contributor(CLASSPATH, entry.path.getName()));
+                }
+            }
+        }
+        for (PackageFile packageFile : project.packageFiles()) {
+            if (packageFile.path != null) {
+                String location = stripLeadingSlashes(packageFile.getLocationInPackage());
+                locations.put(location, new Contributor(PACKAGE_FILES, location));
+            }
+        }
+        File packageFilesDir = project.packageFilesDir();
+        if ((packageFilesDir != null) && packageFilesDir.isDirectory()) {
+            String[] children = packageFilesDir.list();
+            if (children != null) {
+                for (String child : children) {
+                    locations.putIfAbsent(child, new Contributor(PACKAGE_FILES, child));
+                }
+            }
+        }
+        return locations;
+    }
+
+    /**
+     * Returns the contributor of the file at the given path relative to the image root.
+     */
+    static Contributor attribute(String relativePath, Map<String, Contributor> locations) {
+        // the most specific location wins, so that files placed into a directory of another contributor
+        // are attributed correctly
+        Contributor best = null;
+        int bestLength = -1;
+        for (Map.Entry<String, Contributor> location : locations.entrySet()) {
+            String prefix = location.getKey();
+            if ((relativePath.equals(prefix) || relativePath.startsWith(prefix + "/")) && (prefix.length() > bestLength)) {
+                best = location.getValue();
+                bestLength = prefix.length();
+            }
+        }
+        if (best != null) {
+            return best;
+        }
+        String[] segments = relativePath.split("/");
+        if (segments[0].equals(RT_DIR) && (segments.length > 1)) {
+            return new Contributor(RUNTIME, runtimeGroup(segments));
+        }
+        return new Contributor(OTHER, segments.length == 1 ? "/" : segments[0]);
+    }
+
+    /**
+     * Groups runtime files so that the optional runtime parts (locales, fonts, etc.) are visible separately.
+     */
+    private static String runtimeGroup(String[] segments) {
+        String name = segments[segments.length - 1].toLowerCase();
+        if (name.contains("locale") || name.contains("cldr") || name.startsWith("charsets")) {
+            return "locales";
+        }
+        if (segments.length > 3) {
+            // rt/lib/fonts/..., rt/lib/ext/..., rt/bin/server/...
+            return segments[1] + "/" + segments[2];
+        }
+        return segments.length > 2 ? segments[1] : "/";
+    }
+
+    private static String stripLeadingSlashes(String path) {
+        int i = 0;
+        while ((i < path.length()) && (path.charAt(i) == '/')) {
+            i++;
+        }
+        return path.substring(i);
+    }
+
+    private static String mb(long bytes) {
+        return String.format("%.2f", bytes / MB);
+    }
+
+    private static String signedMb(long bytes) {
+        return String.format("%+.2f", bytes / MB);
+    }
+}
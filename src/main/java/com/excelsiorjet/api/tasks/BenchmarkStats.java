@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Summary statistics of a series of benchmark samples.
+ * <p>
+ * Percentiles are computed with the nearest-rank method, so every reported percentile is one of the samples.
+ * </p>
+ */
+public class BenchmarkStats {
+
+    public final int count;
+    public final double min;
+    public final double mean;
+    public final double p50;
+    public final double p90;
+    public final double p99;
+    public final double max;
+
+    private BenchmarkStats(List<Double> sorted) {
+        count = sorted.size();
+        min = sorted.get(0);
+        max = sorted.get(count - 1);
+        mean = sorted.stream().mapToDouble(Double::doubleValue).average().getAsDouble();
+        p50 = percentile(sorted, 50);
+        p90 = percentile(sorted, 90);
+        p99 = percentile(sorted, 99);
+    }
+
+    /**
+     * Computes statistics of the given samples.
+     *
+     * @return the statistics or {@code null} if there are no samples
+     */
+    public static BenchmarkStats of(Collection<? extends Number> samples) {
+        if (samples.isEmpty()) {
+            return null;
+        }
+        List<Double> sorted = new ArrayList<>(samples.size());
+        for (Number sample : samples) {
+            sorted.add(sample.doubleValue());
+        }
+        Collections.sort(sorted);
+        return new BenchmarkStats(sorted);
+    }
+
+    /**
+     * Returns the {@code p}-th percentile of the given sorted samples.
+     */
+    static double percentile(List<Double> sorted, double p) {
+        int rank = (int) Math.ceil(p / 100 * sorted.size());
+        return sorted.get(Math.max(rank, 1) - 1);
+    }
+
+    /**
+     * Returns the statistics as an ordered map suitable for JSON reports.
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("count", count);
+        map.put("min", min);
+        map.put("mean", mean);
+        map.put("p50", p50);
+        map.put("p90", p90);
+        map.put("p99", p99);
+        map.put("max", max);
+        return map;
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.api.ExcelsiorJet;
+import com.excelsiorjet.api.tasks.LoadDriver.RunningApp;
+import com.excelsiorjet.api.tasks.LoadDriver.Sample;
+import com.excelsiorjet.api.tasks.config.BuildMatrixConfig;
+import com.excelsiorjet.api.tasks.config.BuildVariant;
+import com.excelsiorjet.api.util.Json;
+import com.excelsiorjet.api.util.Txt;
+import com.excelsiorjet.api.util.Utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.excelsiorjet.api.log.Log.logger;
+
+/**
+ * Task for building the application with several combinations of compiler and runtime settings,
+ * benchmarking the resulting executables and recommending the best combination.
+ * <p>
+ * The variants are built in parallel, each in its own output directory with its own PDB,
+ * and then benchmarked one by one to not disturb the measurements. The variants are ranked by each of
+ * executable size, startup time, resident set size at startup and throughput, and ordered by the mean rank.
+ * The report and the recommended configuration snippet are written to the matrix output directory.
+ * </p>
+ *
+ * @see BuildMatrixConfig
+ */
+public class BuildMatrixTask {
+
+    static final String REPORT_FILE = "report.json";
+    static final String RECOMMENDATION_FILE = "recommended.txt";
+
+    private final ExcelsiorJet excelsiorJet;
+    private final JetProject project;
+
+    public BuildMatrixTask(ExcelsiorJet excelsiorJet, JetProject project) throws JetTaskFailureException {
+        this.excelsiorJet = excelsiorJet;
+        this.project = project;
+    }
+
+    /**
+     * Measurements of a variant. Metrics that were not measured are {@code NaN}.
+     */
+    public static class VariantResult {
+        public final String name;
+        public final Map<String, Object> settings = new LinkedHashMap<>();
+        public String failure;
+        public double buildSeconds = Double.NaN;
+        public double sizeMb = Double.NaN;
+        public double startupMillis = Double.NaN;
+        public double rssMb = Double.NaN;
+        public double throughput = Double.NaN;
+        public double score = Double.NaN;
+
+        VariantResult(String name) {
+            this.name = name;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("name", name);
+            map.put("settings", settings);
+            map.put("failure", failure);
+            map.put("buildSeconds", buildSeconds);
+            map.put("sizeMb", sizeMb);
+            map.put("startupP50Ms", startupMillis);
+            map.put("rssAtReadyP50Mb", rssMb);
+            map.put("throughput", throughput);
+            map.put("score", score);
+            return map;
+        }
+    }
+
+    /**
+     * Builds and benchmarks the variants.
+     *
+     * @return results of the successfully built and benchmarked variants, best first
+     */
+    public List<VariantResult> execute() throws JetTaskFailureException, IOException {
+        if (excelsiorJet.isCrossCompilation()) {
+            throw new JetTaskFailureException(Txt.s("RunTask.NoRunForCrossCompilation.Error"));
+        }
+
+        project.validate(excelsiorJet, true);
+
+        switch (project.appType()) {
+            case WINDOWS_SERVICE:
+            case DYNAMIC_LIBRARY:
+                throw new JetTaskFailureException(Txt.s("RunTask.AppTypeNotForRun.Error", project.appType()));
+        }
+        BuildMatrixConfig config = project.buildMatrixConfiguration();
+        if (config.variants.isEmpty()) {
+            throw new JetTaskFailureException(Txt.s("BuildMatrixTask.NoVariants.Error"));
+        }
+
+        Map<String, JetProject> variantProjects = new LinkedHashMap<>();
+        Map<String, VariantResult> results = new LinkedHashMap<>();
+        for (BuildVariant variant : config.variants) {
+            File variantDir = new File(config.outputDir, variant.name);
+            Utils.mkdir(variantDir);
+            variantProjects.put(variant.name, apply(variant, project.copyForBuildIn(variantDir, excelsiorJet)));
+            results.put(variant.name, new VariantResult(variant.name));
+        }
+
+        build(config, variantProjects, results);
+        for (Map.Entry<String, JetProject> variant : variantProjects.entrySet()) {
+            VariantResult result = results.get(variant.getKey());
+            if (result.failure == null) {
+                benchmark(config, variant.getValue(), result);
+            }
+        }
+
+        List<VariantResult> ranked = rank(new ArrayList<>(results.values()));
+        if (ranked.isEmpty()) {
+            throw new JetTaskFailureException(Txt.s("BuildMatrixTask.AllVariantsFailed.Error"));
+        }
+        for (int i = 0; i < ranked.size(); i++) {
+            VariantResult result = ranked.get(i);
+            logger.info(Txt.s("BuildMatrixTask.Rank.Info", i + 1, result.name, format(result.sizeMb),
+                    format(result.startupMillis), format(result.rssMb), format(result.throughput), format(result.score)));
+        }
+
+        VariantResult best = ranked.get(0);
+        JetProject bestProject = variantProjects.get(best.name);
+        List<String> recommendation = recommendation(bestProject);
+        File recommendationFile = new File(config.outputDir, RECOMMENDATION_FILE);
+        Utils.linesToFile(recommendation, recommendationFile);
+        logger.info(Txt.s("BuildMatrixTask.Recommended.Info", best.name, recommendationFile.getAbsolutePath()));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("recommended", best.name);
+        report.put("ranked", ranked.stream().map(VariantResult::toMap).collect(Collectors.toList()));
+        report.put("failed", results.values().stream()
+                .filter(r -> r.failure != null)
+                .map(VariantResult::toMap)
+                .collect(Collectors.toList()));
+        File reportFile = new File(config.outputDir, REPORT_FILE);
+        Files.write(reportFile.toPath(), Json.toJson(report).getBytes(StandardCharsets.UTF_8));
+        logger.info(Txt.s("BuildMatrixTask.Report.Info", reportFile.getAbsolutePath()));
+
+        return ranked;
+    }
+
+    private static JetProject apply(BuildVariant variant, JetProject variantProject) {
+        if (variant.inlineExpansion != null) {
+            variantProject.inlineExpansion(variant.inlineExpansion);
+        }
+        if (variant.stackAllocation != null) {
+            variantProject.stackAllocation(variant.stackAllocation);
+        }
+        if (variant.globalOptimizer != null) {
+            variantProject.globalOptimizer(variant.globalOptimizer);
+        }
+        if (variant.stackTraceSupport != null) {
+            variantProject.stackTraceSupport(variant.stackTraceSupport);
+        }
+        if (variant.runtimeFlavor != null) {
+            variantProject.runtimeConfiguration().flavor = variant.runtimeFlavor;
+        }
+        return variantProject;
+    }
+
+    /**
+     * Builds the variants in parallel, recording build times and failures.
+     */
+    private void build(BuildMatrixConfig config, Map<String, JetProject> variantProjects,
+                       Map<String, VariantResult> results) throws JetTaskFailureException
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(config.parallelism, variantProjects.size()));
+        try {
+            Map<String, Future<Double>> builds = new LinkedHashMap<>();
+            for (Map.Entry<String, JetProject> variant : variantProjects.entrySet()) {
+                builds.put(variant.getKey(), executor.submit(() -> {
+                    logger.info(Txt.s("BuildMatrixTask.Build.Info", variant.getKey()));
+                    long start = System.nanoTime();
+                    new JetBuildTask(excelsiorJet, variant.getValue(), false).execute();
+                    return (System.nanoTime() - start) / 1e9;
+                }));
+            }
+            for (Map.Entry<String, Future<Double>> build : builds.entrySet()) {
+                VariantResult result = results.get(build.getKey());
+                try {
+                    result.buildSeconds = build.getValue().get();
+                    result.settings.putAll(settings(variantProjects.get(build.getKey())));
+                } catch (ExecutionException e) {
+                    result.failure = e.getCause().getMessage();
+                    logger.error(Txt.s("BuildMatrixTask.VariantFailed.Error", result.name, result.failure));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JetTaskFailureException(e.getMessage(), e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void benchmark(BuildMatrixConfig config, JetProject variantProject, VariantResult result) {
+        try {
+            File appDir = variantProject.jetAppDir();
+            result.sizeMb = Utils.sizeOf(appDir) / (1024.0 * 1024.0);
+            if (config.benchmarkStartup) {
+                StartupBenchmarkTask.Report startup = new StartupBenchmarkTask(excelsiorJet, variantProject)
+                        .benchmarkExecutable(result.name, appDir);
+                if (startup.readyMillis != null) {
+                    result.startupMillis = startup.readyMillis.p50;
+                }
+                if (startup.rssAtReadyKb != null) {
+                    result.rssMb = startup.rssAtReadyKb.p50 / 1024.0;
+                }
+            }
+            if (config.loadDriver.isDefined()) {
+                logger.info(Txt.s("BuildMatrixTask.Load.Info", result.name));
+                try (RunningApp app = RunningApp.start(appDir, variantProject.exeRelativePath(excelsiorJet),
+                        variantProject.exeRunArgs()))
+                {
+                    List<Sample> samples = new LoadDriver(config.loadDriver).drive(app);
+                    result.throughput = BenchmarkStats.of(Sample.throughput(samples)).mean;
+                }
+            }
+        } catch (Exception e) {
+            result.failure = e.getMessage();
+            logger.error(Txt.s("BuildMatrixTask.VariantFailed.Error", result.name, result.failure));
+        }
+    }
+
+    /**
+     * Ranks the successful variants by each measured metric and orders them by the mean rank.
+     * The variant with the best value of a metric gets rank 1, variants with equal values get equal ranks.
+     *
+     * @return the successful variants, best first, with {@link VariantResult#score} set to the mean rank
+     */
+    static List<VariantResult> rank(List<VariantResult> results) {
+        List<VariantResult> succeeded = results.stream()
+                .filter(r -> r.failure == null)
+                .collect(Collectors.toList());
+        List<Function<VariantResult, Double>> lowerIsBetter = Arrays.asList(
+                r -> r.sizeMb, r -> r.startupMillis, r -> r.rssMb, r -> -r.throughput);
+        Map<VariantResult, List<Integer>> ranks = new LinkedHashMap<>();
+        for (VariantResult result : succeeded) {
+            ranks.put(result, new ArrayList<>());
+        }
+        for (Function<VariantResult, Double> metric : lowerIsBetter) {
+            for (VariantResult result : succeeded) {
+                double value = metric.apply(result);
+                if (Double.isNaN(value)) {
+                    continue;
+                }
+                int rank = 1;
+                for (VariantResult other : succeeded) {
+                    if (metric.apply(other) < value) {
+                        rank++;
+                    }
+                }
+                ranks.get(result).add(rank);
+            }
+        }
+        for (VariantResult result : succeeded) {
+            result.score = ranks.get(result).stream().mapToInt(Integer::intValue).average().orElse(Double.NaN);
+        }
+        succeeded.sort(Comparator.comparingDouble((VariantResult r) -> r.score).thenComparing(r -> r.name));
+        return succeeded;
+    }
+
+    private static Map<String, Object> settings(JetProject variantProject) {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("inlineExpansion", variantProject.inlineExpansion().toString());
+        settings.put("stackAllocation", variantProject.stackAllocation());
+        settings.put("globalOptimizer", variantProject.globalOptimizer());
+        settings.put("stackTraceSupport", variantProject.stackTraceSupport().toString());
+        settings.put("runtimeFlavor", variantProject.runtimeConfiguration().flavor);
+        return settings;
+    }
+
+    /**
+     * Returns Maven and Gradle configuration snippets with the settings of the given variant.
+     */
+    private static List<String> recommendation(JetProject variantProject) {
+        Map<String, Object> settings = settings(variantProject);
+        Object flavor = settings.remove("runtimeFlavor");
+        List<String> lines = new ArrayList<>();
+        lines.add("Maven:");
+        for (Map.Entry<String, Object> setting : settings.entrySet()) {
+            lines.add("<" + setting.getKey() + ">" + setting.getValue() + "</" + setting.getKey() + ">");
+        }
+        if (flavor != null) {
+            lines.add("<runtime>");
+            lines.add("    <flavor>" + flavor + "</flavor>");
+            lines.add("</runtime>");
+        }
+        lines.add("");
+        lines.add("Gradle:");
+        for (Map.Entry<String, Object> setting : settings.entrySet()) {
+            Object value = setting.getValue();
+            lines.add(setting.getKey() + " = " + (value instanceof String ? "'" + value + "'" : value));
+        }
+        if (flavor != null) {
+            lines.add("runtime {");
+            lines.add("    flavor = '" + flavor + "'");
+            lines.add("}");
+        }
+        return lines;
+    }
+
+    private static String format(double value) {
+        return Double.isNaN(value) ? "n/a" : String.format("%.2f", value);
+    }
+}
@@ -0,0 +1,695 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.api.ExcelsiorJet;
+import com.excelsiorjet.api.tasks.config.ClasspathAnalysisConfig;
+import com.excelsiorjet.api.tasks.config.compiler.ExecProfilesConfig;
+import com.excelsiorjet.api.tasks.config.dependencies.DependencySettings;
+import com.excelsiorjet.api.tasks.config.dependencies.ProjectDependency;
+import com.excelsiorjet.api.util.Json;
+import com.excelsiorjet.api.util.Txt;
+import com.excelsiorjet.api.util.Utils;
+import com.excelsiorjet.api.util.ZipDirectory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static com.excelsiorjet.api.log.Log.logger;
+
+/**
+ * Task for analyzing the classpath of the application before the build.
+ * <p>
+ * The compilation time and the executable size grow with every classpath entry, so the task reports
+ * classes duplicated across entries, packages split across entries, and entries whose classes are referenced
+ * neither from the bytecode of the main artifact (directly or via other referenced entries)
+ * nor from the usage list collected by the Test Run. For such entries, the task estimates
+ * the compilation time saving and, optionally, suggests dependency settings.
+ * </p>
+ * <p>
+ * Entries are listed in parallel by reading the central directories of jars, which does not inflate their contents.
+ * Only the classes of the entries found to be referenced are read to follow the references further.
+ * Entries providing services ({@code META-INF/services}) are considered referenced, as they are loaded
+ * via reflection, and so are entries that contain no classes.
+ * </p>
+ *
+ * @see ClasspathAnalysisConfig
+ */
+public class ClasspathAnalysisTask {
+
+    private static final String CLASS_SUFFIX = ".class";
+    private static final String SERVICES_DIR = "META-INF/services/";
+    private static final String VERSIONS_DIR = "META-INF/versions/";
+    private static final String[] CLASSES_DIRS = {"BOOT-INF/classes/", "WEB-INF/classes/"};
+    private static final int MAX_EXAMPLES = 3;
+    private static final int MAX_LOGGED = 10;
+    private static final double MB = 1024.0 * 1024.0;
+
+    private final ExcelsiorJet excelsiorJet;
+    private final JetProject project;
+
+    public ClasspathAnalysisTask(ExcelsiorJet excelsiorJet, JetProject project) throws JetTaskFailureException {
+        this.excelsiorJet = excelsiorJet;
+        this.project = project;
+    }
+
+    /**
+     * Classes of a classpath entry by their internal names, with their uncompressed sizes.
+     */
+    static class EntryContents {
+        final ClasspathEntry entry;
+        final Map<String, Long> classes = new HashMap<>();
+        boolean providesServices;
+        long bytes;
+
+        EntryContents(ClasspathEntry entry) {
+            this.entry = entry;
+        }
+
+        String name() {
+            return entry.path.getName();
+        }
+
+        void add(String entryName, long size) {
+            if (entryName.startsWith(SERVICES_DIR) && (entryName.length() > SERVICES_DIR.length())) {
+                providesServices = true;
+            }
+            String className = className(entryName);
+            if ((className != null) && (classes.put(className, size) == null)) {
+                bytes += size;
+            }
+        }
+
+        boolean isCompiledFully() {
+            return entry.optimize != ClasspathEntry.OptimizationType.AUTO_DETECT;
+        }
+    }
+
+    /**
+     * Classes found in the same set of classpath entries.
+     */
+    public static class DuplicateClasses {
+        public final List<String> entries;
+        public final List<String> examples = new ArrayList<>();
+        public int classes;
+        public long shadowedBytes;
+
+        DuplicateClasses(List<String> entries) {
+            this.entries = entries;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("entries", entries);
+            map.put("classes", classes);
+            map.put("shadowedBytes", shadowedBytes);
+            map.put("examples", examples);
+            return map;
+        }
+    }
+
+    /**
+     * Classpath entry referenced neither from the main artifact nor from the Test Run profile.
+     */
+    public static class UnreferencedEntry {
+        public final File path;
+        public final int classes;
+        public final long bytes;
+        public DependencySettings suggestion;
+
+        UnreferencedEntry(File path, int classes, long bytes) {
+            this.path = path;
+            this.classes = classes;
+            this.bytes = bytes;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("path", path.getPath());
+            map.put("classes", classes);
+            map.put("bytes", bytes);
+            if (suggestion != null) {
+                Map<String, Object> settings = new LinkedHashMap<>();
+                settings.put("groupId", suggestion.groupId);
+                settings.put("artifactId", suggestion.artifactId);
+                settings.put("path", suggestion.path == null ? null : suggestion.path.getPath());
+                settings.put("optimize", suggestion.optimize);
+                map.put("suggestion", settings);
+            }
+            return map;
+        }
+    }
+
+    /**
+     * Results of the classpath analysis.
+     */
+    public static class Report {
+        public int entries;
+        public int classes;
+        public long bytes;
+        public final List<DuplicateClasses> duplicates = new ArrayList<>();
+        public final Map<String, List<String>> splitPackages = new TreeMap<>();
+        public final List<UnreferencedEntry> unreferenced = new ArrayList<>();
+
+        /**
+         * Bytecode compiled with {@code optimize=all}, which the compilation time is roughly proportional to.
+         */
+        public long compiledBytes;
+
+        /**
+         * Part of {@link #compiledBytes} in unreferenced entries and in duplicate classes shadowed by earlier entries.
+         */
+        public long removableBytes;
+
+        public int duplicateClasses() {
+            return duplicates.stream().mapToInt(d -> d.classes).sum();
+        }
+
+        public double estimatedSavingPercent() {
+            return compiledBytes == 0 ? 0 : removableBytes * 100.0 / compiledBytes;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("entries", entries);
+            map.put("classes", classes);
+            map.put("bytes", bytes);
+            map.put("duplicateClasses", duplicates.stream().map(DuplicateClasses::toMap).collect(Collectors.toList()));
+            map.put("splitPackages", splitPackages);
+            map.put("unreferencedEntries", unreferenced.stream().map(UnreferencedEntry::toMap).collect(Collectors.toList()));
+            map.put("compiledBytes", compiledBytes);
+            map.put("removableBytes", removableBytes);
+            map.put("estimatedSavingPercent", Math.round(estimatedSavingPercent() * 10) / 10.0);
+            return map;
+        }
+    }
+
+    /**
+     * Analyzes the classpath, logs the findings and writes the report.
+     */
+    public Report execute() throws JetTaskFailureException, IOException {
+        project.validate(excelsiorJet, false);
+        ClasspathAnalysisConfig config = project.classpathAnalysisConfiguration();
+
+        List<EntryContents> contents = scan(project.classpathEntries(), config.parallelism);
+        Set<String> usedClasses = usedClasses(project.execProfiles());
+        Report report = analyze(contents, usedClasses, config.parallelism);
+        if (config.suggestDependencySettings) {
+            suggest(report, project.projectDependencies());
+        }
+
+        log(report);
+        Utils.mkdir(config.reportFile.getAbsoluteFile().getParentFile());
+        Files.write(config.reportFile.toPath(), Json.toJson(report.toMap()).getBytes(StandardCharsets.UTF_8));
+        logger.info(Txt.s("ClasspathAnalysisTask.Report.Info", config.reportFile.getAbsolutePath()));
+        if (config.failOnDuplicates && !report.duplicates.isEmpty()) {
+            throw new JetTaskFailureException(Txt.s("ClasspathAnalysisTask.DuplicatesFound.Error",
+                    report.duplicateClasses(), config.reportFile.getAbsolutePath()));
+        }
+        return report;
+    }
+
+    private static void log(Report report) {
+        logger.info(Txt.s("ClasspathAnalysisTask.Summary.Info", report.entries, report.classes, mb(report.bytes)));
+        for (DuplicateClasses duplicate : report.duplicates) {
+            logger.warn(Txt.s("ClasspathAnalysisTask.Duplicates.Warning", duplicate.classes,
+                    String.join(", ", duplicate.entries), String.join(", ", duplicate.examples)));
+        }
+        report.splitPackages.entrySet().stream().limit(MAX_LOGGED).forEach(split ->
+                logger.warn(Txt.s("ClasspathAnalysisTask.SplitPackage.Warning", split.getKey(),
+                        String.join(", ", split.getValue()))));
+        if (report.splitPackages.size() > MAX_LOGGED) {
+            logger.warn(Txt.s("ClasspathAnalysisTask.MoreSplitPackages.Warning", report.splitPackages.size() - MAX_LOGGED));
+        }
+        for (UnreferencedEntry entry : report.unreferenced) {
+            logger.warn(Txt.s("ClasspathAnalysisTask.Unreferenced.Warning", entry.path.getName(), entry.classes,
+                    mb(entry.bytes)));
+            if (entry.suggestion != null) {
+                logger.info(Txt.s("ClasspathAnalysisTask.Suggestion.Info", entry.suggestion.idStr(),
+                        entry.suggestion.optimize));
+            }
+        }
+        if (report.removableBytes > 0) {
+            logger.info(Txt.s("ClasspathAnalysisTask.Saving.Info",
+                    String.format("%.1f", report.estimatedSavingPercent()),
+                    mb(report.removableBytes), mb(report.compiledBytes)));
+        }
+    }
+
+    /**
+     * Lists the classes of the given classpath entries in parallel, preserving the order of the entries.
+     */
+    static List<EntryContents> scan(List<ClasspathEntry> entries, int parallelism) throws JetTaskFailureException {
+        return inParallel(entries.stream().map(entry -> (Callable<EntryContents>) () -> {
+            EntryContents contents = new EntryContents(entry);
+            try {
+                if (entry.path.isDirectory()) {
+                    Path root = entry.path.toPath();
+                    try (Stream<Path> walk = Files.walk(root)) {
+                        for (Path file : (Iterable<Path>) walk.filter(Files::isRegularFile)::iterator) {
+                            contents.add(root.relativize(file).toString().replace(File.separatorChar, '/'),
+                                    Files.size(file));
+                        }
+                    }
+                } else if (entry.path.isFile()) {
+                    for (ZipDirectory.Entry zipEntry : ZipDirectory.read(entry.path)) {
+                        if (!zipEntry.isDirectory()) {
+                            contents.add(zipEntry.name, zipEntry.size);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                logger.warn(Txt.s("ClasspathAnalysisTask.NotScanned.Warning", entry.path.getAbsolutePath(),
+                        e.toString()));
+            }
+            return contents;
+        }).collect(Collectors.toList()), parallelism);
+    }
+
+    /**
+     * Returns the internal name of the class stored in a classpath entry under the given name,
+     * or {@code null} if it is not a class file.
+     */
+    static String className(String entryName) {
+        if (!entryName.endsWith(CLASS_SUFFIX)) {
+            return null;
+        }
+        String name = entryName;
+        if (name.startsWith(VERSIONS_DIR)) {
+            // META-INF/versions/9/a/b/C.class is a variant of a/b/C.class
+            int slash = name.indexOf('/', VERSIONS_DIR.length());
+            if (slash < 0) {
+                return null;
+            }
+            name = name.substring(slash + 1);
+        }
+        for (String classesDir : CLASSES_DIRS) {
+            if (name.startsWith(classesDir)) {
+                name = name.substring(classesDir.length());
+                break;
+            }
+        }
+        name = name.substring(0, name.length() - CLASS_SUFFIX.length());
+        if (name.equals("module-info") || name.startsWith("META-INF/")) {
+            return null;
+        }
+        return name;
+    }
+
+    private static String packageName(String className) {
+        int slash = className.lastIndexOf('/');
+        return slash < 0 ? "" : className.substring(0, slash).replace('/', '.');
+    }
+
+    /**
+     * Returns the classes listed in the Test Run usage list, if any, in both internal and binary form,
+     * as the format of the entries is not relied upon.
+     */
+    static Set<String> usedClasses(ExecProfilesConfig execProfiles) throws IOException {
+        if ((execProfiles == null) || (execProfiles.getUsg() == null) || !execProfiles.getUsg().isFile()) {
+            return Collections.emptySet();
+        }
+        Set<String> used = new HashSet<>();
+        UsageList.forEachEntry(execProfiles.getUsg(), (section, entry) -> {
+            if (entry != null) {
+                used.add(usedClass(entry));
+            }
+        });
+        return used;
+    }
+
+    /**
+     * Returns the class name of a usage list entry in the internal form.
+     * The entry may be followed by attributes, and it may not be a class at all, which is harmless
+     * as it is only looked up.
+     */
+    static String usedClass(String entry) {
+        int end = 0;
+        while ((end < entry.length()) && !Character.isWhitespace(entry.charAt(end))) {
+            end++;
+        }
+        return entry.substring(0, end).replace('.', '/');
+    }
+
+    /**
+     * Finds duplicate classes, split packages and unreferenced entries.
+     */
+    static Report analyze(List<EntryContents> contents, Set<String> usedClasses, int parallelism)
+            throws JetTaskFailureException
+    {
+        Report report = new Report();
+        report.entries = contents.size();
+
+        // owners of each class and package in the classpath order
+        Map<String, List<Integer>> classOwners = new HashMap<>();
+        Map<String, Set<Integer>> packageOwners = new TreeMap<>();
+        for (int i = 0; i < contents.size(); i++) {
+            EntryContents entry = contents.get(i);
+            report.bytes += entry.bytes;
+            if (entry.isCompiledFully()) {
+                report.compiledBytes += entry.bytes;
+            }
+            for (String className : entry.classes.keySet()) {
+                classOwners.computeIfAbsent(className, c -> new ArrayList<>(1)).add(i);
+                String pkg = packageName(className);
+                if (!pkg.isEmpty()) {
+                    packageOwners.computeIfAbsent(pkg, p -> new TreeSet<>()).add(i);
+                }
+            }
+        }
+        report.classes = classOwners.size();
+
+        BitSet reached = reachedEntries(contents, classOwners, usedClasses, parallelism);
+
+        Map<List<Integer>, DuplicateClasses> duplicates = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Integer>> owners : new TreeMap<>(classOwners).entrySet()) {
+            if (owners.getValue().size() < 2) {
+                continue;
+            }
+            DuplicateClasses duplicate = duplicates.computeIfAbsent(owners.getValue(), o -> new DuplicateClasses(
+                    o.stream().map(i -> contents.get(i).name()).collect(Collectors.toList())));
+            duplicate.classes++;
+            if (duplicate.examples.size() < MAX_EXAMPLES) {
+                duplicate.examples.add(owners.getKey().replace('/', '.'));
+            }
+            // only the first copy of a class is loaded, the others are compiled in vain
+            for (int owner : owners.getValue().subList(1, owners.getValue().size())) {
+                EntryContents entry = contents.get(owner);
+                long size = entry.classes.get(owners.getKey());
+                duplicate.shadowedBytes += size;
+                if (entry.isCompiledFully() && reached.get(owner)) {
+                    report.removableBytes += size;
+                }
+            }
+        }
+        report.duplicates.addAll(duplicates.values());
+
+        packageOwners.forEach((pkg, owners) -> {
+            if (owners.size() > 1) {
+                report.splitPackages.put(pkg, owners.stream().map(i -> contents.get(i).name())
+                        .collect(Collectors.toList()));
+            }
+        });
+
+        for (int i = 0; i < contents.size(); i++) {
+            EntryContents entry = contents.get(i);
+            if (!reached.get(i)) {
+                report.unreferenced.add(new UnreferencedEntry(entry.entry.path, entry.classes.size(), entry.bytes));
+                if (entry.isCompiledFully()) {
+                    report.removableBytes += entry.bytes;
+                }
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Returns the entries reachable by class references from the roots: the main artifact, service providers,
+     * entries without classes and entries with classes from the usage list.
+     * The classes of each newly reached entry are read in parallel to follow their references.
+     */
+    private static BitSet reachedEntries(List<EntryContents> contents, Map<String, List<Integer>> classOwners,
+                                         Set<String> usedClasses, int parallelism) throws JetTaskFailureException
+    {
+        BitSet reached = new BitSet(contents.size());
+        for (int i = 0; i < contents.size(); i++) {
+            EntryContents entry = contents.get(i);
+            if (entry.entry.isMainArtifact || entry.providesServices || entry.classes.isEmpty()) {
+                reached.set(i);
+            }
+        }
+        for (String used : usedClasses) {
+            List<Integer> owners = classOwners.get(used);
+            if (owners != null) {
+                owners.forEach(reached::set);
+            }
+        }
+
+        BitSet wave = (BitSet) reached.clone();
+        while (!wave.isEmpty()) {
+            List<Callable<Set<String>>> reads = wave.stream()
+                    .mapToObj(i -> (Callable<Set<String>>) () -> referencedClasses(contents.get(i)))
+                    .collect(Collectors.toList());
+            BitSet next = new BitSet(contents.size());
+            for (Set<String> referenced : inParallel(reads, parallelism)) {
+                for (String className : referenced) {
+                    List<Integer> owners = classOwners.get(className);
+                    if (owners != null) {
+                        for (int owner : owners) {
+                            if (!reached.get(owner)) {
+                                reached.set(owner);
+                                next.set(owner);
+                            }
+                        }
+                    }
+                }
+            }
+            wave = next;
+        }
+        return reached;
+    }
+
+    /**
+     * Returns the classes referenced from the classes of the given entry.
+     */
+    private static Set<String> referencedClasses(EntryContents contents) {
+        Set<String> referenced = new HashSet<>();
+        try {
+            forEachClassFile(contents.entry.path, classFile -> referencedClasses(classFile, referenced::add));
+        } catch (IOException e) {
+            logger.warn(Txt.s("ClasspathAnalysisTask.NotScanned.Warning", contents.entry.path.getAbsolutePath(),
+                    e.toString()));
+        }
+        return referenced;
+    }
+
+    /**
+     * Receives the contents of class files.
+     */
+    interface ClassFileVisitor {
+        void visit(byte[] classFile) throws IOException;
+    }
+
+    /**
+     * Reads the class files of the given jar or directory.
+     */
+    static void forEachClassFile(File path, ClassFileVisitor visitor) throws IOException {
+        if (path.isDirectory()) {
+            Path root = path.toPath();
+            try (Stream<Path> walk = Files.walk(root)) {
+                for (Path file : (Iterable<Path>) walk.filter(Files::isRegularFile)::iterator) {
+                    if (className(root.relativize(file).toString().replace(File.separatorChar, '/')) != null) {
+                        visitor.visit(Files.readAllBytes(file));
+                    }
+                }
+            }
+        } else if (path.isFile()) {
+            try (ZipFile zip = new ZipFile(path)) {
+                Enumeration<? extends ZipEntry> entries = zip.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    if (!entry.isDirectory() && (className(entry.getName()) != null)) {
+                        ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) Math.max(entry.getSize(), 0));
+                        try (InputStream in = zip.getInputStream(entry)) {
+                            Utils.copy(in, bytes);
+                        }
+                        visitor.visit(bytes.toByteArray());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reports the internal names of the classes referenced from the constant pool of the given class file.
+     * <p>
+     * Besides class constants, all strings of the constant pool are searched for type descriptors
+     * ({@code Lname;}), which covers signatures, annotations and member types.
+     * Some reported names may not be classes at all, which is harmless as they are only looked up.
+     * </p>
+     */
+    static void referencedClasses(byte[] classFile, Consumer<String> consumer) throws IOException {
+        readConstantPool(classFile, consumer, string -> descriptorTypes(string, consumer));
+    }
+
+    /**
+     * Reports the names of the class constants (except array classes) and all strings ({@code CONSTANT_Utf8})
+     * of the constant pool of the given class file.
+     */
+    static void readConstantPool(byte[] classFile, Consumer<String> classes, Consumer<String> strings)
+            throws IOException
+    {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(classFile));
+        if (in.readInt() != 0xCAFEBABE) {
+            return;
+        }
+        in.readUnsignedShort();
+        in.readUnsignedShort();
+        int count = in.readUnsignedShort();
+        String[] utf8 = new String[count];
+        List<Integer> classNames = new ArrayList<>();
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1: // Utf8
+                    utf8[i] = in.readUTF();
+                    break;
+                case 7: // Class
+                    classNames.add(in.readUnsignedShort());
+                    break;
+                case 8: // String
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    in.skipBytes(2);
+                    break;
+                case 15: // MethodHandle
+                    in.skipBytes(3);
+                    break;
+                case 3: // Integer
+                case 4: // Float
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    in.skipBytes(4);
+                    break;
+                case 5: // Long
+                case 6: // Double
+                    in.skipBytes(8);
+                    i++;
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+        for (int index : classNames) {
+            String name = (index < count) ? utf8[index] : null;
+            if ((name != null) && !name.startsWith("[")) {
+                classes.accept(name);
+            }
+        }
+        for (String string : utf8) {
+            if (string != null) {
+                strings.accept(string);
+            }
+        }
+    }
+
+    private static void descriptorTypes(String s, Consumer<String> consumer) {
+        int start = s.indexOf('L');
+        while (start >= 0) {
+            int end = start + 1;
+            while ((end < s.length()) && isNameChar(s.charAt(end))) {
+                end++;
+            }
+            if ((end < s.length()) && (end > start + 1) && (s.charAt(end) == ';' || s.charAt(end) == '<')) {
+                consumer.accept(s.substring(start + 1, end));
+            }
+            start = s.indexOf('L', end);
+        }
+    }
+
+    private static boolean isNameChar(char c) {
+        return (c != ';') && (c != '<') && (c != '>') && (c != '(') && (c != ')') && (c != '[') && (c != ':')
+                && !Character.isWhitespace(c);
+    }
+
+    /**
+     * Suggests to compile unreferenced dependencies with {@code optimize=auto-detect}, so that only the classes
+     * that turn out to be used are compiled into the executable.
+     */
+    static void suggest(Report report, List<ProjectDependency> dependencies) {
+        Map<File, ProjectDependency> byPath = new HashMap<>();
+        if (dependencies != null) {
+            for (ProjectDependency dependency : dependencies) {
+                if (dependency.path != null) {
+                    byPath.put(dependency.path.getAbsoluteFile(), dependency);
+                }
+            }
+        }
+        for (UnreferencedEntry entry : report.unreferenced) {
+            ProjectDependency dependency = byPath.get(entry.path.getAbsoluteFile());
+            DependencySettings settings = ((dependency != null) && (dependency.artifactId != null)) ?
+                    new DependencySettings(dependency.groupId, dependency.artifactId, null, null) :
+                    new DependencySettings(entry.path, null, null);
+            settings.optimize = ClasspathEntry.OptimizationType.AUTO_DETECT.userValue;
+            entry.suggestion = settings;
+        }
+    }
+
+    static <T> List<T> inParallel(List<Callable<T>> tasks, int parallelism) throws JetTaskFailureException {
+        if (tasks.isEmpty()) {
+            return Collections.emptyList();
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, tasks.size())));
+        try {
+            List<T> results = new ArrayList<>(tasks.size());
+            for (Future<T> future : executor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JetTaskFailureException(e.getMessage(), e);
+        } catch (ExecutionException e) {
+            throw new JetTaskFailureException(e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String mb(long bytes) {
+        return String.format("%.2f", bytes / MB);
+    }
+}
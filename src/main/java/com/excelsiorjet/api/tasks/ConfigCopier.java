@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.*;
+
+/**
+ * Deep copier of the configuration objects of a {@link JetProject}.
+ * <p>
+ * Configuration objects, that is objects of the {@code com.excelsiorjet} classes, are copied field by field
+ * along with the collections, maps and arrays they refer to, so that the validation of a copy,
+ * which fills defaults in place, never touches the original. Strings, files, enums and other values
+ * are shared, as are the objects that cannot be instantiated without arguments, which are treated as immutable.
+ * Objects referred to several times are copied once, keeping the shape of the configuration.
+ * </p>
+ *
+ * @see ValidationCache
+ */
+final class ConfigCopier {
+
+    private final IdentityHashMap<Object, Object> copies = new IdentityHashMap<>();
+
+    /**
+     * Replaces the configuration objects referred to by the non-static, non-transient fields of
+     * the given project with their deep copies.
+     */
+    static void copyConfigurations(JetProject project) {
+        new ConfigCopier().copyFields(project, project, JetProject.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object copy(Object value) {
+        if ((value == null) || (value instanceof String) || (value instanceof Number) || (value instanceof Boolean) ||
+                (value instanceof Character) || (value instanceof Enum))
+        {
+            return value;
+        }
+        Object copy = copies.get(value);
+        if (copy != null) {
+            return copy;
+        }
+        Class<?> type = value.getClass();
+        if (type.isArray()) {
+            int length = Array.getLength(value);
+            copy = Array.newInstance(type.getComponentType(), length);
+            copies.put(value, copy);
+            for (int i = 0; i < length; i++) {
+                Array.set(copy, i, copy(Array.get(value, i)));
+            }
+        } else if (value instanceof List) {
+            List<Object> list = new ArrayList<>();
+            copies.put(value, list);
+            for (Object element : (List<Object>) value) {
+                list.add(copy(element));
+            }
+            copy = list;
+        } else if (value instanceof Set) {
+            Set<Object> set = new LinkedHashSet<>();
+            copies.put(value, set);
+            for (Object element : (Set<Object>) value) {
+                set.add(copy(element));
+            }
+            copy = set;
+        } else if (value instanceof Map) {
+            Map<Object, Object> map = new LinkedHashMap<>();
+            copies.put(value, map);
+            for (Map.Entry<Object, Object> entry : ((Map<Object, Object>) value).entrySet()) {
+                map.put(copy(entry.getKey()), copy(entry.getValue()));
+            }
+            copy = map;
+        } else if (ConfigFields.isConfigType(type)) {
+            copy = newInstance(type);
+            if (copy == null) {
+                copy = value;
+                copies.put(value, copy);
+            } else {
+                copies.put(value, copy);
+                copyFields(value, copy, type);
+            }
+        } else {
+            // not a configuration object, e.g. a file or a test spy
+            copy = value;
+        }
+        return copy;
+    }
+
+    private static Object newInstance(Class<?> type) {
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor.newInstance();
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Sets the fields of {@code target} declared in {@code type} and its superclasses to the copies
+     * of the respective fields of {@code source}.
+     */
+    private void copyFields(Object source, Object target, Class<?> type) {
+        for (Field field : ConfigFields.of(type)) {
+            try {
+                field.set(target, copy(field.get(source)));
+            } catch (IllegalAccessException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
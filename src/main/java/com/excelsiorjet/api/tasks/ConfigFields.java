@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reflective access to the fields of the configuration objects of a {@link JetProject},
+ * that is objects of the {@code com.excelsiorjet} classes, shared by {@link ValidationCache}
+ * and {@link ConfigCopier}.
+ */
+final class ConfigFields {
+
+    private static final String CONFIG_PACKAGE_PREFIX = "com.excelsiorjet.";
+
+    private ConfigFields() {
+    }
+
+    /**
+     * @return {@code true} if the given class is a configuration class rather than a generated
+     *         subclass of one (such as a test spy)
+     */
+    static boolean isConfigType(Class<?> type) {
+        return type.getName().startsWith(CONFIG_PACKAGE_PREFIX) && !isGenerated(type);
+    }
+
+    /**
+     * Returns the nearest class of the given one that is not a generated subclass (such as a test spy).
+     */
+    static Class<?> describedType(Class<?> type) {
+        while (isGenerated(type) && (type.getSuperclass() != null)) {
+            type = type.getSuperclass();
+        }
+        return type;
+    }
+
+    private static boolean isGenerated(Class<?> type) {
+        return type.getName().contains("$$");
+    }
+
+    /**
+     * Returns the accessible non-static, non-transient fields declared in the given class and its superclasses,
+     * excluding the fields generated by the compiler or by instrumentation tools.
+     */
+    static List<Field> of(Class<?> type) {
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic() ||
+                        field.getName().indexOf('$') >= 0) {
+                    continue;
+                }
+                field.setAccessible(true);
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.api.tasks.config.dependencies.DependencySettings;
+import com.excelsiorjet.api.tasks.config.dependencies.ProjectDependency;
+import com.excelsiorjet.api.util.Utils;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * Index of dependency settings that finds the settings matching a project dependency
+ * without scanning all the settings.
+ * <p>
+ * Every settings instance is put into a single bucket by its most selective id component:
+ * the canonical path if set, otherwise the artifact id, otherwise the group id.
+ * Settings that have none of them are kept in a fallback list and checked for every dependency.
+ * A lookup checks only the buckets of the dependency path, artifact id and group id
+ * and applies the same matching rules as {@link DependencySettings#matches(ProjectDependency)}.
+ * </p>
+ * <p>
+ * Canonical paths are computed once per file, as computing them requires file system access.
+ * </p>
+ */
+class DependencySettingsIndex {
+
+    private final Map<String, List<DependencySettings>> byPath = new HashMap<>();
+    private final Map<String, List<DependencySettings>> byArtifactId = new HashMap<>();
+    private final Map<String, List<DependencySettings>> byGroupId = new HashMap<>();
+    private final List<DependencySettings> wildcards = new ArrayList<>();
+
+    private final Map<File, String> canonicalPaths = new HashMap<>();
+
+    DependencySettingsIndex(List<DependencySettings> dependencySettingsList) {
+        for (DependencySettings settings : dependencySettingsList) {
+            if (settings.path != null) {
+                bucket(byPath, canonicalPath(settings.path)).add(settings);
+            } else if (settings.artifactId != null) {
+                bucket(byArtifactId, settings.artifactId).add(settings);
+            } else if (settings.groupId != null) {
+                bucket(byGroupId, settings.groupId).add(settings);
+            } else {
+                wildcards.add(settings);
+            }
+        }
+    }
+
+    private static List<DependencySettings> bucket(Map<String, List<DependencySettings>> index, String key) {
+        return index.computeIfAbsent(key, k -> new ArrayList<>());
+    }
+
+    private String canonicalPath(File path) {
+        return canonicalPaths.computeIfAbsent(path, Utils::getCanonicalPath);
+    }
+
+    /**
+     * Returns the settings matching the given dependency in no particular order.
+     */
+    List<DependencySettings> matching(ProjectDependency dep) {
+        List<DependencySettings> result = new ArrayList<>();
+        // dependency paths are needed only if there are settings with paths
+        String depPath = (dep.path == null) || byPath.isEmpty() ? null : canonicalPath(dep.path);
+        if (depPath != null) {
+            addMatching(byPath.get(depPath), dep, depPath, result);
+        }
+        if (dep.artifactId != null) {
+            addMatching(byArtifactId.get(dep.artifactId), dep, depPath, result);
+        }
+        if (dep.groupId != null) {
+            addMatching(byGroupId.get(dep.groupId), dep, depPath, result);
+        }
+        addMatching(wildcards, dep, depPath, result);
+        return result;
+    }
+
+    private void addMatching(List<DependencySettings> candidates, ProjectDependency dep, String depPath,
+                             List<DependencySettings> result) {
+        if (candidates == null) {
+            return;
+        }
+        for (DependencySettings settings : candidates) {
+            if (matches(settings, dep, depPath)) {
+                result.add(settings);
+            }
+        }
+    }
+
+    private boolean matches(DependencySettings settings, ProjectDependency dep, String depPath) {
+        return (settings.groupId == null || settings.groupId.equals(dep.groupId)) &&
+                (settings.artifactId == null || settings.artifactId.equals(dep.artifactId)) &&
+                (settings.version == null || settings.version.equals(dep.version)) &&
+                (settings.path == null || (depPath != null && canonicalPath(settings.path).equals(depPath)));
+    }
+}
@@ -26,9 +26,6 @@ import com.excelsiorjet.api.tasks.config.dependencies.ProjectDependency;
 import com.excelsiorjet.api.tasks.config.dependencies.OptimizationPreset;
 
 import java.util.List;
-import java.util.TreeSet;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * The class assigns dependency settings to project dependencies, resulting in the creation of a respective
@@ -38,14 +35,27 @@ import java.util.stream.Stream;
  */
 class DependencySettingsResolver {
 
+    private static final DependencySettingsPriorityComparator PRIORITY_ORDER = new DependencySettingsPriorityComparator();
+
     private final OptimizationPreset optimizationPreset;
     private final String projectGroupId;
-    private final List<DependencySettings> dependencySettingsList;
+    private final DependencySettingsIndex dependencySettingsIndex;
+    private final DependencyTuner dependencyTuner;
 
     DependencySettingsResolver(OptimizationPreset optimizationPreset, String projectGroupId, List<DependencySettings> dependencySettingsList) {
+        this(optimizationPreset, projectGroupId, dependencySettingsList, null);
+    }
+
+    /**
+     * @param dependencyTuner if not {@code null}, chooses the settings that are not set explicitly
+     *                        from the dependency contents before the defaults of the preset are applied
+     */
+    DependencySettingsResolver(OptimizationPreset optimizationPreset, String projectGroupId, List<DependencySettings> dependencySettingsList,
+                               DependencyTuner dependencyTuner) {
         this.optimizationPreset = optimizationPreset;
         this.projectGroupId = projectGroupId;
-        this.dependencySettingsList = dependencySettingsList;
+        this.dependencySettingsIndex = new DependencySettingsIndex(dependencySettingsList);
+        this.dependencyTuner = dependencyTuner;
     }
 
     /**
@@ -58,12 +68,15 @@ class DependencySettingsResolver {
     }
 
     private ClasspathEntry toClasspathEntry(ProjectDependency projectDependency) {
-        TreeSet<DependencySettings> dependencySettings = settingsFor(projectDependency);
+        List<DependencySettings> dependencySettings = settingsFor(projectDependency);
         DependencySettings resolvedSettings = dependencySettings.stream().
                 reduce(new DependencySettings(projectDependency.groupId, projectDependency.artifactId, projectDependency.version, projectDependency.path), this::copyNonNullSettings);
         if (resolvedSettings.isLibrary == null) {
             resolvedSettings.isLibrary = !projectGroupId.equals(projectDependency.groupId);
         }
+        if (dependencyTuner != null) {
+            dependencyTuner.tune(projectDependency, resolvedSettings);
+        }
         if (resolvedSettings.protect == null) {
             resolvedSettings.protect = optimizationPreset.getDefaultProtectionType(resolvedSettings.isLibrary).userValue;
         }
@@ -96,17 +109,13 @@ class DependencySettingsResolver {
     }
 
     boolean hasSettingsFor(ProjectDependency dep) {
-        return matchedSettings(dep).count() > 0;
-    }
-
-    private TreeSet<DependencySettings> settingsFor(ProjectDependency dep) {
-        return matchedSettings(dep).
-                collect(Collectors.toCollection(() -> new TreeSet<>(new DependencySettingsPriorityComparator())));
+        return !dependencySettingsIndex.matching(dep).isEmpty();
     }
 
-    private Stream<DependencySettings> matchedSettings(ProjectDependency dep) {
-        return dependencySettingsList.stream().
-                filter(setting -> setting.matches(dep));
+    private List<DependencySettings> settingsFor(ProjectDependency dep) {
+        List<DependencySettings> settings = dependencySettingsIndex.matching(dep);
+        settings.sort(PRIORITY_ORDER);
+        return settings;
     }
 
 }
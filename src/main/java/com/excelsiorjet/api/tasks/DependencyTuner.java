@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.api.tasks.ClasspathEntry.OptimizationType;
+import com.excelsiorjet.api.tasks.ClasspathEntry.PackType;
+import com.excelsiorjet.api.tasks.config.dependencies.DependencySettings;
+import com.excelsiorjet.api.tasks.config.dependencies.ProjectDependency;
+import com.excelsiorjet.api.util.Txt;
+import com.excelsiorjet.api.util.ZipDirectory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static com.excelsiorjet.api.log.Log.logger;
+
+/**
+ * Chooses the {@code pack} and {@code optimize} settings of dependency jars from their contents,
+ * if they are not set explicitly.
+ * <p>
+ * The jar contents are listed from the central directory, and the usage of the jar classes
+ * is taken from the Test Run usage list, if it exists:
+ * <ul>
+ *     <li>jars without classes, and jars that mostly consist of a large amount of resources,
+ *     are not packed into the executable ({@code pack=none});</li>
+ *     <li>libraries of which only a small share of classes was used during the Test Run are compiled
+ *     selectively ({@code optimize=auto-detect}).</li>
+ * </ul>
+ * </p>
+ *
+ * @see JetProject#autoTuneDependencies(boolean)
+ */
+class DependencyTuner {
+
+    /**
+     * Minimum share of resources in the uncompressed jar contents for the jar to be considered a data jar.
+     */
+    static final double DATA_RESOURCE_RATIO = 0.9;
+
+    /**
+     * Minimum uncompressed size of resources for the jar to be considered a data jar.
+     */
+    static final long DATA_MIN_BYTES = 8 * 1024 * 1024;
+
+    /**
+     * Maximum share of classes used in the Test Run for the library to be considered rarely used.
+     */
+    static final double RARELY_USED_SHARE = 0.1;
+
+    private static final String META_INF = "META-INF/";
+
+    /**
+     * Settings chosen for a dependency and the reason for them.
+     */
+    static class Decision {
+        final ProjectDependency dependency;
+        final String pack;
+        final String optimize;
+        final String reason;
+
+        Decision(ProjectDependency dependency, String pack, String optimize, String reason) {
+            this.dependency = dependency;
+            this.pack = pack;
+            this.optimize = optimize;
+            this.reason = reason;
+        }
+
+        String settings() {
+            List<String> settings = new ArrayList<>();
+            if (pack != null) {
+                settings.add("pack=" + pack);
+            }
+            if (optimize != null) {
+                settings.add("optimize=" + optimize);
+            }
+            return String.join(", ", settings);
+        }
+    }
+
+    /**
+     * Uncompressed sizes of the classes and resources of a jar.
+     */
+    static class JarStats {
+        int classes;
+        int usedClasses;
+        long classBytes;
+        long resourceBytes;
+
+        double resourceRatio() {
+            long total = classBytes + resourceBytes;
+            return total == 0 ? 0 : (double) resourceBytes / total;
+        }
+    }
+
+    private final Set<String> usedClasses;
+    private final boolean hasUsageList;
+    private final List<Decision> decisions = new ArrayList<>();
+
+    /**
+     * @param usedClasses classes from the Test Run usage list in the internal form
+     * @param hasUsageList whether the usage list exists, as otherwise the usage of the classes is unknown
+     */
+    DependencyTuner(Set<String> usedClasses, boolean hasUsageList) {
+        this.usedClasses = usedClasses;
+        this.hasUsageList = hasUsageList;
+    }
+
+    /**
+     * Sets the {@code pack} and {@code optimize} settings of a dependency jar that are not set yet.
+     *
+     * @param settings merged settings of the dependency with {@link DependencySettings#isLibrary} resolved
+     */
+    void tune(ProjectDependency dependency, DependencySettings settings) {
+        if (dependency.isMainArtifact || (dependency.path == null) || !dependency.path.isFile() ||
+                ((settings.pack != null) && (settings.optimize != null)))
+        {
+            return;
+        }
+        JarStats stats;
+        try {
+            stats = stats(dependency);
+        } catch (IOException e) {
+            logger.warn(Txt.s("DependencyTuner.NotInspected.Warning", dependency.idStr(false), e.toString()));
+            return;
+        }
+
+        String pack = null;
+        String optimize = null;
+        String reason = null;
+        if (settings.pack == null) {
+            if (stats.classes == 0) {
+                pack = PackType.NONE.userValue;
+                reason = Txt.s("DependencyTuner.ResourcesOnly.Reason");
+            } else if ((stats.resourceRatio() >= DATA_RESOURCE_RATIO) && (stats.resourceBytes >= DATA_MIN_BYTES)) {
+                pack = PackType.NONE.userValue;
+                reason = Txt.s("DependencyTuner.Data.Reason", Math.round(stats.resourceRatio() * 100),
+                        stats.resourceBytes / (1024 * 1024));
+            }
+        }
+        if ((settings.optimize == null) && Boolean.TRUE.equals(settings.isLibrary) && hasUsageList &&
+                (stats.classes > 0) && (stats.usedClasses <= stats.classes * RARELY_USED_SHARE))
+        {
+            optimize = OptimizationType.AUTO_DETECT.userValue;
+            String usage = Txt.s("DependencyTuner.RarelyUsed.Reason", stats.usedClasses, stats.classes);
+            reason = (reason == null) ? usage : reason + "; " + usage;
+        }
+        if (reason != null) {
+            if (pack != null) {
+                settings.pack = pack;
+            }
+            if (optimize != null) {
+                settings.optimize = optimize;
+            }
+            decisions.add(new Decision(dependency, pack, optimize, reason));
+        }
+    }
+
+    JarStats stats(ProjectDependency dependency) throws IOException {
+        JarStats stats = new JarStats();
+        for (ZipDirectory.Entry entry : ZipDirectory.read(dependency.path)) {
+            if (entry.isDirectory()) {
+                continue;
+            }
+            String className = ClasspathAnalysisTask.className(entry.name);
+            if (className != null) {
+                stats.classes++;
+                stats.classBytes += entry.size;
+                if (usedClasses.contains(className)) {
+                    stats.usedClasses++;
+                }
+            } else if (!entry.name.startsWith(META_INF)) {
+                // manifests, signatures and service descriptors are not application data
+                stats.resourceBytes += entry.size;
+            }
+        }
+        return stats;
+    }
+
+    List<Decision> decisions() {
+        return decisions;
+    }
+
+    /**
+     * Logs the chosen settings, so that they can be pinned in the dependency settings of the project.
+     */
+    void logDecisions() {
+        if (decisions.isEmpty()) {
+            return;
+        }
+        logger.info(Txt.s("DependencyTuner.Header.Info", decisions.size()));
+        for (Decision decision : decisions) {
+            logger.info(Txt.s("DependencyTuner.Decision.Info", decision.dependency.idStr(false), decision.settings(),
+                    decision.reason));
+        }
+    }
+}
@@ -0,0 +1,337 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.api.ExcelsiorJet;
+import com.excelsiorjet.api.cmd.CmdLineToolException;
+import com.excelsiorjet.api.platform.Processes;
+import com.excelsiorjet.api.platform.Processes.MemoryUsage;
+import com.excelsiorjet.api.tasks.LoadDriver.RunningApp;
+import com.excelsiorjet.api.tasks.config.FootprintConfig;
+import com.excelsiorjet.api.tasks.config.FootprintVariant;
+import com.excelsiorjet.api.tasks.config.runtime.RuntimeConfig;
+import com.excelsiorjet.api.util.Json;
+import com.excelsiorjet.api.util.Txt;
+import com.excelsiorjet.api.util.Utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+import static com.excelsiorjet.api.log.Log.logger;
+
+/**
+ * Task for measuring the memory footprint of the built executable with different runtime configurations.
+ * <p>
+ * Each configured variant is built in its own output directory and run under the workload,
+ * while the resident (RSS), proportional (PSS) and unique (USS) set sizes of the application process
+ * are sampled. Peak values and steady-state values (averaged over the final part of the run) are reported
+ * in one table, so that the runtime configuration with the lowest footprint can be chosen.
+ * If no variants are configured, the current build of the project is measured.
+ * </p>
+ * The memory usage is read from {@code /proc}, so the task is only available on Linux.
+ *
+ * @see FootprintConfig
+ */
+public class FootprintTask {
+
+    static final String REPORT_FILE = "report.json";
+    static final String TABLE_FILE = "footprint.txt";
+    static final String CURRENT_BUILD = "current";
+
+    private static final double MB = 1024.0 * 1024.0;
+
+    private final ExcelsiorJet excelsiorJet;
+    private final JetProject project;
+
+    public FootprintTask(ExcelsiorJet excelsiorJet, JetProject project) throws JetTaskFailureException {
+        this.excelsiorJet = excelsiorJet;
+        this.project = project;
+    }
+
+    /**
+     * Memory sample taken at the given time since the application start.
+     */
+    static class Sample {
+        final long millis;
+        final MemoryUsage usage;
+
+        Sample(long millis, MemoryUsage usage) {
+            this.millis = millis;
+            this.usage = usage;
+        }
+    }
+
+    /**
+     * Footprint of a variant in bytes. Values that were not measured are {@code -1}.
+     */
+    public static class VariantResult {
+        public final String name;
+        public final Map<String, Object> runtime = new LinkedHashMap<>();
+        public String failure;
+        public int samples;
+        public long peakRss = -1;
+        public long peakPss = -1;
+        public long peakUss = -1;
+        public long steadyRss = -1;
+        public long steadyPss = -1;
+        public long steadyUss = -1;
+
+        VariantResult(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Computes peak values over all samples and steady-state values as the mean of the samples
+         * taken during the last {@code steadyStateWindow} milliseconds.
+         */
+        void summarize(List<Sample> series, long steadyStateWindow) {
+            samples = series.size();
+            if (series.isEmpty()) {
+                return;
+            }
+            peakRss = peak(series, u -> u.rss);
+            peakPss = peak(series, u -> u.pss);
+            peakUss = peak(series, u -> u.uss);
+            long steadyStart = series.get(series.size() - 1).millis - steadyStateWindow;
+            List<Sample> steady = series.stream()
+                    .filter(s -> s.millis >= steadyStart)
+                    .collect(Collectors.toList());
+            steadyRss = mean(steady, u -> u.rss);
+            steadyPss = mean(steady, u -> u.pss);
+            steadyUss = mean(steady, u -> u.uss);
+        }
+
+        private static long peak(List<Sample> series, ToLongFunction<MemoryUsage> metric) {
+            return series.stream().mapToLong(s -> metric.applyAsLong(s.usage)).max().getAsLong();
+        }
+
+        private static long mean(List<Sample> series, ToLongFunction<MemoryUsage> metric) {
+            return Math.round(series.stream().mapToLong(s -> metric.applyAsLong(s.usage)).average().getAsDouble());
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("name", name);
+            map.put("runtime", runtime);
+            map.put("failure", failure);
+            map.put("samples", samples);
+            map.put("peakRssMb", mb(peakRss));
+            map.put("peakPssMb", mb(peakPss));
+            map.put("peakUssMb", mb(peakUss));
+            map.put("steadyRssMb", mb(steadyRss));
+            map.put("steadyPssMb", mb(steadyPss));
+            map.put("steadyUssMb", mb(steadyUss));
+            return map;
+        }
+    }
+
+    /**
+     * Builds the variants, if any, and measures their memory footprint.
+     *
+     * @return results of all variants in the configured order
+     */
+    public List<VariantResult> execute() throws JetTaskFailureException, IOException {
+        if (excelsiorJet.isCrossCompilation()) {
+            throw new JetTaskFailureException(Txt.s("RunTask.NoRunForCrossCompilation.Error"));
+        }
+
+        project.validate(excelsiorJet, true);
+
+        switch (project.appType()) {
+            case WINDOWS_SERVICE:
+            case DYNAMIC_LIBRARY:
+                throw new JetTaskFailureException(Txt.s("RunTask.AppTypeNotForRun.Error", project.appType()));
+        }
+        if (Processes.memoryUsage(Processes.currentPid()) == null) {
+            throw new JetTaskFailureException(Txt.s("FootprintTask.NotSupported.Error"));
+        }
+        FootprintConfig config = project.footprintConfiguration();
+        Utils.mkdir(config.outputDir);
+
+        List<VariantResult> results = new ArrayList<>();
+        if (config.variants.isEmpty()) {
+            if (!new File(project.jetAppDir(), project.exeRelativePath(excelsiorJet)).exists()) {
+                throw new JetTaskFailureException(Txt.s("RunTask.NoReadyBuild.Error"));
+            }
+            VariantResult result = new VariantResult(CURRENT_BUILD);
+            result.runtime.putAll(settings(project.runtimeConfiguration()));
+            measure(config, project, result);
+            results.add(result);
+        } else {
+            for (FootprintVariant variant : config.variants) {
+                File variantDir = new File(config.outputDir, variant.name);
+                Utils.mkdir(variantDir);
+                JetProject variantProject = project.copyForBuildIn(variantDir, excelsiorJet)
+                        .runtimeConfiguration(variant.applyTo(project.runtimeConfiguration()));
+                VariantResult result = new VariantResult(variant.name);
+                results.add(result);
+                try {
+                    logger.info(Txt.s("BuildMatrixTask.Build.Info", variant.name));
+                    new JetBuildTask(excelsiorJet, variantProject, false).execute();
+                    result.runtime.putAll(settings(variantProject.runtimeConfiguration()));
+                } catch (JetTaskFailureException | CmdLineToolException | IOException | RuntimeException e) {
+                    result.failure = e.getMessage();
+                    logger.error(Txt.s("FootprintTask.VariantFailed.Error", result.name, result.failure));
+                    continue;
+                }
+                measure(config, variantProject, result);
+            }
+        }
+
+        List<String> table = table(results);
+        table.forEach(logger::info);
+        Utils.linesToFile(table, new File(config.outputDir, TABLE_FILE));
+
+        Optional<VariantResult> lowest = results.stream()
+                .filter(r -> (r.failure == null) && (r.peakRss >= 0))
+                .min(Comparator.comparingLong((VariantResult r) -> r.peakRss).thenComparingLong(r -> r.steadyPss));
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("lowestPeakRss", lowest.map(r -> r.name).orElse(null));
+        report.put("variants", results.stream().map(VariantResult::toMap).collect(Collectors.toList()));
+        File reportFile = new File(config.outputDir, REPORT_FILE);
+        Files.write(reportFile.toPath(), Json.toJson(report).getBytes(StandardCharsets.UTF_8));
+        if (lowest.isPresent()) {
+            logger.info(Txt.s("FootprintTask.Lowest.Info", lowest.get().name, format(lowest.get().peakRss)));
+        } else {
+            throw new JetTaskFailureException(Txt.s("FootprintTask.AllVariantsFailed.Error"));
+        }
+        logger.info(Txt.s("FootprintTask.Report.Info", reportFile.getAbsolutePath()));
+        return results;
+    }
+
+    /**
+     * Runs the executable of the given project under the workload, sampling its memory usage.
+     */
+    private void measure(FootprintConfig config, JetProject variantProject, VariantResult result) {
+        logger.info(Txt.s("FootprintTask.Measure.Info", result.name));
+        List<Sample> series = new ArrayList<>();
+        try (RunningApp app = RunningApp.start(variantProject.jetAppDir(),
+                variantProject.exeRelativePath(excelsiorJet), variantProject.exeRunArgs()))
+        {
+            Thread sampler = new Thread(() -> sample(app, config.sampleInterval, series));
+            sampler.setDaemon(true);
+            sampler.start();
+            try {
+                if (config.loadDriver.isDefined()) {
+                    new LoadDriver(config.loadDriver).drive(app);
+                } else {
+                    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.duration);
+                    while (app.isAlive() && (System.nanoTime() < deadline)) {
+                        Thread.sleep(config.sampleInterval);
+                    }
+                }
+            } finally {
+                sampler.interrupt();
+                sampler.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.failure = e.getMessage();
+        } catch (Exception e) {
+            result.failure = e.getMessage();
+        }
+        if ((result.failure == null) && series.isEmpty()) {
+            result.failure = Txt.s("FootprintTask.NoSamples.Error");
+        }
+        if (result.failure != null) {
+            logger.error(Txt.s("FootprintTask.VariantFailed.Error", result.name, result.failure));
+        } else {
+            result.summarize(series, TimeUnit.SECONDS.toMillis(config.steadyStateWindow));
+        }
+    }
+
+    /**
+     * Samples the memory usage of the application until it exits or the current thread is interrupted.
+     */
+    static void sample(RunningApp app, int interval, List<Sample> series) {
+        long start = System.nanoTime();
+        try {
+            long pid;
+            while ((pid = app.pid()) < 0) {
+                if (!app.isAlive()) {
+                    return;
+                }
+                Thread.sleep(10);
+            }
+            while (true) {
+                MemoryUsage usage = Processes.memoryUsage(pid);
+                if (usage == null) {
+                    // the application has exited
+                    return;
+                }
+                series.add(new Sample(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), usage));
+                Thread.sleep(interval);
+            }
+        } catch (InterruptedException ignore) {
+        }
+    }
+
+    private static Map<String, Object> settings(RuntimeConfig runtime) {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("flavor", runtime.flavor);
+        settings.put("profile", runtime.profile);
+        settings.put("diskFootprintReduction", runtime.diskFootprintReduction);
+        settings.put("slimDown", runtime.slimDown != null);
+        return settings;
+    }
+
+    /**
+     * Returns the comparison table of the variants with the values in megabytes.
+     */
+    static List<String> table(List<VariantResult> results) {
+        int nameWidth = Math.max("Variant".length(),
+                results.stream().mapToInt(r -> r.name.length()).max().orElse(0));
+        String format = "%-" + nameWidth + "s %10s %10s %10s %10s %10s %10s";
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format(format, "Variant", "Peak RSS", "Peak PSS", "Peak USS", "Steady RSS", "Steady PSS",
+                "Steady USS"));
+        for (VariantResult r : results) {
+            if (r.failure != null) {
+                lines.add(String.format("%-" + nameWidth + "s %s", r.name, Txt.s("FootprintTask.Failed.Cell", r.failure)));
+            } else {
+                lines.add(String.format(format, r.name, format(r.peakRss), format(r.peakPss), format(r.peakUss),
+                        format(r.steadyRss), format(r.steadyPss), format(r.steadyUss)));
+            }
+        }
+        lines.add(Txt.s("FootprintTask.Units.Info"));
+        return lines;
+    }
+
+    private static Double mb(long bytes) {
+        return bytes < 0 ? null : bytes / MB;
+    }
+
+    static String format(long bytes) {
+        return bytes < 0 ? "n/a" : String.format("%.1f", bytes / MB);
+    }
+}
@@ -0,0 +1,374 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.api.ExcelsiorJet;
+import com.excelsiorjet.api.platform.Processes;
+import com.excelsiorjet.api.tasks.FootprintTask.Sample;
+import com.excelsiorjet.api.tasks.FootprintTask.VariantResult;
+import com.excelsiorjet.api.tasks.LoadDriver.RunningApp;
+import com.excelsiorjet.api.tasks.config.HeapAdvisorConfig;
+import com.excelsiorjet.api.util.Json;
+import com.excelsiorjet.api.util.Txt;
+import com.excelsiorjet.api.util.Utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.excelsiorjet.api.log.Log.logger;
+
+/**
+ * Task for choosing the heap and garbage collector settings of the built executable for a container memory limit.
+ * <p>
+ * The executable is run under the workload once per candidate setting, with the candidate passed
+ * to the JET Runtime in the {@code JETVMPROP} environment variable, so that no rebuild is needed.
+ * For every run the peak and steady-state resident set sizes are sampled, and the load driver reports
+ * the throughput and latency. GC pauses are not observed directly: they are estimated as the excess
+ * of the maximum latency over the median one.
+ * </p>
+ * <p>
+ * A candidate is safe if its run has not failed and its peak RSS leaves
+ * {@link HeapAdvisorConfig#headroom} percent of the limit free. Among the safe candidates within
+ * {@link HeapAdvisorConfig#throughputTolerance} of the best throughput, the ones with the shortest
+ * estimated pauses are preferred, and of them the one with the smallest heap is recommended.
+ * The initial heap size ({@code -Xms}) is set to the steady-state RSS of the recommended run,
+ * so that the heap does not grow through a series of collections after the start.
+ * </p>
+ * The memory usage is read from {@code /proc}, so the task is only available on Linux.
+ *
+ * @see HeapAdvisorConfig
+ */
+public class HeapAdvisorTask {
+
+    static final String REPORT_FILE = "report.json";
+    static final String JVM_ARGS_FILE = "jvmargs.txt";
+
+    static final String GC_RATIO_PROPERTY = "-Djet.gc.ratio=";
+
+    private static final long MB = 1024 * 1024;
+
+    private final ExcelsiorJet excelsiorJet;
+    private final JetProject project;
+
+    public HeapAdvisorTask(ExcelsiorJet excelsiorJet, JetProject project) {
+        this.excelsiorJet = excelsiorJet;
+        this.project = project;
+    }
+
+    /**
+     * Measurements of a candidate heap setting.
+     */
+    public static class Candidate {
+        public final int maxHeap;
+        public final Integer gcRatio;
+        public final VariantResult footprint;
+        public BenchmarkStats throughput;
+        public BenchmarkStats latency;
+
+        Candidate(int maxHeap, Integer gcRatio) {
+            this.maxHeap = maxHeap;
+            this.gcRatio = gcRatio;
+            this.footprint = new VariantResult(name(maxHeap, gcRatio));
+        }
+
+        private static String name(int maxHeap, Integer gcRatio) {
+            return "Xmx" + maxHeap + "m" + (gcRatio == null ? "" : "-gc" + gcRatio);
+        }
+
+        public String name() {
+            return footprint.name;
+        }
+
+        /**
+         * JET Runtime properties of this candidate.
+         */
+        public List<String> properties() {
+            List<String> properties = new ArrayList<>();
+            properties.add("-Xmx" + maxHeap + "m");
+            if (gcRatio != null) {
+                properties.add(GC_RATIO_PROPERTY + gcRatio);
+            }
+            return properties;
+        }
+
+        /**
+         * Estimated longest GC pause in milliseconds: the excess of the maximum latency over the median one,
+         * or {@code 0} if the latency has not been measured.
+         */
+        public double estimatedPause() {
+            return latency == null ? 0 : latency.max - latency.p50;
+        }
+
+        boolean failed() {
+            return (footprint.failure != null) || (footprint.peakRss < 0);
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("name", name());
+            map.put("maxHeapMb", maxHeap);
+            map.put("gcRatio", gcRatio);
+            map.put("footprint", footprint.toMap());
+            map.put("throughput", throughput == null ? null : throughput.toMap());
+            map.put("latency", latency == null ? null : latency.toMap());
+            map.put("estimatedPauseMillis", estimatedPause());
+            return map;
+        }
+    }
+
+    /**
+     * Recommended settings and the candidate they come from.
+     */
+    public static class Advice {
+        public final Candidate candidate;
+        public final int initialHeap;
+
+        Advice(Candidate candidate, int initialHeap) {
+            this.candidate = candidate;
+            this.initialHeap = initialHeap;
+        }
+
+        /**
+         * Recommended JET Runtime properties.
+         */
+        public List<String> properties() {
+            List<String> properties = new ArrayList<>();
+            properties.add("-Xms" + initialHeap + "m");
+            properties.addAll(candidate.properties());
+            return properties;
+        }
+    }
+
+    /**
+     * Runs the candidates, logs and writes the recommendation and applies it to the project if configured.
+     *
+     * @return the recommendation
+     * @throws JetTaskFailureException if no candidate fits the container memory limit
+     */
+    public Advice execute() throws JetTaskFailureException, IOException {
+        if (excelsiorJet.isCrossCompilation()) {
+            throw new JetTaskFailureException(Txt.s("RunTask.NoRunForCrossCompilation.Error"));
+        }
+
+        project.validate(excelsiorJet, true);
+
+        switch (project.appType()) {
+            case WINDOWS_SERVICE:
+            case DYNAMIC_LIBRARY:
+                throw new JetTaskFailureException(Txt.s("RunTask.AppTypeNotForRun.Error", project.appType()));
+        }
+        if (Processes.memoryUsage(Processes.currentPid()) == null) {
+            throw new JetTaskFailureException(Txt.s("FootprintTask.NotSupported.Error"));
+        }
+        if (!new File(project.jetAppDir(), project.exeRelativePath(excelsiorJet)).exists()) {
+            throw new JetTaskFailureException(Txt.s("RunTask.NoReadyBuild.Error"));
+        }
+        HeapAdvisorConfig config = project.heapAdvisorConfiguration();
+        if (config.containerMemoryLimit == 0) {
+            throw new JetTaskFailureException(Txt.s("HeapAdvisorTask.NoMemoryLimit.Error"));
+        }
+        Utils.mkdir(config.outputDir);
+
+        List<Candidate> candidates = candidates(config);
+        for (Candidate candidate : candidates) {
+            measure(config, candidate);
+        }
+        Advice advice = advise(candidates, config);
+
+        List<String> table = table(candidates);
+        table.forEach(logger::info);
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("containerMemoryLimitMb", config.containerMemoryLimit);
+        report.put("recommended", advice == null ? null : advice.properties());
+        report.put("candidates", candidates.stream().map(Candidate::toMap).collect(Collectors.toList()));
+        File reportFile = new File(config.outputDir, REPORT_FILE);
+        Files.write(reportFile.toPath(), Json.toJson(report).getBytes(StandardCharsets.UTF_8));
+        logger.info(Txt.s("HeapAdvisorTask.Report.Info", reportFile.getAbsolutePath()));
+
+        if (advice == null) {
+            throw new JetTaskFailureException(Txt.s("HeapAdvisorTask.NoSafeCandidate.Error",
+                    config.containerMemoryLimit, config.headroom));
+        }
+        Utils.linesToFile(advice.properties(), new File(config.outputDir, JVM_ARGS_FILE));
+        logger.info(Txt.s("HeapAdvisorTask.Recommendation.Info", String.join(" ", advice.properties()),
+                advice.candidate.name()));
+        if (config.apply) {
+            String[] jvmArgs = mergeJvmArgs(project.jvmArgs(), advice.properties());
+            project.jvmArgs(jvmArgs);
+            logger.info(Txt.s("HeapAdvisorTask.Applied.Info", String.join(" ", jvmArgs)));
+        }
+        return advice;
+    }
+
+    /**
+     * Returns the candidates to run: every heap size that fits the container limit with every GC ratio, if any.
+     */
+    static List<Candidate> candidates(HeapAdvisorConfig config) {
+        List<Candidate> candidates = new ArrayList<>();
+        for (int maxHeap : config.candidateHeapSizes()) {
+            if (maxHeap >= config.containerMemoryLimit) {
+                logger.warn(Txt.s("HeapAdvisorTask.HeapExceedsLimit.Warning", maxHeap, config.containerMemoryLimit));
+                continue;
+            }
+            if ((config.gcRatios == null) || (config.gcRatios.length == 0)) {
+                candidates.add(new Candidate(maxHeap, null));
+            } else {
+                for (int gcRatio : config.gcRatios) {
+                    candidates.add(new Candidate(maxHeap, gcRatio));
+                }
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Runs the executable with the settings of the candidate under the workload, sampling its memory usage.
+     */
+    private void measure(HeapAdvisorConfig config, Candidate candidate) {
+        logger.info(Txt.s("HeapAdvisorTask.Measure.Info", candidate.name()));
+        VariantResult result = candidate.footprint;
+        List<Sample> series = new ArrayList<>();
+        try (RunningApp app = RunningApp.start(project.jetAppDir(), project.exeRelativePath(excelsiorJet),
+                project.exeRunArgs(), String.join(" ", candidate.properties())))
+        {
+            Thread sampler = new Thread(() -> FootprintTask.sample(app, config.sampleInterval, series));
+            sampler.setDaemon(true);
+            sampler.start();
+            try {
+                if (config.loadDriver.isDefined()) {
+                    List<LoadDriver.Sample> samples = new LoadDriver(config.loadDriver).drive(app);
+                    candidate.throughput = BenchmarkStats.of(LoadDriver.Sample.throughput(samples));
+                    candidate.latency = BenchmarkStats.of(LoadDriver.Sample.latency(samples));
+                } else {
+                    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.duration);
+                    while (app.isAlive() && (System.nanoTime() < deadline)) {
+                        Thread.sleep(config.sampleInterval);
+                    }
+                    if (!app.isAlive() && (app.exitCode() != 0)) {
+                        // with too small a heap, the application fails with OutOfMemoryError
+                        result.failure = Txt.s("HeapAdvisorTask.AppExited.Error", app.exitCode());
+                    }
+                }
+            } finally {
+                sampler.interrupt();
+                sampler.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.failure = e.getMessage();
+        } catch (Exception e) {
+            result.failure = e.getMessage();
+        }
+        if ((result.failure == null) && series.isEmpty()) {
+            result.failure = Txt.s("FootprintTask.NoSamples.Error");
+        }
+        if (result.failure != null) {
+            logger.error(Txt.s("FootprintTask.VariantFailed.Error", result.name, result.failure));
+        } else {
+            // the steady state is the final quarter of the run
+            long window = Math.max(series.get(series.size() - 1).millis / 4, config.sampleInterval);
+            result.summarize(series, window);
+        }
+    }
+
+    /**
+     * Chooses the recommended candidate as described in the class documentation.
+     *
+     * @return the recommendation or {@code null} if no candidate is safe
+     */
+    static Advice advise(List<Candidate> candidates, HeapAdvisorConfig config) {
+        long limit = config.containerMemoryLimit * MB * (100 - config.headroom) / 100;
+        List<Candidate> eligible = candidates.stream()
+                .filter(c -> !c.failed() && (c.footprint.peakRss <= limit))
+                .collect(Collectors.toList());
+        if (eligible.isEmpty()) {
+            return null;
+        }
+        double tolerance = config.throughputTolerance / 100.0;
+        if (eligible.stream().allMatch(c -> c.throughput != null)) {
+            double best = eligible.stream().mapToDouble(c -> c.throughput.mean).max().getAsDouble();
+            eligible = eligible.stream()
+                    .filter(c -> c.throughput.mean >= best * (1 - tolerance))
+                    .collect(Collectors.toList());
+            double shortest = eligible.stream().mapToDouble(Candidate::estimatedPause).min().getAsDouble();
+            eligible = eligible.stream()
+                    .filter(c -> c.estimatedPause() <= shortest * (1 + tolerance) + 1)
+                    .collect(Collectors.toList());
+        }
+        Candidate chosen = eligible.stream()
+                .min(Comparator.comparingInt((Candidate c) -> c.maxHeap)
+                        .thenComparingDouble(Candidate::estimatedPause))
+                .get();
+        int initialHeap = (int) Math.max(1, Math.min(chosen.maxHeap, chosen.footprint.steadyRss / MB));
+        return new Advice(chosen, initialHeap);
+    }
+
+    /**
+     * Returns the given JVM arguments with the heap size and GC ratio settings replaced by the recommended ones.
+     */
+    static String[] mergeJvmArgs(String[] jvmArgs, List<String> recommended) {
+        List<String> merged = new ArrayList<>();
+        if (jvmArgs != null) {
+            Arrays.stream(jvmArgs)
+                    .filter(arg -> !arg.startsWith("-Xmx") && !arg.startsWith("-Xms") && !arg.startsWith(GC_RATIO_PROPERTY))
+                    .forEach(merged::add);
+        }
+        merged.addAll(recommended);
+        return merged.toArray(new String[merged.size()]);
+    }
+
+    /**
+     * Returns the comparison table of the candidates with the memory values in megabytes
+     * and the latencies in milliseconds.
+     */
+    static List<String> table(List<Candidate> candidates) {
+        int nameWidth = Math.max("Candidate".length(),
+                candidates.stream().mapToInt(c -> c.name().length()).max().orElse(0));
+        String format = "%-" + nameWidth + "s %10s %10s %12s %12s %12s";
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format(format, "Candidate", "Peak RSS", "Steady RSS", "Throughput", "p50 latency",
+                "Est. pause"));
+        for (Candidate c : candidates) {
+            if (c.footprint.failure != null) {
+                lines.add(String.format("%-" + nameWidth + "s %s", c.name(),
+                        Txt.s("FootprintTask.Failed.Cell", c.footprint.failure)));
+            } else {
+                lines.add(String.format(format, c.name(), FootprintTask.format(c.footprint.peakRss),
+                        FootprintTask.format(c.footprint.steadyRss),
+                        c.throughput == null ? "n/a" : String.format("%.2f", c.throughput.mean),
+                        c.latency == null ? "n/a" : String.format("%.1f", c.latency.p50),
+                        c.latency == null ? "n/a" : String.format("%.1f", c.estimatedPause())));
+            }
+        }
+        return lines;
+    }
+}
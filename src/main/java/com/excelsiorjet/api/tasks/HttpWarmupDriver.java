@@ -0,0 +1,475 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.api.tasks.config.compiler.HttpWarmupConfig;
+import com.excelsiorjet.api.util.Json;
+import com.excelsiorjet.api.util.Txt;
+import com.excelsiorjet.api.util.Utils;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarFile;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+
+import static com.excelsiorjet.api.log.Log.logger;
+
+/**
+ * Concurrent HTTP client that warms up a server application by replaying a list of requests.
+ *
+ * @see HttpWarmupConfig
+ */
+class HttpWarmupDriver {
+
+    static final int DEFAULT_HTTP_PORT = 8080;
+
+    private static final String SERVER_PORT = "server.port";
+    private static final Pattern YAML_SERVER_PORT = Pattern.compile("(?m)^server:\\s*\\n(?:[ \\t]+.*\\n)*?[ \\t]+port:\\s*(\\d+)");
+    private static final List<String> SKIPPED_HEADERS = Arrays.asList("host", "content-length", "connection",
+            "accept-encoding", "transfer-encoding");
+
+    private static final int POLL_INTERVAL = 500;
+
+    /**
+     * Request to replay.
+     */
+    static class Request {
+        final String method;
+        final String path;
+        final Map<String, String> headers;
+        final String body;
+
+        Request(String method, String path, Map<String, String> headers, String body) {
+            this.method = method.toUpperCase();
+            this.path = path;
+            this.headers = headers;
+            this.body = body;
+        }
+    }
+
+    /**
+     * Outcome of the warm-up.
+     */
+    static class Result {
+        final int requests;
+        final int errors;
+        final BenchmarkStats latency;
+
+        Result(int requests, int errors, BenchmarkStats latency) {
+            this.requests = requests;
+            this.errors = errors;
+            this.latency = latency;
+        }
+    }
+
+    private final HttpWarmupConfig config;
+    private final int port;
+    private final List<Request> requests;
+
+    HttpWarmupDriver(HttpWarmupConfig config, int port, List<Request> requests) {
+        this.config = config;
+        this.port = port;
+        this.requests = requests;
+    }
+
+    /**
+     * Creates the HTTP warm-up driver configured for the project.
+     *
+     * @return the driver, or {@code null} if HTTP warm-up is not configured
+     */
+    static HttpWarmupDriver forProject(JetProject project) throws JetTaskFailureException {
+        HttpWarmupConfig config = project.execProfiles().stopConditions.httpWarmup;
+        if (!config.isDefined()) {
+            return null;
+        }
+        int port = config.port != 0 ? config.port : detectPort(project);
+        List<Request> requests = loadRequests(config);
+        if (requests.isEmpty()) {
+            throw new JetTaskFailureException(Txt.s("HttpWarmupDriver.NoRequests.Error"));
+        }
+        return new HttpWarmupDriver(config, port, requests);
+    }
+
+    /**
+     * Detects the HTTP port of a Tomcat or Spring Boot application.
+     */
+    static int detectPort(JetProject project) throws JetTaskFailureException {
+        Integer port;
+        switch (project.appType()) {
+            case TOMCAT:
+                File serverXml = new File(project.tomcatInBuildDir(), "conf/server.xml");
+                if (!serverXml.exists()) {
+                    serverXml = new File(project.tomcatConfiguration().tomcatHome, "conf/server.xml");
+                }
+                port = tomcatPort(serverXml);
+                break;
+            case SPRING_BOOT:
+                port = springBootPort(project.jvmArgs(), project.runArgs(), project.mainArtifact());
+                break;
+            default:
+                throw new JetTaskFailureException(Txt.s("HttpWarmupDriver.PortRequired.Error", project.appType()));
+        }
+        if (port == null) {
+            logger.warn(Txt.s("HttpWarmupDriver.DefaultPort.Warning", DEFAULT_HTTP_PORT));
+            return DEFAULT_HTTP_PORT;
+        }
+        return port;
+    }
+
+    /**
+     * Returns the port of the first HTTP connector (neither AJP nor SSL) in the given Tomcat {@code server.xml},
+     * or {@code null} if there is none.
+     */
+    static Integer tomcatPort(File serverXml) throws JetTaskFailureException {
+        if (!serverXml.exists()) {
+            return null;
+        }
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setExpandEntityReferences(false);
+            NodeList connectors = factory.newDocumentBuilder().parse(serverXml).getElementsByTagName("Connector");
+            for (int i = 0; i < connectors.getLength(); i++) {
+                Element connector = (Element) connectors.item(i);
+                if (connector.getAttribute("protocol").toUpperCase().contains("AJP") ||
+                        "true".equalsIgnoreCase(connector.getAttribute("SSLEnabled"))) {
+                    continue;
+                }
+                Integer port = parsePort(connector.getAttribute("port"));
+                if (port != null) {
+                    return port;
+                }
+            }
+            return null;
+        } catch (ParserConfigurationException | SAXException | IOException e) {
+            throw new JetTaskFailureException(Txt.s("HttpWarmupDriver.CannotReadServerXml.Error",
+                    serverXml.getAbsolutePath(), e.getMessage()), e);
+        }
+    }
+
+    /**
+     * Returns the {@code server.port} of a Spring Boot application set in its JVM arguments, program arguments,
+     * or the {@code application.properties} or {@code application.yml} packaged into the application archive,
+     * in the order of precedence, or {@code null} if it is not set.
+     */
+    static Integer springBootPort(String[] jvmArgs, String[] runArgs, File archive) throws JetTaskFailureException {
+        Integer port = argPort(runArgs, "--" + SERVER_PORT + "=");
+        if (port == null) {
+            port = argPort(jvmArgs, "-D" + SERVER_PORT + "=");
+        }
+        if ((port != null) || (archive == null) || !archive.isFile()) {
+            return port;
+        }
+        try (JarFile jar = new JarFile(archive)) {
+            for (String classesDir : Arrays.asList("BOOT-INF/classes/", "WEB-INF/classes/")) {
+                ZipEntry properties = jar.getEntry(classesDir + "application.properties");
+                if (properties != null) {
+                    Properties props = new Properties();
+                    try (InputStream in = jar.getInputStream(properties)) {
+                        props.load(in);
+                    }
+                    port = parsePort(props.getProperty(SERVER_PORT));
+                    if (port != null) {
+                        return port;
+                    }
+                }
+                ZipEntry yaml = jar.getEntry(classesDir + "application.yml");
+                if (yaml != null) {
+                    try (InputStream in = jar.getInputStream(yaml)) {
+                        Matcher m = YAML_SERVER_PORT.matcher(readText(in).replace("\r\n", "\n"));
+                        if (m.find()) {
+                            return Integer.parseInt(m.group(1));
+                        }
+                    }
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            throw new JetTaskFailureException(e.getMessage(), e);
+        }
+    }
+
+    private static Integer argPort(String[] args, String prefix) {
+        Integer port = null;
+        if (args != null) {
+            for (String arg : args) {
+                if (arg.startsWith(prefix)) {
+                    // the last occurrence wins
+                    port = parsePort(arg.substring(prefix.length()));
+                }
+            }
+        }
+        return port;
+    }
+
+    private static Integer parsePort(String port) {
+        try {
+            return port == null ? null : Integer.parseInt(port.trim());
+        } catch (NumberFormatException e) {
+            // placeholders such as ${port.http} cannot be resolved
+            return null;
+        }
+    }
+
+    private static String readText(InputStream in) throws IOException {
+        StringBuilder text = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                text.append(line).append('\n');
+            }
+        }
+        return text.toString();
+    }
+
+    static List<Request> loadRequests(HttpWarmupConfig config) throws JetTaskFailureException {
+        List<Request> requests = new ArrayList<>();
+        if (config.urls != null) {
+            for (String url : config.urls) {
+                requests.add(new Request("GET", pathOf(url), Collections.emptyMap(), null));
+            }
+        }
+        try {
+            if (config.urlsFile != null) {
+                for (String line : Files.readAllLines(config.urlsFile.toPath(), StandardCharsets.UTF_8)) {
+                    line = line.trim();
+                    if (line.isEmpty() || line.startsWith("#")) {
+                        continue;
+                    }
+                    String[] parts = line.split("\\s+", 2);
+                    requests.add(parts.length == 1 ?
+                            new Request("GET", pathOf(parts[0]), Collections.emptyMap(), null) :
+                            new Request(parts[0], pathOf(parts[1]), Collections.emptyMap(), null));
+                }
+            }
+            if (config.harFile != null) {
+                requests.addAll(harRequests(new String(Files.readAllBytes(config.harFile.toPath()), StandardCharsets.UTF_8)));
+            }
+        } catch (IOException e) {
+            throw new JetTaskFailureException(e.getMessage(), e);
+        } catch (IllegalArgumentException | ClassCastException e) {
+            throw new JetTaskFailureException(Txt.s("HttpWarmupDriver.InvalidHar.Error",
+                    config.harFile.getAbsolutePath(), e.getMessage()), e);
+        }
+        return requests;
+    }
+
+    /**
+     * Extracts the requests recorded in the given HAR (HTTP Archive) content.
+     */
+    @SuppressWarnings("unchecked")
+    static List<Request> harRequests(String har) {
+        Map<String, Object> log = (Map<String, Object>) ((Map<String, Object>) Json.parse(har)).get("log");
+        if (log == null) {
+            throw new IllegalArgumentException("no \"log\" object");
+        }
+        List<Request> requests = new ArrayList<>();
+        List<Object> entries = (List<Object>) log.get("entries");
+        if (entries == null) {
+            return requests;
+        }
+        for (Object entry : entries) {
+            Map<String, Object> request = (Map<String, Object>) ((Map<String, Object>) entry).get("request");
+            if ((request == null) || (request.get("url") == null)) {
+                continue;
+            }
+            Map<String, String> headers = new LinkedHashMap<>();
+            List<Object> harHeaders = (List<Object>) request.get("headers");
+            if (harHeaders != null) {
+                for (Object header : harHeaders) {
+                    String name = (String) ((Map<String, Object>) header).get("name");
+                    Object value = ((Map<String, Object>) header).get("value");
+                    if ((name != null) && (value != null) && !name.startsWith(":") &&
+                            !SKIPPED_HEADERS.contains(name.toLowerCase()))
+                    {
+                        headers.put(name, value.toString());
+                    }
+                }
+            }
+            Map<String, Object> postData = (Map<String, Object>) request.get("postData");
+            String body = postData == null ? null : (String) postData.get("text");
+            if ((postData != null) && (postData.get("mimeType") != null)) {
+                headers.putIfAbsent("Content-Type", postData.get("mimeType").toString());
+            }
+            Object method = request.get("method");
+            requests.add(new Request(method == null ? "GET" : method.toString(), pathOf(request.get("url").toString()),
+                    headers, body));
+        }
+        return requests;
+    }
+
+    /**
+     * Returns the path and query of the given URL, which is either absolute or relative to the server root.
+     */
+    static String pathOf(String url) {
+        int scheme = url.indexOf("://");
+        if (scheme >= 0) {
+            int path = url.indexOf('/', scheme + 3);
+            return path < 0 ? "/" : url.substring(path);
+        }
+        return url.startsWith("/") ? url : "/" + url;
+    }
+
+    /**
+     * Waits for the application to open its HTTP port and replays the requests
+     * until the configured duration expires.
+     */
+    Result run() throws JetTaskFailureException {
+        awaitReadiness();
+        logger.info(Txt.s("HttpWarmupDriver.Start.Info", requests.size(), port, config.concurrency, config.duration));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.duration);
+        AtomicInteger errors = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(config.concurrency, r -> {
+            Thread t = new Thread(r);
+            t.setDaemon(true);
+            return t;
+        });
+        List<Future<List<Double>>> clients = new ArrayList<>();
+        try {
+            for (int i = 0; i < config.concurrency; i++) {
+                // start the clients at different requests to spread the load over the request list
+                int first = i * requests.size() / config.concurrency;
+                clients.add(executor.submit(() -> client(first, deadline, errors)));
+            }
+            List<Double> latencies = new ArrayList<>();
+            for (Future<List<Double>> client : clients) {
+                latencies.addAll(client.get());
+            }
+            Result result = new Result(latencies.size(), errors.get(), BenchmarkStats.of(latencies));
+            if (result.requests == 0) {
+                logger.warn(Txt.s("HttpWarmupDriver.NoRequestsCompleted.Warning"));
+            } else {
+                logger.info(Txt.s("HttpWarmupDriver.Finish.Info", result.requests, result.errors,
+                        String.format("%.1f", result.latency.p50), String.format("%.1f", result.latency.p99)));
+                if (result.errors == result.requests) {
+                    logger.warn(Txt.s("HttpWarmupDriver.AllRequestsFailed.Warning"));
+                }
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JetTaskFailureException(e.getMessage(), e);
+        } catch (ExecutionException e) {
+            throw new JetTaskFailureException(e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void awaitReadiness() throws JetTaskFailureException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.readinessTimeout);
+        try {
+            while (!Utils.isLoopbackPortOpen(port, POLL_INTERVAL)) {
+                if (System.nanoTime() > deadline) {
+                    throw new JetTaskFailureException(Txt.s("HttpWarmupDriver.NotReady.Error", port, config.readinessTimeout));
+                }
+                Thread.sleep(POLL_INTERVAL);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JetTaskFailureException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Sends the requests in a loop starting from the given one until the deadline.
+     *
+     * @return latencies of the completed requests in milliseconds
+     */
+    private List<Double> client(int first, long deadline, AtomicInteger errors) {
+        List<Double> latencies = new ArrayList<>();
+        for (int i = first; (System.nanoTime() < deadline) && !Thread.currentThread().isInterrupted(); i++) {
+            Request request = requests.get(i % requests.size());
+            long start = System.nanoTime();
+            try {
+                if (send(request) >= 500) {
+                    errors.incrementAndGet();
+                }
+            } catch (IOException e) {
+                errors.incrementAndGet();
+            }
+            latencies.add((System.nanoTime() - start) / 1_000_000.0);
+        }
+        return latencies;
+    }
+
+    /**
+     * Sends the request and reads the response fully, so that the server handles it completely.
+     *
+     * @return the HTTP status code
+     */
+    private int send(Request request) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http", "localhost", port, request.path).openConnection();
+        // the connection is not disconnected explicitly, so that it is kept alive for the next request
+        int timeout = (int) TimeUnit.SECONDS.toMillis(config.requestTimeout);
+        connection.setConnectTimeout(timeout);
+        connection.setReadTimeout(timeout);
+        connection.setInstanceFollowRedirects(false);
+        connection.setRequestMethod(request.method);
+        request.headers.forEach(connection::setRequestProperty);
+        if (request.body != null) {
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(request.body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        InputStream response = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        if (response != null) {
+            try (InputStream in = response) {
+                byte[] buffer = new byte[8192];
+                while (in.read(buffer) >= 0) {
+                    // drain the response
+                }
+            }
+        }
+        return status;
+    }
+}
@@ -26,7 +26,10 @@ import com.excelsiorjet.api.cmd.CmdLineTool;
 import com.excelsiorjet.api.cmd.CmdLineToolException;
 import com.excelsiorjet.api.tasks.config.ApplicationType;
 import com.excelsiorjet.api.tasks.config.PackagingType;
+import com.excelsiorjet.api.tasks.config.SizeBudgetConfig;
 import com.excelsiorjet.api.tasks.config.compiler.ExecProfilesConfig;
+import com.excelsiorjet.api.tasks.config.compiler.ProfileDriftAction;
+import com.excelsiorjet.api.tasks.config.runtime.RuntimeConfig;
 import com.excelsiorjet.api.util.Txt;
 import com.excelsiorjet.api.util.Utils;
 
@@ -340,6 +343,9 @@ public class JetBuildTask {
 
     private void collectProfile(File profileDir) throws JetTaskFailureException, IOException, CmdLineToolException {
         new RunTask(excelsiorJet, project, true).run(profileDir);
+        if ((project.execProfiles().profileDriftThreshold > 0) && project.execProfiles().getJProfile().exists()) {
+            ProfileManifest.record(project, ProfileManifest.of(project.execProfiles().getJProfile()));
+        }
     }
 
     private long computeModifyTimeDaysBetween(File file1, File file2) {
@@ -359,9 +365,79 @@ public class JetBuildTask {
     void checkProfilesUpToDate() {
         ExecProfilesConfig execProfiles = project.execProfiles();
         if (execProfiles.daysToWarnAboutOutdatedProfiles > 0 ) {
-            checkProfileUpToDate(execProfiles.getStartup(), "JetApi.TestRun.RecollectProfile.Warning");
-            checkProfileUpToDate(execProfiles.getUsg(), "JetApi.TestRun.RecollectProfile.Warning");
-            checkProfileUpToDate(execProfiles.getJProfile(), "JetApi.PGO.RecollectProfile.Warning");
+            // profiles with manifests are checked for drift instead, see checkProfilesDrift()
+            boolean driftChecked = execProfiles.profileDriftThreshold > 0;
+            if (!driftChecked || !ProfileManifest.of(execProfiles.getUsg()).exists()) {
+                checkProfileUpToDate(execProfiles.getStartup(), "JetApi.TestRun.RecollectProfile.Warning");
+                checkProfileUpToDate(execProfiles.getUsg(), "JetApi.TestRun.RecollectProfile.Warning");
+            }
+            if (!driftChecked || !ProfileManifest.of(execProfiles.getJProfile()).exists()) {
+                checkProfileUpToDate(execProfiles.getJProfile(), "JetApi.PGO.RecollectProfile.Warning");
+            }
+        }
+    }
+
+    /**
+     * Compares the current application with the manifests of the profiles and takes
+     * {@link ExecProfilesConfig#profileDriftAction} if the drift exceeds {@link ExecProfilesConfig#profileDriftThreshold}.
+     */
+    void checkProfilesDrift() throws JetTaskFailureException, IOException, CmdLineToolException {
+        ExecProfilesConfig execProfiles = project.execProfiles();
+        if (execProfiles.profileDriftThreshold == 0) {
+            return;
+        }
+        ProfileManifest testRunManifest = execProfiles.getUsg().exists() || execProfiles.getStartup().exists() ?
+                ProfileManifest.readIfExists(ProfileManifest.of(execProfiles.getUsg())) : null;
+        // the execution profile is re-collected anyway when we build to profile
+        ProfileManifest jprofManifest = !toProfile && execProfiles.getJProfile().exists() ?
+                ProfileManifest.readIfExists(ProfileManifest.of(execProfiles.getJProfile())) : null;
+        if ((testRunManifest == null) && (jprofManifest == null)) {
+            return;
+        }
+
+        ProfileManifest current = ProfileManifest.capture(project);
+        ProfileDriftAction action = ProfileDriftAction.fromString(execProfiles.profileDriftAction);
+        if (testRunManifest != null) {
+            ProfileManifest.Drift drift = testRunManifest.driftTo(current);
+            if (drift.percent() > execProfiles.profileDriftThreshold) {
+                if (action == ProfileDriftAction.RECOLLECT) {
+                    logger.warn(driftMessage("JetBuildTask.ProfileDrift.Recollect.Warning", execProfiles.getUsg(), drift));
+                    new TestRunTask(excelsiorJet, project).execute();
+                } else {
+                    onProfileDrift(action, execProfiles.getUsg(), drift);
+                }
+            }
+        }
+        if (jprofManifest != null) {
+            ProfileManifest.Drift drift = jprofManifest.driftTo(current);
+            if (drift.percent() > execProfiles.profileDriftThreshold) {
+                onProfileDrift(action, execProfiles.getJProfile(), drift);
+            }
+        }
+    }
+
+    private void onProfileDrift(ProfileDriftAction action, File profile, ProfileManifest.Drift drift)
+            throws JetTaskFailureException
+    {
+        if (action == ProfileDriftAction.FAIL) {
+            throw new JetTaskFailureException(driftMessage("JetBuildTask.ProfileDrift.Failure", profile, drift));
+        }
+        logger.warn(driftMessage("JetBuildTask.ProfileDrift.Warning", profile, drift));
+    }
+
+    private String driftMessage(String key, File profile, ProfileManifest.Drift drift) {
+        return Txt.s(key, profile.getAbsolutePath(), drift.percent(), drift.changedEntries, drift.totalEntries,
+                project.execProfiles().profileDriftThreshold);
+    }
+
+    /**
+     * Selects the runtime components and locales that are not set explicitly, if requested.
+     * Must be called before the previous application image is cleaned, as its runtime is measured.
+     */
+    private void selectRuntimeParts() throws JetTaskFailureException, IOException {
+        RuntimeConfig runtime = project.runtimeConfiguration();
+        if ((runtime != null) && runtime.autoSelect && ((runtime.components == null) || (runtime.locales == null))) {
+            new RuntimeUsageTask(excelsiorJet, project).apply(runtime);
         }
     }
 
@@ -378,6 +454,8 @@ public class JetBuildTask {
         }
 
         project.validate(excelsiorJet, true);
+        checkProfilesDrift();
+        selectRuntimeParts();
         buildDir = project.createBuildDir();
 
         File appOrProfileDir = toProfile ? project.jetAppToProfileDir(): project.jetAppDir();
@@ -439,6 +517,10 @@ public class JetBuildTask {
                         project.execProfiles().getJProfile().getName(), project.execProfiles().outputDir.getAbsolutePath()));
             }
         } else {
+            SizeBudgetConfig sizeBudget = project.sizeBudgetConfiguration();
+            if ((sizeBudget != null) && sizeBudget.isDefined()) {
+                new AppSizeAnalyzer(project, excelsiorJet).analyzeAndCheck(appOrProfileDir);
+            }
             packageBuild(buildDir, appOrProfileDir);
             checkProfilesUpToDate();
         }
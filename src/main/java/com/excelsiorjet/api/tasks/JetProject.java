@@ -70,7 +70,7 @@ import static java.util.stream.Collectors.toList;
  * @see JetBuildTask
  * @see TestRunTask
  */
-public class JetProject {
+public class JetProject implements Cloneable {
 
     private static final String JET_OUTPUT_DIR = "jet";
     private static final String BUILD_DIR = "build";
@@ -80,6 +80,7 @@ public class JetProject {
     private static final String SPRING_BOOT_WAR_MAIN_CLASS = "org.springframework.boot.loader.WarLauncher";
     private static final String SPRING_BOOT_VERSION_ATTR = "Spring-Boot-Version";
     private static final String SPRING_BOOT_START_CLASS_ATTR = "Start-Class";
+    private static final int DEFAULT_STOP_TIMEOUT = 60;
 
     /**
      * Name and version of the plugin that created this project.
@@ -321,6 +322,17 @@ public class JetProject {
      */
     private String optimizationPreset;
 
+    /**
+     * If set to {@code true}, the {@code pack} and {@code optimize} settings of dependency jars
+     * that are not set explicitly are chosen from the jar contents and the Test Run usage list:
+     * jars without classes or with large amounts of resources are not packed into the executable,
+     * and libraries rarely used during the Test Run are compiled selectively.
+     * The chosen settings are logged, so that they can be pinned in {@link #dependencies}.
+     *
+     * @see #optimizationPreset
+     */
+    private boolean autoTuneDependencies;
+
 
     /**
      * If set to {@code true}, the Global Optimizer is enabled,
@@ -353,8 +365,21 @@ public class JetProject {
 
     /**
      * Internal representation of project dependencies calculated from {@code projectDependencies} and {@code dependencies}
+     * (transient as it is derived from the configuration rather than a part of it, see {@link ValidationCache})
+     */
+    private transient List<ClasspathEntry> classpathEntries;
+
+    /**
+     * Result of the last successful validation, used to skip the validation of an unchanged project.
      */
-    private List<ClasspathEntry> classpathEntries;
+    private transient ValidationCache.Stamp validationStamp;
+
+    /**
+     * Directory where the classpath entries have been staged by {@link #stageClasspathEntries(File)}
+     * for several builds, or {@code null}. If set, {@link #copyClasspathEntries()} links the staged files
+     * into the build directory instead of copying the entries again.
+     */
+    private transient File stagedClasspathDir;
 
     /**
      * Runtime configuration parameters.
@@ -581,6 +606,9 @@ public class JetProject {
      * <dd>Send Ctrl-C event to a running application</dd>
      * <dt>halt</dt>
      * <dd>call java.lang.Shutdown.halt() (System.exit()) within a running application</dd>
+     * <dt>staged</dt>
+     * <dd>send Ctrl-C event, then call java.lang.Shutdown.halt() if the application has not terminated in time,
+     *     then kill the application process tree, see {@link StagedStopConfig}</dd>
      * </dl>
      *
      * Applications may perform some shutdown actions upon termination (e.g. close a database).
@@ -589,6 +617,109 @@ public class JetProject {
      */
     private String terminationPolicy;
 
+    /**
+     * Stage timeouts for the {@code staged} termination policy.
+     *
+     * @see StagedStopConfig
+     */
+    private StagedStopConfig stagedStopConfiguration;
+
+    /**
+     * Time in seconds {@link StopTask} waits for a running application to terminate
+     * before reporting a failure. The default value is 60.
+     */
+    private int stopTimeout;
+
+    /**
+     * Channel used by {@link StopTask} to stop the application started with {@link RunTask} or {@link TestRunTask}.
+     * Possible values are:
+     * <dl>
+     * <dt>file</dt>
+     * <dd>the running task polls for a termination file created by the stopping task</dd>
+     * <dt>socket</dt>
+     * <dd>the stopping task connects to a loopback socket opened by the running task and waits for the stop
+     *     confirmation over it. The termination file is still used as a fallback.</dd>
+     * </dl>
+     * The default value is "file".
+     */
+    private String runControl;
+
+    /**
+     * Name of the application instance started by {@link RunTask} or {@link TestRunTask}.
+     * Instances with different names may run side by side and be stopped separately.
+     * If not set, the instance is named after its sequential number.
+     */
+    private String runInstance;
+
+    /**
+     * Names of the application instances to stop with {@link StopTask}, "all" stops all running instances.
+     * If not set, the last started instance is stopped.
+     */
+    private String[] stopInstances;
+
+    /**
+     * Startup benchmark settings used by {@link StartupBenchmarkTask}.
+     *
+     * @see StartupBenchmarkConfig
+     */
+    private StartupBenchmarkConfig startupBenchmarkConfiguration;
+
+    /**
+     * Load driver and measurement settings used by {@link PgoComparisonTask}.
+     *
+     * @see PgoComparisonConfig
+     */
+    private PgoComparisonConfig pgoComparisonConfiguration;
+
+    /**
+     * Variants and measurement settings used by {@link BuildMatrixTask}.
+     *
+     * @see BuildMatrixConfig
+     */
+    private BuildMatrixConfig buildMatrixConfiguration;
+
+    /**
+     * Runtime variants and measurement settings used by {@link FootprintTask}.
+     *
+     * @see FootprintConfig
+     */
+    private FootprintConfig footprintConfiguration;
+
+    /**
+     * Size budget of the application image checked by {@link JetBuildTask}.
+     *
+     * @see SizeBudgetConfig
+     */
+    private SizeBudgetConfig sizeBudgetConfiguration;
+
+    /**
+     * Settings of the classpath analysis performed by {@link ClasspathAnalysisTask}.
+     *
+     * @see ClasspathAnalysisConfig
+     */
+    private ClasspathAnalysisConfig classpathAnalysisConfiguration;
+
+    /**
+     * Settings of the usage list analysis performed by {@link UsageListAnalysisTask}.
+     *
+     * @see UsageListAnalysisConfig
+     */
+    private UsageListAnalysisConfig usageListAnalysisConfiguration;
+
+    /**
+     * Settings of the heap advisor performed by {@link HeapAdvisorTask}.
+     *
+     * @see HeapAdvisorConfig
+     */
+    private HeapAdvisorConfig heapAdvisorConfiguration;
+
+    /**
+     * Excelsior JET installations used by {@link MultiTargetBuildTask}.
+     *
+     * @see MultiTargetConfig
+     */
+    private MultiTargetConfig multiTargetConfiguration;
+
     /**
      * Sets a build tool specific logger and build tool specific messages overriding common ones
      * that should be shown to a user.
@@ -621,6 +752,31 @@ public class JetProject {
         this.jetResourcesDir = requireNonNull(jetResourcesDir, "jetResourcesDir cannot be null");
     }
 
+    /**
+     * Creates a copy of this project that builds the application into its own {@code jetOutputDir}
+     * without packaging, so that copies with different compiler settings can be built side by side.
+     * Each copy has its own build, application and PDB directories and deep copies of all configuration
+     * objects, so that copies can be validated and built concurrently.
+     */
+    JetProject copyForBuildIn(File jetOutputDir, ExcelsiorJet excelsiorJet) {
+        JetProject copy;
+        try {
+            copy = (JetProject) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+        ConfigCopier.copyConfigurations(copy);
+        copy.jetOutputDir = jetOutputDir;
+        copy.jetBuildDir = new File(jetOutputDir, BUILD_DIR);
+        copy.jetAppDir = new File(jetOutputDir, APP_DIR);
+        copy.excelsiorJetPackaging = NONE.toString();
+        copy.pdbConfiguration = new PDBConfig();
+        if (excelsiorJet.isSmartSupported()) {
+            copy.pdbConfiguration.specificLocation = new File(jetOutputDir, "pdb");
+        }
+        return copy;
+    }
+
     ///////////////// Validation ////////////////
 
     /**
@@ -632,6 +788,12 @@ public class JetProject {
             throw new IllegalStateException("Please call JetProject.configureEnvironment() before using JetProject");
         }
 
+        if ((validationStamp != null) &&
+                validationStamp.covers(ValidationCache.fingerprint(this), excelsiorJet, validateForBuild)) {
+            return;
+        }
+        validationStamp = null;
+
 
         if (artifactName == null) {
             artifactName = projectName;
@@ -802,15 +964,91 @@ public class JetProject {
         if (terminationPolicy == null) {
             terminationPolicy = TerminationPolicy.CTRL_C.toString();
         } else {
-            TerminationPolicy.validate(terminationPolicy);
+            terminationPolicy = TerminationPolicy.validate(terminationPolicy).toString();
+        }
+        if (stagedStopConfiguration == null) {
+            stagedStopConfiguration = new StagedStopConfig();
+        }
+        stagedStopConfiguration.fillDefaults();
+
+        if (stopTimeout <= 0) {
+            stopTimeout = DEFAULT_STOP_TIMEOUT;
+        }
+
+        if (runControl == null) {
+            runControl = RunControlType.FILE.toString();
+        } else {
+            RunControlType.validate(runControl);
+        }
+
+        if (RunStopSupport.ALL_INSTANCES.equals(runInstance)) {
+            throw new JetTaskFailureException(s("JetApi.ReservedRunInstanceName.Failure", runInstance));
+        }
+        if (stopInstances == null) {
+            stopInstances = new String[0];
+        }
+
+        if (startupBenchmarkConfiguration == null) {
+            startupBenchmarkConfiguration = new StartupBenchmarkConfig();
         }
+        startupBenchmarkConfiguration.fillDefaults(jetOutputDir);
+
+        if (pgoComparisonConfiguration == null) {
+            pgoComparisonConfiguration = new PgoComparisonConfig();
+        }
+        pgoComparisonConfiguration.fillDefaults(jetOutputDir);
+
+        if (buildMatrixConfiguration == null) {
+            buildMatrixConfiguration = new BuildMatrixConfig();
+        }
+        buildMatrixConfiguration.fillDefaults(jetOutputDir);
+
+        if (footprintConfiguration == null) {
+            footprintConfiguration = new FootprintConfig();
+        }
+        footprintConfiguration.fillDefaults(jetOutputDir);
+
+        if (sizeBudgetConfiguration == null) {
+            sizeBudgetConfiguration = new SizeBudgetConfig();
+        }
+        sizeBudgetConfiguration.validate();
+
+        if (classpathAnalysisConfiguration == null) {
+            classpathAnalysisConfiguration = new ClasspathAnalysisConfig();
+        }
+        classpathAnalysisConfiguration.fillDefaults(jetOutputDir);
+
+        if (usageListAnalysisConfiguration == null) {
+            usageListAnalysisConfiguration = new UsageListAnalysisConfig();
+        }
+        usageListAnalysisConfiguration.fillDefaults(jetOutputDir);
+
+        if (heapAdvisorConfiguration == null) {
+            heapAdvisorConfiguration = new HeapAdvisorConfig();
+        }
+        heapAdvisorConfiguration.fillDefaults(jetOutputDir);
+
+        if (multiTargetConfiguration == null) {
+            multiTargetConfiguration = new MultiTargetConfig();
+        }
+        multiTargetConfiguration.fillDefaults(jetOutputDir);
 
 
         if (validateForBuild) {
             validateForBuild(excelsiorJet);
         }
 
-        processDependencies();
+        // the default is set before fingerprinting, as processing dependencies would set it afterwards
+        resolveOptimizationPreset();
+        String fingerprint = ValidationCache.fingerprint(this);
+        List<ClasspathEntry> cachedClasspath = ValidationCache.classpath(fingerprint);
+        if (cachedClasspath != null) {
+            classpathEntries = cachedClasspath;
+        } else {
+            processDependencies();
+            classpathEntries = ValidationCache.putClasspath(fingerprint, classpathEntries);
+        }
+        validationStamp = new ValidationCache.Stamp(fingerprint, excelsiorJet, validateForBuild);
     }
 
     private void checkMainJar() throws JetTaskFailureException {
@@ -837,12 +1075,16 @@ public class JetProject {
         }
     }
 
-    void processDependencies() throws JetTaskFailureException {
+    private void resolveOptimizationPreset() throws JetTaskFailureException {
         if (optimizationPreset == null) {
             optimizationPreset = OptimizationPreset.TYPICAL.toString();
         } else {
             OptimizationPreset.validate(optimizationPreset);
         }
+    }
+
+    void processDependencies() throws JetTaskFailureException {
+        resolveOptimizationPreset();
 
         for (DependencySettings dependency : dependencies) {
             if (dependency.path == null && dependency.groupId == null && dependency.artifactId == null) {
@@ -869,9 +1111,12 @@ public class JetProject {
         List<DependencySettings> dependenciesSettings = new ArrayList<>();
         List<DependencySettings> externalDependencies = new ArrayList<>();
 
+        Map<DependencySettings, List<ProjectDependency>> matchedDependenciesBySettings =
+                dependenciesMatchedBy(allProjectDependencies, dependencies);
         Set<String> ids = new HashSet<>();
         for (DependencySettings dependencySettings : dependencies) {
-            List<ProjectDependency> matchedDependencies = dependenciesMatchedBy(allProjectDependencies, dependencySettings);
+            List<ProjectDependency> matchedDependencies =
+                    matchedDependenciesBySettings.getOrDefault(dependencySettings, Collections.emptyList());
             if (matchedDependencies.size() == 0){
                 if (dependencySettings.hasPathOnly()) {
                     externalDependencies.add(dependencySettings);
@@ -907,7 +1152,9 @@ public class JetProject {
             }
         }
 
-        DependencySettingsResolver dependencySettingsResolver = new DependencySettingsResolver(optimizationPreset(), groupId, dependenciesSettings);
+        DependencyTuner dependencyTuner = autoTuneDependencies ? dependencyTuner() : null;
+        DependencySettingsResolver dependencySettingsResolver =
+                new DependencySettingsResolver(optimizationPreset(), groupId, dependenciesSettings, dependencyTuner);
         classpathEntries = new ArrayList<>();
         switch (appType()) {
             case PLAIN:
@@ -961,12 +1208,41 @@ public class JetProject {
             default:
                 throw new AssertionError("Unknown application type: " + appType());
         }
+        if (dependencyTuner != null) {
+            dependencyTuner.logDecisions();
+        }
     }
 
-    private List<ProjectDependency> dependenciesMatchedBy(List<ProjectDependency> projectDependencies, DependencySettings dependencySetting) {
-        return projectDependencies.stream().
-                filter(dependencySetting::matches).
-                collect(toList());
+    private DependencyTuner dependencyTuner() {
+        File usg = (execProfilesConfiguration != null) && (execProfilesConfiguration.outputDir != null) ?
+                execProfilesConfiguration.getUsg() : null;
+        Set<String> usedClasses = Collections.emptySet();
+        if ((usg != null) && usg.isFile()) {
+            try {
+                usedClasses = ClasspathAnalysisTask.usedClasses(execProfilesConfiguration);
+            } catch (IOException e) {
+                logger.warn(s("JetApi.UsageListNotRead.Warning", usg.getAbsolutePath(), e.toString()));
+                usg = null;
+            }
+        }
+        return new DependencyTuner(usedClasses, (usg != null) && usg.isFile());
+    }
+
+    /**
+     * Finds the project dependencies matched by each of the given settings.
+     * The settings are indexed, so that the cost is proportional to the number of dependencies rather than
+     * to the product of the numbers of dependencies and settings.
+     */
+    private static Map<DependencySettings, List<ProjectDependency>> dependenciesMatchedBy(List<ProjectDependency> projectDependencies,
+                                                                                        List<DependencySettings> dependencySettings) {
+        DependencySettingsIndex index = new DependencySettingsIndex(dependencySettings);
+        Map<DependencySettings, List<ProjectDependency>> matched = new IdentityHashMap<>();
+        for (ProjectDependency dep : projectDependencies) {
+            for (DependencySettings settings : index.matching(dep)) {
+                matched.computeIfAbsent(settings, s -> new ArrayList<>()).add(dep);
+            }
+        }
+        return matched;
     }
 
     private void validateForBuild(ExcelsiorJet excelsiorJet) throws JetTaskFailureException {
@@ -1261,8 +1537,8 @@ public class JetProject {
      */
     private boolean checkSpringBootArtifact(File mainArtifact, boolean checkJar, boolean failOnVersionCheck) throws JetTaskFailureException {
         Manifest manifest;
-        try {
-            manifest =  new JarFile(mainArtifact).getManifest();
+        try (JarFile jar = new JarFile(mainArtifact)) {
+            manifest = jar.getManifest();
         } catch (IOException e) {
             return false;
         }
@@ -1324,7 +1600,11 @@ public class JetProject {
             classpathEntries.forEach(a -> {
                 Path pathInJetBuildDir = toPathRelativeToJetBuildDir(a);
                 File dst = jetBuildDir.toPath().resolve(pathInJetBuildDir).toFile();
-                copyClasspathEntry(a, dst);
+                if (stagedClasspathDir != null) {
+                    linkStagedClasspathEntry(stagedClasspathDir.toPath().resolve(pathInJetBuildDir).toFile(), dst);
+                } else {
+                    copyClasspathEntry(a, dst);
+                }
             });
 
             return classpathEntries;
@@ -1334,13 +1614,49 @@ public class JetProject {
         }
     }
 
+    private void linkStagedClasspathEntry(File staged, File to) throws JetTaskWrappedException {
+        try {
+            Utils.mkdir(to.getParentFile());
+            if (staged.isFile()) {
+                Utils.linkOrCopyFile(staged.toPath(), to.toPath());
+            } else {
+                Utils.linkOrCopyDirectory(staged.toPath(), to.toPath());
+            }
+        } catch (IOException | JetTaskFailureException e) {
+            throw new JetTaskWrappedException(e);
+        }
+    }
+
+    /**
+     * Copies the classpath entries to the given directory, laid out as in the build directory,
+     * so that the builds of several copies of this project can link them from there.
+     *
+     * @see #stagedClasspathDir(File)
+     */
+    void stageClasspathEntries(File dir) throws JetTaskFailureException, IOException {
+        try {
+            classpathEntries.forEach(a -> copyClasspathEntry(a, dir.toPath().resolve(toPathRelativeToJetBuildDir(a)).toFile()));
+        } catch (JetTaskWrappedException e) {
+            throw new IOException(s("JetApi.ErrorCopyingDependency.Exception"), e.getCause());
+        }
+    }
+
+    JetProject stagedClasspathDir(File stagedClasspathDir) {
+        this.stagedClasspathDir = stagedClasspathDir;
+        return this;
+    }
+
     /**
      * Copies the master Tomcat server to the build directory and main project artifact (.war)
      * to the "webapps" folder of copied Tomcat.
      */
     void copyTomcatAndWar() throws IOException {
         try {
-            Utils.copyDirectory(Paths.get(tomcatConfiguration.tomcatHome), tomcatInBuildDir().toPath());
+            File tomcatHome = tomcatConfiguration.cacheDir != null ?
+                    TomcatImage.prepare(tomcatConfiguration) : new File(tomcatConfiguration.tomcatHome);
+            Utils.copyDirectory(tomcatHome.toPath(), tomcatInBuildDir().toPath());
+            // the build directory may keep the parts pruned since the previous build
+            TomcatImage.prune(tomcatInBuildDir(), tomcatConfiguration);
             String warName = tomcatConfiguration.warDeployName;
             Utils.copyFile(mainWar.toPath(), new File(tomcatInBuildDir(), TomcatConfig.WEBAPPS_DIR + File.separator + warName).toPath());
         } catch (IOException e) {
@@ -1411,6 +1727,10 @@ public class JetProject {
         return classpathEntries;
     }
 
+    List<ProjectDependency> projectDependencies() {
+        return projectDependencies;
+    }
+
     File packageFilesDir() {
         return packageFilesDir;
     }
@@ -1431,6 +1751,10 @@ public class JetProject {
         return inceptionYear;
     }
 
+    String excelsiorJetPackagingValue() {
+        return excelsiorJetPackaging;
+    }
+
     PackagingType excelsiorJetPackaging() {
         return PackagingType.fromString(excelsiorJetPackaging);
     }
@@ -1443,6 +1767,10 @@ public class JetProject {
         return OptimizationPreset.fromString(optimizationPreset);
     }
 
+    boolean autoTuneDependencies() {
+        return autoTuneDependencies;
+    }
+
     public boolean globalOptimizer() {
         return globalOptimizer;
     }
@@ -1547,17 +1875,87 @@ public class JetProject {
         return pdbConfiguration;
     }
 
+    /**
+     * @return stop timeout in milliseconds
+     */
+    public long stopTimeout() {
+        return stopTimeout * 1000L;
+    }
+
+    String terminationPolicy() {
+        return terminationPolicy;
+    }
+
+    public String runInstance() {
+        return runInstance;
+    }
+
+    public String[] stopInstances() {
+        return stopInstances;
+    }
+
+    StartupBenchmarkConfig startupBenchmarkConfiguration() {
+        return startupBenchmarkConfiguration;
+    }
+
+    PgoComparisonConfig pgoComparisonConfiguration() {
+        return pgoComparisonConfiguration;
+    }
+
+    BuildMatrixConfig buildMatrixConfiguration() {
+        return buildMatrixConfiguration;
+    }
+
+    FootprintConfig footprintConfiguration() {
+        return footprintConfiguration;
+    }
+
+    SizeBudgetConfig sizeBudgetConfiguration() {
+        return sizeBudgetConfiguration;
+    }
+
+    ClasspathAnalysisConfig classpathAnalysisConfiguration() {
+        return classpathAnalysisConfiguration;
+    }
+
+    UsageListAnalysisConfig usageListAnalysisConfiguration() {
+        return usageListAnalysisConfiguration;
+    }
+
+    HeapAdvisorConfig heapAdvisorConfiguration() {
+        return heapAdvisorConfiguration;
+    }
+
+    MultiTargetConfig multiTargetConfiguration() {
+        return multiTargetConfiguration;
+    }
+
+    public boolean isSocketRunControl() {
+        return RunControlType.fromString(runControl) == RunControlType.SOCKET;
+    }
+
     public String getTerminationVMProp(File termFile) {
+        return String.join(" ", getTerminationVMProps(termFile));
+    }
+
+    public List<String> getTerminationVMProps(File termFile) {
         switch (TerminationPolicy.fromString(terminationPolicy)) {
             case CTRL_C:
-                return "-Djet.ctrlc.signal.file=" + termFile.getAbsolutePath();
+                return Collections.singletonList("-Djet.ctrlc.signal.file=" + termFile.getAbsolutePath());
             case HALT:
-                return  "-Djet.terminator=" + termFile.getAbsolutePath();
+                return Collections.singletonList("-Djet.terminator=" + termFile.getAbsolutePath());
+            case STAGED:
+                return Arrays.asList("-Djet.ctrlc.signal.file=" + termFile.getAbsolutePath(),
+                        "-Djet.terminator=" + RunStopSupport.haltFileFor(termFile).getAbsolutePath());
             default:
                 throw new AssertionError("Unknown termination policy:" + terminationPolicy);
         }
     }
 
+    StagedStopConfig stagedStopConfiguration() {
+        return stagedStopConfiguration;
+    }
+
 ////////// Builder methods ////////////////////
 
     public JetProject mainWar(File mainWar) {
@@ -1650,6 +2048,11 @@ public class JetProject {
         return this;
     }
 
+    public JetProject autoTuneDependencies(boolean autoTuneDependencies) {
+        this.autoTuneDependencies = autoTuneDependencies;
+        return this;
+    }
+
     public JetProject globalOptimizer(boolean globalOptimizer) {
         this.globalOptimizer = globalOptimizer;
         return this;
@@ -1785,6 +2188,76 @@ public class JetProject {
         return this;
     }
 
+    public JetProject stagedStopConfiguration(StagedStopConfig stagedStopConfiguration) {
+        this.stagedStopConfiguration = stagedStopConfiguration;
+        return this;
+    }
+
+    public JetProject stopTimeout(int stopTimeout) {
+        this.stopTimeout = stopTimeout;
+        return this;
+    }
+
+    public JetProject runControl(String runControl) {
+        this.runControl = runControl;
+        return this;
+    }
+
+    public JetProject runInstance(String runInstance) {
+        this.runInstance = runInstance;
+        return this;
+    }
+
+    public JetProject stopInstances(String[] stopInstances) {
+        this.stopInstances = stopInstances;
+        return this;
+    }
+
+    public JetProject startupBenchmarkConfiguration(StartupBenchmarkConfig startupBenchmarkConfiguration) {
+        this.startupBenchmarkConfiguration = startupBenchmarkConfiguration;
+        return this;
+    }
+
+    public JetProject pgoComparisonConfiguration(PgoComparisonConfig pgoComparisonConfiguration) {
+        this.pgoComparisonConfiguration = pgoComparisonConfiguration;
+        return this;
+    }
+
+    public JetProject buildMatrixConfiguration(BuildMatrixConfig buildMatrixConfiguration) {
+        this.buildMatrixConfiguration = buildMatrixConfiguration;
+        return this;
+    }
+
+    public JetProject footprintConfiguration(FootprintConfig footprintConfiguration) {
+        this.footprintConfiguration = footprintConfiguration;
+        return this;
+    }
+
+    public JetProject sizeBudgetConfiguration(SizeBudgetConfig sizeBudgetConfiguration) {
+        this.sizeBudgetConfiguration = sizeBudgetConfiguration;
+        return this;
+    }
+
+    public JetProject classpathAnalysisConfiguration(ClasspathAnalysisConfig classpathAnalysisConfiguration) {
+        this.classpathAnalysisConfiguration = classpathAnalysisConfiguration;
+        return this;
+    }
+
+    public JetProject usageListAnalysisConfiguration(UsageListAnalysisConfig usageListAnalysisConfiguration) {
+        this.usageListAnalysisConfiguration = usageListAnalysisConfiguration;
+        return this;
+    }
+
+    public JetProject heapAdvisorConfiguration(HeapAdvisorConfig heapAdvisorConfiguration) {
+        this.heapAdvisorConfiguration = heapAdvisorConfiguration;
+        return this;
+    }
+
+    public JetProject multiTargetConfiguration(MultiTargetConfig multiTargetConfiguration) {
+        this.multiTargetConfiguration = multiTargetConfiguration;
+        return this;
+    }
+
     public File jetBuildDir() {
         return jetBuildDir;
     }
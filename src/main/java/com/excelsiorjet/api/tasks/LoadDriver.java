@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.api.cmd.CmdLineTool;
+import com.excelsiorjet.api.cmd.CmdLineToolException;
+import com.excelsiorjet.api.platform.Host;
+import com.excelsiorjet.api.platform.Processes;
+import com.excelsiorjet.api.tasks.config.LoadDriverConfig;
+import com.excelsiorjet.api.util.Txt;
+import com.excelsiorjet.api.util.Utils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static com.excelsiorjet.api.log.Log.logger;
+
+/**
+ * Runs a load driver against an application and collects its throughput and latency samples.
+ *
+ * @see LoadDriverConfig
+ */
+class LoadDriver {
+
+    private static final Pattern METRIC = Pattern.compile("^\\s*(throughput|latency)\\s*[=:]\\s*([-+0-9.eE]+)\\s*$");
+
+    private static final int POLL_INTERVAL = 100;
+
+    private final LoadDriverConfig config;
+
+    LoadDriver(LoadDriverConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Result of a single load driver run.
+     */
+    static class Sample {
+        final double throughput;
+        final double latency;
+
+        Sample(double throughput, double latency) {
+            this.throughput = throughput;
+            this.latency = latency;
+        }
+
+        static List<Double> throughput(List<Sample> samples) {
+            return samples.stream().map(s -> s.throughput).collect(Collectors.toList());
+        }
+
+        static List<Double> latency(List<Sample> samples) {
+            return samples.stream().map(s -> s.latency).collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Application started in background to be driven by the load driver.
+     * Closing it kills the process tree of the application.
+     */
+    static class RunningApp implements AutoCloseable {
+        private final AtomicReference<Process> process = new AtomicReference<>();
+        private final Thread runner;
+        private volatile int exitCode;
+
+        RunningApp(CmdLineTool tool) {
+            tool.onStart(process::set);
+            runner = new Thread(() -> {
+                try {
+                    exitCode = tool.execute();
+                } catch (CmdLineToolException e) {
+                    logger.warn(e.getMessage());
+                }
+            });
+            runner.setDaemon(true);
+            runner.start();
+        }
+
+        /**
+         * Starts the executable found at {@code exeRelativePath} in {@code appDir} with the given arguments.
+         */
+        static RunningApp start(File appDir, String exeRelativePath, String[] args) {
+            return start(appDir, exeRelativePath, args, null);
+        }
+
+        /**
+         * Starts the executable with the given JET runtime properties passed in the {@code JETVMPROP}
+         * environment variable, if not {@code null}.
+         */
+        static RunningApp start(File appDir, String exeRelativePath, String[] args, String jetVMProp) {
+            String[] cmd = Utils.prepend(new File(appDir, exeRelativePath).getAbsolutePath(), args);
+            CmdLineTool tool = new CmdLineTool(cmd).workingDirectory(appDir);
+            if (jetVMProp != null) {
+                tool.withEnvironment("JETVMPROP", jetVMProp);
+            }
+            return new RunningApp(tool);
+        }
+
+        boolean isAlive() {
+            return runner.isAlive();
+        }
+
+        /**
+         * Returns the exit code of the application once it has exited on its own.
+         */
+        int exitCode() {
+            return exitCode;
+        }
+
+        /**
+         * Returns the OS process id of the application, or {@code -1} if it has not started yet
+         * or the id cannot be determined.
+         */
+        long pid() {
+            Process p = process.get();
+            return p == null ? -1 : Processes.pid(p);
+        }
+
+        @Override
+        public void close() throws JetTaskFailureException {
+            Process p = process.get();
+            if ((p != null) && p.isAlive()) {
+                long pid = Processes.pid(p);
+                if ((pid == -1) || !Processes.killTree(pid)) {
+                    p.destroyForcibly();
+                }
+            }
+            try {
+                runner.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new JetTaskFailureException(e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Waits for the application readiness and performs the warm-up and measured driver runs.
+     *
+     * @return samples of the measured runs
+     */
+    List<Sample> drive(RunningApp app) throws JetTaskFailureException, CmdLineToolException {
+        awaitReadiness(app);
+        for (int i = 0; i < config.warmupRuns; i++) {
+            run();
+        }
+        List<Sample> samples = new ArrayList<>();
+        for (int i = 0; i < config.measuredRuns; i++) {
+            samples.add(run());
+        }
+        if ((app != null) && !app.isAlive()) {
+            throw new JetTaskFailureException(Txt.s("LoadDriver.AppExited.Error"));
+        }
+        return samples;
+    }
+
+    /**
+     * Waits until the application accepts connections on {@link LoadDriverConfig#readinessPort}, if set,
+     * and then for {@link LoadDriverConfig#startupDelay} seconds.
+     *
+     * @param app the application to check for premature exit, or {@code null}
+     */
+    void awaitReadiness(RunningApp app) throws JetTaskFailureException {
+        try {
+            if (config.readinessPort != 0) {
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.timeout);
+                while (!Utils.isLoopbackPortOpen(config.readinessPort, POLL_INTERVAL)) {
+                    if ((app != null) && !app.isAlive()) {
+                        throw new JetTaskFailureException(Txt.s("LoadDriver.AppExitedBeforeReady.Error"));
+                    }
+                    if (System.nanoTime() > deadline) {
+                        throw new JetTaskFailureException(Txt.s("LoadDriver.AppNotReady.Error",
+                                config.readinessPort, config.timeout));
+                    }
+                    Thread.sleep(POLL_INTERVAL);
+                }
+            }
+            Thread.sleep(TimeUnit.SECONDS.toMillis(config.startupDelay));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JetTaskFailureException(e.getMessage(), e);
+        }
+    }
+
+    private String[] cmdLine() {
+        if (!Utils.isEmpty(config.command)) {
+            return config.command;
+        }
+        List<String> cmd = new ArrayList<>();
+        cmd.add(new File(new File(System.getProperty("java.home"), "bin"), Host.mangleExeName("java")).getAbsolutePath());
+        if (!Utils.isEmpty(config.classpath)) {
+            cmd.add("-cp");
+            cmd.add(String.join(File.pathSeparator, config.classpath));
+        }
+        cmd.add(config.mainClass);
+        if (config.args != null) {
+            cmd.addAll(Arrays.asList(config.args));
+        }
+        return cmd.toArray(new String[cmd.size()]);
+    }
+
+    /**
+     * Runs the load driver once and returns the metrics it has reported or derived from its duration.
+     */
+    Sample run() throws JetTaskFailureException, CmdLineToolException {
+        Map<String, Double> reported = new LinkedHashMap<>();
+        AtomicReference<Process> process = new AtomicReference<>();
+        AtomicBoolean timedOut = new AtomicBoolean();
+        Thread watchdog = new Thread(() -> {
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(config.timeout));
+                Process p = process.get();
+                if (p != null) {
+                    timedOut.set(true);
+                    Processes.killTree(Processes.pid(p));
+                    p.destroyForcibly();
+                }
+            } catch (InterruptedException ignore) {
+            }
+        });
+        watchdog.setDaemon(true);
+
+        long start = System.nanoTime();
+        watchdog.start();
+        int errCode;
+        try {
+            errCode = new CmdLineTool(cmdLine())
+                    .onStart(process::set)
+                    .withOutputListener(line -> {
+                        Matcher m = METRIC.matcher(line);
+                        if (m.matches()) {
+                            try {
+                                synchronized (reported) {
+                                    reported.put(m.group(1), Double.parseDouble(m.group(2)));
+                                }
+                            } catch (NumberFormatException ignore) {
+                            }
+                        }
+                    })
+                    .execute();
+        } finally {
+            watchdog.interrupt();
+            // the driver is still running if the run has been interrupted
+            Process p = process.get();
+            if ((p != null) && p.isAlive()) {
+                Processes.killTree(Processes.pid(p));
+                p.destroyForcibly();
+            }
+        }
+        double millis = (System.nanoTime() - start) / 1_000_000.0;
+        if (timedOut.get()) {
+            throw new JetTaskFailureException(Txt.s("LoadDriver.Timeout.Error", config.timeout));
+        }
+        if (errCode != 0) {
+            throw new JetTaskFailureException(Txt.s("LoadDriver.Failed.Error", errCode));
+        }
+        synchronized (reported) {
+            return new Sample(reported.getOrDefault("throughput", 1000 / millis),
+                    reported.getOrDefault("latency", millis));
+        }
+    }
+}
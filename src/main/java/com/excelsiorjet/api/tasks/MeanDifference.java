@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Difference of the means of two independent series of benchmark samples with its 95% confidence interval.
+ * <p>
+ * The interval is computed with Welch's t-test that does not assume equal variances of the series.
+ * </p>
+ */
+public class MeanDifference {
+
+    /**
+     * Two-sided 95% critical values of Student's t-distribution for 1..30 degrees of freedom.
+     */
+    private static final double[] T95 = {
+            12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+            2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+            2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042
+    };
+
+    private static final double[] T95_LARGE_DF = {30, 40, 60, 120, Double.POSITIVE_INFINITY};
+    private static final double[] T95_LARGE = {2.042, 2.021, 2.000, 1.980, 1.960};
+
+    /**
+     * Mean of the baseline series.
+     */
+    public final double baseline;
+
+    /**
+     * Mean of the candidate series minus the mean of the baseline series.
+     */
+    public final double difference;
+
+    /**
+     * Lower bound of the 95% confidence interval of {@link #difference}.
+     */
+    public final double lower;
+
+    /**
+     * Upper bound of the 95% confidence interval of {@link #difference}.
+     */
+    public final double upper;
+
+    private MeanDifference(double baseline, double difference, double lower, double upper) {
+        this.baseline = baseline;
+        this.difference = difference;
+        this.lower = lower;
+        this.upper = upper;
+    }
+
+    /**
+     * Compares the {@code candidate} series with the {@code baseline} series.
+     * Each series must contain at least two samples.
+     */
+    public static MeanDifference welch(Collection<? extends Number> baseline, Collection<? extends Number> candidate) {
+        if ((baseline.size() < 2) || (candidate.size() < 2)) {
+            throw new IllegalArgumentException("At least two samples are required in each series");
+        }
+        double meanA = mean(baseline);
+        double meanB = mean(candidate);
+        double seA = variance(baseline, meanA) / baseline.size();
+        double seB = variance(candidate, meanB) / candidate.size();
+        double se = Math.sqrt(seA + seB);
+        double difference = meanB - meanA;
+        if (se == 0) {
+            return new MeanDifference(meanA, difference, difference, difference);
+        }
+        // Welch-Satterthwaite approximation of the degrees of freedom
+        double df = (seA + seB) * (seA + seB) /
+                (seA * seA / (baseline.size() - 1) + seB * seB / (candidate.size() - 1));
+        double margin = t95(df) * se;
+        return new MeanDifference(meanA, difference, difference - margin, difference + margin);
+    }
+
+    /**
+     * Returns the two-sided 95% critical value of Student's t-distribution for the given degrees of freedom.
+     * Fractional degrees of freedom below 30 are rounded down that makes the interval slightly conservative.
+     */
+    static double t95(double df) {
+        if (df <= T95.length) {
+            return T95[Math.max((int) Math.floor(df), 1) - 1];
+        }
+        // linear interpolation in 1/df between the tabulated values
+        for (int i = 1; i < T95_LARGE_DF.length; i++) {
+            if (df <= T95_LARGE_DF[i]) {
+                double x0 = 1 / T95_LARGE_DF[i - 1];
+                double x1 = 1 / T95_LARGE_DF[i];
+                double x = 1 / df;
+                return T95_LARGE[i] + (T95_LARGE[i - 1] - T95_LARGE[i]) * (x - x1) / (x0 - x1);
+            }
+        }
+        return T95_LARGE[T95_LARGE.length - 1];
+    }
+
+    /**
+     * Returns {@code true} if the candidate mean is greater than the baseline one with 95% confidence.
+     */
+    public boolean isSignificantlyGreater() {
+        return lower > 0;
+    }
+
+    /**
+     * Returns {@code true} if the candidate mean is less than the baseline one with 95% confidence.
+     */
+    public boolean isSignificantlyLess() {
+        return upper < 0;
+    }
+
+    /**
+     * Returns the difference relative to the baseline mean in percent.
+     */
+    public double relativePercent() {
+        return baseline == 0 ? Double.NaN : difference * 100 / baseline;
+    }
+
+    /**
+     * Returns the comparison as an ordered map suitable for JSON reports.
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("difference", difference);
+        map.put("relativePercent", relativePercent());
+        map.put("ci95Lower", lower);
+        map.put("ci95Upper", upper);
+        return map;
+    }
+
+    private static double mean(Collection<? extends Number> samples) {
+        return samples.stream().mapToDouble(Number::doubleValue).average().getAsDouble();
+    }
+
+    private static double variance(Collection<? extends Number> samples, double mean) {
+        return samples.stream().mapToDouble(s -> (s.doubleValue() - mean) * (s.doubleValue() - mean)).sum()
+                / (samples.size() - 1);
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.api.ExcelsiorJet;
+import com.excelsiorjet.api.JetHome;
+import com.excelsiorjet.api.JetHomeException;
+import com.excelsiorjet.api.log.Log;
+import com.excelsiorjet.api.tasks.config.ApplicationType;
+import com.excelsiorjet.api.tasks.config.BuildTarget;
+import com.excelsiorjet.api.tasks.config.MultiTargetConfig;
+import com.excelsiorjet.api.util.Json;
+import com.excelsiorjet.api.util.Txt;
+import com.excelsiorjet.api.util.Utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static com.excelsiorjet.api.log.Log.logger;
+
+/**
+ * Task for building the application with several Excelsior JET installations at once,
+ * for example, a native x86-64 one and an ARM32 cross-compiler.
+ * <p>
+ * Each target is built by {@link JetBuildTask} in its own subdirectory of {@link MultiTargetConfig#outputDir}
+ * with its own build and application directories and PDB, and packaged as configured for the project.
+ * The classpath entries are copied once to a staging directory shared by the targets, and hard linked
+ * from there into the build directory of each target where the file system permits.
+ * The targets are built in parallel, each from its own copy of the project configuration validated
+ * for its own toolchain, and the outcome of all of them is written to a combined report.
+ * </p>
+ *
+ * @see MultiTargetConfig
+ */
+public class MultiTargetBuildTask {
+
+    static final String REPORT_FILE = "report.json";
+    static final String STAGING_DIR = "classpath";
+
+    /**
+     * Creates the {@link ExcelsiorJet} instance for an Excelsior JET home directory.
+     */
+    interface Toolchains {
+        ExcelsiorJet forHome(String jetHome) throws JetHomeException;
+    }
+
+    private final JetProject project;
+    private final Toolchains toolchains;
+
+    public MultiTargetBuildTask(JetProject project) {
+        this(project, jetHome -> new ExcelsiorJet(new JetHome(jetHome), Log.logger));
+    }
+
+    MultiTargetBuildTask(JetProject project, Toolchains toolchains) {
+        this.project = project;
+        this.toolchains = toolchains;
+    }
+
+    /**
+     * Outcome of the build for a target.
+     */
+    public static class TargetResult {
+        public final String name;
+        public final String jetHome;
+        public String os;
+        public String cpu;
+        public String edition;
+        public File appDir;
+        public String failure;
+        public double buildSeconds = Double.NaN;
+        public double sizeMb = Double.NaN;
+
+        TargetResult(String name, String jetHome) {
+            this.name = name;
+            this.jetHome = jetHome;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("name", name);
+            map.put("jetHome", jetHome);
+            map.put("os", os);
+            map.put("cpu", cpu);
+            map.put("edition", edition);
+            map.put("appDir", appDir == null ? null : appDir.getAbsolutePath());
+            map.put("failure", failure);
+            map.put("buildSeconds", buildSeconds);
+            map.put("sizeMb", sizeMb);
+            return map;
+        }
+    }
+
+    /**
+     * Builds the application for all targets.
+     *
+     * @return results of all targets in the configured order
+     * @throws JetTaskFailureException if a target cannot be set up or its build has failed;
+     *                                 the other targets are built and reported anyway
+     */
+    public List<TargetResult> execute() throws JetTaskFailureException, IOException {
+        MultiTargetConfig config = project.multiTargetConfiguration();
+        if ((config == null) || config.targets.isEmpty()) {
+            throw new JetTaskFailureException(Txt.s("MultiTargetBuildTask.NoTargets.Error"));
+        }
+
+        Map<String, ExcelsiorJet> excelsiorJets = new LinkedHashMap<>();
+        List<TargetResult> results = new ArrayList<>();
+        for (BuildTarget target : config.targets) {
+            ExcelsiorJet excelsiorJet;
+            try {
+                excelsiorJet = toolchains.forHome(target.jetHome);
+            } catch (JetHomeException e) {
+                throw new JetTaskFailureException(Txt.s("MultiTargetBuildTask.BadJetHome.Error", target.jetHome,
+                        e.getMessage()), e);
+            }
+            TargetResult result = new TargetResult(target.name != null ? target.name : defaultName(excelsiorJet),
+                    target.jetHome);
+            result.os = excelsiorJet.getTargetOS().toString();
+            result.cpu = excelsiorJet.getTargetCpu().toString();
+            result.edition = excelsiorJet.getEdition().toString();
+            if (excelsiorJets.put(result.name, excelsiorJet) != null) {
+                throw new JetTaskFailureException(Txt.s("MultiTargetBuildTask.DuplicateTarget.Error", result.name));
+            }
+            results.add(result);
+        }
+
+        // the packaging may be changed by the validation for one toolchain, while it is validated for each target
+        String packaging = project.excelsiorJetPackagingValue();
+        project.validate(excelsiorJets.values().iterator().next(), true);
+        config = project.multiTargetConfiguration();
+        Utils.mkdir(config.outputDir);
+
+        File stagingDir = null;
+        if (sharesClasspath(project.appType())) {
+            stagingDir = new File(config.outputDir, STAGING_DIR);
+            Utils.cleanDirectory(stagingDir);
+            logger.info(Txt.s("MultiTargetBuildTask.Staging.Info", stagingDir.getAbsolutePath()));
+            project.stageClasspathEntries(stagingDir);
+        }
+
+        Map<String, JetProject> targetProjects = new LinkedHashMap<>();
+        for (TargetResult result : results) {
+            File targetDir = new File(config.outputDir, result.name);
+            Utils.mkdir(targetDir);
+            JetProject targetProject = project.copyForBuildIn(targetDir, excelsiorJets.get(result.name))
+                    .excelsiorJetPackaging(packaging)
+                    .stagedClasspathDir(stagingDir);
+            result.appDir = targetProject.jetAppDir();
+            targetProjects.put(result.name, targetProject);
+        }
+
+        build(config.parallelism, excelsiorJets, targetProjects, results);
+
+        for (TargetResult result : results) {
+            if (result.failure == null) {
+                logger.info(Txt.s("MultiTargetBuildTask.Built.Info", result.name, result.cpu,
+                        String.format("%.1f", result.buildSeconds), String.format("%.1f", result.sizeMb),
+                        result.appDir.getAbsolutePath()));
+            }
+        }
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("targets", results.stream().map(TargetResult::toMap).collect(Collectors.toList()));
+        File reportFile = new File(config.outputDir, REPORT_FILE);
+        Files.write(reportFile.toPath(), Json.toJson(report).getBytes(StandardCharsets.UTF_8));
+        logger.info(Txt.s("MultiTargetBuildTask.Report.Info", reportFile.getAbsolutePath()));
+
+        List<String> failed = results.stream()
+                .filter(r -> r.failure != null)
+                .map(r -> r.name)
+                .collect(Collectors.toList());
+        if (!failed.isEmpty()) {
+            throw new JetTaskFailureException(Txt.s("MultiTargetBuildTask.TargetsFailed.Error",
+                    String.join(", ", failed), reportFile.getAbsolutePath()));
+        }
+        return results;
+    }
+
+    /**
+     * Returns the name of a target for which it is not set: the target OS and CPU of the toolchain.
+     */
+    static String defaultName(ExcelsiorJet excelsiorJet) {
+        return (excelsiorJet.getTargetOS().toString() + "-" + excelsiorJet.getTargetCpu().toString())
+                .toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Whether the build directories of this application type contain copies of the classpath entries,
+     * rather than of a Tomcat server or a Spring Boot archive.
+     */
+    private static boolean sharesClasspath(ApplicationType appType) {
+        switch (appType) {
+            case PLAIN:
+            case DYNAMIC_LIBRARY:
+            case WINDOWS_SERVICE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Builds the targets in parallel, recording build times, image sizes and failures.
+     */
+    private void build(int parallelism, Map<String, ExcelsiorJet> excelsiorJets, Map<String, JetProject> targetProjects,
+                       List<TargetResult> results) throws JetTaskFailureException
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, targetProjects.size()));
+        try {
+            Map<String, Future<Double>> builds = new LinkedHashMap<>();
+            for (Map.Entry<String, JetProject> target : targetProjects.entrySet()) {
+                builds.put(target.getKey(), executor.submit(() -> {
+                    logger.info(Txt.s("MultiTargetBuildTask.Build.Info", target.getKey()));
+                    long start = System.nanoTime();
+                    new JetBuildTask(excelsiorJets.get(target.getKey()), target.getValue(), false).execute();
+                    return (System.nanoTime() - start) / 1e9;
+                }));
+            }
+            for (TargetResult result : results) {
+                try {
+                    result.buildSeconds = builds.get(result.name).get();
+                    result.sizeMb = Utils.sizeOf(result.appDir) / (1024.0 * 1024.0);
+                } catch (ExecutionException e) {
+                    result.failure = e.getCause().getMessage();
+                    logger.error(Txt.s("MultiTargetBuildTask.TargetFailed.Error", result.name, result.failure));
+                } catch (IOException e) {
+                    result.failure = e.getMessage();
+                    logger.error(Txt.s("MultiTargetBuildTask.TargetFailed.Error", result.name, result.failure));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JetTaskFailureException(e.getMessage(), e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
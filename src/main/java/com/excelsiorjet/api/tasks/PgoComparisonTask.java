@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.api.ExcelsiorJet;
+import com.excelsiorjet.api.cmd.CmdLineToolException;
+import com.excelsiorjet.api.tasks.LoadDriver.RunningApp;
+import com.excelsiorjet.api.tasks.LoadDriver.Sample;
+import com.excelsiorjet.api.tasks.config.PgoComparisonConfig;
+import com.excelsiorjet.api.util.Json;
+import com.excelsiorjet.api.util.Txt;
+import com.excelsiorjet.api.util.Utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.excelsiorjet.api.log.Log.logger;
+
+/**
+ * Task for checking whether profile-guided optimization (PGO) pays off for the application.
+ * <p>
+ * The task builds the application without PGO, collects an execution profile, builds the application with PGO
+ * and runs a load driver against both images in alternating rounds. Throughput and latency deltas
+ * are reported with their 95% confidence intervals. The PGO build is kept only if its throughput is
+ * significantly higher and its latency is not significantly higher than those of the baseline build.
+ * Otherwise, the collected profile is set aside and the application is rebuilt without PGO.
+ * </p>
+ *
+ * @see PgoComparisonConfig
+ */
+public class PgoComparisonTask {
+
+    static final String BASELINE = "baseline";
+    static final String PGO = "pgo";
+
+    static final String REPORT_FILE = "report.json";
+
+    private static final int REGISTRY_POLL_INTERVAL = 500;
+
+    private final ExcelsiorJet excelsiorJet;
+    private final JetProject project;
+
+    public PgoComparisonTask(ExcelsiorJet excelsiorJet, JetProject project) throws JetTaskFailureException {
+        this.excelsiorJet = excelsiorJet;
+        this.project = project;
+    }
+
+    /**
+     * Performs the comparison.
+     *
+     * @return {@code true} if the PGO build has won and is kept
+     */
+    public boolean execute() throws JetTaskFailureException, IOException, CmdLineToolException {
+        if (excelsiorJet.isCrossCompilation()) {
+            throw new JetTaskFailureException(Txt.s("RunTask.NoRunForCrossCompilation.Error"));
+        }
+        if (!excelsiorJet.isPGOSupported()) {
+            throw new JetTaskFailureException(Txt.s("JetApi.PGONotSupported.Failure"));
+        }
+
+        project.validate(excelsiorJet, true);
+
+        switch (project.appType()) {
+            case WINDOWS_SERVICE:
+            case DYNAMIC_LIBRARY:
+                throw new JetTaskFailureException(Txt.s("RunTask.AppTypeNotForRun.Error", project.appType()));
+        }
+        if (!project.isProfileLocally()) {
+            throw new JetTaskFailureException(Txt.s("PgoComparisonTask.ProfileNotLocally.Error"));
+        }
+        PgoComparisonConfig config = project.pgoComparisonConfiguration();
+        if (!config.loadDriver.isDefined()) {
+            throw new JetTaskFailureException(Txt.s("PgoComparisonTask.NoLoadDriver.Error"));
+        }
+
+        File jprof = project.execProfiles().getJProfile();
+        if (jprof.exists()) {
+            File previous = new File(jprof.getPath() + ".previous");
+            logger.info(Txt.s("PgoComparisonTask.PreviousProfileSaved.Info", jprof.getAbsolutePath(), previous.getAbsolutePath()));
+            setAside(jprof, previous);
+        }
+
+        Utils.mkdir(config.outputDir);
+        Map<String, File> images = new LinkedHashMap<>();
+        images.put(BASELINE, new File(config.outputDir, BASELINE));
+        images.put(PGO, new File(config.outputDir, PGO));
+
+        logger.info(Txt.s("PgoComparisonTask.BuildBaseline.Info"));
+        new JetBuildTask(excelsiorJet, project, false).execute();
+        snapshot(project.jetAppDir(), images.get(BASELINE));
+
+        logger.info(Txt.s("PgoComparisonTask.CollectProfile.Info"));
+        collectProfile(config);
+        if (!jprof.exists()) {
+            throw new JetTaskFailureException(Txt.s("JetApi.Profile.ProfileNotCollected"));
+        }
+
+        logger.info(Txt.s("PgoComparisonTask.BuildPGO.Info"));
+        new JetBuildTask(excelsiorJet, project, false).execute();
+        snapshot(project.jetAppDir(), images.get(PGO));
+
+        Map<String, List<Sample>> samples = measure(config, images);
+        List<Double> baselineThroughput = Sample.throughput(samples.get(BASELINE));
+        List<Double> pgoThroughput = Sample.throughput(samples.get(PGO));
+        List<Double> baselineLatency = Sample.latency(samples.get(BASELINE));
+        List<Double> pgoLatency = Sample.latency(samples.get(PGO));
+        MeanDifference throughputDelta = MeanDifference.welch(baselineThroughput, pgoThroughput);
+        MeanDifference latencyDelta = MeanDifference.welch(baselineLatency, pgoLatency);
+        boolean pgoWins = throughputDelta.isSignificantlyGreater() && !latencyDelta.isSignificantlyGreater();
+
+        logger.info(Txt.s("PgoComparisonTask.Throughput.Info", format(throughputDelta.baseline),
+                format(throughputDelta.baseline + throughputDelta.difference), formatDelta(throughputDelta)));
+        logger.info(Txt.s("PgoComparisonTask.Latency.Info", format(latencyDelta.baseline),
+                format(latencyDelta.baseline + latencyDelta.difference), formatDelta(latencyDelta)));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("rounds", config.rounds);
+        report.put("warmupRuns", config.loadDriver.warmupRuns);
+        report.put("measuredRuns", config.loadDriver.measuredRuns);
+        Map<String, Object> variants = new LinkedHashMap<>();
+        variants.put(BASELINE, variantReport(baselineThroughput, baselineLatency));
+        variants.put(PGO, variantReport(pgoThroughput, pgoLatency));
+        report.put("variants", variants);
+        report.put("throughputDelta", throughputDelta.toMap());
+        report.put("latencyMsDelta", latencyDelta.toMap());
+        report.put("pgoKept", pgoWins);
+        File reportFile = new File(config.outputDir, REPORT_FILE);
+        Files.write(reportFile.toPath(), Json.toJson(report).getBytes(StandardCharsets.UTF_8));
+        logger.info(Txt.s("PgoComparisonTask.Report.Info", reportFile.getAbsolutePath()));
+
+        if (pgoWins) {
+            logger.info(Txt.s("PgoComparisonTask.PGOKept.Info"));
+        } else {
+            File rejected = new File(jprof.getPath() + ".rejected");
+            logger.warn(Txt.s("PgoComparisonTask.PGORejected.Warning", rejected.getAbsolutePath()));
+            setAside(jprof, rejected);
+            new JetBuildTask(excelsiorJet, project, false).execute();
+        }
+        return pgoWins;
+    }
+
+    /**
+     * Moves the profile to {@code target} so that subsequent builds do not use it.
+     */
+    private static void setAside(File jprof, File target) throws IOException {
+        Files.move(jprof.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        Files.deleteIfExists(ProfileManifest.of(jprof).toPath());
+    }
+
+    private static void snapshot(File appDir, File imageDir) throws IOException {
+        if (imageDir.exists()) {
+            Utils.cleanDirectory(imageDir);
+        }
+        Utils.copyDirectory(appDir.toPath(), imageDir.toPath());
+    }
+
+    /**
+     * Builds the application to profile and collects the execution profile, driving the profile run
+     * with the load driver if {@link PgoComparisonConfig#driveProfileRun} is set.
+     */
+    private void collectProfile(PgoComparisonConfig config) throws JetTaskFailureException, IOException, CmdLineToolException {
+        if (!config.driveProfileRun) {
+            new JetBuildTask(excelsiorJet, project, true).execute();
+            return;
+        }
+
+        RunStopSupport registry = new RunStopSupport(project.jetOutputDir(), true, project.stopTimeout())
+                .withStagedStop(project.stagedStopConfiguration());
+        Set<String> runningBefore = new HashSet<>();
+        for (RunInstance instance : registry.listRunTasks()) {
+            runningBefore.add(instance.name);
+        }
+
+        AtomicBoolean buildFinished = new AtomicBoolean();
+        Thread driver = new Thread(() -> {
+            try {
+                // wait until the application to profile is built and started
+                RunInstance profiled = null;
+                while ((profiled == null) && !buildFinished.get()) {
+                    for (RunInstance instance : registry.listRunTasks()) {
+                        if (!runningBefore.contains(instance.name) && (instance.pid != -1)) {
+                            profiled = instance;
+                        }
+                    }
+                    if (profiled == null) {
+                        Thread.sleep(REGISTRY_POLL_INTERVAL);
+                    }
+                }
+                if (profiled == null) {
+                    return;
+                }
+                try {
+                    new LoadDriver(config.loadDriver).drive(null);
+                } catch (JetTaskFailureException | CmdLineToolException e) {
+                    logger.warn(Txt.s("PgoComparisonTask.ProfileRunDriverFailed.Warning", e.getMessage()));
+                } finally {
+                    // a failed load driver must end the profiling run too, it would last until profileRunTimeout
+                    registry.stopRunTask(profiled.name);
+                }
+            } catch (InterruptedException ignore) {
+            } catch (JetTaskFailureException e) {
+                logger.warn(Txt.s("PgoComparisonTask.ProfileRunStopFailed.Warning", e.getMessage()));
+            }
+        });
+        driver.setDaemon(true);
+        driver.start();
+        try {
+            new JetBuildTask(excelsiorJet, project, true).execute();
+        } finally {
+            buildFinished.set(true);
+            driver.interrupt();
+            try {
+                driver.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Runs the load driver against the images in {@link PgoComparisonConfig#rounds} rounds.
+     * The order of the images alternates from round to round to cancel out a drift of the environment.
+     */
+    private Map<String, List<Sample>> measure(PgoComparisonConfig config, Map<String, File> images)
+            throws JetTaskFailureException, CmdLineToolException
+    {
+        Map<String, List<Sample>> samples = new LinkedHashMap<>();
+        for (String variant : images.keySet()) {
+            samples.put(variant, new ArrayList<>());
+        }
+        for (int round = 1; round <= config.rounds; round++) {
+            List<String> order = (round % 2 == 1) ? Arrays.asList(BASELINE, PGO) : Arrays.asList(PGO, BASELINE);
+            for (String variant : order) {
+                logger.info(Txt.s("PgoComparisonTask.Round.Info", round, config.rounds, variant));
+                try (RunningApp app = RunningApp.start(images.get(variant), project.exeRelativePath(excelsiorJet),
+                        project.exeRunArgs()))
+                {
+                    samples.get(variant).addAll(new LoadDriver(config.loadDriver).drive(app));
+                }
+            }
+        }
+        return samples;
+    }
+
+    private static Map<String, Object> variantReport(List<Double> throughput, List<Double> latency) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("throughput", BenchmarkStats.of(throughput).toMap());
+        map.put("latencyMs", BenchmarkStats.of(latency).toMap());
+        map.put("throughputSamples", throughput);
+        map.put("latencyMsSamples", latency);
+        return map;
+    }
+
+    private static String format(double value) {
+        return String.format("%.3f", value);
+    }
+
+    private static String formatDelta(MeanDifference delta) {
+        return String.format("%+.2f%%, 95%% CI [%+.3f; %+.3f]", delta.relativePercent(), delta.lower, delta.upper);
+    }
+}
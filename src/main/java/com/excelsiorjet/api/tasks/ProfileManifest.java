@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.api.util.Txt;
+import com.excelsiorjet.api.util.Utils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static com.excelsiorjet.api.log.Log.logger;
+
+/**
+ * Manifest of the application state execution profiles were collected against:
+ * the main class and SHA-256 hash of each classpath entry.
+ * <p>
+ * Hashing is the costly part, so {@link #capture(JetProject)} reuses the hash of an entry recorded
+ * in the local hash cache of the build if the size and modification time of the entry are unchanged.
+ * Sizes and modification times are kept in the hash cache only, so manifests committed to VCS
+ * change only when the contents of the application change.
+ * </p>
+ */
+class ProfileManifest {
+
+    private static final String MAIN_CLASS = "mainClass";
+    private static final String ENTRY_PREFIX = "entry.";
+    private static final String HASH_CACHE = "profile-hashes.cache";
+    private static final String MANIFEST_EXT = ".manifest";
+
+    static class Entry {
+        // size and modification time are 0 and -1 for the entries read from a manifest
+        final long size;
+        final long lastModified;
+        final String hash;
+
+        Entry(long size, long lastModified, String hash) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+
+        String serialize(boolean withStamp) {
+            return withStamp ? size + " " + lastModified + " " + hash : hash;
+        }
+
+        /**
+         * Parses either a hash cache entry ({@code <size> <lastModified> <hash>}) or a manifest entry ({@code <hash>}).
+         */
+        static Entry parse(String value) {
+            String[] parts = value.trim().split(" ");
+            if (parts.length == 1) {
+                return parts[0].isEmpty() ? null : new Entry(0, -1, parts[0]);
+            }
+            if (parts.length != 3) {
+                return null;
+            }
+            try {
+                return new Entry(Long.parseLong(parts[0]), Long.parseLong(parts[1]), parts[2]);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Difference between the application a profile was collected against and the current application.
+     */
+    static class Drift {
+        final int changedEntries;
+        final int totalEntries;
+        final long changedBytes;
+        final long totalBytes;
+        final boolean mainClassChanged;
+
+        Drift(int changedEntries, int totalEntries, long changedBytes, long totalBytes, boolean mainClassChanged) {
+            this.changedEntries = changedEntries;
+            this.totalEntries = totalEntries;
+            this.changedBytes = changedBytes;
+            this.totalBytes = totalBytes;
+            this.mainClassChanged = mainClassChanged;
+        }
+
+        /**
+         * Share of changed classpath entries or changed bytes in percent, whichever is greater.
+         * A changed main class makes the drift 100%.
+         */
+        int percent() {
+            if (mainClassChanged) {
+                return 100;
+            }
+            double entryShare = totalEntries == 0 ? 0 : (double) changedEntries / totalEntries;
+            double byteShare = totalBytes == 0 ? 0 : (double) changedBytes / totalBytes;
+            return (int) Math.round(100 * Math.max(entryShare, byteShare));
+        }
+    }
+
+    private final String mainClass;
+
+    // classpath entry key -> entry
+    private final TreeMap<String, Entry> entries;
+
+    private ProfileManifest(String mainClass, TreeMap<String, Entry> entries) {
+        this.mainClass = mainClass;
+        this.entries = entries;
+    }
+
+    /**
+     * Captures the current state of the project classpath.
+     */
+    static ProfileManifest capture(JetProject project) throws IOException {
+        File cacheFile = new File(project.jetOutputDir(), HASH_CACHE);
+        Map<String, Entry> cache = cacheFile.exists() ? read(cacheFile).entries : Collections.emptyMap();
+        TreeMap<String, Entry> entries = new TreeMap<>();
+        boolean mainArtifactSeen = false;
+        for (ClasspathEntry classpathEntry : project.classpathEntries()) {
+            mainArtifactSeen |= classpathEntry.isMainArtifact;
+            String key = project.toPathRelativeToJetBuildDir(classpathEntry).toString().replace(File.separatorChar, '/');
+            addEntry(entries, cache, key, classpathEntry.path);
+        }
+        if (!mainArtifactSeen && (project.mainArtifact() != null)) {
+            addEntry(entries, cache, project.mainArtifact().getName(), project.mainArtifact());
+        }
+        ProfileManifest manifest = new ProfileManifest(project.mainClass(), entries);
+        if (project.jetOutputDir().exists()) {
+            manifest.store(cacheFile, "Hashes of the classpath entries", true);
+        }
+        return manifest;
+    }
+
+    private static void addEntry(Map<String, Entry> entries, Map<String, Entry> cache, String key, File file)
+            throws IOException
+    {
+        if (!file.exists()) {
+            return;
+        }
+        long size = Utils.sizeOf(file);
+        long lastModified = lastModified(file);
+        Entry cached = cache.get(key);
+        if ((cached != null) && (cached.size == size) && (cached.lastModified == lastModified)) {
+            entries.put(key, cached);
+        } else {
+            entries.put(key, new Entry(size, lastModified, Utils.sha256(file)));
+        }
+    }
+
+    private static long lastModified(File file) throws IOException {
+        if (!file.isDirectory()) {
+            return file.lastModified();
+        }
+        try (Stream<Path> walk = Files.walk(file.toPath())) {
+            return walk.mapToLong(p -> p.toFile().lastModified()).max().orElse(0);
+        }
+    }
+
+    /**
+     * Returns the manifest file of the given profile. The manifest of the {@code .usg} profile
+     * also stands for the {@code .startup} profile collected by the same Test Run.
+     */
+    static File of(File profile) {
+        return new File(profile.getPath() + MANIFEST_EXT);
+    }
+
+    /**
+     * Captures the current state of the project classpath into the given manifest file.
+     * A failure to record the manifest is not fatal for the task that collected the profiles.
+     */
+    static void record(JetProject project, File manifestFile) {
+        try {
+            capture(project).write(manifestFile);
+        } catch (IOException e) {
+            logger.warn(Txt.s("JetApi.ProfileManifestNotWritten.Warning", manifestFile.getAbsolutePath(), e.getMessage()));
+        }
+    }
+
+    /**
+     * Reads a manifest, returns {@code null} if it does not exist.
+     */
+    static ProfileManifest readIfExists(File file) throws IOException {
+        return file.exists() ? read(file) : null;
+    }
+
+    private static ProfileManifest read(File file) throws IOException {
+        Properties props = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            props.load(in);
+        }
+        TreeMap<String, Entry> entries = new TreeMap<>();
+        for (String name : props.stringPropertyNames()) {
+            if (name.startsWith(ENTRY_PREFIX)) {
+                Entry entry = Entry.parse(props.getProperty(name));
+                if (entry != null) {
+                    entries.put(name.substring(ENTRY_PREFIX.length()), entry);
+                }
+            }
+        }
+        return new ProfileManifest(props.getProperty(MAIN_CLASS), entries);
+    }
+
+    void write(File file) throws IOException {
+        store(file, "Application state the execution profiles were collected against", false);
+    }
+
+    /**
+     * Writes the manifest in the properties format, sorted and without a timestamp
+     * to keep it diff-friendly in VCS.
+     */
+    private void store(File file, String comment, boolean withStamps) throws IOException {
+        Properties props = new Properties();
+        if (mainClass != null) {
+            props.setProperty(MAIN_CLASS, mainClass);
+        }
+        entries.forEach((key, entry) -> props.setProperty(ENTRY_PREFIX + key, entry.serialize(withStamps)));
+
+        // stored to a byte stream rather than a writer, so that non-ASCII characters are escaped as read() expects
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        props.store(out, comment);
+        List<String> lines = new ArrayList<>(Arrays.asList(
+                new String(out.toByteArray(), StandardCharsets.ISO_8859_1).split("\\r?\\n")));
+        // drop the timestamp that follows the comment and sort the properties written in no particular order
+        lines.remove(1);
+        Collections.sort(lines.subList(1, lines.size()));
+        Files.write(file.toPath(), lines, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Measures the drift of the {@code current} application from this one.
+     */
+    Drift driftTo(ProfileManifest current) {
+        Set<String> keys = new TreeSet<>(entries.keySet());
+        keys.addAll(current.entries.keySet());
+        int changedEntries = 0;
+        long changedBytes = 0;
+        long totalBytes = 0;
+        for (String key : keys) {
+            Entry recorded = entries.get(key);
+            Entry actual = current.entries.get(key);
+            // manifests do not record sizes, so the size of an entry is known if it still exists
+            long size = Math.max(recorded == null ? 0 : recorded.size, actual == null ? 0 : actual.size);
+            totalBytes += size;
+            if ((recorded == null) || (actual == null) || !recorded.hash.equals(actual.hash)) {
+                changedEntries++;
+                changedBytes += size;
+            }
+        }
+        return new Drift(changedEntries, keys.size(), changedBytes, totalBytes,
+                !Objects.equals(mainClass, current.mainClass));
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.api.platform.Processes;
+import com.excelsiorjet.api.util.Utils;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Loopback socket control channel between a running task and the tasks that stop or query it,
+ * an alternative to the termination files of {@link RunStopSupport}.
+ * <p>
+ * The running side opens a server socket on the loopback interface and advertises it in a registry file
+ * that contains the port, an access token, the application pid and its start time.
+ * The other side reads the registry file, connects to the port and sends a line with the access token
+ * followed by one of the commands:
+ * </p>
+ * <dl>
+ * <dt>{@code STOP}</dt>
+ * <dd>acknowledged with {@code ACK} right away, then {@code STOPPED} is sent when the task has finished</dd>
+ * <dt>{@code STATUS}</dt>
+ * <dd>answered with {@code RUNNING <pid> <uptime in ms>}</dd>
+ * </dl>
+ */
+class RunControlChannel {
+
+    private static final String PORT = "port";
+    private static final String TOKEN = "token";
+    private static final String PID = "pid";
+    private static final String START_TIME = "startTime";
+
+    private static final String STOP = "STOP";
+    private static final String STATUS = "STATUS";
+    private static final String ACK = "ACK";
+    private static final String STOPPED = "STOPPED";
+    private static final String RUNNING = "RUNNING";
+
+    //time to wait for a command from a connected client
+    private static final int READ_TIMEOUT = 5000;
+
+    /**
+     * Running side of the channel.
+     */
+    static class Server {
+
+        private final ServerSocket serverSocket;
+        private final File registryFile;
+        private final Runnable stopAction;
+        private final String token = Utils.randomAlphanumeric(32);
+        private final long startTime = System.currentTimeMillis();
+        private volatile long pid = Processes.currentPid();
+
+        private final List<Socket> waitingForStop = new ArrayList<>();
+        private boolean finished;
+
+        private Server(File registryFile, Runnable stopAction) throws IOException {
+            this.registryFile = registryFile;
+            this.stopAction = stopAction;
+            this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            writeRegistry();
+            Thread acceptor = new Thread(this::acceptConnections, "jet-run-control");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        /**
+         * Opens the channel and advertises it in {@code registryFile}.
+         *
+         * @param stopAction action that makes the task stop, invoked on a {@code STOP} command
+         */
+        static Server open(File registryFile, Runnable stopAction) throws IOException {
+            return new Server(registryFile, stopAction);
+        }
+
+        /**
+         * Advertises the pid of the process started by the task instead of the pid of the current process.
+         */
+        void processStarted(Process process) {
+            long processPid = Processes.pid(process);
+            if (processPid != -1) {
+                pid = processPid;
+                try {
+                    writeRegistry();
+                } catch (IOException ignore) {
+                    // the registry still points to the right port
+                }
+            }
+        }
+
+        long pid() {
+            return pid;
+        }
+
+        long startTime() {
+            return startTime;
+        }
+
+        private void writeRegistry() throws IOException {
+            Properties props = new Properties();
+            props.setProperty(PORT, String.valueOf(serverSocket.getLocalPort()));
+            props.setProperty(TOKEN, token);
+            props.setProperty(PID, String.valueOf(pid));
+            props.setProperty(START_TIME, String.valueOf(startTime));
+            File tmpFile = new File(registryFile.getPath() + ".tmp");
+            try (OutputStream out = new FileOutputStream(tmpFile)) {
+                props.store(out, null);
+            }
+            Files.move(tmpFile.toPath(), registryFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        private void acceptConnections() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    Thread handler = new Thread(() -> handle(socket), "jet-run-control-client");
+                    handler.setDaemon(true);
+                    handler.start();
+                } catch (IOException ignore) {
+                    // the channel is closed
+                }
+            }
+        }
+
+        private void handle(Socket socket) {
+            boolean keepOpen = false;
+            try {
+                socket.setSoTimeout(READ_TIMEOUT);
+                BufferedReader in = reader(socket);
+                String request = in.readLine();
+                if (request == null) {
+                    return;
+                }
+                String[] parts = request.trim().split(" ");
+                if ((parts.length != 2) || !token.equals(parts[0])) {
+                    return;
+                }
+                switch (parts[1]) {
+                    case STATUS:
+                        send(socket, RUNNING + " " + pid + " " + (System.currentTimeMillis() - startTime));
+                        break;
+                    case STOP:
+                        send(socket, ACK);
+                        synchronized (this) {
+                            if (finished) {
+                                send(socket, STOPPED);
+                                return;
+                            }
+                            waitingForStop.add(socket);
+                            keepOpen = true;
+                        }
+                        stopAction.run();
+                        break;
+                    default:
+                        break;
+                }
+            } catch (IOException ignore) {
+            } finally {
+                if (!keepOpen) {
+                    closeQuietly(socket);
+                }
+            }
+        }
+
+        /**
+         * Notifies stopping clients that the task has finished, closes the channel and removes the registry file.
+         */
+        void taskFinished() {
+            List<Socket> toNotify;
+            synchronized (this) {
+                finished = true;
+                toNotify = new ArrayList<>(waitingForStop);
+                waitingForStop.clear();
+            }
+            for (Socket socket : toNotify) {
+                try {
+                    send(socket, STOPPED);
+                } catch (IOException ignore) {
+                }
+                closeQuietly(socket);
+            }
+            try {
+                serverSocket.close();
+            } catch (IOException ignore) {
+            }
+            registryFile.delete();
+        }
+    }
+
+    /**
+     * Stopping or querying side of the channel.
+     */
+    static class Client {
+
+        private final int port;
+        private final String token;
+        private final long startTime;
+
+        private Client(int port, String token, long startTime) {
+            this.port = port;
+            this.token = token;
+            this.startTime = startTime;
+        }
+
+        /**
+         * Reads the channel parameters from {@code registryFile}.
+         */
+        static Client connect(File registryFile) throws IOException {
+            Properties props = new Properties();
+            try (InputStream in = new FileInputStream(registryFile)) {
+                props.load(in);
+            }
+            try {
+                return new Client(Integer.parseInt(props.getProperty(PORT)), props.getProperty(TOKEN),
+                        Long.parseLong(props.getProperty(START_TIME)));
+            } catch (RuntimeException e) {
+                throw new IOException("Malformed run control registry " + registryFile, e);
+            }
+        }
+
+        long startTime() {
+            return startTime;
+        }
+
+        RunStatus status() throws IOException {
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+                socket.setSoTimeout(READ_TIMEOUT);
+                send(socket, token + " " + STATUS);
+                String response = reader(socket).readLine();
+                String[] parts = response == null ? new String[0] : response.split(" ");
+                if ((parts.length != 3) || !RUNNING.equals(parts[0])) {
+                    throw new IOException("Unexpected run control response: " + response);
+                }
+                try {
+                    return new RunStatus(true, Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+                } catch (NumberFormatException e) {
+                    throw new IOException("Unexpected run control response: " + response, e);
+                }
+            }
+        }
+
+        /**
+         * Requests the task to stop and waits for it to finish.
+         *
+         * @return {@code true} if the task finished within {@code timeout} milliseconds
+         * @throws IOException if the stop request was not acknowledged
+         */
+        boolean stop(long timeout) throws IOException {
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+                socket.setSoTimeout(READ_TIMEOUT);
+                send(socket, token + " " + STOP);
+                BufferedReader in = reader(socket);
+                if (!ACK.equals(in.readLine())) {
+                    throw new IOException("Stop request was not acknowledged");
+                }
+                socket.setSoTimeout((int) Math.max(1, Math.min(timeout, Integer.MAX_VALUE)));
+                try {
+                    return STOPPED.equals(in.readLine());
+                } catch (SocketTimeoutException e) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    private static BufferedReader reader(Socket socket) throws IOException {
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    private static void send(Socket socket, String line) throws IOException {
+        OutputStream out = socket.getOutputStream();
+        out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignore) {
+        }
+    }
+}
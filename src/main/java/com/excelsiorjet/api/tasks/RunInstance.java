@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks;
+
+/**
+ * Application instance started by {@link RunTask} or {@link TestRunTask}.
+ *
+ * @see RunStopSupport#listRunTasks()
+ */
+public class RunInstance {
+
+    final int id;
+
+    /**
+     * Instance name, either set by the user or derived from the instance id.
+     */
+    public final String name;
+
+    /**
+     * OS process id of the application or {@code -1} if it is unknown.
+     */
+    public final long pid;
+
+    /**
+     * Time of the application start in milliseconds since the epoch.
+     */
+    public final long startTime;
+
+    /**
+     * Termination policy the application was started with.
+     */
+    public final String terminationPolicy;
+
+    RunInstance(int id, String name, long pid, long startTime, String terminationPolicy) {
+        this.id = id;
+        this.name = name;
+        this.pid = pid;
+        this.startTime = startTime;
+        this.terminationPolicy = terminationPolicy;
+    }
+
+    RunInstance withPid(long pid) {
+        return new RunInstance(id, name, pid, startTime, terminationPolicy);
+    }
+
+    public String toString() {
+        return name + " (pid " + (pid == -1 ? "unknown" : pid) + ")";
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.api.ExcelsiorJet;
+import com.excelsiorjet.api.util.Txt;
+
+import java.util.Date;
+import java.util.List;
+
+import static com.excelsiorjet.api.log.Log.logger;
+
+/**
+ * Task for listing application instances started by testrun/run/profile tasks.
+ */
+public class RunListTask {
+
+    private final ExcelsiorJet excelsiorJet;
+    private final JetProject project;
+
+    public RunListTask(ExcelsiorJet excelsiorJet, JetProject project) throws JetTaskFailureException {
+        this.excelsiorJet = excelsiorJet;
+        this.project = project;
+    }
+
+    /**
+     * Lists the running application instances in the order of their start.
+     */
+    public List<RunInstance> execute() throws JetTaskFailureException {
+        project.validate(excelsiorJet, false);
+
+        List<RunInstance> instances = new RunStopSupport(project.jetOutputDir(), true).listRunTasks();
+        if (instances.isEmpty()) {
+            logger.info(Txt.s("RunListTask.NoInstances.Info"));
+        }
+        for (RunInstance instance : instances) {
+            logger.info(Txt.s("RunListTask.Instance.Info", instance.name,
+                    instance.pid == -1 ? "?" : String.valueOf(instance.pid),
+                    new Date(instance.startTime), instance.terminationPolicy));
+        }
+        return instances;
+    }
+
+}
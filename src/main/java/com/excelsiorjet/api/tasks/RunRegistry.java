@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Index of the application instances started by {@link RunTask} and {@link TestRunTask}.
+ * <p>
+ * The index is a single properties file that is read and rewritten within {@link #update(Action)}
+ * under an exclusive file lock, so id allocation and name checks are atomic across processes
+ * and no directory listing is needed to find the running instances.
+ * </p>
+ */
+class RunRegistry {
+
+    private static final String INDEX_FILE = "instances.index";
+    private static final String INDEX_LOCK_FILE = "instances.lock";
+    private static final String NEXT_ID = "next.id";
+    private static final String NAME = ".name";
+    private static final String PID = ".pid";
+    private static final String START_TIME = ".startTime";
+    private static final String TERMINATION_POLICY = ".terminationPolicy";
+
+    /**
+     * Contents of the index available within {@link #update(Action)}.
+     */
+    static class Index {
+        private int nextId;
+
+        /**
+         * Registered instances sorted by id, that is by the order of their start.
+         */
+        final TreeMap<Integer, RunInstance> instances = new TreeMap<>();
+
+        int allocateId() {
+            return nextId++;
+        }
+
+        RunInstance byName(String name) {
+            return instances.values().stream().filter(i -> i.name.equals(name)).findFirst().orElse(null);
+        }
+    }
+
+    @FunctionalInterface
+    interface Action<T> {
+        T apply(Index index) throws JetTaskFailureException;
+    }
+
+    private final File indexFile;
+    private final File lockFile;
+
+    RunRegistry(File dir) {
+        this.indexFile = new File(dir, INDEX_FILE);
+        this.lockFile = new File(dir, INDEX_LOCK_FILE);
+    }
+
+    /**
+     * Reads the index, applies the action to it and writes the index back, all under the index lock.
+     */
+    <T> T update(Action<T> action) throws JetTaskFailureException, IOException {
+        // file locks are held on behalf of the whole JVM, so threads of the JVM are serialized separately
+        synchronized (RunRegistry.class) {
+            try (FileChannel channel = new RandomAccessFile(lockFile, "rw").getChannel()) {
+                FileLock lock = channel.lock();
+                try {
+                    Index index = read();
+                    T result = action.apply(index);
+                    write(index);
+                    return result;
+                } finally {
+                    lock.release();
+                }
+            }
+        }
+    }
+
+    private Index read() throws IOException {
+        Index index = new Index();
+        if (!indexFile.exists()) {
+            return index;
+        }
+        Properties props = new Properties();
+        try (InputStream in = new FileInputStream(indexFile)) {
+            props.load(in);
+        }
+        index.nextId = parseInt(props.getProperty(NEXT_ID), 0);
+        for (String key : props.stringPropertyNames()) {
+            if (key.endsWith(NAME)) {
+                String prefix = key.substring(0, key.length() - NAME.length());
+                try {
+                    int id = Integer.parseInt(prefix);
+                    index.instances.put(id, new RunInstance(id, props.getProperty(key),
+                            Long.parseLong(props.getProperty(prefix + PID, "-1")),
+                            Long.parseLong(props.getProperty(prefix + START_TIME, "0")),
+                            props.getProperty(prefix + TERMINATION_POLICY, "")));
+                } catch (NumberFormatException e) {
+                    // corrupted entry: skip it, the other instances stay manageable
+                }
+            }
+        }
+        if (!index.instances.isEmpty()) {
+            // never reuse the ids of the registered instances
+            index.nextId = Math.max(index.nextId, index.instances.lastKey() + 1);
+        }
+        return index;
+    }
+
+    private static int parseInt(String value, int defaultValue) {
+        try {
+            return value == null ? defaultValue : Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private void write(Index index) throws IOException {
+        Properties props = new Properties();
+        props.setProperty(NEXT_ID, String.valueOf(index.nextId));
+        for (Map.Entry<Integer, RunInstance> entry : index.instances.entrySet()) {
+            String prefix = String.valueOf(entry.getKey());
+            RunInstance instance = entry.getValue();
+            props.setProperty(prefix + NAME, instance.name);
+            props.setProperty(prefix + PID, String.valueOf(instance.pid));
+            props.setProperty(prefix + START_TIME, String.valueOf(instance.startTime));
+            props.setProperty(prefix + TERMINATION_POLICY, instance.terminationPolicy);
+        }
+        File tmpFile = new File(indexFile.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(tmpFile)) {
+            props.store(out, null);
+        }
+        Files.move(tmpFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks;
+
+/**
+ * Status of an application started by {@link RunTask} or {@link TestRunTask}.
+ *
+ * @see RunStopSupport#queryStatus()
+ */
+public class RunStatus {
+
+    static final RunStatus NOT_RUNNING = new RunStatus(false, -1, 0);
+
+    public final boolean running;
+
+    /**
+     * OS process id of the application or {@code -1} if it is unknown.
+     */
+    public final long pid;
+
+    /**
+     * Time in milliseconds passed since the application start.
+     */
+    public final long uptime;
+
+    RunStatus(boolean running, long pid, long uptime) {
+        this.running = running;
+        this.pid = pid;
+        this.uptime = uptime;
+    }
+
+    public String toString() {
+        return running ? "running, pid " + (pid == -1 ? "unknown" : pid) + ", uptime " + uptime + " ms" : "not running";
+    }
+}
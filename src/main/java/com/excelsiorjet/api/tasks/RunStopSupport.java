@@ -21,6 +21,9 @@
 */
 package com.excelsiorjet.api.tasks;
 
+import com.excelsiorjet.api.platform.Processes;
+import com.excelsiorjet.api.tasks.config.StagedStopConfig;
+import com.excelsiorjet.api.tasks.config.TerminationPolicy;
 import com.excelsiorjet.api.util.Txt;
 import com.excelsiorjet.api.util.Utils;
 
@@ -28,8 +31,13 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.channels.FileLock;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.*;
-import java.util.stream.Stream;
+import java.util.concurrent.TimeUnit;
+
+import static com.excelsiorjet.api.log.Log.logger;
 
 /**
  * Provides interprocess communication methods for running and stopping tasks.
@@ -38,7 +46,7 @@ import java.util.stream.Stream;
  *
  * <p>In order to run a task:</p>
  * <blockquote><pre>
- *     RunStopSupport runStopSupport = new RunStopSupport(tempDir, false);
+ *     RunStopSupport runStopSupport = new RunStopSupport(tempDir, false).withInstanceName(name);
  *     File termFile = runStopSupport.prepareToRun();
  *     runTask(termFile);
  *     runStopSupport.taskFinished();
@@ -49,44 +57,114 @@ import java.util.stream.Stream;
  * <p>In order to stop a task (from another process):</p>
  * <blockquote><pre>
  *     RunStopSupport runStopSupport = new RunStopSupport(tempDir, true);
- *     if (!runStopSupport.stopRunTask()) {
- *         //handle failed stop
- *     }
+ *     long stopLatency = runStopSupport.stopRunTask(name);
  * </pre></blockquote>
- * {@code stopRunTask} identifies what task is run now and stops it by creating the respective {@code termFile}.
+ * {@code stopRunTask} finds the task instance by its name (or the last started instance if no name is given)
+ * and stops it by creating the respective {@code termFile}.
  *
  * <p>Implementation details:</p>
- *    {@code prepareToRun} locks a file in a temp dir so another process where we call {@code stopRunTask} knows what
- *    task is waiting to stop. {@code stopRunTask} looks for the locked file and creates the respective termination file,
- *    thereby notifying the running task to stop. When the task is stopped it releases the lock and deletes both lock
- *    and termination files.
+ *    {@code prepareToRun} registers the task instance in the {@link RunRegistry} index and locks a file
+ *    named after the instance id, so another process where we call {@code stopRunTask} knows which instances
+ *    are alive: an instance whose lock file is not locked has died and is removed from the index.
+ *    {@code stopRunTask} creates the termination file of the instance, thereby notifying the running task to stop.
+ *    When the task is stopped it releases the lock and deletes both lock and termination files.
+ *    {@code stopRunTask} waits for the deletion of the termination file via a {@link WatchService}
+ *    and returns the measured stop latency.
+ *    For the {@code staged} termination policy, {@code stopRunTask} escalates to the halt file of the instance
+ *    and then to killing the process tree of the instance if the task does not finish in time.
+ *    If the control channel is enabled via {@link #withControlChannel(boolean)}, {@code prepareToRun} additionally
+ *    opens a loopback {@link RunControlChannel} and {@code stopRunTask} prefers it to the termination file,
+ *    falling back to the file if the channel is not reachable.
  */
 public class RunStopSupport {
 
     private static final String TERM_FILE_PREFIX = "term.file";
+    private static final String HALT_FILE_PREFIX = "halt.file";
     private static final String LOCK_PEFIX = "lock.";
     private static final String LOCK_TERM_FILE_PREFIX = LOCK_PEFIX + TERM_FILE_PREFIX;
     private static final String TERM_TEMP_DIR = "termination";
+    private static final String CONTROL_FILE_PREFIX = "control.";
+    private static final String CONTROL_FILE_SUFFIX = ".properties";
+    private static final String KILL_STAGE = "kill";
+
+    /**
+     * Instance name that stands for all running instances in {@link StopTask}.
+     */
+    public static final String ALL_INSTANCES = "all";
 
     //1 min timeout
-    private static final int STOP_TIMEOUT = 60000;
-    private static final int SLEEP_TIME = 300;
+    public static final long DEFAULT_STOP_TIMEOUT = 60000;
+
+    // Safety net for file systems that do not deliver change notifications (e.g. network shares):
+    // the termination file is re-checked at least this often even if no watch event arrives.
+    private static final long RECHECK_TIME = 300;
 
 
-    private int id = -1;
     private File termTempDir;
     private boolean toStop;
+    private long stopTimeout;
+    private RunRegistry registry;
+    private String instanceName;
+    private String terminationPolicy = "";
+    private StagedStopConfig stagedStop;
+    private RunInstance instance;
     private Lock lock;
+    private boolean controlChannel;
+    private RunControlChannel.Server controlServer;
 
     private static Map<File, Lock> acquiredLocks = Collections.synchronizedMap(new HashMap<>());
 
-    public RunStopSupport(File baseDir, boolean toStop) {
+    /**
+     * @param baseDir directory where the interprocess communication files are placed
+     * @param toStop {@code true} if the object is going to be used for stopping a task
+     * @param stopTimeout time in milliseconds to wait for a task to stop in {@link #stopRunTask()}
+     */
+    public RunStopSupport(File baseDir, boolean toStop, long stopTimeout) {
         String tempDirProp = System.getProperty("jet.run.temp.dir");
         this.termTempDir = new File(baseDir, Utils.isEmpty(tempDirProp)? TERM_TEMP_DIR : tempDirProp);
         this.toStop = toStop;
+        this.stopTimeout = stopTimeout;
         termTempDir.mkdirs();
-        cleanup();
-        initID(toStop);
+        this.registry = new RunRegistry(termTempDir);
+    }
+
+    public RunStopSupport(File baseDir, boolean toStop) {
+        this(baseDir, toStop, DEFAULT_STOP_TIMEOUT);
+    }
+
+    /**
+     * Sets the name of the task instance to run, or to stop and query by {@link #stopRunTask()}
+     * and {@link #queryStatus()}. If not set, a running instance is named after its id,
+     * and the last started instance is stopped and queried.
+     */
+    public RunStopSupport withInstanceName(String instanceName) {
+        this.instanceName = Utils.isEmpty(instanceName) ? null : instanceName;
+        return this;
+    }
+
+    /**
+     * Sets the termination policy of the task to run that is reported by {@link #listRunTasks()}.
+     */
+    public RunStopSupport withTerminationPolicy(String terminationPolicy) {
+        this.terminationPolicy = Utils.isEmpty(terminationPolicy) ? "" :
+                TerminationPolicy.fromString(terminationPolicy).toString();
+        return this;
+    }
+
+    /**
+     * Sets the stage timeouts used for stopping instances run with the {@code staged} termination policy.
+     */
+    public RunStopSupport withStagedStop(StagedStopConfig stagedStop) {
+        this.stagedStop = stagedStop;
+        return this;
+    }
+
+    /**
+     * Enables the loopback socket control channel for running and stopping the task.
+     */
+    public RunStopSupport withControlChannel(boolean controlChannel) {
+        this.controlChannel = controlChannel;
+        return this;
     }
 
     /**
@@ -164,68 +242,124 @@ public class RunStopSupport {
     }
 
     /**
-     * Cleans up the temporary directory from files that are not used by any of the run tasks.
+     * Removes the instances that are not running anymore from the index along with their files.
      */
-    private void cleanup() {
-        File[] termFileLocks = termTempDir.listFiles(f->f.getName().startsWith(LOCK_TERM_FILE_PREFIX));
-        if (termFileLocks != null) {
-            Stream.of(termFileLocks).filter(f -> !isLocked(f))
-                    .forEach(File::delete);
-        }
-        File[] termFiles = termTempDir.listFiles(f->f.getName().startsWith(TERM_FILE_PREFIX));
-        if (termFiles != null) {
-            Stream.of(termFiles).filter(f -> !new File(termTempDir, LOCK_PEFIX + f.getName()).exists())
-                    .forEach(File::delete);
-        }
-    }
-
-    /**
-     *  Looks for the last created lock file and retrieves its id.
-     */
-    private int findLastID() {
-        File[] termFileLocks = termTempDir.listFiles(f->f.getName().startsWith(LOCK_TERM_FILE_PREFIX));
-        if (termFileLocks != null) {
-            Optional<File> lastFile = Stream.of(termFileLocks).max(
-                    (File f1, File f2) -> f1.lastModified() == f2.lastModified() ? f1.getName().compareTo(f2.getName()) :
-                            Long.compare(f1.lastModified(), f2.lastModified())
-            );
-            if (lastFile.isPresent()) {
-                String fname = lastFile.get().getName();
-                return Integer.valueOf(fname.substring(LOCK_TERM_FILE_PREFIX.length()));
-            } else {
-                return -1;
+    private void prune(RunRegistry.Index index) {
+        Iterator<RunInstance> it = index.instances.values().iterator();
+        while (it.hasNext()) {
+            RunInstance runInstance = it.next();
+            if (!isLocked(getLockFile(runInstance.id))) {
+                it.remove();
+                deleteFiles(runInstance.id);
             }
-        } else {
-            return -1;
         }
     }
 
-    private void initID(boolean toStop) {
-       id = findLastID() + (toStop? 0 : 1);
+    private void deleteFiles(int id) {
+        getControlFile(id).delete();
+        getLockFile(id).delete();
+        getHaltFile(id).delete();
+        // the termination file goes last: its deletion signals the stopping side that the task has finished
+        getTermFile(id).delete();
     }
 
-    private File getLockFile() {
+    private File getLockFile(int id) {
         return new File(termTempDir, LOCK_TERM_FILE_PREFIX + id);
     }
 
-    private File getTermFile() {
+    private File getTermFile(int id) {
         return new File(termTempDir, TERM_FILE_PREFIX + id);
     }
 
-    private boolean acquireLock() {
-        lock = acquireLock(getLockFile());
-        return lock != null;
+    private File getHaltFile(int id) {
+        return new File(termTempDir, HALT_FILE_PREFIX + id);
+    }
+
+    /**
+     * Returns the halt file that accompanies the given termination file for the {@code staged} termination policy.
+     */
+    static File haltFileFor(File termFile) {
+        return new File(termFile.getParentFile(), HALT_FILE_PREFIX + termFile.getName().substring(TERM_FILE_PREFIX.length()));
+    }
+
+    private File getControlFile(int id) {
+        return new File(termTempDir, CONTROL_FILE_PREFIX + id + CONTROL_FILE_SUFFIX);
+    }
+
+    private <T> T updateRegistry(RunRegistry.Action<T> action) throws JetTaskFailureException {
+        try {
+            return registry.update(action);
+        } catch (IOException e) {
+            throw new JetTaskFailureException(Txt.s("RunTask.RegistryFailure.Error", e.getMessage()), e);
+        }
     }
 
     public File prepareToRunTask() throws JetTaskFailureException {
         if (toStop) {
             throw new IllegalStateException("prepareToRunTask run when is going to stop");
         }
-        if (!acquireLock()) {
-            // it seems to be data race (simultaneous runs). Rare case, tell user to try again
-            throw new JetTaskFailureException(Txt.s("RunTask.FailedToRun.Error"));
+        instance = updateRegistry(index -> {
+            prune(index);
+            if ((instanceName != null) && (index.byName(instanceName) != null)) {
+                throw new JetTaskFailureException(Txt.s("RunTask.InstanceAlreadyRunning.Error", instanceName));
+            }
+            int id = index.allocateId();
+            lock = acquireLock(getLockFile(id));
+            if (lock == null) {
+                // a foreign file left by a crashed process, rare case, tell user to try again
+                throw new JetTaskFailureException(Txt.s("RunTask.FailedToRun.Error"));
+            }
+            RunInstance runInstance = new RunInstance(id, instanceName != null ? instanceName : String.valueOf(id),
+                    -1, System.currentTimeMillis(), terminationPolicy);
+            index.instances.put(id, runInstance);
+            return runInstance;
+        });
+        File termFile = getTermFile(instance.id);
+        if (controlChannel) {
+            try {
+                controlServer = RunControlChannel.Server.open(getControlFile(instance.id), () -> {
+                    try {
+                        termFile.createNewFile();
+                    } catch (IOException ignore) {
+                    }
+                });
+            } catch (IOException e) {
+                logger.warn(Txt.s("RunTask.ControlChannelNotOpened.Warning", e.getMessage()));
+            }
+        }
+        return termFile;
+    }
+
+    /**
+     * Returns the name of the running task instance, available after {@link #prepareToRunTask()}.
+     */
+    public String instanceName() {
+        if (instance == null) {
+            throw new IllegalStateException("prepareToRun was not called");
+        }
+        return instance.name;
+    }
+
+    /**
+     * Records the process started by the task, so that its pid is reported by {@link #listRunTasks()}
+     * and {@link #queryStatus()}.
+     */
+    public void processStarted(Process process) {
+        if (instance == null) {
+            throw new IllegalStateException("prepareToRun was not called");
+        }
+        if (controlServer != null) {
+            controlServer.processStarted(process);
+        }
+        long pid = Processes.pid(process);
+        if (pid != -1) {
+            int id = instance.id;
+            try {
+                updateRegistry(index -> index.instances.computeIfPresent(id, (i, inst) -> inst.withPid(pid)));
+            } catch (JetTaskFailureException e) {
+                logger.warn(e.getMessage());
+            }
         }
-        return getTermFile();
     }
 
     public void taskFinished() {
@@ -235,39 +369,227 @@ public class RunStopSupport {
         if (lock == null) {
             throw new IllegalStateException("prepareToRun was not called");
         }
+        if (controlServer != null) {
+            controlServer.taskFinished();
+            controlServer = null;
+        }
+        int id = instance.id;
+        try {
+            updateRegistry(index -> index.instances.remove(id));
+        } catch (JetTaskFailureException e) {
+            // the instance will be pruned from the registry as its lock is released below
+        }
         lock.release();
-        getLockFile().delete();
-        getTermFile().delete();
+        deleteFiles(id);
+    }
+
+    /**
+     * Lists the running task instances in the order of their start.
+     */
+    public List<RunInstance> listRunTasks() throws JetTaskFailureException {
+        return updateRegistry(index -> {
+            prune(index);
+            return new ArrayList<>(index.instances.values());
+        });
+    }
+
+    /**
+     * Finds the running instance with the given name, or the last started instance if {@code name} is {@code null}.
+     */
+    private RunInstance findRunTask(String name) throws JetTaskFailureException {
+        return updateRegistry(index -> {
+            prune(index);
+            if (name != null) {
+                return index.byName(name);
+            }
+            return index.instances.isEmpty() ? null : index.instances.lastEntry().getValue();
+        });
+    }
+
+    /**
+     * Stops the task instance set by {@link #withInstanceName(String)} or the last started instance.
+     *
+     * @return time in milliseconds passed from the stop request till the task termination,
+     *         or {@code 0} if the task had died before it was requested to stop.
+     */
+    public long stopRunTask() throws JetTaskFailureException {
+        return stopRunTask(instanceName);
     }
 
-    public void stopRunTask() throws JetTaskFailureException {
+    /**
+     * Stops the task instance with the given name or the last started instance if {@code name} is {@code null}.
+     *
+     * @return time in milliseconds passed from the stop request till the task termination,
+     *         or {@code 0} if the task had died before it was requested to stop.
+     */
+    public long stopRunTask(String name) throws JetTaskFailureException {
+        return stopInstance(name).totalLatency;
+    }
+
+    /**
+     * Stops the task instance with the given name or the last started instance if {@code name} is {@code null}.
+     *
+     * @return latencies of the stop stages
+     */
+    public StopReport stopInstance(String name) throws JetTaskFailureException {
         if (!toStop) {
             throw new IllegalStateException("stopRunTask when is going to run");
         }
-        if (id == -1) {
-            throw new JetTaskFailureException(Txt.s("StopTask.NoRunApp.Error"));
+        RunInstance runInstance = findRunTask(name);
+        if (runInstance == null) {
+            throw new JetTaskFailureException(name == null ? Txt.s("StopTask.NoRunApp.Error") :
+                    Txt.s("StopTask.NoRunInstance.Error", name));
         }
+        return stop(runInstance);
+    }
+
+    /**
+     * Stops all running task instances.
+     *
+     * @return stop reports of the stopped instances by their names
+     */
+    public Map<String, StopReport> stopAllRunTasks() throws JetTaskFailureException {
+        if (!toStop) {
+            throw new IllegalStateException("stopAllRunTasks when is going to run");
+        }
+        Map<String, StopReport> reports = new LinkedHashMap<>();
+        for (RunInstance runInstance : listRunTasks()) {
+            reports.put(runInstance.name, stop(runInstance));
+        }
+        return reports;
+    }
+
+    private StopReport stop(RunInstance runInstance) throws JetTaskFailureException {
+        LinkedHashMap<String, Long> stages = new LinkedHashMap<>();
         try {
-            if (isLocked(getLockFile())) {
-                File termFile = getTermFile();
-                termFile.createNewFile();
-                int  timeToEnd = STOP_TIMEOUT;
-                while ((timeToEnd > 0 ) && termFile.exists()) {
-                    try {
-                        Thread.sleep(SLEEP_TIME);
-                    } catch (InterruptedException ignore) {
-                    }
-                    timeToEnd -= SLEEP_TIME;
-                }
-                if (timeToEnd <= 0) {
+            if (!isLocked(getLockFile(runInstance.id))) {
+                //the process died before we stop it. At least we saw it so ignore that.
+                return new StopReport(runInstance.name, stages);
+            }
+            File termFile = getTermFile(runInstance.id);
+            // instances registered by older versions may have the policy in the user's case
+            boolean staged = !Utils.isEmpty(runInstance.terminationPolicy) &&
+                    TerminationPolicy.STAGED.name().equals(Utils.parameterToEnumConstantName(runInstance.terminationPolicy));
+            if (!staged) {
+                long start = System.nanoTime();
+                if (!requestStop(runInstance, termFile, stopTimeout)) {
                     throw new JetTaskFailureException(Txt.s("StopTask.StopTimeout.Error"));
                 }
-            } else {
-                //the process died before we stop it. At least we saw it so ignore that.
+                stages.put(Utils.isEmpty(runInstance.terminationPolicy) ? TerminationPolicy.CTRL_C.toString() :
+                        runInstance.terminationPolicy, elapsedMillis(start));
+                return new StopReport(runInstance.name, stages);
+            }
+
+            StagedStopConfig stagedStop = this.stagedStop;
+            if (stagedStop == null) {
+                stagedStop = new StagedStopConfig();
+                stagedStop.fillDefaults();
             }
+
+            long start = System.nanoTime();
+            boolean stopped = requestStop(runInstance, termFile, TimeUnit.SECONDS.toMillis(stagedStop.ctrlCTimeout));
+            stages.put(TerminationPolicy.CTRL_C.toString(), elapsedMillis(start));
+            if (stopped) {
+                return new StopReport(runInstance.name, stages);
+            }
+
+            logger.warn(Txt.s("StopTask.Escalate.Warning", runInstance.name, TerminationPolicy.HALT.toString()));
+            start = System.nanoTime();
+            getHaltFile(runInstance.id).createNewFile();
+            stopped = waitForDeletion(termFile, TimeUnit.SECONDS.toMillis(stagedStop.haltTimeout));
+            stages.put(TerminationPolicy.HALT.toString(), elapsedMillis(start));
+            if (stopped) {
+                return new StopReport(runInstance.name, stages);
+            }
+
+            logger.warn(Txt.s("StopTask.Escalate.Warning", runInstance.name, KILL_STAGE));
+            if ((runInstance.pid == -1) || !Processes.killTree(runInstance.pid)) {
+                throw new JetTaskFailureException(Txt.s("StopTask.KillFailure.Error", runInstance.name));
+            }
+            start = System.nanoTime();
+            if (!waitForDeletion(termFile, stopTimeout)) {
+                throw new JetTaskFailureException(Txt.s("StopTask.StopTimeout.Error"));
+            }
+            stages.put(KILL_STAGE, elapsedMillis(start));
+            return new StopReport(runInstance.name, stages);
         } catch (IOException e) {
             throw new JetTaskFailureException(Txt.s("StopTask.StopFailure.Error", e.getMessage()));
         }
     }
 
+    /**
+     * Requests the task to stop via the control channel if it is available or via the termination file.
+     *
+     * @return {@code true} if the task finished within {@code timeout} milliseconds
+     */
+    private boolean requestStop(RunInstance runInstance, File termFile, long timeout) throws IOException {
+        File controlFile = getControlFile(runInstance.id);
+        if (controlFile.exists()) {
+            try {
+                return RunControlChannel.Client.connect(controlFile).stop(timeout);
+            } catch (IOException e) {
+                // the channel is not reachable, fall back to the termination file
+            }
+        }
+        termFile.createNewFile();
+        return waitForDeletion(termFile, timeout);
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Queries the status of the task instance set by {@link #withInstanceName(String)}
+     * or of the last started instance.
+     * The application uptime is reported only if the task was run with the control channel enabled,
+     * otherwise it is the time passed since the task start.
+     */
+    public RunStatus queryStatus() throws JetTaskFailureException {
+        if (!toStop) {
+            throw new IllegalStateException("queryStatus when is going to run");
+        }
+        RunInstance runInstance = findRunTask(instanceName);
+        if (runInstance == null) {
+            return RunStatus.NOT_RUNNING;
+        }
+        File controlFile = getControlFile(runInstance.id);
+        if (controlFile.exists()) {
+            try {
+                return RunControlChannel.Client.connect(controlFile).status();
+            } catch (IOException ignore) {
+                // fall back to the registry
+            }
+        }
+        return new RunStatus(true, runInstance.pid, System.currentTimeMillis() - runInstance.startTime);
+    }
+
+    /**
+     * Waits until the given file is deleted.
+     *
+     * @return {@code true} if the file was deleted within {@code timeout} milliseconds
+     */
+    private static boolean waitForDeletion(File file, long timeout) throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        try (WatchService watchService = file.toPath().getFileSystem().newWatchService()) {
+            file.getParentFile().toPath().register(watchService, StandardWatchEventKinds.ENTRY_DELETE);
+            while (file.exists()) {
+                long timeLeft = deadline - System.nanoTime();
+                if (timeLeft <= 0) {
+                    return false;
+                }
+                WatchKey key = watchService.poll(Math.min(timeLeft, TimeUnit.MILLISECONDS.toNanos(RECHECK_TIME)),
+                        TimeUnit.NANOSECONDS);
+                if (key != null) {
+                    key.pollEvents();
+                    key.reset();
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return !file.exists();
+        }
+    }
+
 }
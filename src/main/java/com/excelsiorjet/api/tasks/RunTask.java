@@ -66,25 +66,18 @@ public class RunTask {
 
         logger.info(Txt.s("RunTask.Start.Info", cmdLine));
 
-        RunStopSupport runStopSupport = new RunStopSupport(project.jetOutputDir(), false);
+        RunStopSupport runStopSupport = new RunStopSupport(project.jetOutputDir(), false)
+                .withInstanceName(project.runInstance())
+                .withTerminationPolicy(project.terminationPolicy())
+                .withControlChannel(project.isSocketRunControl());
 
         File termFile = runStopSupport.prepareToRunTask();
 
-        if (toProfile && project.execProfiles().profileRunTimeout != 0) {
-            Thread t = new Thread(()->{
-                try {
-                    Thread.sleep(project.execProfiles().profileRunTimeout*1000);
-                } catch (InterruptedException ignore) {
-                }
-                try {
-                    new RunStopSupport(project.jetOutputDir(), true).stopRunTask();
-                } catch (JetTaskFailureException e) {
-                    logger.error(e.getMessage());
-                }
-            });
-            t.setDaemon(true);
-            t.start();
-        }
+        StopConditions stopConditions = toProfile ?
+                new StopConditions(project.execProfiles().stopConditions, project.execProfiles().profileRunTimeout,
+                        false, () -> stopRun(runStopSupport.instanceName()))
+                        .withHttpWarmup(HttpWarmupDriver.forProject(project)) :
+                StopConditions.NONE;
 
         int errCode;
         try {
@@ -92,8 +85,14 @@ public class RunTask {
                     .workingDirectory(appDir)
                     .withLog(logger)
                     .withEnvironment("JETVMPROP", project.getTerminationVMProp(termFile))
+                    .onStart(process -> {
+                        runStopSupport.processStarted(process);
+                        stopConditions.started(process);
+                    })
+                    .withOutputListener(stopConditions::onOutput)
                     .execute();
         } finally {
+            stopConditions.finished();
             runStopSupport.taskFinished();
         }
 
@@ -106,6 +105,16 @@ public class RunTask {
         }
     }
 
+    private void stopRun(String instanceName) {
+        try {
+            new RunStopSupport(project.jetOutputDir(), true, project.stopTimeout())
+                    .withStagedStop(project.stagedStopConfiguration())
+                    .stopRunTask(instanceName);
+        } catch (JetTaskFailureException e) {
+            logger.error(e.getMessage());
+        }
+    }
+
     public void execute() throws JetTaskFailureException, IOException, CmdLineToolException {
         if (excelsiorJet.isCrossCompilation()) {
             throw new JetTaskFailureException(Txt.s("RunTask.NoRunForCrossCompilation.Error"));
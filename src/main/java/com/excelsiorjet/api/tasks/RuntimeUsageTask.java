@@ -0,0 +1,552 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.api.ExcelsiorJet;
+import com.excelsiorjet.api.tasks.config.ApplicationType;
+import com.excelsiorjet.api.tasks.config.runtime.RuntimeConfig;
+import com.excelsiorjet.api.util.Json;
+import com.excelsiorjet.api.util.Txt;
+import com.excelsiorjet.api.util.Utils;
+import com.excelsiorjet.api.util.ZipDirectory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.excelsiorjet.api.log.Log.logger;
+
+/**
+ * Task for selecting the optional JET Runtime components and locales that the application needs.
+ * <p>
+ * The constant pools of all classes on the classpath and the classes of the Test Run usage list, if any,
+ * are matched against the Java SE packages that each optional component backs
+ * (e.g. {@code javax/crypto/} for {@code jce} or {@code javafx/scene/web/} for {@code javafx-webkit}).
+ * Locales are selected from the resource bundles on the classpath, the charset names and locale tags
+ * found among the string constants, the {@link Locale} constants referenced, and the locale data
+ * and charset classes of the usage list. {@code European} locales are always kept.
+ * </p>
+ * <p>
+ * The detection is heuristic: a component needed only via reflection with computed names may be missed,
+ * which is why collecting the usage list with {@link TestRunTask} before is recommended.
+ * If an application image was built before, the task also reports by how many bytes its runtime
+ * would shrink or grow with the recommended components.
+ * </p>
+ *
+ * @see RuntimeConfig#autoSelect
+ */
+public class RuntimeUsageTask {
+
+    static final String REPORT_FILE = "runtime-report.json";
+
+    static final String EUROPEAN = "European";
+
+    private static final int MAX_EVIDENCE = 3;
+
+    /**
+     * Package (or class name) prefixes of the Java SE API backed by each detectable component.
+     */
+    private static final Map<String, String[]> COMPONENT_PREFIXES = new LinkedHashMap<>();
+
+    static {
+        COMPONENT_PREFIXES.put("jce", new String[]{"javax/crypto/", "javax/net/ssl/",
+                "javax/security/auth/kerberos/", "javax/security/cert/", "java/security/spec/EC",
+                "java/security/interfaces/EC"});
+        COMPONENT_PREFIXES.put("awt_natives", new String[]{"java/awt/", "javax/swing/", "javax/imageio/",
+                "javax/print/", "javax/sound/", "java/applet/"});
+        COMPONENT_PREFIXES.put("fonts", new String[]{"java/awt/Font", "java/awt/font/", "java/awt/Graphics",
+                "javax/swing/", "javafx/scene/text/"});
+        COMPONENT_PREFIXES.put("accessibility", new String[]{"javax/accessibility/", "com/sun/java/accessibility/"});
+        COMPONENT_PREFIXES.put("javafx", new String[]{"javafx/", "com/sun/javafx/"});
+        COMPONENT_PREFIXES.put("javafx-webkit", new String[]{"javafx/scene/web/", "com/sun/webkit/"});
+        COMPONENT_PREFIXES.put("nashorn", new String[]{"jdk/nashorn/", "javax/script/"});
+    }
+
+    private static final String CLDR = "cldr";
+
+    /**
+     * Runtime files of each component, matched against the lower case path relative to the runtime directory
+     * in this order.
+     */
+    private static final Map<String, Pattern> COMPONENT_FILES = new LinkedHashMap<>();
+
+    static {
+        COMPONENT_FILES.put("javafx-webkit", Pattern.compile(".*webkit.*|.*jfxwebkit.*"));
+        COMPONENT_FILES.put("javafx", Pattern.compile(".*(jfx|javafx|glass|prism|decora|gstreamer|fxplugins|glib-lite).*"));
+        COMPONENT_FILES.put("nashorn", Pattern.compile(".*nashorn\\.jar"));
+        COMPONENT_FILES.put(CLDR, Pattern.compile(".*cldrdata\\.jar"));
+        COMPONENT_FILES.put("jce", Pattern.compile(".*(sunjce_provider|sunec|sunpkcs11|sunmscapi|local_policy|us_export_policy).*"));
+        COMPONENT_FILES.put("accessibility", Pattern.compile(".*(jaccess|accessbridge|access-bridge|jabswitch).*"));
+        COMPONENT_FILES.put("fonts", Pattern.compile("(.*/)?fonts/.*"));
+        COMPONENT_FILES.put("awt_natives", Pattern.compile(
+                "(.*/)?(lib)?(awt|awt_xawt|awt_headless|jawt|fontmanager|freetype|t2k|lcms|jpeg|mlib_image|splashscreen)\\.(dll|so|dylib)"));
+    }
+
+    /**
+     * Locale groups by ISO 639 language code.
+     */
+    private static final Map<String, String> LANGUAGES = new HashMap<>();
+
+    static {
+        LANGUAGES.put("ja", "Japanese");
+        LANGUAGES.put("zh", "Chinese");
+        LANGUAGES.put("ko", "Korean");
+        LANGUAGES.put("th", "Thai");
+        LANGUAGES.put("vi", "Vietnamese");
+        LANGUAGES.put("hi", "Hindi");
+        LANGUAGES.put("he", "Hebrew");
+        LANGUAGES.put("iw", "Hebrew");
+        LANGUAGES.put("ar", "Arabic");
+        LANGUAGES.put("id", "Indonesian");
+        LANGUAGES.put("in", "Indonesian");
+        LANGUAGES.put("ms", "Malay");
+    }
+
+    /**
+     * Languages whose codes are recognized in string constants without a region,
+     * other two letter codes are too likely to be something else.
+     */
+    private static final Set<String> DISTINCT_LANGUAGES = new HashSet<>(Arrays.asList("ja", "zh", "ko", "th", "vi"));
+
+    /**
+     * Locale groups by charset name in upper case without {@code '-'} and {@code '_'}.
+     */
+    private static final Map<String, String> CHARSETS = new HashMap<>();
+
+    private static void charsets(String locale, String... names) {
+        for (String name : names) {
+            CHARSETS.put(name, locale);
+        }
+    }
+
+    static {
+        charsets("Japanese", "SHIFTJIS", "SJIS", "MS932", "WINDOWS31J", "EUCJP", "ISO2022JP", "JIS", "PCK");
+        charsets("Extended_Japanese", "EUCJPLINUX", "EUCJPOPEN", "ISO2022JP2", "JIS0212", "MS50220", "MS50221");
+        charsets("Chinese", "GBK", "GB2312", "EUCCN", "MS936", "BIG5", "MS950");
+        charsets("Extended_Chinese", "GB18030", "BIG5HKSCS", "MS950HKSCS", "EUCTW", "ISO2022CN", "ISO2022CNGB",
+                "ISO2022CNCNS");
+        charsets("Korean", "EUCKR", "MS949", "ISO2022KR");
+        charsets("Extended_Korean", "JOHAB");
+        charsets("Thai", "TIS620", "MS874", "WINDOWS874");
+        charsets("Hebrew", "ISO88598", "WINDOWS1255", "CP1255");
+        charsets("Arabic", "ISO88596", "WINDOWS1256", "CP1256");
+        charsets("Vietnamese", "WINDOWS1258", "CP1258");
+        charsets("Latin_3", "ISO88593");
+        charsets("Extended_Macintosh", "MACROMAN", "MACCYRILLIC", "MACGREEK", "MACTURKISH", "MACCENTRALEUROPE",
+                "MACICELAND", "MACROMANIA", "MACUKRAINE", "MACCROATIAN", "MACARABIC", "MACHEBREW", "MACTHAI",
+                "MACSYMBOL", "MACDINGBAT");
+    }
+
+    private static final Pattern IBM_CHARSET = Pattern.compile("(IBM|CP)0?(037|273|277|278|280|284|285|297|420|424|500|"
+            + "833|834|838|870|871|875|918|930|933|935|937|939|942|943|948|949|950|964|970|1025|1026|1046|1047|"
+            + "1097|1112|1122|1123|1124|1140|1141|1142|1143|1144|1145|1146|1147|1148|1149|1364|1381|1383|33722)C?");
+
+    /**
+     * Locale tag like {@code ja}, {@code zh_CN} or {@code pt-BR}.
+     */
+    private static final Pattern LOCALE_TAG = Pattern.compile("([a-z]{2})(?:[-_]([A-Z]{2}|[A-Z][a-z]{3}))?");
+
+    /**
+     * Suffix of a localized resource bundle, e.g. {@code Messages_zh_TW.properties}.
+     */
+    private static final Pattern BUNDLE_SUFFIX = Pattern.compile("_([a-z]{2})(?:_[A-Z]{2})?(?:\\.properties|\\.class)?$");
+
+    private static final Map<String, String> LOCALE_CONSTANTS = new HashMap<>();
+
+    static {
+        for (String constant : new String[]{"JAPAN", "JAPANESE"}) {
+            LOCALE_CONSTANTS.put(constant, "Japanese");
+        }
+        for (String constant : new String[]{"CHINA", "CHINESE", "PRC", "SIMPLIFIED_CHINESE", "TRADITIONAL_CHINESE", "TAIWAN"}) {
+            LOCALE_CONSTANTS.put(constant, "Chinese");
+        }
+        for (String constant : new String[]{"KOREA", "KOREAN"}) {
+            LOCALE_CONSTANTS.put(constant, "Korean");
+        }
+    }
+
+    private final ExcelsiorJet excelsiorJet;
+    private final JetProject project;
+
+    public RuntimeUsageTask(ExcelsiorJet excelsiorJet, JetProject project) {
+        this.excelsiorJet = excelsiorJet;
+        this.project = project;
+    }
+
+    /**
+     * Components and locales found to be used, with up to {@link #MAX_EVIDENCE} reasons for each of them.
+     */
+    static class Usage {
+        final Map<String, Set<String>> components = new TreeMap<>();
+        final Map<String, Set<String>> locales = new TreeMap<>();
+
+        void component(String component, String evidence) {
+            add(components, component, evidence);
+        }
+
+        void locale(String locale, String evidence) {
+            add(locales, locale, evidence);
+        }
+
+        private static void add(Map<String, Set<String>> found, String key, String evidence) {
+            Set<String> reasons = found.computeIfAbsent(key, k -> new LinkedHashSet<>());
+            if (reasons.size() < MAX_EVIDENCE) {
+                reasons.add(evidence);
+            }
+        }
+
+        void merge(Usage other) {
+            other.components.forEach((c, reasons) -> reasons.forEach(r -> component(c, r)));
+            other.locales.forEach((l, reasons) -> reasons.forEach(r -> locale(l, r)));
+        }
+    }
+
+    /**
+     * Recommended runtime components and locales.
+     */
+    public static class Recommendation {
+        public final List<String> components;
+        public final List<String> locales;
+        final Usage usage;
+
+        /**
+         * Size of each component in the runtime of the previously built application image.
+         */
+        public final Map<String, Long> imageComponentBytes = new TreeMap<>();
+
+        /**
+         * Whether an application image was found to measure {@link #sizeDelta()} against.
+         */
+        public boolean imageMeasured;
+
+        final Set<String> current = new TreeSet<>();
+
+        Recommendation(Usage usage) {
+            this.usage = usage;
+            this.components = new ArrayList<>(usage.components.keySet());
+            List<String> locales = new ArrayList<>();
+            locales.add(EUROPEAN);
+            usage.locales.keySet().stream().filter(l -> !l.equals(EUROPEAN)).forEach(locales::add);
+            this.locales = locales;
+        }
+
+        /**
+         * Change of the runtime size in bytes if the recommended components were used instead of the current ones,
+         * as far as it can be measured in the previous application image: negative if the runtime shrinks.
+         * The locales are not measured as their data is not kept in separate files.
+         */
+        public long sizeDelta() {
+            long delta = 0;
+            for (Map.Entry<String, Long> e : imageComponentBytes.entrySet()) {
+                if (current.contains(e.getKey()) && !components.contains(e.getKey())) {
+                    delta -= e.getValue();
+                }
+            }
+            return delta;
+        }
+
+        /**
+         * The components as set to {@link RuntimeConfig#components}.
+         */
+        public String[] componentsValue() {
+            return components.isEmpty() ? new String[]{"none"} : components.toArray(new String[components.size()]);
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("components", components);
+            map.put("locales", locales);
+            map.put("componentEvidence", evidenceMap(usage.components));
+            map.put("localeEvidence", evidenceMap(usage.locales));
+            map.put("imageMeasured", imageMeasured);
+            map.put("imageComponentBytes", imageComponentBytes);
+            map.put("sizeDelta", sizeDelta());
+            return map;
+        }
+
+        private static Map<String, Object> evidenceMap(Map<String, Set<String>> found) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            found.forEach((key, reasons) -> map.put(key, new ArrayList<>(reasons)));
+            return map;
+        }
+    }
+
+    /**
+     * Analyzes the project, logs the recommended runtime components and locales and writes the report.
+     */
+    public Recommendation execute() throws JetTaskFailureException, IOException {
+        project.validate(excelsiorJet, false);
+        Recommendation recommendation = recommend();
+        logRecommendation(recommendation);
+        return recommendation;
+    }
+
+    /**
+     * Sets the runtime components and locales that are not set explicitly to the recommended ones.
+     * Does nothing for application types whose classpath is not fully visible to the analysis,
+     * unless a usage list is available.
+     */
+    void apply(RuntimeConfig runtime) throws JetTaskFailureException, IOException {
+        File usg = project.execProfiles() == null ? null : project.execProfiles().getUsg();
+        if ((project.appType() == ApplicationType.TOMCAT || project.appType() == ApplicationType.SPRING_BOOT) &&
+                ((usg == null) || !usg.isFile()))
+        {
+            logger.warn(Txt.s("RuntimeUsageTask.NoUsageList.Warning", project.appType().toString()));
+            return;
+        }
+        Recommendation recommendation = recommend();
+        logRecommendation(recommendation);
+        if (runtime.components == null) {
+            runtime.components = recommendation.componentsValue();
+        }
+        if (runtime.locales == null) {
+            runtime.locales = recommendation.locales.toArray(new String[recommendation.locales.size()]);
+        }
+    }
+
+    private Recommendation recommend() throws JetTaskFailureException, IOException {
+        List<Callable<Usage>> tasks = project.classpathEntries().stream()
+                .map(entry -> (Callable<Usage>) () -> {
+                    try {
+                        return scan(entry.path);
+                    } catch (IOException e) {
+                        logger.warn(Txt.s("ClasspathAnalysisTask.NotScanned.Warning", entry.path.getAbsolutePath(),
+                                e.toString()));
+                        return new Usage();
+                    }
+                })
+                .collect(Collectors.toList());
+        Usage usage = new Usage();
+        ClasspathAnalysisTask.inParallel(tasks, Runtime.getRuntime().availableProcessors()).forEach(usage::merge);
+        if (project.execProfiles() != null) {
+            File usg = project.execProfiles().getUsg();
+            if ((usg != null) && usg.isFile()) {
+                usage.merge(scanUsageList(usg));
+            }
+        }
+        String[] jvmArgs = project.jvmArgs();
+        if (jvmArgs != null) {
+            for (String arg : jvmArgs) {
+                if (arg.contains("java.locale.providers") && arg.contains("CLDR")) {
+                    usage.component(CLDR, arg);
+                }
+            }
+        }
+
+        Recommendation recommendation = new Recommendation(usage);
+        RuntimeConfig runtime = project.runtimeConfiguration();
+        recommendation.current.addAll(currentComponents(runtime == null ? null : runtime.components));
+        String location = (runtime == null) || (runtime.location == null) ? "rt" : runtime.location;
+        File rtDir = new File(project.jetAppDir(), location);
+        if (rtDir.isDirectory()) {
+            recommendation.imageMeasured = true;
+            recommendation.imageComponentBytes.putAll(componentBytes(rtDir));
+        }
+
+        Utils.mkdir(project.jetOutputDir());
+        File reportFile = new File(project.jetOutputDir(), REPORT_FILE);
+        Files.write(reportFile.toPath(), Json.toJson(recommendation.toMap()).getBytes(StandardCharsets.UTF_8));
+        logger.info(Txt.s("RuntimeUsageTask.Report.Info", reportFile.getAbsolutePath()));
+        return recommendation;
+    }
+
+    private static void logRecommendation(Recommendation recommendation) {
+        recommendation.usage.components.forEach((component, reasons) ->
+                logger.info(Txt.s("RuntimeUsageTask.Component.Info", component, String.join(", ", reasons))));
+        recommendation.usage.locales.forEach((locale, reasons) ->
+                logger.info(Txt.s("RuntimeUsageTask.Locale.Info", locale, String.join(", ", reasons))));
+        logger.info(Txt.s("RuntimeUsageTask.Recommendation.Info",
+                String.join(", ", recommendation.componentsValue()), String.join(", ", recommendation.locales)));
+        if (recommendation.imageMeasured) {
+            logger.info(Txt.s("RuntimeUsageTask.SizeDelta.Info", recommendation.sizeDelta() / 1024));
+        }
+    }
+
+    /**
+     * Returns the components included by the given value of {@link RuntimeConfig#components}.
+     */
+    static Set<String> currentComponents(String[] components) {
+        if (components == null) {
+            return Collections.singleton("jce");
+        }
+        Set<String> current = new HashSet<>();
+        for (String component : components) {
+            if (component.equalsIgnoreCase("all")) {
+                current.addAll(COMPONENT_FILES.keySet());
+            } else if (!component.equalsIgnoreCase("none")) {
+                current.add(component);
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Sums the sizes of the files of each component in the given runtime directory.
+     */
+    static Map<String, Long> componentBytes(File rtDir) throws IOException {
+        Map<String, Long> bytes = new TreeMap<>();
+        Path root = rtDir.toPath();
+        try (Stream<Path> walk = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) walk.filter(Files::isRegularFile)::iterator) {
+                String name = root.relativize(file).toString().replace(File.separatorChar, '/').toLowerCase(Locale.ROOT);
+                for (Map.Entry<String, Pattern> e : COMPONENT_FILES.entrySet()) {
+                    if (e.getValue().matcher(name).matches()) {
+                        bytes.merge(e.getKey(), Files.size(file), Long::sum);
+                        break;
+                    }
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Finds the components and locales used by the classes and resource bundles of a classpath entry.
+     */
+    static Usage scan(File path) throws IOException {
+        Usage usage = new Usage();
+        String entryName = path.getName();
+        for (String name : resourceNames(path)) {
+            Matcher m = BUNDLE_SUFFIX.matcher(name);
+            if (m.find() && LANGUAGES.containsKey(m.group(1))) {
+                usage.locale(LANGUAGES.get(m.group(1)), name);
+            }
+        }
+        ClasspathAnalysisTask.forEachClassFile(path, classFile -> {
+            Set<String> classes = new HashSet<>();
+            List<String> strings = new ArrayList<>();
+            ClasspathAnalysisTask.readConstantPool(classFile, classes::add, strings::add);
+            for (String className : classes) {
+                usedClass(usage, className, entryName);
+            }
+            boolean locales = classes.contains("java/util/Locale");
+            for (String string : strings) {
+                usedString(usage, string, locales, entryName);
+            }
+        });
+        return usage;
+    }
+
+    private static List<String> resourceNames(File path) throws IOException {
+        if (path.isDirectory()) {
+            Path root = path.toPath();
+            try (Stream<Path> walk = Files.walk(root)) {
+                return walk.filter(Files::isRegularFile)
+                        .map(file -> root.relativize(file).toString().replace(File.separatorChar, '/'))
+                        .filter(name -> name.endsWith(".properties"))
+                        .collect(Collectors.toList());
+            }
+        } else if (path.isFile()) {
+            return ZipDirectory.read(path).stream()
+                    .map(entry -> entry.name)
+                    .filter(name -> name.endsWith(".properties"))
+                    .collect(Collectors.toList());
+        }
+        return Collections.emptyList();
+    }
+
+    private static void usedClass(Usage usage, String className, String where) {
+        for (Map.Entry<String, String[]> e : COMPONENT_PREFIXES.entrySet()) {
+            for (String prefix : e.getValue()) {
+                if (className.startsWith(prefix)) {
+                    usage.component(e.getKey(), className.replace('/', '.') + " in " + where);
+                    break;
+                }
+            }
+        }
+    }
+
+    private static void usedString(Usage usage, String string, boolean localeClassReferenced, String where) {
+        if (string.startsWith("https:")) {
+            usage.component("jce", "https URL in " + where);
+            return;
+        }
+        if ((string.length() < 2) || (string.length() > 20)) {
+            return;
+        }
+        String locale = charsetLocale(string);
+        if (locale == null) {
+            Matcher m = LOCALE_TAG.matcher(string);
+            if (m.matches() && ((m.group(2) != null) || DISTINCT_LANGUAGES.contains(m.group(1)))) {
+                locale = LANGUAGES.get(m.group(1));
+            }
+        }
+        if ((locale == null) && localeClassReferenced) {
+            locale = LOCALE_CONSTANTS.get(string);
+        }
+        if (locale != null) {
+            usage.locale(locale, "\"" + string + "\" in " + where);
+        }
+    }
+
+    /**
+     * Returns the locale group of the given charset name, or {@code null} if it is not a charset name
+     * or the charset belongs to the {@code European} group.
+     */
+    static String charsetLocale(String name) {
+        String normalized = name.toUpperCase(Locale.ROOT).replace("-", "").replace("_", "");
+        if (normalized.startsWith("X") && !CHARSETS.containsKey(normalized)) {
+            normalized = normalized.substring(1);
+        }
+        String locale = CHARSETS.get(normalized);
+        if ((locale == null) && IBM_CHARSET.matcher(normalized).matches()) {
+            locale = "Extended_IBM";
+        }
+        return locale;
+    }
+
+    /**
+     * Finds the components and locales used by the classes of the usage list, including the locale data
+     * and charsets that the JDK loads.
+     */
+    static Usage scanUsageList(File usg) throws IOException {
+        Usage usage = new Usage();
+        String where = usg.getName();
+        UsageList.forEachEntry(usg, (section, entry) -> {
+            if (entry == null) {
+                return;
+            }
+            String className = ClasspathAnalysisTask.usedClass(entry);
+            usedClass(usage, className, where);
+            if (className.startsWith("sun/text/resources/") || className.startsWith("sun/util/resources/")) {
+                Matcher m = BUNDLE_SUFFIX.matcher(className);
+                if (m.find() && LANGUAGES.containsKey(m.group(1))) {
+                    usage.locale(LANGUAGES.get(m.group(1)), className.replace('/', '.') + " in " + where);
+                }
+            } else if (className.startsWith("sun/nio/cs/")) {
+                String locale = charsetLocale(className.substring(className.lastIndexOf('/') + 1));
+                if (locale != null) {
+                    usage.locale(locale, className.replace('/', '.') + " in " + where);
+                }
+            }
+        });
+        return usage;
+    }
+}
@@ -0,0 +1,369 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.api.ExcelsiorJet;
+import com.excelsiorjet.api.cmd.CmdLineTool;
+import com.excelsiorjet.api.cmd.CmdLineToolException;
+import com.excelsiorjet.api.platform.Processes;
+import com.excelsiorjet.api.tasks.config.ApplicationType;
+import com.excelsiorjet.api.tasks.config.StartupBenchmarkConfig;
+import com.excelsiorjet.api.util.Json;
+import com.excelsiorjet.api.util.Txt;
+import com.excelsiorjet.api.util.Utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.excelsiorjet.api.log.Log.logger;
+
+/**
+ * Task for benchmarking the startup of a generated executable.
+ * <p>
+ * Runs the executable from the {@code jetAppDir} directory several times and measures the time
+ * to the first output line, to the application readiness and to the application exit,
+ * as well as the resident set size of the application upon readiness (Linux only).
+ * Optionally, the same measurements are done for the application running on the JIT for comparison.
+ * The results are logged and written to a JSON file.
+ * </p>
+ *
+ * @see StartupBenchmarkConfig
+ */
+public class StartupBenchmarkTask {
+
+    static final String NATIVE_VARIANT = "native";
+    static final String JIT_VARIANT = "jit";
+
+    private static final int PORT_POLL_INTERVAL = 20;
+
+    private final ExcelsiorJet excelsiorJet;
+    private final JetProject project;
+
+    public StartupBenchmarkTask(ExcelsiorJet excelsiorJet, JetProject project) throws JetTaskFailureException {
+        this.excelsiorJet = excelsiorJet;
+        this.project = project;
+    }
+
+    /**
+     * Measurements of a single run. Times are in nanoseconds since the process start, {@code -1} if not reached.
+     */
+    private static class Sample {
+        long start;
+        long firstLine = -1;
+        long ready = -1;
+        long exit = -1;
+        long rss = -1;
+        volatile boolean killed;
+        volatile String failure;
+    }
+
+    /**
+     * Aggregated results of a benchmarked variant.
+     */
+    public static class Report {
+        public final String variant;
+        public final String cmdLine;
+        public final int failures;
+        public final BenchmarkStats firstLineMillis;
+        public final BenchmarkStats readyMillis;
+        public final BenchmarkStats exitMillis;
+        public final BenchmarkStats rssAtReadyKb;
+        private final List<Sample> samples;
+
+        private Report(String variant, String cmdLine, List<Sample> samples) {
+            this.variant = variant;
+            this.cmdLine = cmdLine;
+            this.samples = samples;
+            List<Sample> succeeded = samples.stream().filter(s -> s.failure == null).collect(Collectors.toList());
+            this.failures = samples.size() - succeeded.size();
+            this.firstLineMillis = BenchmarkStats.of(toMillis(succeeded.stream().map(s -> s.firstLine)));
+            this.readyMillis = BenchmarkStats.of(toMillis(succeeded.stream().map(s -> s.ready)));
+            this.exitMillis = BenchmarkStats.of(toMillis(succeeded.stream().filter(s -> !s.killed).map(s -> s.exit)));
+            this.rssAtReadyKb = BenchmarkStats.of(succeeded.stream()
+                    .filter(s -> s.rss >= 0).map(s -> s.rss / 1024).collect(Collectors.toList()));
+        }
+
+        private static List<Double> toMillis(Stream<Long> nanos) {
+            return nanos.filter(n -> n >= 0).map(StartupBenchmarkTask::millis).collect(Collectors.toList());
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("cmdLine", cmdLine);
+            map.put("failures", failures);
+            map.put("firstLineMs", firstLineMillis == null ? null : firstLineMillis.toMap());
+            map.put("readyMs", readyMillis == null ? null : readyMillis.toMap());
+            map.put("exitMs", exitMillis == null ? null : exitMillis.toMap());
+            map.put("rssAtReadyKb", rssAtReadyKb == null ? null : rssAtReadyKb.toMap());
+            List<Object> runs = new ArrayList<>();
+            for (Sample sample : samples) {
+                Map<String, Object> run = new LinkedHashMap<>();
+                run.put("firstLineMs", sample.firstLine < 0 ? null : millis(sample.firstLine));
+                run.put("readyMs", sample.ready < 0 ? null : millis(sample.ready));
+                run.put("exitMs", sample.exit < 0 ? null : millis(sample.exit));
+                run.put("killed", sample.killed);
+                run.put("rssKb", sample.rss < 0 ? null : sample.rss / 1024);
+                run.put("failure", sample.failure);
+                runs.add(run);
+            }
+            map.put("runs", runs);
+            return map;
+        }
+    }
+
+    /**
+     * Benchmarks the startup of the executable and of the JIT baseline, if requested.
+     *
+     * @return reports by variant name ("native" and optionally "jit")
+     */
+    public Map<String, Report> execute() throws JetTaskFailureException, IOException {
+        if (excelsiorJet.isCrossCompilation()) {
+            throw new JetTaskFailureException(Txt.s("RunTask.NoRunForCrossCompilation.Error"));
+        }
+
+        project.validate(excelsiorJet, true);
+
+        switch (project.appType()) {
+            case WINDOWS_SERVICE:
+            case DYNAMIC_LIBRARY:
+                throw new JetTaskFailureException(Txt.s("RunTask.AppTypeNotForRun.Error", project.appType()));
+        }
+
+        File appDir = project.jetAppDir();
+        File exe = new File(appDir, project.exeRelativePath(excelsiorJet));
+        if (!exe.exists()) {
+            throw new JetTaskFailureException(Txt.s("RunTask.NoReadyBuild.Error"));
+        }
+
+        StartupBenchmarkConfig config = project.startupBenchmarkConfiguration();
+        Map<String, Report> reports = new LinkedHashMap<>();
+        reports.put(NATIVE_VARIANT, benchmarkExecutable(NATIVE_VARIANT, appDir));
+
+        if (config.jitBaseline) {
+            if (project.appType() == ApplicationType.PLAIN) {
+                String[] xjavaArgs = xjavaArgs(appDir);
+                reports.put(JIT_VARIANT, benchmark(JIT_VARIANT, Utils.prepend("xjava", xjavaArgs),
+                        () -> excelsiorJet.xjava(xjavaArgs).workingDirectory(appDir)));
+            } else {
+                logger.warn(Txt.s("StartupBenchmarkTask.JitBaselineNotSupported.Warning", project.appType()));
+            }
+        }
+
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("executable", exe.getAbsolutePath());
+        json.put("iterations", config.iterations);
+        json.put("warmupIterations", config.warmupIterations);
+        json.put("readinessPattern", config.readinessPattern);
+        json.put("readinessPort", config.readinessPort == 0 ? null : config.readinessPort);
+        json.put("terminateWhenReady", config.terminateWhenReady);
+        Map<String, Object> variants = new LinkedHashMap<>();
+        for (Report report : reports.values()) {
+            variants.put(report.variant, report.toMap());
+        }
+        json.put("variants", variants);
+        Utils.mkdir(config.outputFile.getAbsoluteFile().getParentFile());
+        Files.write(config.outputFile.toPath(), Json.toJson(json).getBytes(StandardCharsets.UTF_8));
+        logger.info(Txt.s("StartupBenchmarkTask.Results.Info", config.outputFile.getAbsolutePath()));
+
+        return reports;
+    }
+
+    /**
+     * Benchmarks the executable built into {@code appDir} for an already validated project.
+     */
+    Report benchmarkExecutable(String variant, File appDir) throws JetTaskFailureException {
+        String[] exeArgs = Utils.prepend(new File(appDir, project.exeRelativePath(excelsiorJet)).getAbsolutePath(),
+                project.exeRunArgs());
+        return benchmark(variant, exeArgs, () -> new CmdLineTool(exeArgs).workingDirectory(appDir));
+    }
+
+    private String[] xjavaArgs(File appDir) {
+        List<String> args = new ArrayList<>();
+        //add jvm args substituting $(Root) occurences with appDir
+        args.addAll(Stream.of(project.jvmArgs())
+                .map(s -> s.replace("$(Root)", appDir.getAbsolutePath()))
+                .collect(Collectors.toList()));
+        args.add("-cp");
+        args.add(project.classpathEntries().stream()
+                .map(e -> e.path.getAbsolutePath())
+                .collect(Collectors.joining(File.pathSeparator)));
+        args.add(project.mainClass());
+        args.addAll(Arrays.asList(project.runArgs()));
+        return args.toArray(new String[args.size()]);
+    }
+
+    private Report benchmark(String variant, String[] cmd, Supplier<CmdLineTool> tool) throws JetTaskFailureException {
+        StartupBenchmarkConfig config = project.startupBenchmarkConfiguration();
+        String cmdLine = Arrays.stream(cmd)
+                .map(Utils::quoteCmdLineArgument)
+                .collect(Collectors.joining(" "));
+        logger.info(Txt.s("StartupBenchmarkTask.Start.Info", variant, cmdLine,
+                config.warmupIterations, config.iterations));
+
+        for (int i = 0; i < config.warmupIterations; i++) {
+            measure(tool.get(), config);
+        }
+        List<Sample> samples = new ArrayList<>();
+        for (int i = 1; i <= config.iterations; i++) {
+            Sample sample = measure(tool.get(), config);
+            if (sample.failure != null) {
+                logger.warn(Txt.s("StartupBenchmarkTask.IterationFailed.Warning", variant, i, sample.failure));
+            }
+            samples.add(sample);
+        }
+
+        Report report = new Report(variant, cmdLine, samples);
+        if (report.failures == samples.size()) {
+            throw new JetTaskFailureException(Txt.s("StartupBenchmarkTask.AllIterationsFailed.Error", variant));
+        }
+        logger.info(Txt.s("StartupBenchmarkTask.Summary.Info", variant,
+                format(report.firstLineMillis), format(report.readyMillis), format(report.exitMillis),
+                report.rssAtReadyKb == null ? "n/a" : String.format("%.0f KB", report.rssAtReadyKb.p50),
+                report.failures));
+        return report;
+    }
+
+    private static String format(BenchmarkStats stats) {
+        return stats == null ? "n/a" : String.format("%.1f/%.1f/%.1f ms", stats.p50, stats.p90, stats.p99);
+    }
+
+    private Sample measure(CmdLineTool tool, StartupBenchmarkConfig config) throws JetTaskFailureException {
+        Sample sample = new Sample();
+        Pattern readinessPattern = config.readinessPattern == null ? null : Pattern.compile(config.readinessPattern);
+        boolean readyOnFirstLine = (readinessPattern == null) && (config.readinessPort == 0);
+        AtomicReference<Process> process = new AtomicReference<>();
+        CountDownLatch ready = new CountDownLatch(1);
+        CountDownLatch exited = new CountDownLatch(1);
+
+        tool.onStart(process::set)
+            .withOutputListener(line -> {
+                long now = System.nanoTime();
+                synchronized (sample) {
+                    if (sample.firstLine < 0) {
+                        sample.firstLine = now - sample.start;
+                        if (readyOnFirstLine) {
+                            markReady(sample, now, process.get(), ready);
+                        }
+                    }
+                    if ((readinessPattern != null) && (sample.ready < 0) && readinessPattern.matcher(line).find()) {
+                        markReady(sample, now, process.get(), ready);
+                    }
+                }
+            });
+
+        Thread runner = new Thread(() -> {
+            try {
+                int exitCode = tool.execute();
+                if ((exitCode != 0) && !sample.killed) {
+                    sample.failure = Txt.s("StartupBenchmarkTask.ExitCode.Failure", exitCode);
+                }
+            } catch (CmdLineToolException e) {
+                sample.failure = e.getMessage();
+            } finally {
+                synchronized (sample) {
+                    sample.exit = System.nanoTime() - sample.start;
+                }
+                exited.countDown();
+                ready.countDown();
+            }
+        });
+        sample.start = System.nanoTime();
+        runner.start();
+
+        try {
+            long deadline = sample.start + TimeUnit.SECONDS.toNanos(config.readinessTimeout);
+            if (config.readinessPort != 0) {
+                while ((exited.getCount() > 0) && (System.nanoTime() < deadline) && (ready.getCount() > 0)) {
+                    if (Utils.isLoopbackPortOpen(config.readinessPort, PORT_POLL_INTERVAL)) {
+                        synchronized (sample) {
+                            markReady(sample, System.nanoTime(), process.get(), ready);
+                        }
+                    } else {
+                        Thread.sleep(PORT_POLL_INTERVAL);
+                    }
+                }
+            } else {
+                ready.await(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            }
+
+            synchronized (sample) {
+                if ((sample.ready < 0) && (sample.failure == null)) {
+                    sample.failure = exited.getCount() == 0 ?
+                            Txt.s("StartupBenchmarkTask.ExitedBeforeReady.Failure") :
+                            Txt.s("StartupBenchmarkTask.NotReady.Failure", config.readinessTimeout);
+                }
+            }
+
+            if ((sample.ready < 0) || config.terminateWhenReady ||
+                    !exited.await(config.exitTimeout, TimeUnit.SECONDS))
+            {
+                kill(sample, process.get());
+            }
+            runner.join();
+        } catch (InterruptedException e) {
+            kill(sample, process.get());
+            Thread.currentThread().interrupt();
+            throw new JetTaskFailureException(e.getMessage(), e);
+        }
+        return sample;
+    }
+
+    private static void markReady(Sample sample, long now, Process process, CountDownLatch ready) {
+        if (sample.ready >= 0) {
+            return;
+        }
+        sample.ready = now - sample.start;
+        if (process != null) {
+            sample.rss = Processes.residentSetSize(Processes.pid(process));
+        }
+        ready.countDown();
+    }
+
+    private static void kill(Sample sample, Process process) {
+        if ((process == null) || !process.isAlive()) {
+            return;
+        }
+        sample.killed = true;
+        long pid = Processes.pid(process);
+        if ((pid == -1) || !Processes.killTree(pid)) {
+            process.destroyForcibly();
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.api.cmd.CmdLineToolException;
+import com.excelsiorjet.api.platform.Processes;
+import com.excelsiorjet.api.tasks.config.compiler.StopConditionsConfig;
+import com.excelsiorjet.api.util.Txt;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+import static com.excelsiorjet.api.log.Log.logger;
+
+/**
+ * Watches a running application and stops it as soon as the first of the configured stop conditions fires.
+ * <p>
+ * The output of the application should be passed to {@link #onOutput(String)}, and {@link #started(Process)} and
+ * {@link #finished()} should be called when the application starts and exits, respectively.
+ * The reason of the stop is logged and available via {@link #reason()}.
+ * </p>
+ *
+ * @see StopConditionsConfig
+ */
+class StopConditions {
+
+    /**
+     * Class loading events printed by {@code -verbose:class}: "[Loaded ..." before Java 9
+     * and "[...][info][class,load] ..." since Java 9.
+     */
+    private static final Pattern CLASS_LOAD_EVENT = Pattern.compile("^\\[(Loaded |.*\\[class,load\\])");
+
+    static final String VERBOSE_CLASS = "-verbose:class";
+
+    /**
+     * Stop conditions that never fire.
+     */
+    static final StopConditions NONE = new StopConditions(new StopConditionsConfig(), 0, false, () -> {});
+
+    private static final int POLL_INTERVAL = 200;
+
+    private final StopConditionsConfig config;
+    private final int timeout;
+    private final boolean trackClassLoading;
+    private final Pattern outputPattern;
+    private final Runnable stopAction;
+
+    private HttpWarmupDriver httpWarmup;
+
+    private final AtomicReference<String> reason = new AtomicReference<>();
+    private volatile long lastActivity;
+    private Thread monitor;
+    private Thread driver;
+    private Thread warmup;
+
+    /**
+     * @param config stop conditions
+     * @param timeout time in seconds after which the application is stopped unconditionally, 0 means no timeout
+     * @param classLoadingSupported whether the application runs on the JVM that supports {@code -verbose:class}
+     * @param stopAction action that stops the application
+     */
+    StopConditions(StopConditionsConfig config, int timeout, boolean classLoadingSupported, Runnable stopAction) {
+        this.config = config;
+        this.timeout = timeout;
+        this.trackClassLoading = config.trackClassLoading && (config.quietPeriod > 0) && classLoadingSupported;
+        this.outputPattern = config.outputPattern == null ? null : Pattern.compile(config.outputPattern);
+        this.stopAction = stopAction;
+    }
+
+    /**
+     * Sets the HTTP warm-up driver that is started along with the application.
+     * The application is stopped once the warm-up is over.
+     *
+     * @param httpWarmup the driver, may be {@code null}
+     */
+    StopConditions withHttpWarmup(HttpWarmupDriver httpWarmup) {
+        this.httpWarmup = httpWarmup;
+        return this;
+    }
+
+    /**
+     * Returns {@code true} if any stop condition is configured.
+     */
+    boolean isDefined() {
+        return (timeout > 0) || config.isDefined();
+    }
+
+    /**
+     * Returns {@code true} if the application should be run with {@link #VERBOSE_CLASS} to track class loading.
+     */
+    boolean tracksClassLoading() {
+        return trackClassLoading;
+    }
+
+    /**
+     * Returns the reason of the stop, or {@code null} if no condition has fired.
+     */
+    String reason() {
+        return reason.get();
+    }
+
+    /**
+     * Returns {@code false} for the class loading events printed for class loading tracking,
+     * which are too many to be logged.
+     */
+    boolean isLogged(String line) {
+        return !trackClassLoading || !CLASS_LOAD_EVENT.matcher(line).find();
+    }
+
+    void onOutput(String line) {
+        if (!trackClassLoading || CLASS_LOAD_EVENT.matcher(line).find()) {
+            lastActivity = System.nanoTime();
+        }
+        if ((outputPattern != null) && outputPattern.matcher(line).find()) {
+            fire(Txt.s("StopConditions.OutputMatched.Reason", config.outputPattern, line));
+        }
+    }
+
+    /**
+     * Starts watching the application process.
+     */
+    synchronized void started(Process process) {
+        if (!isDefined()) {
+            return;
+        }
+        lastActivity = System.nanoTime();
+        monitor = new Thread(() -> monitor(Processes.pid(process)));
+        monitor.setDaemon(true);
+        monitor.start();
+
+        if (config.workloadDriver.isDefined()) {
+            driver = new Thread(() -> {
+                try {
+                    new LoadDriver(config.workloadDriver).drive(null);
+                    fire(Txt.s("StopConditions.WorkloadCompleted.Reason"));
+                } catch (JetTaskFailureException | CmdLineToolException e) {
+                    if (!Thread.currentThread().isInterrupted()) {
+                        fire(Txt.s("StopConditions.WorkloadFailed.Reason", e.getMessage()));
+                    }
+                }
+            });
+            driver.setDaemon(true);
+            driver.start();
+        }
+
+        if (httpWarmup != null) {
+            warmup = new Thread(() -> {
+                try {
+                    httpWarmup.run();
+                    fire(Txt.s("StopConditions.HttpWarmupCompleted.Reason"));
+                } catch (JetTaskFailureException e) {
+                    if (!Thread.currentThread().isInterrupted()) {
+                        fire(Txt.s("StopConditions.HttpWarmupFailed.Reason", e.getMessage()));
+                    }
+                }
+            });
+            warmup.setDaemon(true);
+            warmup.start();
+        }
+    }
+
+    /**
+     * Stops watching the application that has exited.
+     */
+    synchronized void finished() {
+        if (monitor != null) {
+            monitor.interrupt();
+        }
+        if (driver != null) {
+            driver.interrupt();
+        }
+        if (warmup != null) {
+            warmup.interrupt();
+        }
+    }
+
+    private void monitor(long pid) {
+        long start = System.nanoTime();
+        long lastCpuTime = Processes.cpuTime(pid);
+        long lastCpuCheck = System.nanoTime();
+        long idleSince = -1;
+        if ((config.cpuIdlePeriod > 0) && (lastCpuTime < 0)) {
+            logger.warn(Txt.s("StopConditions.CpuTimeNotAvailable.Warning"));
+        }
+        try {
+            while (reason.get() == null) {
+                Thread.sleep(POLL_INTERVAL);
+                long now = System.nanoTime();
+                if ((timeout > 0) && (now - start >= TimeUnit.SECONDS.toNanos(timeout))) {
+                    fire(Txt.s("StopConditions.Timeout.Reason", timeout));
+                } else if ((config.quietPeriod > 0) && (now - lastActivity >= TimeUnit.SECONDS.toNanos(config.quietPeriod))) {
+                    fire(Txt.s(trackClassLoading ? "StopConditions.NoClassLoading.Reason" :
+                            "StopConditions.NoOutput.Reason", config.quietPeriod));
+                } else if ((config.cpuIdlePeriod > 0) && (lastCpuTime >= 0)) {
+                    long cpuTime = Processes.cpuTime(pid);
+                    if (cpuTime < 0) {
+                        // the process has exited
+                        return;
+                    }
+                    boolean idle = (cpuTime - lastCpuTime) * 100 < (now - lastCpuCheck) * config.cpuIdleThreshold;
+                    lastCpuTime = cpuTime;
+                    lastCpuCheck = now;
+                    if (!idle) {
+                        idleSince = -1;
+                    } else if (idleSince < 0) {
+                        idleSince = now;
+                    } else if (now - idleSince >= TimeUnit.SECONDS.toNanos(config.cpuIdlePeriod)) {
+                        fire(Txt.s("StopConditions.CpuIdle.Reason", config.cpuIdlePeriod, config.cpuIdleThreshold));
+                    }
+                }
+            }
+        } catch (InterruptedException ignore) {
+        }
+    }
+
+    private void fire(String stopReason) {
+        if (!reason.compareAndSet(null, stopReason)) {
+            return;
+        }
+        logger.info(Txt.s("StopConditions.Stop.Info", stopReason));
+        // stop asynchronously since the stop waits for the application exit,
+        // while the caller may be the thread that reads the application output
+        Thread stopper = new Thread(stopAction);
+        stopper.setDaemon(true);
+        stopper.start();
+    }
+}
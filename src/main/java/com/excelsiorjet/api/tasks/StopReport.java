@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Result of stopping an application instance by {@link RunStopSupport}.
+ */
+public class StopReport {
+
+    /**
+     * Name of the stopped instance.
+     */
+    public final String instanceName;
+
+    /**
+     * Time in milliseconds spent in each attempted stop stage, in the order of the attempts.
+     * For the {@code staged} termination policy the stages are "ctrl-c", "halt" and "kill",
+     * otherwise the only stage is named after the termination policy.
+     * The map is empty if the application had died before it was requested to stop.
+     */
+    public final Map<String, Long> stageLatencies;
+
+    /**
+     * Time in milliseconds passed from the stop request till the application termination.
+     */
+    public final long totalLatency;
+
+    StopReport(String instanceName, LinkedHashMap<String, Long> stageLatencies) {
+        this.instanceName = instanceName;
+        this.stageLatencies = Collections.unmodifiableMap(stageLatencies);
+        this.totalLatency = stageLatencies.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * Returns the stage that stopped the application or {@code null} if it had died before it was requested to stop.
+     */
+    public String finalStage() {
+        String last = null;
+        for (String stage : stageLatencies.keySet()) {
+            last = stage;
+        }
+        return last;
+    }
+
+    public String toString() {
+        return instanceName + ": " + (stageLatencies.isEmpty() ? "not running" : stageLatencies.toString());
+    }
+}
@@ -24,7 +24,8 @@ package com.excelsiorjet.api.tasks;
 import com.excelsiorjet.api.ExcelsiorJet;
 import com.excelsiorjet.api.util.Txt;
 
-import java.io.File;
+import java.util.Arrays;
+import java.util.Map;
 
 import static com.excelsiorjet.api.log.Log.logger;
 
@@ -54,7 +55,36 @@ public class StopTask {
                 throw new JetTaskFailureException(Txt.s("RunTask.AppTypeNotForRun.Error", project.appType()));
         }
 
-        new RunStopSupport(project.jetOutputDir(), true).stopRunTask();
+        RunStopSupport runStopSupport = new RunStopSupport(project.jetOutputDir(), true, project.stopTimeout())
+                .withStagedStop(project.stagedStopConfiguration());
+        String[] instances = project.stopInstances();
+        if (instances.length == 0) {
+            report(runStopSupport.stopInstance(null), false);
+        } else if (Arrays.asList(instances).contains(RunStopSupport.ALL_INSTANCES)) {
+            Map<String, StopReport> stopReports = runStopSupport.stopAllRunTasks();
+            if (stopReports.isEmpty()) {
+                throw new JetTaskFailureException(Txt.s("StopTask.NoRunApp.Error"));
+            }
+            for (StopReport stopReport : stopReports.values()) {
+                report(stopReport, true);
+            }
+        } else {
+            for (String name : instances) {
+                report(runStopSupport.stopInstance(name), true);
+            }
+        }
+    }
+
+    private void report(StopReport stopReport, boolean named) {
+        if (named) {
+            logger.info(Txt.s("StopTask.InstanceStopped.Info", stopReport.instanceName, stopReport.totalLatency));
+        } else {
+            logger.info(Txt.s("StopTask.Stopped.Info", stopReport.totalLatency));
+        }
+        if (stopReport.stageLatencies.size() > 1) {
+            stopReport.stageLatencies.forEach((stage, latency) ->
+                    logger.info(Txt.s("StopTask.StageLatency.Info", stage, latency)));
+        }
     }
 
 }
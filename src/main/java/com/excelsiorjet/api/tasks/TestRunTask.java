@@ -24,6 +24,7 @@ package com.excelsiorjet.api.tasks;
 import com.excelsiorjet.api.ExcelsiorJet;
 import com.excelsiorjet.api.cmd.CmdLineToolException;
 import com.excelsiorjet.api.tasks.config.compiler.ExecProfilesConfig;
+import com.excelsiorjet.api.tasks.config.compiler.TestRunScenario;
 import com.excelsiorjet.api.tasks.config.packagefile.PackageFile;
 import com.excelsiorjet.api.tasks.config.ApplicationType;
 import com.excelsiorjet.api.util.Txt;
@@ -32,9 +33,8 @@ import com.excelsiorjet.api.util.Utils;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 import java.util.stream.Collectors;
@@ -75,6 +75,9 @@ public class TestRunTask {
 
     private static final String BOOTSTRAP_JAR = "bootstrap.jar";
     private static final String TOMCAT_JULI_JAR = "tomcat-juli.jar";
+    private static final String SCENARIOS_DIR = "testRunScenarios";
+    private static final String USAGE_REPORT = "usage-report.txt";
+    private static final String USG_EXT = ".usg";
 
     private final ExcelsiorJet excelsiorJet;
     private final JetProject project;
@@ -91,8 +94,8 @@ public class TestRunTask {
         }
 
         Manifest bootManifest;
-        try {
-            bootManifest = new JarFile(f).getManifest();
+        try (JarFile bootJar = new JarFile(f)) {
+            bootManifest = bootJar.getManifest();
         } catch (IOException e) {
             throw new IOException(Txt.s("TestRunTask.Tomcat.FailedToReadBootstrapJar.Failure", tomcatBin.getAbsolutePath(), e.getMessage()), e);
         }
@@ -189,73 +192,236 @@ public class TestRunTask {
                 throw new AssertionError("Unknown app type");
         }
 
-        Utils.mkdir(project.execProfiles().outputDir);
+        ExecProfilesConfig execProfiles = project.execProfiles();
+        Utils.mkdir(execProfiles.outputDir);
+
+        if (execProfiles.testRunScenarios.isEmpty()) {
+            int errCode = testRun(null, buildDir, workingDirectory, classpath, additionalVMArgs,
+                    execProfiles.getStartup(), execProfiles.getUsg());
+            String finishText = Txt.s("TestRunTask.Finish.Info", errCode);
+            if (errCode != 0) {
+                logger.warn(finishText);
+            } else {
+                logger.info(finishText);
+            }
+        } else {
+            runScenarios(buildDir, workingDirectory, classpath, additionalVMArgs);
+        }
+
+        if ((execProfiles.profileDriftThreshold > 0) &&
+                (execProfiles.getUsg().exists() || execProfiles.getStartup().exists()))
+        {
+            ProfileManifest.record(project, ProfileManifest.of(execProfiles.getUsg()));
+        }
+    }
 
-        RunStopSupport runStopSupport = new RunStopSupport(project.jetOutputDir(), false);
+    /**
+     * Runs the Test Run scenarios, each in its own copy of the build directory,
+     * and merges their usage lists into the resulting one.
+     */
+    private void runScenarios(File buildDir, File workingDirectory, String classpath, List<String> additionalVMArgs)
+            throws JetTaskFailureException, IOException, CmdLineToolException
+    {
+        ExecProfilesConfig execProfiles = project.execProfiles();
+        File scenariosDir = new File(project.jetOutputDir(), SCENARIOS_DIR);
+        LinkedHashMap<TestRunScenario, Callable<Integer>> runs = new LinkedHashMap<>();
+        LinkedHashMap<String, File> scenarioUsgs = new LinkedHashMap<>();
+        boolean first = true;
+        for (TestRunScenario scenario : execProfiles.testRunScenarios) {
+            File scenarioDir = new File(scenariosDir, scenario.name);
+            if (scenarioDir.exists()) {
+                Utils.cleanDirectory(scenarioDir);
+            }
+            Utils.copyDirectory(buildDir.toPath(), scenarioDir.toPath());
+            File scenarioWorkingDirectory = scenarioDir.toPath()
+                    .resolve(buildDir.toPath().relativize(workingDirectory.toPath())).toFile();
+            // VM arguments may refer to the build directory (e.g. Tomcat location), so relocate them to the copy
+            List<String> scenarioVMArgs = additionalVMArgs.stream()
+                    .map(arg -> arg.replace(buildDir.getAbsolutePath(), scenarioDir.getAbsolutePath()))
+                    .collect(Collectors.toList());
+            // the startup profile is collected by the first scenario only
+            File startup = first ? execProfiles.getStartup() : null;
+            File usg = new File(scenarioDir, execProfiles.outputName + USG_EXT);
+            usg.delete();
+            scenarioUsgs.put(scenario.name, usg);
+            runs.put(scenario, () -> testRun(scenario, scenarioDir, scenarioWorkingDirectory, classpath, scenarioVMArgs,
+                    startup, usg));
+            first = false;
+        }
 
-        List<String> args = xjavaArgs(buildDir, classpath, additionalVMArgs, runStopSupport);
+        Map<TestRunScenario, Integer> errCodes = new LinkedHashMap<>();
+        if (execProfiles.parallelTestRunScenarios) {
+            ExecutorService executor = Executors.newFixedThreadPool(runs.size());
+            try {
+                Map<TestRunScenario, Future<Integer>> futures = new LinkedHashMap<>();
+                runs.forEach((scenario, run) -> futures.put(scenario, executor.submit(run)));
+                for (Map.Entry<TestRunScenario, Future<Integer>> future : futures.entrySet()) {
+                    errCodes.put(future.getKey(), waitForScenario(future.getValue()));
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        } else {
+            for (Map.Entry<TestRunScenario, Callable<Integer>> run : runs.entrySet()) {
+                errCodes.put(run.getKey(), callScenario(run.getValue()));
+            }
+        }
+
+        errCodes.forEach((scenario, errCode) -> {
+            String finishText = Txt.s("TestRunTask.ScenarioFinish.Info", scenario.name, errCode);
+            if (errCode != 0) {
+                logger.warn(finishText);
+            } else {
+                logger.info(finishText);
+            }
+        });
+
+        scenarioUsgs.values().removeIf(usg -> !usg.exists());
+        if (!scenarioUsgs.isEmpty()) {
+            File report = new File(scenariosDir, USAGE_REPORT);
+            Map<String, Integer> contributions = UsageList.mergeScenarios(scenarioUsgs, execProfiles.getUsg(), report);
+            contributions.forEach((scenario, count) ->
+                    logger.info(Txt.s("TestRunTask.ScenarioContribution.Info", scenario, count)));
+            logger.info(Txt.s("TestRunTask.UsageListsMerged.Info", execProfiles.getUsg().getAbsolutePath(),
+                    report.getAbsolutePath()));
+        }
+    }
+
+    private static int callScenario(Callable<Integer> run)
+            throws JetTaskFailureException, IOException, CmdLineToolException
+    {
+        try {
+            return run.call();
+        } catch (JetTaskFailureException | IOException | CmdLineToolException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static int waitForScenario(Future<Integer> future)
+            throws JetTaskFailureException, IOException, CmdLineToolException
+    {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JetTaskFailureException(e.getMessage(), e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof JetTaskFailureException) {
+                throw (JetTaskFailureException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof CmdLineToolException) {
+                throw (CmdLineToolException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new AssertionError(cause);
+        }
+    }
+
+    /**
+     * Runs the application once.
+     *
+     * @param scenario Test Run scenario or {@code null} for the plain Test Run
+     * @param rootDir directory substituted for {@code $(Root)} in JVM arguments
+     * @param startup startup profile to collect or {@code null}
+     * @param usg usage list to collect
+     * @return exit code of the application
+     */
+    private int testRun(TestRunScenario scenario, File rootDir, File workingDirectory, String classpath,
+                        List<String> additionalVMArgs, File startup, File usg)
+            throws JetTaskFailureException, CmdLineToolException
+    {
+        String instanceName = project.runInstance();
+        if (scenario != null) {
+            instanceName = (instanceName == null ? "" : instanceName + "-") + scenario.name;
+        }
+        RunStopSupport runStopSupport = new RunStopSupport(project.jetOutputDir(), false)
+                .withInstanceName(instanceName)
+                .withTerminationPolicy(project.terminationPolicy())
+                .withControlChannel(project.isSocketRunControl());
+
+        List<String> args = xjavaArgs(rootDir, classpath, additionalVMArgs, runStopSupport, scenario, startup, usg);
         String cmdLine = args.stream()
                 .map(Utils::quoteCmdLineArgument)
                 .collect(Collectors.joining(" "));
 
-        logger.info(Txt.s("TestRunTask.Start.Info", cmdLine));
+        if (scenario == null) {
+            logger.info(Txt.s("TestRunTask.Start.Info", cmdLine));
+        } else {
+            logger.info(Txt.s("TestRunTask.ScenarioStart.Info", scenario.name, cmdLine));
+        }
 
-        if (project.execProfiles().testRunTimeout != 0) {
-            Thread t = new Thread(()->{
-                try {
-                    Thread.sleep(project.execProfiles().testRunTimeout*1000);
-                } catch (InterruptedException ignore) {
-                }
-                try {
-                    new RunStopSupport(project.jetOutputDir(), true).stopRunTask();
-                } catch (JetTaskFailureException e) {
-                    logger.error(e.getMessage());
-                }
-            });
-            t.setDaemon(true);
-            t.start();
+        int timeout = (scenario != null) && (scenario.timeout != 0) ? scenario.timeout :
+                project.execProfiles().testRunTimeout;
+        StopConditions stopConditions = new StopConditions(project.execProfiles().stopConditions, timeout, true,
+                () -> stopRun(runStopSupport.instanceName()))
+                .withHttpWarmup(HttpWarmupDriver.forProject(project));
+        if (stopConditions.tracksClassLoading()) {
+            args.add(0, StopConditions.VERBOSE_CLASS);
         }
 
         // Tomcat outputs to std error, so to not confuse users,
         // we  redirect its output to std out in test run
         boolean errToOut = project.appType() != ApplicationType.TOMCAT;
-        int errCode;
         try {
-            errCode = excelsiorJet.testRun(workingDirectory, logger, errToOut, args.toArray(new String[args.size()]));
+            return excelsiorJet.xjava(args.toArray(new String[args.size()]))
+                    .workingDirectory(workingDirectory)
+                    .withLog(logger, errToOut)
+                    .onStart(process -> {
+                        runStopSupport.processStarted(process);
+                        stopConditions.started(process);
+                    })
+                    .withOutputListener(stopConditions::onOutput)
+                    .withLogFilter(stopConditions::isLogged)
+                    .execute();
         } finally {
+            stopConditions.finished();
             runStopSupport.taskFinished();
         }
+    }
 
-        String finishText = Txt.s("TestRunTask.Finish.Info", errCode);
-        if (errCode != 0) {
-            logger.warn(finishText);
-        } else {
-            logger.info(finishText);
+    private void stopRun(String instanceName) {
+        try {
+            new RunStopSupport(project.jetOutputDir(), true, project.stopTimeout())
+                    .withStagedStop(project.stagedStopConfiguration())
+                    .stopRunTask(instanceName);
+        } catch (JetTaskFailureException e) {
+            logger.error(e.getMessage());
         }
     }
 
-    private List<String> xjavaArgs(File buildDir, String classpath, List<String> additionalVMArgs, RunStopSupport runStopSupport) throws JetTaskFailureException {
+    private List<String> xjavaArgs(File rootDir, String classpath, List<String> additionalVMArgs,
+                                   RunStopSupport runStopSupport, TestRunScenario scenario, File startup, File usg)
+            throws JetTaskFailureException
+    {
         List<String> args = new ArrayList<>();
-        ExecProfilesConfig execProfiles = project.execProfiles();
-        if (excelsiorJet.isStartupProfileGenerationSupported()) {
-            args.add("-Djet.jit.profile.startup=" + execProfiles.getStartup().getAbsolutePath());
+        if (excelsiorJet.isStartupProfileGenerationSupported() && (startup != null)) {
+            args.add("-Djet.jit.profile.startup=" + startup.getAbsolutePath());
         }
         if (excelsiorJet.isUsageListGenerationSupported()) {
-            args.add("-Djet.usage.list=" + execProfiles.getUsg().getAbsolutePath());
+            args.add("-Djet.usage.list=" + usg.getAbsolutePath());
         }
 
-        args.add(project.getTerminationVMProp(runStopSupport.prepareToRunTask()));
+        args.addAll(project.getTerminationVMProps(runStopSupport.prepareToRunTask()));
 
         args.addAll(additionalVMArgs);
 
-        //add jvm args substituting $(Root) occurences with buildDir
-        args.addAll(Stream.of(project.jvmArgs())
-                .map(s -> s.replace("$(Root)", buildDir.getAbsolutePath()))
+        //add jvm args substituting $(Root) occurences with rootDir
+        Stream<String> jvmArgs = Stream.of(project.jvmArgs());
+        if (scenario != null) {
+            jvmArgs = Stream.concat(jvmArgs, Stream.of(scenario.jvmArgs));
+        }
+        args.addAll(jvmArgs
+                .map(s -> s.replace("$(Root)", rootDir.getAbsolutePath()))
                 .collect(Collectors.toList())
         );
 
         args.addAll(asList("-cp", classpath, project.mainClass()));
-        args.addAll(asList(project.runArgs()));
+        args.addAll(asList((scenario != null) && (scenario.args != null) ? scenario.args : project.runArgs()));
         return args;
     }
 }
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.api.tasks.config.TomcatConfig;
+import com.excelsiorjet.api.util.Txt;
+import com.excelsiorjet.api.util.Utils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.excelsiorjet.api.log.Log.logger;
+
+/**
+ * Pruned copies of master Tomcat installations, cached by content.
+ * <p>
+ * A copy has the web applications listed in {@link TomcatConfig#removeWebapps} removed and, if
+ * {@link TomcatConfig#libAllowList} is set, only the allowed and {@link #CORE_JARS core} jars left in {@code lib}.
+ * Copies are kept in {@link TomcatConfig#cacheDir} under the SHA-256 hash of the installation contents
+ * and the pruning parameters, so builds of any project with the same Tomcat share them.
+ * Hashing is the costly part, so the hash of an installation is reused if the number, total size and
+ * latest modification time of its files are unchanged.
+ * </p>
+ */
+class TomcatImage {
+
+    private static final String HASH_CACHE = "tomcat-hashes.cache";
+    private static final String LIB_DIR = "lib";
+
+    /**
+     * Jars of {@code <tomcatHome>/lib} that Tomcat cannot start without, never removed by the allow-list.
+     */
+    static final Set<String> CORE_JARS = new HashSet<>(Arrays.asList(
+            "catalina.jar", "servlet-api.jar", "jsp-api.jar", "el-api.jar", "annotations-api.jar", "jaspic-api.jar",
+            "jasper.jar", "jasper-el.jar", "tomcat-api.jar", "tomcat-util.jar", "tomcat-util-scan.jar",
+            "tomcat-coyote.jar", "tomcat-jni.jar", "tomcat-juli.jar"));
+
+    private TomcatImage() {
+    }
+
+    /**
+     * Returns the pruned copy of the master Tomcat installation of the given configuration, creating it if needed.
+     */
+    static File prepare(TomcatConfig config) throws IOException {
+        File tomcatHome = new File(config.tomcatHome);
+        Files.createDirectories(config.cacheDir.toPath());
+        String key = sha256(contentHash(tomcatHome, config.cacheDir) + "\n" + pruningKey(config));
+        File image = new File(config.cacheDir, key);
+        if (image.isDirectory()) {
+            logger.info(Txt.s("TomcatImage.Reused.Info", image.getAbsolutePath()));
+            return image;
+        }
+
+        // concurrent builds may prepare the same image, so it is created aside and moved in place at once
+        File temp = new File(config.cacheDir, key + ".tmp-" + Utils.randomAlphanumeric(8));
+        try {
+            Utils.copyDirectory(tomcatHome.toPath(), temp.toPath());
+            long removed = prune(temp, config);
+            try {
+                Files.move(temp.toPath(), image.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                if (!image.isDirectory()) {
+                    throw e;
+                }
+                // another build has created it in the meantime
+            }
+            logger.info(Txt.s("TomcatImage.Created.Info", image.getAbsolutePath(), removed / 1024));
+        } finally {
+            Utils.cleanDirectorySilently(temp);
+        }
+        return image;
+    }
+
+    /**
+     * Removes the web applications and the jars excluded by the configuration from the given Tomcat directory.
+     *
+     * @return the number of bytes removed
+     */
+    static long prune(File tomcatDir, TomcatConfig config) throws IOException {
+        long removed = 0;
+        File webapps = new File(tomcatDir, TomcatConfig.WEBAPPS_DIR);
+        if (config.removeWebapps != null) {
+            for (String webapp : config.removeWebapps) {
+                for (File file : new File[]{new File(webapps, webapp), new File(webapps, webapp + TomcatConfig.WAR_EXT)}) {
+                    removed += remove(file);
+                }
+            }
+        }
+        if (config.libAllowList != null) {
+            List<PathMatcher> allowed = Arrays.stream(config.libAllowList)
+                    .map(pattern -> FileSystems.getDefault().getPathMatcher("glob:" + pattern))
+                    .collect(Collectors.toList());
+            File[] jars = new File(tomcatDir, LIB_DIR).listFiles((dir, name) -> name.endsWith(".jar"));
+            if (jars != null) {
+                for (File jar : jars) {
+                    Path name = Paths.get(jar.getName());
+                    if (!CORE_JARS.contains(jar.getName()) && allowed.stream().noneMatch(m -> m.matches(name))) {
+                        removed += remove(jar);
+                    }
+                }
+            }
+        }
+        return removed;
+    }
+
+    private static long remove(File file) throws IOException {
+        if (!file.exists()) {
+            return 0;
+        }
+        long size = Utils.sizeOf(file);
+        Utils.cleanDirectory(file);
+        return size;
+    }
+
+    private static String pruningKey(TomcatConfig config) {
+        String webapps = config.removeWebapps == null ? "" :
+                Arrays.stream(config.removeWebapps).sorted().collect(Collectors.joining(","));
+        String libs = config.libAllowList == null ? "*" :
+                Arrays.stream(config.libAllowList).sorted().collect(Collectors.joining(","));
+        return "removeWebapps=" + webapps + "\nlibAllowList=" + libs;
+    }
+
+    /**
+     * Returns the content hash of the Tomcat installation, reusing the one recorded in the hash cache
+     * if the files of the installation look unchanged.
+     */
+    private static String contentHash(File tomcatHome, File cacheDir) throws IOException {
+        long files = 0;
+        long size = 0;
+        long lastModified = 0;
+        try (Stream<Path> walk = Files.walk(tomcatHome.toPath())) {
+            for (Path file : (Iterable<Path>) walk.filter(Files::isRegularFile)::iterator) {
+                files++;
+                size += Files.size(file);
+                lastModified = Math.max(lastModified, Files.getLastModifiedTime(file).toMillis());
+            }
+        }
+        String stamp = files + " " + size + " " + lastModified;
+
+        File cacheFile = new File(cacheDir, HASH_CACHE);
+        Properties cache = new Properties();
+        if (cacheFile.exists()) {
+            try (InputStream in = new FileInputStream(cacheFile)) {
+                cache.load(in);
+            }
+        }
+        String location = Utils.getCanonicalPath(tomcatHome);
+        String cached = cache.getProperty(location);
+        if ((cached != null) && cached.startsWith(stamp + " ")) {
+            return cached.substring(stamp.length() + 1);
+        }
+
+        String hash = Utils.sha256(tomcatHome);
+        cache.setProperty(location, stamp + " " + hash);
+        File temp = new File(cacheDir, HASH_CACHE + ".tmp-" + Utils.randomAlphanumeric(8));
+        try (OutputStream out = new FileOutputStream(temp)) {
+            cache.store(out, null);
+        }
+        Files.move(temp.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return hash;
+    }
+
+    private static String sha256(String s) {
+        try {
+            return Utils.toHex(MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
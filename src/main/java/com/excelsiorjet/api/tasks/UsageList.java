@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Usage list ({@code .usg} file) collected by the Test Run.
+ * <p>
+ * A usage list is a line oriented text file. Lines starting with {@code !} open sections,
+ * the other non-blank lines are entries of the current section (the leading lines form an unnamed section).
+ * Entries are unordered within a section, so usage lists of several runs are merged section-wise
+ * by uniting their entries.
+ * </p>
+ */
+class UsageList {
+
+    private static final String SECTION_PREFIX = "!";
+    private static final String NO_SECTION = "";
+
+    // section header -> entries in the order of appearance
+    private final LinkedHashMap<String, LinkedHashSet<String>> sections = new LinkedHashMap<>();
+
+    static UsageList read(File usg) throws IOException {
+        UsageList usageList = new UsageList();
+        forEachEntry(usg, (section, entry) -> {
+            LinkedHashSet<String> entries = usageList.section(section);
+            if (entry != null) {
+                entries.add(entry);
+            }
+        });
+        return usageList;
+    }
+
+    /**
+     * Reads the given usage list line by line without keeping it in memory.
+     * The visitor receives the section header ({@code ""} for the leading lines) and the entry,
+     * or {@code null} instead of the entry when a section is opened.
+     */
+    static void forEachEntry(File usg, BiConsumer<String, String> visitor) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(usg.toPath(), StandardCharsets.UTF_8)) {
+            String section = NO_SECTION;
+            String line;
+            while ((line = in.readLine()) != null) {
+                String trimmed = line.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                if (trimmed.startsWith(SECTION_PREFIX)) {
+                    section = trimmed;
+                    visitor.accept(section, null);
+                } else {
+                    visitor.accept(section, trimmed);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the entry qualified with its section header, as in {@link #entries()}.
+     */
+    static String qualified(String section, String entry) {
+        return section.isEmpty() ? entry : section + " " + entry;
+    }
+
+    private LinkedHashSet<String> section(String header) {
+        return sections.computeIfAbsent(header, h -> new LinkedHashSet<>());
+    }
+
+    /**
+     * Adds the entries of the given usage list that are not in this usage list yet.
+     */
+    void merge(UsageList other) {
+        other.sections.forEach((header, entries) -> section(header).addAll(entries));
+    }
+
+    /**
+     * Returns all entries of the usage list qualified with their section headers.
+     */
+    Set<String> entries() {
+        Set<String> result = new LinkedHashSet<>();
+        sections.forEach((header, entries) -> {
+            for (String entry : entries) {
+                result.add(qualified(header, entry));
+            }
+        });
+        return result;
+    }
+
+    void write(File usg) throws IOException {
+        try (PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(usg), StandardCharsets.UTF_8))) {
+            sections.forEach((header, entries) -> {
+                if (!header.isEmpty()) {
+                    out.println(header);
+                }
+                entries.forEach(out::println);
+            });
+        }
+    }
+
+    /**
+     * Merges the usage lists of Test Run scenarios into {@code target} and writes a report
+     * on entries contributed by each scenario.
+     *
+     * @param scenarioUsgs usage lists by scenario names, in the order of the scenarios
+     * @return number of entries only found in the usage list of each scenario
+     */
+    static Map<String, Integer> mergeScenarios(LinkedHashMap<String, File> scenarioUsgs, File target, File report)
+            throws IOException
+    {
+        UsageList merged = new UsageList();
+        LinkedHashMap<String, Set<String>> scenarioEntries = new LinkedHashMap<>();
+        Map<String, Integer> entryOccurrences = new HashMap<>();
+        for (Map.Entry<String, File> scenarioUsg : scenarioUsgs.entrySet()) {
+            UsageList usageList = read(scenarioUsg.getValue());
+            merged.merge(usageList);
+            Set<String> entries = usageList.entries();
+            scenarioEntries.put(scenarioUsg.getKey(), entries);
+            entries.forEach(e -> entryOccurrences.merge(e, 1, Integer::sum));
+        }
+        merged.write(target);
+
+        Map<String, Integer> uniqueCounts = new LinkedHashMap<>();
+        try (PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(report), StandardCharsets.UTF_8))) {
+            out.println("# Usage list entries contributed by Test Run scenarios to " + target.getName());
+            out.println("# Total merged entries: " + merged.entries().size());
+            scenarioEntries.forEach((scenario, entries) -> {
+                List<String> unique = new ArrayList<>();
+                for (String entry : entries) {
+                    if (entryOccurrences.get(entry) == 1) {
+                        unique.add(entry);
+                    }
+                }
+                uniqueCounts.put(scenario, unique.size());
+                out.println();
+                out.println("[" + scenario + "] entries: " + entries.size() + ", only in this scenario: " + unique.size());
+                unique.forEach(out::println);
+            });
+        }
+        return uniqueCounts;
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.api.ExcelsiorJet;
+import com.excelsiorjet.api.tasks.ClasspathAnalysisTask.EntryContents;
+import com.excelsiorjet.api.tasks.config.UsageListAnalysisConfig;
+import com.excelsiorjet.api.tasks.config.compiler.ExecProfilesConfig;
+import com.excelsiorjet.api.util.ExternalSort;
+import com.excelsiorjet.api.util.Json;
+import com.excelsiorjet.api.util.Txt;
+import com.excelsiorjet.api.util.Utils;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.excelsiorjet.api.log.Log.logger;
+
+/**
+ * Task for analyzing the usage list ({@code .usg} file) collected by {@link TestRunTask}.
+ * <p>
+ * The task reports the coverage of each classpath entry by the usage list (used versus total classes),
+ * the entries with zero coverage and, if a baseline usage list is configured, the entries that appeared
+ * or disappeared since the baseline. If the share of changed entries exceeds
+ * {@link ExecProfilesConfig#profileDriftThreshold}, re-collecting the profiles is recommended.
+ * </p>
+ * <p>
+ * Usage lists are read as streams. To compare them, both are sorted with {@link ExternalSort}
+ * and merged, so the memory used does not depend on the size of the usage lists.
+ * </p>
+ *
+ * @see UsageListAnalysisConfig
+ */
+public class UsageListAnalysisTask {
+
+    private final ExcelsiorJet excelsiorJet;
+    private final JetProject project;
+
+    public UsageListAnalysisTask(ExcelsiorJet excelsiorJet, JetProject project) throws JetTaskFailureException {
+        this.excelsiorJet = excelsiorJet;
+        this.project = project;
+    }
+
+    /**
+     * Coverage of a classpath entry by the usage list.
+     */
+    public static class Coverage {
+        public final String entry;
+        public final int classes;
+        public int usedClasses;
+
+        Coverage(String entry, int classes) {
+            this.entry = entry;
+            this.classes = classes;
+        }
+
+        public double percent() {
+            return classes == 0 ? 0 : usedClasses * 100.0 / classes;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("entry", entry);
+            map.put("classes", classes);
+            map.put("usedClasses", usedClasses);
+            map.put("percent", round(percent()));
+            return map;
+        }
+    }
+
+    /**
+     * Changes of the usage list since the baseline.
+     */
+    public static class Diff {
+        public long baselineEntries;
+        public long currentEntries;
+        public long appeared;
+        public long disappeared;
+
+        /**
+         * Share of the entries that appeared or disappeared among all entries of both usage lists in percent.
+         */
+        public double churnPercent() {
+            long union = baselineEntries + appeared;
+            return union == 0 ? 0 : (appeared + disappeared) * 100.0 / union;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("baselineEntries", baselineEntries);
+            map.put("currentEntries", currentEntries);
+            map.put("appeared", appeared);
+            map.put("disappeared", disappeared);
+            map.put("churnPercent", round(churnPercent()));
+            return map;
+        }
+    }
+
+    /**
+     * Results of the usage list analysis.
+     */
+    public static class Report {
+        public final List<Coverage> coverage = new ArrayList<>();
+        public int totalClasses;
+        public int usedClasses;
+
+        /**
+         * Entries of the usage list that are not classes of the current classpath.
+         */
+        public long unresolvedEntries;
+
+        public Diff diff;
+        public boolean reprofileRecommended;
+
+        public List<String> zeroCoverage() {
+            return coverage.stream()
+                    .filter(c -> (c.classes > 0) && (c.usedClasses == 0))
+                    .map(c -> c.entry)
+                    .collect(Collectors.toList());
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("totalClasses", totalClasses);
+            map.put("usedClasses", usedClasses);
+            map.put("unresolvedEntries", unresolvedEntries);
+            map.put("coverage", coverage.stream().map(Coverage::toMap).collect(Collectors.toList()));
+            map.put("zeroCoverage", zeroCoverage());
+            map.put("diff", diff == null ? null : diff.toMap());
+            map.put("reprofileRecommended", reprofileRecommended);
+            return map;
+        }
+    }
+
+    /**
+     * Analyzes the usage list of the project, logs the findings and writes the report.
+     */
+    public Report execute() throws JetTaskFailureException, IOException {
+        project.validate(excelsiorJet, false);
+        UsageListAnalysisConfig config = project.usageListAnalysisConfiguration();
+        ExecProfilesConfig execProfiles = project.execProfiles();
+        File usg = execProfiles.getUsg();
+        if (!usg.isFile()) {
+            throw new JetTaskFailureException(Txt.s("UsageListAnalysisTask.NoUsageList.Error", usg.getAbsolutePath()));
+        }
+        if ((config.baseline != null) && !config.baseline.isFile()) {
+            throw new JetTaskFailureException(Txt.s("UsageListAnalysisTask.NoBaseline.Error",
+                    config.baseline.getAbsolutePath()));
+        }
+
+        List<EntryContents> contents = ClasspathAnalysisTask.scan(project.classpathEntries(),
+                Runtime.getRuntime().availableProcessors());
+        Report report = coverage(usg, contents);
+        logger.info(Txt.s("UsageListAnalysisTask.Coverage.Info", report.usedClasses, report.totalClasses,
+                round(report.totalClasses == 0 ? 0 : report.usedClasses * 100.0 / report.totalClasses)));
+        for (String entry : report.zeroCoverage()) {
+            logger.warn(Txt.s("UsageListAnalysisTask.ZeroCoverage.Warning", entry));
+        }
+
+        if (config.baseline != null) {
+            Utils.mkdir(config.diffFile.getAbsoluteFile().getParentFile());
+            report.diff = diff(config.baseline, usg, config.diffFile, project.jetBuildDir(), config.maxEntriesInMemory);
+            logger.info(Txt.s("UsageListAnalysisTask.Diff.Info", report.diff.appeared, report.diff.disappeared,
+                    round(report.diff.churnPercent()), config.diffFile.getAbsolutePath()));
+            if ((execProfiles.profileDriftThreshold > 0) &&
+                    (report.diff.churnPercent() > execProfiles.profileDriftThreshold))
+            {
+                report.reprofileRecommended = true;
+                logger.warn(Txt.s("UsageListAnalysisTask.Reprofile.Warning", round(report.diff.churnPercent()),
+                        execProfiles.profileDriftThreshold));
+            }
+        }
+
+        Utils.mkdir(config.reportFile.getAbsoluteFile().getParentFile());
+        Files.write(config.reportFile.toPath(), Json.toJson(report.toMap()).getBytes(StandardCharsets.UTF_8));
+        logger.info(Txt.s("UsageListAnalysisTask.Report.Info", config.reportFile.getAbsolutePath()));
+        return report;
+    }
+
+    /**
+     * Counts the classes of each classpath entry that are listed in the usage list.
+     * Only the classpath is indexed, the usage list is streamed.
+     */
+    static Report coverage(File usg, List<EntryContents> contents) throws IOException {
+        Report report = new Report();
+        // classes are numbered, so that the used ones are marked in a bit set; the first copy of a class wins
+        Map<String, Integer> ordinals = new HashMap<>();
+        List<Integer> owners = new ArrayList<>();
+        for (int i = 0; i < contents.size(); i++) {
+            EntryContents entry = contents.get(i);
+            report.coverage.add(new Coverage(entry.name(), entry.classes.size()));
+            for (String className : entry.classes.keySet()) {
+                if (ordinals.putIfAbsent(className, owners.size()) == null) {
+                    owners.add(i);
+                }
+            }
+        }
+        report.totalClasses = owners.size();
+
+        BitSet used = new BitSet(owners.size());
+        long[] unresolved = {0};
+        UsageList.forEachEntry(usg, (section, entry) -> {
+            if (entry == null) {
+                return;
+            }
+            Integer ordinal = ordinals.get(ClasspathAnalysisTask.usedClass(entry));
+            if (ordinal != null) {
+                used.set(ordinal);
+            } else {
+                unresolved[0]++;
+            }
+        });
+        report.unresolvedEntries = unresolved[0];
+        report.usedClasses = used.cardinality();
+        used.stream().forEach(ordinal -> report.coverage.get(owners.get(ordinal)).usedClasses++);
+        return report;
+    }
+
+    /**
+     * Compares two usage lists entry by entry, writing the entries that appeared ({@code +})
+     * or disappeared ({@code -}) to {@code diffFile}.
+     */
+    static Diff diff(File baseline, File current, File diffFile, File tempDir, int maxEntriesInMemory)
+            throws IOException
+    {
+        Diff diff = new Diff();
+        try (ExternalSort before = sort(baseline, tempDir, maxEntriesInMemory);
+             ExternalSort after = sort(current, tempDir, maxEntriesInMemory);
+             ExternalSort.Lines a = before.sorted();
+             ExternalSort.Lines b = after.sorted();
+             BufferedWriter out = Files.newBufferedWriter(diffFile.toPath(), StandardCharsets.UTF_8))
+        {
+            String x = a.next();
+            String y = b.next();
+            while ((x != null) || (y != null)) {
+                int cmp = (x == null) ? 1 : (y == null) ? -1 : x.compareTo(y);
+                if (cmp == 0) {
+                    diff.baselineEntries++;
+                    diff.currentEntries++;
+                    x = a.next();
+                    y = b.next();
+                } else if (cmp < 0) {
+                    diff.baselineEntries++;
+                    diff.disappeared++;
+                    out.write("- " + x);
+                    out.newLine();
+                    x = a.next();
+                } else {
+                    diff.currentEntries++;
+                    diff.appeared++;
+                    out.write("+ " + y);
+                    out.newLine();
+                    y = b.next();
+                }
+            }
+        }
+        return diff;
+    }
+
+    private static ExternalSort sort(File usg, File tempDir, int maxEntriesInMemory) throws IOException {
+        ExternalSort sort = new ExternalSort(tempDir, maxEntriesInMemory);
+        try {
+            IOException[] failure = {null};
+            UsageList.forEachEntry(usg, (section, entry) -> {
+                if ((entry != null) && (failure[0] == null)) {
+                    try {
+                        sort.add(UsageList.qualified(section, entry));
+                    } catch (IOException e) {
+                        failure[0] = e;
+                    }
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            return sort;
+        } catch (IOException e) {
+            sort.close();
+            throw e;
+        }
+    }
+
+    private static double round(double percent) {
+        return Math.round(percent * 10) / 10.0;
+    }
+}
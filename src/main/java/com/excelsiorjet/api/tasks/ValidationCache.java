@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.api.ExcelsiorJet;
+import com.excelsiorjet.api.tasks.config.compiler.ExecProfilesConfig;
+import com.excelsiorjet.api.util.Utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Memoizes the results of {@link JetProject#validate(ExcelsiorJet, boolean)}, so that tasks chained
+ * in one JVM do not repeat the validation of an unchanged project.
+ * <p>
+ * The cache is keyed by a fingerprint of the project configuration: all non-static, non-transient fields
+ * of the project and of the configuration objects it refers to, plus the size and modification time
+ * of every regular file mentioned in the configuration, and the number of files, their total size and
+ * the latest modification time within every directory mentioned in the configuration (such as a class
+ * directory dependency or a Tomcat home). Any change of a parameter or of an input file
+ * therefore produces a different fingerprint.
+ * </p>
+ * <p>
+ * Two levels of reuse are provided:
+ * <ul>
+ *     <li>a project remembers the fingerprint it had after its last successful validation
+ *     (see {@link Stamp}) and skips validation if the fingerprint has not changed since then;</li>
+ *     <li>the resolved classpath, which is the most expensive part of the validation, is kept
+ *     in a small JVM-wide cache as an immutable list, so that another project instance with the same
+ *     configuration (as created by a build tool for every task) reuses it.</li>
+ * </ul>
+ * </p>
+ */
+class ValidationCache {
+
+    private static final int MAX_CACHED_CLASSPATHS = 8;
+
+    private static final Map<String, List<ClasspathEntry>> classpaths = new LruMap<>(MAX_CACHED_CLASSPATHS);
+
+    /**
+     * Map that evicts the least recently used entry when it grows over the given size.
+     */
+    private static final class LruMap<K, V> extends LinkedHashMap<K, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+
+        LruMap(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > maxSize;
+        }
+    }
+
+    /**
+     * Result of a successful validation of a project.
+     */
+    static final class Stamp {
+
+        private final String fingerprint;
+        private final ExcelsiorJet excelsiorJet;
+        private final boolean validatedForBuild;
+
+        Stamp(String fingerprint, ExcelsiorJet excelsiorJet, boolean validatedForBuild) {
+            this.fingerprint = fingerprint;
+            this.excelsiorJet = excelsiorJet;
+            this.validatedForBuild = validatedForBuild;
+        }
+
+        /**
+         * @return {@code true} if a validation with the given parameters would not change anything,
+         *         that is, the project has not changed since it was validated against the same Excelsior JET
+         *         at least as thoroughly as requested.
+         */
+        boolean covers(String fingerprint, ExcelsiorJet excelsiorJet, boolean validateForBuild) {
+            return this.fingerprint.equals(fingerprint) && (this.excelsiorJet == excelsiorJet) &&
+                    (this.validatedForBuild || !validateForBuild);
+        }
+    }
+
+    static synchronized List<ClasspathEntry> classpath(String fingerprint) {
+        return classpaths.get(fingerprint);
+    }
+
+    /**
+     * Caches the given classpath.
+     *
+     * @return immutable copy of the classpath that is now shared by the projects with the given fingerprint
+     */
+    static synchronized List<ClasspathEntry> putClasspath(String fingerprint, List<ClasspathEntry> classpathEntries) {
+        List<ClasspathEntry> classpath = Collections.unmodifiableList(new ArrayList<>(classpathEntries));
+        classpaths.put(fingerprint, classpath);
+        return classpath;
+    }
+
+    static synchronized void clear() {
+        classpaths.clear();
+    }
+
+    /**
+     * Computes the fingerprint of the given project as a hex string.
+     */
+    static String fingerprint(JetProject project) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+        StringBuilder sb = new StringBuilder();
+        Fingerprinter fingerprinter = new Fingerprinter(sb);
+        fingerprinter.append(project, JetProject.class);
+        ExecProfilesConfig execProfiles = project.execProfiles();
+        if (project.autoTuneDependencies() && (execProfiles != null) && (execProfiles.outputDir != null)) {
+            // the dependency settings chosen by the tuning depend on the Test Run usage list
+            fingerprinter.append(execProfiles.getUsg());
+        }
+        digest.update(sb.toString().getBytes(StandardCharsets.UTF_8));
+        return Utils.toHex(digest.digest());
+    }
+
+    private static final class Fingerprinter {
+
+        private final StringBuilder out;
+        private final IdentityHashMap<Object, Integer> visited = new IdentityHashMap<>();
+
+        Fingerprinter(StringBuilder out) {
+            this.out = out;
+        }
+
+        void append(Object value) {
+            append(value, value == null ? null : value.getClass());
+        }
+
+        /**
+         * @param type the class whose fields describe the value, which may differ from the runtime class
+         *             if the value is a subclass instance such as a test spy
+         */
+        void append(Object value, Class<?> type) {
+            if (value == null) {
+                out.append("null;");
+            } else if ((value instanceof String) || (value instanceof Number) || (value instanceof Boolean) ||
+                    (value instanceof Character) || (value instanceof Enum)) {
+                out.append(value).append(';');
+            } else if (value instanceof File) {
+                appendFile((File) value);
+            } else if (value.getClass().isArray()) {
+                int length = Array.getLength(value);
+                out.append('[');
+                for (int i = 0; i < length; i++) {
+                    append(Array.get(value, i));
+                }
+                out.append("];");
+            } else if (value instanceof Collection) {
+                out.append('[');
+                for (Object element : (Collection<?>) value) {
+                    append(element);
+                }
+                out.append("];");
+            } else if (value instanceof Map) {
+                out.append('{');
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                    append(entry.getKey());
+                    append(entry.getValue());
+                }
+                out.append("};");
+            } else if (ConfigFields.isConfigType(type)) {
+                appendObject(value, type);
+            } else {
+                out.append(type.getName()).append(':').append(value).append(';');
+            }
+        }
+
+        private void appendFile(File file) {
+            out.append(file.getPath());
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+                if (attrs.isRegularFile()) {
+                    out.append('@').append(attrs.size()).append('/').append(attrs.lastModifiedTime().toMillis());
+                } else if (attrs.isDirectory()) {
+                    appendDirectoryStamp(file.toPath());
+                } else {
+                    out.append("@other");
+                }
+            } catch (IOException | RuntimeException e) {
+                out.append("@absent");
+            }
+            out.append(';');
+        }
+
+        /**
+         * Appends the number of regular files in the directory tree, their total size and the latest
+         * modification time of the directory itself and of any file or subdirectory in it, so that adding,
+         * removing, renaming or changing a file changes the stamp.
+         */
+        private void appendDirectoryStamp(Path dir) throws IOException {
+            long[] stamp = new long[3];
+            Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path d, BasicFileAttributes attrs) {
+                    stamp[2] = Math.max(stamp[2], attrs.lastModifiedTime().toMillis());
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path f, BasicFileAttributes attrs) {
+                    stamp[0]++;
+                    stamp[1] += attrs.size();
+                    stamp[2] = Math.max(stamp[2], attrs.lastModifiedTime().toMillis());
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            out.append("@dir").append(stamp[0]).append('/').append(stamp[1]).append('/').append(stamp[2]);
+        }
+
+        private void appendObject(Object value, Class<?> type) {
+            Integer ref = visited.get(value);
+            if (ref != null) {
+                out.append("ref#").append(ref).append(';');
+                return;
+            }
+            visited.put(value, visited.size());
+            out.append(type.getName()).append('{');
+            for (Field field : ConfigFields.of(type)) {
+                out.append(field.getName()).append('=');
+                try {
+                    Object fieldValue = field.get(value);
+                    append(fieldValue, fieldValue == null ? null : ConfigFields.describedType(fieldValue.getClass()));
+                } catch (IllegalAccessException e) {
+                    throw new AssertionError(e);
+                }
+            }
+            out.append("};");
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks.config;
+
+import com.excelsiorjet.api.tasks.JetTaskFailureException;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.excelsiorjet.api.util.Txt.s;
+
+/**
+ * Configuration of the build matrix that builds the application with several combinations of compiler
+ * and runtime settings and ranks them by executable size, startup time, memory footprint and throughput.
+ * <p>
+ * Each variant is built in its own output directory with its own PDB. The startup time and the resident set size
+ * are measured as configured by the startup benchmark configuration of the project, the throughput is measured
+ * with {@link #loadDriver}, if set.
+ * </p>
+ *
+ * @see com.excelsiorjet.api.tasks.BuildMatrixTask
+ * @see StartupBenchmarkConfig
+ */
+public class BuildMatrixConfig {
+
+    public static final String DEFAULT_OUTPUT_DIR = "build-matrix";
+    public static final int DEFAULT_PARALLELISM = 2;
+
+    /**
+     * Variants to build and benchmark.
+     */
+    public List<BuildVariant> variants = Collections.emptyList();
+
+    /**
+     * Maximum number of variants built at the same time. The default value is 2.
+     * Note that each Excelsior JET compiler process may require several gigabytes of memory.
+     */
+    public int parallelism;
+
+    /**
+     * If set, the startup time and the resident set size of each variant are measured. The default value is {@code true}.
+     */
+    public boolean benchmarkStartup = true;
+
+    /**
+     * Load driver measuring the throughput of each variant. The throughput is not measured if the driver is not set.
+     */
+    public LoadDriverConfig loadDriver = new LoadDriverConfig();
+
+    /**
+     * Directory for the variant builds and the matrix report.
+     * By default, {@code build-matrix} in the {@code jetOutputDir} directory.
+     */
+    public File outputDir;
+
+    public void fillDefaults(File jetOutputDir) throws JetTaskFailureException {
+        Set<String> names = new HashSet<>();
+        for (BuildVariant variant : variants) {
+            variant.validate();
+            if (!names.add(variant.name)) {
+                throw new JetTaskFailureException(s("JetApi.BuildVariantDuplicateName.Failure", variant.name));
+            }
+        }
+        if (parallelism < 0) {
+            throw new JetTaskFailureException(s("JetApi.NegativeBuildMatrixParallelism.Failure", parallelism));
+        }
+        if (parallelism == 0) {
+            parallelism = DEFAULT_PARALLELISM;
+        }
+        if (loadDriver == null) {
+            loadDriver = new LoadDriverConfig();
+        }
+        loadDriver.validate();
+        if (outputDir == null) {
+            outputDir = new File(jetOutputDir, DEFAULT_OUTPUT_DIR);
+        }
+    }
+}
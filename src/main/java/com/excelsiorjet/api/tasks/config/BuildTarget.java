@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks.config;
+
+import com.excelsiorjet.api.tasks.JetTaskFailureException;
+import com.excelsiorjet.api.util.Utils;
+
+import static com.excelsiorjet.api.util.Txt.s;
+
+/**
+ * Excelsior JET installation to build the application with in a multi-target build.
+ *
+ * @see MultiTargetConfig
+ */
+public class BuildTarget {
+
+    /**
+     * Name of the target, used as the name of its output directory and in the report.
+     * By default, it is derived from the target OS and CPU of the installation, e.g. {@code linux-arm32}.
+     */
+    public String name;
+
+    /**
+     * Home directory of the Excelsior JET installation.
+     */
+    public String jetHome;
+
+    void validate() throws JetTaskFailureException {
+        if (Utils.isEmpty(jetHome)) {
+            throw new JetTaskFailureException(s("JetApi.BuildTargetJetHomeNull.Failure"));
+        }
+        if ((name != null) && !name.matches("[A-Za-z0-9_.\\-]+")) {
+            throw new JetTaskFailureException(s("JetApi.BuildTargetInvalidName.Failure", name));
+        }
+    }
+}
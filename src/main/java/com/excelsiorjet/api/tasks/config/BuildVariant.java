@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks.config;
+
+import com.excelsiorjet.api.tasks.JetTaskFailureException;
+import com.excelsiorjet.api.tasks.config.compiler.InlineExpansionType;
+import com.excelsiorjet.api.tasks.config.compiler.StackTraceSupportType;
+import com.excelsiorjet.api.tasks.config.runtime.RuntimeFlavorType;
+import com.excelsiorjet.api.util.Utils;
+
+import static com.excelsiorjet.api.util.Txt.s;
+
+/**
+ * Named combination of compiler and runtime settings built and benchmarked by the build matrix.
+ * <p>
+ * Settings that are not set are taken from the project.
+ * </p>
+ *
+ * @see BuildMatrixConfig#variants
+ */
+public class BuildVariant {
+
+    /**
+     * Variant name, also used as the name of the variant output directory. Required.
+     */
+    public String name;
+
+    /**
+     * Inline expansion setting of the variant, see {@link InlineExpansionType}.
+     */
+    public String inlineExpansion;
+
+    /**
+     * Stack allocation setting of the variant.
+     */
+    public Boolean stackAllocation;
+
+    /**
+     * Global Optimizer setting of the variant.
+     */
+    public Boolean globalOptimizer;
+
+    /**
+     * Stack trace support setting of the variant, see {@link StackTraceSupportType}.
+     */
+    public String stackTraceSupport;
+
+    /**
+     * Runtime flavor of the variant, see {@link RuntimeFlavorType}.
+     */
+    public String runtimeFlavor;
+
+    void validate() throws JetTaskFailureException {
+        if (Utils.isEmpty(name)) {
+            throw new JetTaskFailureException(s("JetApi.BuildVariantNameNull.Failure"));
+        }
+        if (!name.matches("[A-Za-z0-9_.\\-]+")) {
+            throw new JetTaskFailureException(s("JetApi.BuildVariantInvalidName.Failure", name));
+        }
+        if (inlineExpansion != null) {
+            InlineExpansionType.validate(inlineExpansion);
+        }
+        if (stackTraceSupport != null) {
+            StackTraceSupportType.validate(stackTraceSupport);
+        }
+        if (runtimeFlavor != null) {
+            RuntimeFlavorType.validate(runtimeFlavor);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks.config;
+
+import com.excelsiorjet.api.tasks.JetTaskFailureException;
+
+import java.io.File;
+
+import static com.excelsiorjet.api.util.Txt.s;
+
+/**
+ * Settings of {@link com.excelsiorjet.api.tasks.ClasspathAnalysisTask} that reports duplicate classes,
+ * split packages and unreferenced entries of the application classpath.
+ */
+public class ClasspathAnalysisConfig {
+
+    public static final String DEFAULT_REPORT_FILE = "classpath-report.json";
+
+    /**
+     * Number of classpath entries scanned at the same time.
+     * By default, the number of available processors.
+     */
+    public int parallelism;
+
+    /**
+     * If set, dependency settings that exclude unreferenced dependencies from the optimized compilation
+     * are suggested in the log and in the report. The default value is {@code false}.
+     */
+    public boolean suggestDependencySettings;
+
+    /**
+     * If set, the task fails if the classpath contains duplicate classes. The default value is {@code false}.
+     */
+    public boolean failOnDuplicates;
+
+    /**
+     * Location of the report. By default, {@code classpath-report.json} in the {@code jetOutputDir} directory.
+     */
+    public File reportFile;
+
+    public void fillDefaults(File jetOutputDir) throws JetTaskFailureException {
+        if (parallelism < 0) {
+            throw new JetTaskFailureException(s("JetApi.NegativeClasspathAnalysisParallelism.Failure", parallelism));
+        }
+        if (parallelism == 0) {
+            parallelism = Runtime.getRuntime().availableProcessors();
+        }
+        if (reportFile == null) {
+            reportFile = new File(jetOutputDir, DEFAULT_REPORT_FILE);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks.config;
+
+import com.excelsiorjet.api.tasks.JetTaskFailureException;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.excelsiorjet.api.util.Txt.s;
+
+/**
+ * Settings of {@link com.excelsiorjet.api.tasks.FootprintTask} that measures the memory footprint
+ * of the built executable with different runtime configurations.
+ */
+public class FootprintConfig {
+
+    public static final String DEFAULT_OUTPUT_DIR = "footprint";
+    public static final int DEFAULT_DURATION = 30;
+    public static final int DEFAULT_SAMPLE_INTERVAL = 250;
+    public static final int DEFAULT_STEADY_STATE_WINDOW = 10;
+
+    /**
+     * Runtime configurations to build and compare. If none is set, the current build of the project is measured.
+     */
+    public List<FootprintVariant> variants = Collections.emptyList();
+
+    /**
+     * Workload applied to the running application. If it is not defined, the application is run
+     * for {@link #duration} seconds or until it exits.
+     */
+    public LoadDriverConfig loadDriver = new LoadDriverConfig();
+
+    /**
+     * Time in seconds to run the application if {@link #loadDriver} is not defined. The default value is 30.
+     */
+    public int duration = DEFAULT_DURATION;
+
+    /**
+     * Interval between memory samples in milliseconds. The default value is 250.
+     */
+    public int sampleInterval = DEFAULT_SAMPLE_INTERVAL;
+
+    /**
+     * Final part of the run, in seconds, whose samples are averaged into the steady-state values.
+     * The default value is 10.
+     */
+    public int steadyStateWindow = DEFAULT_STEADY_STATE_WINDOW;
+
+    /**
+     * Directory for the variant builds and the report.
+     * The default value is "footprint" subdirectory of the Excelsior JET output directory.
+     */
+    public File outputDir;
+
+    public void fillDefaults(File jetOutputDir) throws JetTaskFailureException {
+        Set<String> names = new HashSet<>();
+        for (FootprintVariant variant : variants) {
+            variant.validate();
+            if (!names.add(variant.name)) {
+                throw new JetTaskFailureException(s("JetApi.BuildVariantDuplicateName.Failure", variant.name));
+            }
+        }
+        if (loadDriver == null) {
+            loadDriver = new LoadDriverConfig();
+        }
+        loadDriver.validate();
+        if (duration <= 0) {
+            throw new JetTaskFailureException(s("JetApi.InvalidFootprintParameter.Failure", "duration", duration));
+        }
+        if (sampleInterval <= 0) {
+            throw new JetTaskFailureException(s("JetApi.InvalidFootprintParameter.Failure", "sampleInterval", sampleInterval));
+        }
+        if (steadyStateWindow <= 0) {
+            throw new JetTaskFailureException(s("JetApi.InvalidFootprintParameter.Failure", "steadyStateWindow", steadyStateWindow));
+        }
+        if (outputDir == null) {
+            outputDir = new File(jetOutputDir, DEFAULT_OUTPUT_DIR);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks.config;
+
+import com.excelsiorjet.api.tasks.JetTaskFailureException;
+import com.excelsiorjet.api.tasks.config.runtime.RuntimeConfig;
+import com.excelsiorjet.api.util.Utils;
+
+import static com.excelsiorjet.api.util.Txt.s;
+
+/**
+ * Runtime configuration measured by {@link com.excelsiorjet.api.tasks.FootprintTask}.
+ */
+public class FootprintVariant {
+
+    /**
+     * Name of the variant, used as the name of its output directory and in the report.
+     */
+    public String name;
+
+    /**
+     * Runtime settings of the variant, such as {@link RuntimeConfig#flavor}, {@link RuntimeConfig#profile},
+     * {@link RuntimeConfig#diskFootprintReduction} and {@link RuntimeConfig#slimDown}.
+     * The settings that are not set are taken from the runtime configuration of the project.
+     */
+    public RuntimeConfig runtime = new RuntimeConfig();
+
+    /**
+     * Returns the runtime configuration of the project with the settings of this variant applied.
+     */
+    public RuntimeConfig applyTo(RuntimeConfig projectRuntime) {
+        RuntimeConfig result = projectRuntime.copy();
+        if (runtime.flavor != null) {
+            result.flavor = runtime.flavor;
+        }
+        if (runtime.location != null) {
+            result.location = runtime.location;
+        }
+        if (runtime.components != null) {
+            result.components = runtime.components;
+        }
+        if (runtime.locales != null) {
+            result.locales = runtime.locales;
+        }
+        if (runtime.profile != null) {
+            result.profile = runtime.profile;
+        }
+        if (runtime.diskFootprintReduction != null) {
+            result.diskFootprintReduction = runtime.diskFootprintReduction;
+        }
+        if (runtime.slimDown != null) {
+            result.slimDown = runtime.slimDown;
+        }
+        return result;
+    }
+
+    void validate() throws JetTaskFailureException {
+        if (Utils.isEmpty(name)) {
+            throw new JetTaskFailureException(s("JetApi.BuildVariantNameNull.Failure"));
+        }
+        if (!name.matches("[A-Za-z0-9_.\\-]+")) {
+            throw new JetTaskFailureException(s("JetApi.BuildVariantInvalidName.Failure", name));
+        }
+        if (runtime == null) {
+            runtime = new RuntimeConfig();
+        }
+    }
+}
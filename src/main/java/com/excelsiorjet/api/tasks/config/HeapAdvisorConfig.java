@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks.config;
+
+import com.excelsiorjet.api.tasks.JetTaskFailureException;
+
+import java.io.File;
+
+import static com.excelsiorjet.api.util.Txt.s;
+
+/**
+ * Settings of {@link com.excelsiorjet.api.tasks.HeapAdvisorTask} that runs the built executable
+ * with candidate heap settings and recommends the ones fitting a container memory limit.
+ */
+public class HeapAdvisorConfig {
+
+    public static final String DEFAULT_OUTPUT_DIR = "heap-advisor";
+    public static final int DEFAULT_HEADROOM = 10;
+    public static final int DEFAULT_THROUGHPUT_TOLERANCE = 5;
+
+    /**
+     * Shares of {@link #containerMemoryLimit} in percent used as the candidate maximum heap sizes
+     * if {@link #heapSizes} are not set.
+     */
+    static final int[] DEFAULT_HEAP_SHARES = {40, 55, 70};
+
+    /**
+     * Memory limit of the target container in megabytes. Must be set.
+     */
+    public int containerMemoryLimit;
+
+    /**
+     * Candidate maximum heap sizes ({@code -Xmx}) in megabytes.
+     * By default, 40%, 55% and 70% of {@link #containerMemoryLimit} are tried.
+     */
+    public int[] heapSizes;
+
+    /**
+     * Candidate values of the {@code jet.gc.ratio} runtime property, which limits the share of time
+     * the runtime may spend in garbage collection, in tenths of percent.
+     * Each value is tried with each heap size. By default, the property is not varied.
+     */
+    public int[] gcRatios;
+
+    /**
+     * Share of {@link #containerMemoryLimit} in percent that the peak resident set size of a candidate
+     * must leave free to be considered safe. The default value is 10.
+     */
+    public int headroom = DEFAULT_HEADROOM;
+
+    /**
+     * Throughput loss in percent relative to the best candidate that is traded for a smaller heap
+     * or shorter pauses. The default value is 5.
+     */
+    public int throughputTolerance = DEFAULT_THROUGHPUT_TOLERANCE;
+
+    /**
+     * Workload applied to the running application. If it is not defined, the application is run
+     * for {@link #duration} seconds and the candidates are only compared by their memory usage.
+     */
+    public LoadDriverConfig loadDriver = new LoadDriverConfig();
+
+    /**
+     * Time in seconds to run each candidate if {@link #loadDriver} is not defined. The default value is 30.
+     */
+    public int duration = FootprintConfig.DEFAULT_DURATION;
+
+    /**
+     * Interval between memory samples in milliseconds. The default value is 250.
+     */
+    public int sampleInterval = FootprintConfig.DEFAULT_SAMPLE_INTERVAL;
+
+    /**
+     * If set, the recommended settings replace the heap and GC settings among the {@code jvmArgs}
+     * of the project, so that the build performed after the advisor uses them.
+     */
+    public boolean apply;
+
+    /**
+     * Directory for the report. The default value is "heap-advisor" subdirectory
+     * of the Excelsior JET output directory.
+     */
+    public File outputDir;
+
+    /**
+     * Returns the candidate maximum heap sizes in megabytes.
+     */
+    public int[] candidateHeapSizes() {
+        if (heapSizes != null && heapSizes.length > 0) {
+            return heapSizes;
+        }
+        int[] sizes = new int[DEFAULT_HEAP_SHARES.length];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = containerMemoryLimit * DEFAULT_HEAP_SHARES[i] / 100;
+        }
+        return sizes;
+    }
+
+    public void fillDefaults(File jetOutputDir) throws JetTaskFailureException {
+        if (containerMemoryLimit < 0) {
+            throw new JetTaskFailureException(s("JetApi.InvalidHeapAdvisorParameter.Failure",
+                    "containerMemoryLimit", containerMemoryLimit));
+        }
+        if (heapSizes != null) {
+            for (int size : heapSizes) {
+                if (size <= 0) {
+                    throw new JetTaskFailureException(s("JetApi.InvalidHeapAdvisorParameter.Failure", "heapSizes", size));
+                }
+            }
+        }
+        if (gcRatios != null) {
+            for (int ratio : gcRatios) {
+                if (ratio <= 0) {
+                    throw new JetTaskFailureException(s("JetApi.InvalidHeapAdvisorParameter.Failure", "gcRatios", ratio));
+                }
+            }
+        }
+        if ((headroom < 0) || (headroom >= 100)) {
+            throw new JetTaskFailureException(s("JetApi.InvalidHeapAdvisorParameter.Failure", "headroom", headroom));
+        }
+        if ((throughputTolerance < 0) || (throughputTolerance >= 100)) {
+            throw new JetTaskFailureException(s("JetApi.InvalidHeapAdvisorParameter.Failure",
+                    "throughputTolerance", throughputTolerance));
+        }
+        if (loadDriver == null) {
+            loadDriver = new LoadDriverConfig();
+        }
+        loadDriver.validate();
+        if (duration <= 0) {
+            throw new JetTaskFailureException(s("JetApi.InvalidHeapAdvisorParameter.Failure", "duration", duration));
+        }
+        if (sampleInterval <= 0) {
+            throw new JetTaskFailureException(s("JetApi.InvalidHeapAdvisorParameter.Failure",
+                    "sampleInterval", sampleInterval));
+        }
+        if (outputDir == null) {
+            outputDir = new File(jetOutputDir, DEFAULT_OUTPUT_DIR);
+        }
+    }
+}
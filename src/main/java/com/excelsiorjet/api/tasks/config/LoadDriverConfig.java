@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks.config;
+
+import com.excelsiorjet.api.tasks.JetTaskFailureException;
+import com.excelsiorjet.api.util.Utils;
+
+import static com.excelsiorjet.api.util.Txt.s;
+
+/**
+ * Load driver that puts a workload on a running application to measure its throughput and latency.
+ * <p>
+ * The load driver is either an arbitrary command ({@link #command}) or a Java class ({@link #mainClass})
+ * run on the JVM that runs the build. Each driver run produces one sample of throughput and latency.
+ * </p>
+ * The driver may report its own metrics by printing lines of the form {@code throughput=<ops per second>}
+ * and {@code latency=<milliseconds>}. If it does not, the duration of the driver run is taken as latency
+ * and its reciprocal as throughput (runs per second).
+ */
+public class LoadDriverConfig {
+
+    /**
+     * Command line of the load driver. Either this parameter or {@link #mainClass} must be set.
+     */
+    public String[] command;
+
+    /**
+     * Main class of the load driver. Either this parameter or {@link #command} must be set.
+     */
+    public String mainClass;
+
+    /**
+     * Classpath of the load driver class.
+     */
+    public String[] classpath;
+
+    /**
+     * Arguments passed to the load driver class.
+     */
+    public String[] args;
+
+    /**
+     * Time in seconds a single driver run may take before it is considered failed. The default value is 600.
+     */
+    public int timeout = 600;
+
+    /**
+     * Number of unmeasured driver runs after each application start. The default value is 1.
+     */
+    public int warmupRuns = 1;
+
+    /**
+     * Number of measured driver runs after each application start. The default value is 3.
+     */
+    public int measuredRuns = 3;
+
+    /**
+     * Loopback TCP port the application listens on when it is ready to accept the load.
+     * Zero means the port is not checked.
+     */
+    public int readinessPort;
+
+    /**
+     * Time in seconds to wait after the application start (and readiness, if {@link #readinessPort} is set)
+     * before running the load driver.
+     */
+    public int startupDelay;
+
+    public boolean isDefined() {
+        return !Utils.isEmpty(command) || !Utils.isEmpty(mainClass);
+    }
+
+    public void validate() throws JetTaskFailureException {
+        if (!Utils.isEmpty(command) && !Utils.isEmpty(mainClass)) {
+            throw new JetTaskFailureException(s("JetApi.BothLoadDriversSet.Failure"));
+        }
+        if (timeout <= 0) {
+            throw new JetTaskFailureException(s("JetApi.InvalidLoadDriverParameter.Failure", "timeout", timeout));
+        }
+        if (measuredRuns <= 0) {
+            throw new JetTaskFailureException(s("JetApi.InvalidLoadDriverParameter.Failure", "measuredRuns", measuredRuns));
+        }
+        if (warmupRuns < 0) {
+            throw new JetTaskFailureException(s("JetApi.InvalidLoadDriverParameter.Failure", "warmupRuns", warmupRuns));
+        }
+        if (startupDelay < 0) {
+            throw new JetTaskFailureException(s("JetApi.InvalidLoadDriverParameter.Failure", "startupDelay", startupDelay));
+        }
+        if ((readinessPort < 0) || (readinessPort > 0xFFFF)) {
+            throw new JetTaskFailureException(s("JetApi.InvalidLoadDriverParameter.Failure", "readinessPort", readinessPort));
+        }
+    }
+}
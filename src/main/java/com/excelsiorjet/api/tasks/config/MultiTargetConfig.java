@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks.config;
+
+import com.excelsiorjet.api.tasks.JetTaskFailureException;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+import static com.excelsiorjet.api.util.Txt.s;
+
+/**
+ * Configuration of the build that compiles the application with several Excelsior JET installations
+ * at once, for example, for x86-64 and for ARM32 (cross-compilation).
+ * <p>
+ * Each target is built in its own output directory with its own build and application directories and PDB,
+ * while the classpath is copied only once and linked into the build directory of each target.
+ * </p>
+ *
+ * @see com.excelsiorjet.api.tasks.MultiTargetBuildTask
+ */
+public class MultiTargetConfig {
+
+    public static final String DEFAULT_OUTPUT_DIR = "targets";
+
+    /**
+     * Excelsior JET installations to build the application with.
+     */
+    public List<BuildTarget> targets = Collections.emptyList();
+
+    /**
+     * Maximum number of targets built at the same time. By default, all targets are built at the same time.
+     * Note that each Excelsior JET compiler process may require several gigabytes of memory.
+     */
+    public int parallelism;
+
+    /**
+     * Directory for the target builds and the combined report.
+     * By default, {@code targets} in the {@code jetOutputDir} directory.
+     */
+    public File outputDir;
+
+    public void fillDefaults(File jetOutputDir) throws JetTaskFailureException {
+        for (BuildTarget target : targets) {
+            target.validate();
+        }
+        if (parallelism < 0) {
+            throw new JetTaskFailureException(s("JetApi.NegativeMultiTargetParallelism.Failure", parallelism));
+        }
+        if (parallelism == 0) {
+            parallelism = Math.max(targets.size(), 1);
+        }
+        if (outputDir == null) {
+            outputDir = new File(jetOutputDir, DEFAULT_OUTPUT_DIR);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks.config;
+
+import com.excelsiorjet.api.tasks.JetTaskFailureException;
+
+import java.io.File;
+
+import static com.excelsiorjet.api.util.Txt.s;
+
+/**
+ * Configuration of the automated comparison of the application built with and without
+ * profile-guided optimization (PGO).
+ * <p>
+ * The comparison builds the application without PGO, collects an execution profile, builds the application
+ * with PGO and then runs the {@link #loadDriver} against both images in alternating rounds.
+ * </p>
+ *
+ * @see com.excelsiorjet.api.tasks.PgoComparisonTask
+ */
+public class PgoComparisonConfig {
+
+    public static final String DEFAULT_OUTPUT_DIR = "pgo-comparison";
+
+    /**
+     * Load driver run against the compared images.
+     */
+    public LoadDriverConfig loadDriver = new LoadDriverConfig();
+
+    /**
+     * If set, the load driver is also run against the application started to collect the execution profile,
+     * and the application is stopped once the driver completes. Otherwise, the profile run
+     * is terminated as usual, that is by {@code profileRunTimeout} or by the Stop task.
+     * The default value is {@code true}.
+     */
+    public boolean driveProfileRun = true;
+
+    /**
+     * Number of rounds. In each round both images are started in turn and driven by the load driver.
+     * The default value is 5.
+     */
+    public int rounds = 5;
+
+    /**
+     * Directory for the compared images and the comparison report.
+     * By default, {@code pgo-comparison} in the {@code jetOutputDir} directory.
+     */
+    public File outputDir;
+
+    public void fillDefaults(File jetOutputDir) throws JetTaskFailureException {
+        if (loadDriver == null) {
+            loadDriver = new LoadDriverConfig();
+        }
+        loadDriver.validate();
+        if (rounds <= 0) {
+            throw new JetTaskFailureException(s("JetApi.InvalidPgoComparisonParameter.Failure", "rounds", rounds));
+        }
+        if (rounds * loadDriver.measuredRuns < 2) {
+            throw new JetTaskFailureException(s("JetApi.TooFewPgoComparisonSamples.Failure"));
+        }
+        if (outputDir == null) {
+            outputDir = new File(jetOutputDir, DEFAULT_OUTPUT_DIR);
+        }
+    }
+}
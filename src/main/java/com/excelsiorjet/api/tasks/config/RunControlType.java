@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks.config;
+
+import com.excelsiorjet.api.tasks.JetTaskFailureException;
+import com.excelsiorjet.api.util.Utils;
+
+import static com.excelsiorjet.api.util.Txt.s;
+
+/**
+ * Ways the Run and Stop tasks communicate with each other: via termination files that the stop task creates
+ * and waits to disappear or via a loopback socket advertised by the run task.
+ */
+public enum RunControlType {
+    FILE,
+    SOCKET;
+
+    public String toString() {
+        return Utils.enumConstantNameToParameter(name());
+    }
+
+    public static RunControlType validate(String runControl) throws JetTaskFailureException {
+        try {
+            return RunControlType.valueOf(Utils.parameterToEnumConstantName(runControl));
+        } catch (Exception e) {
+            throw new JetTaskFailureException(s("JetApi.UnknownRunControlType.Failure", runControl));
+        }
+    }
+
+    public static RunControlType fromString(String runControl) {
+        try {
+            return validate(runControl);
+        } catch (JetTaskFailureException e) {
+            throw new AssertionError("runControl should be valid here", e);
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks.config;
+
+import com.excelsiorjet.api.tasks.JetTaskFailureException;
+
+import static com.excelsiorjet.api.util.Txt.s;
+
+/**
+ * Disk size budget of the application image checked after each build if a limit is set.
+ * <p>
+ * The size of the image is broken down into the executable, classpath entries copied to the image,
+ * runtime files and package files in the {@code size-report.json} file of the Excelsior JET output directory.
+ * If the image exceeds the budget, the build fails listing the largest contributors.
+ * </p>
+ */
+public class SizeBudgetConfig {
+
+    public static final int DEFAULT_TOP_CONTRIBUTORS = 10;
+
+    /**
+     * Maximum size of the application image in megabytes. Zero means no limit.
+     */
+    public int maxSizeMb;
+
+    /**
+     * Maximum growth of the application image since the previous build in percent. Zero means no limit.
+     */
+    public int maxGrowthPercent;
+
+    /**
+     * Number of the largest contributors listed when the budget is exceeded. The default value is 10.
+     */
+    public int topContributors = DEFAULT_TOP_CONTRIBUTORS;
+
+    /**
+     * If set to {@code false}, exceeding the budget produces a warning instead of the build failure.
+     */
+    public boolean failOnExceed = true;
+
+    public boolean isDefined() {
+        return (maxSizeMb > 0) || (maxGrowthPercent > 0);
+    }
+
+    public void validate() throws JetTaskFailureException {
+        if (maxSizeMb < 0) {
+            throw new JetTaskFailureException(s("JetApi.InvalidSizeBudgetParameter.Failure", "maxSizeMb", maxSizeMb));
+        }
+        if (maxGrowthPercent < 0) {
+            throw new JetTaskFailureException(s("JetApi.InvalidSizeBudgetParameter.Failure", "maxGrowthPercent", maxGrowthPercent));
+        }
+        if (topContributors <= 0) {
+            throw new JetTaskFailureException(s("JetApi.InvalidSizeBudgetParameter.Failure", "topContributors", topContributors));
+        }
+    }
+}
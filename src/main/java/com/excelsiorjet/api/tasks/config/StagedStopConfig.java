@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks.config;
+
+import com.excelsiorjet.api.tasks.JetTaskFailureException;
+
+import static com.excelsiorjet.api.util.Txt.s;
+
+/**
+ * Configuration of the {@code staged} termination policy.
+ * <p>
+ * The staged stop first sends Ctrl-C event to a running application and waits up to {@link #ctrlCTimeout} seconds.
+ * If the application is still running, it calls {@code java.lang.Shutdown.halt()} within the application and waits
+ * up to {@link #haltTimeout} seconds. At last, the process tree of the application is killed.
+ * </p>
+ * The staged stop is useful for profiling runs: the application has a chance to flush its profiles
+ * on Ctrl-C, while an application that ignores Ctrl-C still gets stopped.
+ *
+ * @see TerminationPolicy#STAGED
+ */
+public class StagedStopConfig {
+
+    public static final int DEFAULT_CTRL_C_TIMEOUT = 30;
+    public static final int DEFAULT_HALT_TIMEOUT = 10;
+
+    /**
+     * Time in seconds to wait for the application to terminate after Ctrl-C event. The default value is 30.
+     */
+    public int ctrlCTimeout;
+
+    /**
+     * Time in seconds to wait for the application to terminate after the halt request. The default value is 10.
+     */
+    public int haltTimeout;
+
+    public void fillDefaults() throws JetTaskFailureException {
+        if (ctrlCTimeout < 0) {
+            throw new JetTaskFailureException(s("JetApi.NegativeStagedStopTimeout.Failure", "ctrlCTimeout"));
+        }
+        if (haltTimeout < 0) {
+            throw new JetTaskFailureException(s("JetApi.NegativeStagedStopTimeout.Failure", "haltTimeout"));
+        }
+        if (ctrlCTimeout == 0) {
+            ctrlCTimeout = DEFAULT_CTRL_C_TIMEOUT;
+        }
+        if (haltTimeout == 0) {
+            haltTimeout = DEFAULT_HALT_TIMEOUT;
+        }
+    }
+}
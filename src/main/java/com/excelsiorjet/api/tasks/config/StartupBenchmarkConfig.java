@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks.config;
+
+import com.excelsiorjet.api.tasks.JetTaskFailureException;
+
+import java.io.File;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static com.excelsiorjet.api.util.Txt.s;
+
+/**
+ * Configuration of the startup benchmark of a built executable.
+ * <p>
+ * The benchmark runs the executable {@link #iterations} times after {@link #warmupIterations} unmeasured runs
+ * and measures the time to the first output line, the time to the readiness of the application
+ * and the time to its exit, as well as the resident set size of the application upon readiness.
+ * </p>
+ * The application is considered ready when it prints a line matching {@link #readinessPattern}
+ * or starts accepting connections on {@link #readinessPort}. If neither is set, the first output line
+ * signals readiness.
+ *
+ * @see com.excelsiorjet.api.tasks.StartupBenchmarkTask
+ */
+public class StartupBenchmarkConfig {
+
+    public static final String DEFAULT_OUTPUT_FILE = "startup-benchmark.json";
+
+    /**
+     * Number of measured runs. The default value is 10.
+     */
+    public int iterations = 10;
+
+    /**
+     * Number of unmeasured runs performed before the measured ones to warm up file system caches.
+     * The default value is 2.
+     */
+    public int warmupIterations = 2;
+
+    /**
+     * Regular expression that an output line of the application must contain to consider the application ready,
+     * for example {@code "Started .* in"}.
+     */
+    public String readinessPattern;
+
+    /**
+     * Loopback TCP port that the application listens on when it is ready.
+     * Zero means the port is not checked.
+     */
+    public int readinessPort;
+
+    /**
+     * Time in seconds to wait for the application readiness before counting the run as failed.
+     * The default value is 60.
+     */
+    public int readinessTimeout = 60;
+
+    /**
+     * If set, the application process tree is killed as soon as the application becomes ready,
+     * otherwise the application is expected to exit by itself. The default value is {@code true}.
+     */
+    public boolean terminateWhenReady = true;
+
+    /**
+     * Time in seconds to wait for the application to exit by itself after readiness before killing it.
+     * The default value is 60.
+     */
+    public int exitTimeout = 60;
+
+    /**
+     * If set, the same benchmark is performed for the application running on the JIT ({@code xjava})
+     * to compare the startup of the native executable with the JIT baseline.
+     * Only plain Java SE applications are supported.
+     */
+    public boolean jitBaseline;
+
+    /**
+     * File the benchmark results are written to in JSON format.
+     * By default, {@code startup-benchmark.json} in the {@code jetOutputDir} directory.
+     */
+    public File outputFile;
+
+    public void fillDefaults(File jetOutputDir) throws JetTaskFailureException {
+        if (iterations <= 0) {
+            throw new JetTaskFailureException(s("JetApi.InvalidStartupBenchmarkParameter.Failure", "iterations", iterations));
+        }
+        if (warmupIterations < 0) {
+            throw new JetTaskFailureException(s("JetApi.InvalidStartupBenchmarkParameter.Failure", "warmupIterations", warmupIterations));
+        }
+        if (readinessTimeout <= 0) {
+            throw new JetTaskFailureException(s("JetApi.InvalidStartupBenchmarkParameter.Failure", "readinessTimeout", readinessTimeout));
+        }
+        if (exitTimeout <= 0) {
+            throw new JetTaskFailureException(s("JetApi.InvalidStartupBenchmarkParameter.Failure", "exitTimeout", exitTimeout));
+        }
+        if ((readinessPort < 0) || (readinessPort > 0xFFFF)) {
+            throw new JetTaskFailureException(s("JetApi.InvalidStartupBenchmarkParameter.Failure", "readinessPort", readinessPort));
+        }
+        if (readinessPattern != null) {
+            try {
+                Pattern.compile(readinessPattern);
+            } catch (PatternSyntaxException e) {
+                throw new JetTaskFailureException(s("JetApi.InvalidReadinessPattern.Failure", readinessPattern, e.getDescription()));
+            }
+        }
+        if (outputFile == null) {
+            outputFile = new File(jetOutputDir, DEFAULT_OUTPUT_FILE);
+        }
+    }
+}
@@ -27,12 +27,16 @@ import com.excelsiorjet.api.util.Utils;
 import static com.excelsiorjet.api.util.Txt.s;
 
 /**
- * We support two termination policies: via sending Ctrl-C event to a running application or via calling
- * {@code java.lang.Shutdown.halt()} within a running application.
+ * We support three termination policies: via sending Ctrl-C event to a running application, via calling
+ * {@code java.lang.Shutdown.halt()} within a running application, or staged: Ctrl-C event first,
+ * then halt, then killing the process tree if the application does not terminate in time.
+ *
+ * @see StagedStopConfig
  */
 public enum TerminationPolicy {
     CTRL_C,
-    HALT;
+    HALT,
+    STAGED;
 
     public String toString() {
         return Utils.enumConstantNameToParameter(name());
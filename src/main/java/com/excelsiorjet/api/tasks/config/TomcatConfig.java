@@ -25,6 +25,7 @@ import com.excelsiorjet.api.tasks.JetTaskFailureException;
 import com.excelsiorjet.api.util.Utils;
 
 import java.io.File;
+import java.util.Arrays;
 
 import static com.excelsiorjet.api.util.Txt.s;
 
@@ -91,6 +92,29 @@ public class TomcatConfig {
      */
     public boolean allowUserToChangeTomcatPort;
 
+    /**
+     * Web applications removed from the copy of the master Tomcat installation before the build, so that they
+     * are neither compiled nor packaged. By default, the sample applications shipped with Tomcat are removed:
+     * {@code docs}, {@code examples}, {@code manager} and {@code host-manager}.
+     * Set this parameter to an empty list to keep all of them.
+     */
+    public String[] removeWebapps = {"docs", "examples", "manager", "host-manager"};
+
+    /**
+     * File name patterns (e.g. {@code tomcat-dbcp.jar} or {@code tomcat-i18n-*.jar}) of the jars in
+     * {@code <tomcatHome>/lib} to keep in addition to the jars Tomcat cannot start without,
+     * such as {@code catalina.jar} and {@code servlet-api.jar}. The other jars are removed.
+     * By default, all jars are kept.
+     */
+    public String[] libAllowList;
+
+    /**
+     * Directory for the pruned copies of master Tomcat installations, reused by subsequent builds
+     * as long as the contents of the installation and the pruning parameters do not change.
+     * The default value is {@code ${user.home}/.ExcelsiorJET/TomcatCache}.
+     */
+    public File cacheDir;
+
     public void fillDefaults(String mainWarName) throws JetTaskFailureException {
         // check Tomcat home
         if (Utils.isEmpty(tomcatHome)) {
@@ -125,12 +149,21 @@ public class TomcatConfig {
 
         String explodedWar = warDeployName.substring(0, warDeployName.length() - WAR_EXT.length());
 
-        if (new File(webApps, warDeployName).exists() || new File(webApps, explodedWar).exists()) {
+        boolean removed = (removeWebapps != null) && Arrays.asList(removeWebapps).contains(explodedWar);
+        if (!removed && (new File(webApps, warDeployName).exists() || new File(webApps, explodedWar).exists())) {
             throw new JetTaskFailureException(s("JetApi.WarAlreadyDeployedIntoTomcat.Failure", explodedWar, tomcatHome));
         }
 
         if (hideConfig && allowUserToChangeTomcatPort) {
             throw new JetTaskFailureException(s("JetApi.CantChangePortWhenHideConfig.Failure"));
         }
+
+        if (removeWebapps == null) {
+            removeWebapps = new String[0];
+        }
+
+        if (cacheDir == null) {
+            cacheDir = new File(System.getProperty("user.home"), ".ExcelsiorJET" + File.separator + "TomcatCache");
+        }
     }
 }
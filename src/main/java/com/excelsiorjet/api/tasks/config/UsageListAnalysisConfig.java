@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks.config;
+
+import com.excelsiorjet.api.tasks.JetTaskFailureException;
+
+import java.io.File;
+
+import static com.excelsiorjet.api.util.Txt.s;
+
+/**
+ * Settings of {@link com.excelsiorjet.api.tasks.UsageListAnalysisTask} that reports the classpath coverage
+ * of the Test Run usage list and its changes since a baseline usage list.
+ */
+public class UsageListAnalysisConfig {
+
+    public static final String DEFAULT_REPORT_FILE = "usage-report.json";
+    public static final String DEFAULT_DIFF_FILE = "usage-diff.txt";
+    public static final int DEFAULT_MAX_ENTRIES_IN_MEMORY = 100000;
+
+    /**
+     * Usage list to compare the current one with, for example, the one from the previous release.
+     * If not set, only the coverage is reported.
+     */
+    public File baseline;
+
+    /**
+     * Location of the report. By default, {@code usage-report.json} in the {@code jetOutputDir} directory.
+     */
+    public File reportFile;
+
+    /**
+     * Location of the list of entries that appeared ({@code +}) or disappeared ({@code -}) since the baseline.
+     * By default, {@code usage-diff.txt} in the {@code jetOutputDir} directory.
+     */
+    public File diffFile;
+
+    /**
+     * Maximum number of usage list entries held in memory while the usage lists are sorted for comparison.
+     * Larger usage lists are sorted in temporary files. The default value is 100000.
+     */
+    public int maxEntriesInMemory = DEFAULT_MAX_ENTRIES_IN_MEMORY;
+
+    public void fillDefaults(File jetOutputDir) throws JetTaskFailureException {
+        if (maxEntriesInMemory <= 0) {
+            throw new JetTaskFailureException(s("JetApi.InvalidUsageListAnalysisParameter.Failure",
+                    "maxEntriesInMemory", maxEntriesInMemory));
+        }
+        if (reportFile == null) {
+            reportFile = new File(jetOutputDir, DEFAULT_REPORT_FILE);
+        }
+        if (diffFile == null) {
+            diffFile = new File(jetOutputDir, DEFAULT_DIFF_FILE);
+        }
+    }
+}
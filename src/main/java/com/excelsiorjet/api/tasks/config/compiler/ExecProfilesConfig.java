@@ -25,7 +25,13 @@ import com.excelsiorjet.api.ExcelsiorJet;
 import com.excelsiorjet.api.tasks.*;
 import com.excelsiorjet.api.util.Utils;
 
+import com.excelsiorjet.api.tasks.config.ApplicationType;
+
 import java.io.File;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import static com.excelsiorjet.api.log.Log.logger;
 import static com.excelsiorjet.api.tasks.config.compiler.ExecProfilesExistenceType.ALL;
@@ -129,6 +135,40 @@ public class ExecProfilesConfig {
      */
     public int daysToWarnAboutOutdatedProfiles = 30;
 
+    /**
+     * <p>
+     * Profile drift threshold in percent.
+     * </p>
+     * <p>
+     * If the parameter is set, the Test Run and Profile tasks record hashes of the classpath entries
+     * and the main class the profiles were collected against in manifest files next to the profiles.
+     * On subsequent builds, the drift is measured as the share of changed classpath entries or changed bytes,
+     * whichever is greater. If the drift exceeds the threshold, {@link #profileDriftAction} is taken.
+     * The default value is {@code 0} that disables the check.
+     * </p>
+     * <p>
+     * Unlike {@link #daysToWarnAboutOutdatedProfiles}, the drift does not depend on file modification times,
+     * so it stays meaningful for profiles checked out from the VCS.
+     * </p>
+     */
+    public int profileDriftThreshold;
+
+    /**
+     * Action taken if {@link #profileDriftThreshold} is exceeded. Valid values are:
+     * <p>
+     * {@code warn} (default) - issue a warning.
+     * </p>
+     * <p>
+     * {@code fail} - fail the build.
+     * </p>
+     * <p>
+     * {@code recollect} - re-collect the Test Run profiles with {@link TestRunTask} before compilation.
+     * The execution profile ({@code .jprof}) can only be re-collected from a native build,
+     * so a warning is issued for it instead.
+     * </p>
+     */
+    public String profileDriftAction = ProfileDriftAction.WARN.toString();
+
     /**
      * Check that all or certain application profiles are available before starting a build.
      * Valid values are: "all" , "test-run", "profile", "none" (default):
@@ -160,6 +200,35 @@ public class ExecProfilesConfig {
      */
     public int profileRunTimeout;
 
+    /**
+     * Conditions that stop the application during Test Run and profile runs earlier than
+     * {@link #testRunTimeout} and {@link #profileRunTimeout}, respectively.
+     *
+     * @see StopConditionsConfig
+     */
+    public StopConditionsConfig stopConditions = new StopConditionsConfig();
+
+    /**
+     * Workload scenarios of the Test Run.
+     * <p>
+     * If scenarios are set, the Test Run task runs the application for each scenario in a separate copy
+     * of the build directory and merges the usage lists ({@code .usg}) collected by the scenarios
+     * into the resulting one. The startup profile ({@code .startup}) is collected by the first scenario.
+     * </p>
+     *
+     * @see TestRunScenario
+     */
+    public List<TestRunScenario> testRunScenarios = Collections.emptyList();
+
+    /**
+     * Whether to run {@link #testRunScenarios} in parallel. By default, the scenarios are run sequentially.
+     * <p>
+     * Parallel scenarios are not supported for Tomcat and Spring Boot applications
+     * since all their instances would listen on the same ports.
+     * </p>
+     */
+    public boolean parallelTestRunScenarios;
+
     public void fillDefaults(JetProject jetProject, ExcelsiorJet excelsiorJet) throws JetTaskFailureException {
         if (outputDir == null) {
             outputDir = jetProject.jetResourcesDir();
@@ -179,6 +248,28 @@ public class ExecProfilesConfig {
             profileLocally = true;
         }
 
+        if ((profileDriftThreshold < 0) || (profileDriftThreshold > 100)) {
+            throw new JetTaskFailureException(s("JetApi.InvalidProfileDriftThreshold.Failure", profileDriftThreshold));
+        }
+        ProfileDriftAction.validate(profileDriftAction);
+
+        if (stopConditions == null) {
+            stopConditions = new StopConditionsConfig();
+        }
+        stopConditions.validate();
+
+        Set<String> scenarioNames = new HashSet<>();
+        for (TestRunScenario scenario : testRunScenarios) {
+            scenario.validate();
+            if (!scenarioNames.add(scenario.name)) {
+                throw new JetTaskFailureException(s("JetApi.TestRunScenarioDuplicateName.Failure", scenario.name));
+            }
+        }
+        ApplicationType appType = jetProject.appType();
+        if (parallelTestRunScenarios && ((appType == ApplicationType.TOMCAT) || (appType == ApplicationType.SPRING_BOOT))) {
+            throw new JetTaskFailureException(s("JetApi.ParallelTestRunScenariosNotSupported.Failure", appType));
+        }
+
         if (profilingImageDir == null) {
             profilingImageDir = new File(jetProject.jetOutputDir(), PROFILE_DIR);
         }
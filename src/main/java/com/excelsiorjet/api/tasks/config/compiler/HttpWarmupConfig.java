@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks.config.compiler;
+
+import com.excelsiorjet.api.tasks.JetTaskFailureException;
+import com.excelsiorjet.api.util.Utils;
+
+import java.io.File;
+
+import static com.excelsiorjet.api.util.Txt.s;
+
+/**
+ * Built-in HTTP warm-up driver that exercises a server application (Tomcat or Spring Boot) during Test Run
+ * and profile runs, so that the collected profiles cover request handling rather than the server bootstrap only.
+ * <p>
+ * The driver waits until the application listens on its HTTP port, replays the configured requests
+ * with {@link #concurrency} parallel clients for {@link #duration} seconds, and then stops the application.
+ * All requests are sent to {@code localhost}: the scheme, host and port of absolute URLs are replaced
+ * with {@code http://localhost:<port>}.
+ * </p>
+ * The HTTP port is taken from the {@code server.xml} of Tomcat or from the {@code server.port} property
+ * of Spring Boot applications, unless {@link #port} is set.
+ */
+public class HttpWarmupConfig {
+
+    public static final int DEFAULT_CONCURRENCY = 4;
+    public static final int DEFAULT_DURATION = 60;
+    public static final int DEFAULT_READINESS_TIMEOUT = 120;
+    public static final int DEFAULT_REQUEST_TIMEOUT = 10;
+
+    /**
+     * URLs to request, for example {@code "/app/index.html"} or {@code "/api/orders?id=1"}.
+     */
+    public String[] urls;
+
+    /**
+     * Text file listing the requests, one per line, as {@code [METHOD] URL} (the method defaults to GET).
+     * Empty lines and lines starting with {@code #} are ignored.
+     */
+    public File urlsFile;
+
+    /**
+     * HAR (HTTP Archive) file recorded with a browser or a proxy, whose requests are replayed
+     * with their methods, headers and bodies.
+     */
+    public File harFile;
+
+    /**
+     * HTTP port of the application. If not set, the port is detected from the application configuration.
+     */
+    public int port;
+
+    /**
+     * Number of parallel clients. The default value is 4.
+     */
+    public int concurrency = DEFAULT_CONCURRENCY;
+
+    /**
+     * Warm-up duration in seconds, after which the application is stopped. The default value is 60.
+     */
+    public int duration = DEFAULT_DURATION;
+
+    /**
+     * Time in seconds to wait for the application to open its HTTP port. The default value is 120.
+     */
+    public int readinessTimeout = DEFAULT_READINESS_TIMEOUT;
+
+    /**
+     * Connect and read timeout of a single request in seconds. The default value is 10.
+     */
+    public int requestTimeout = DEFAULT_REQUEST_TIMEOUT;
+
+    public boolean isDefined() {
+        return !Utils.isEmpty(urls) || (urlsFile != null) || (harFile != null);
+    }
+
+    public void validate() throws JetTaskFailureException {
+        if (!isDefined()) {
+            return;
+        }
+        if ((urlsFile != null) && !urlsFile.isFile()) {
+            throw new JetTaskFailureException(s("JetApi.HttpWarmupFileNotFound.Failure", "urlsFile", urlsFile.getAbsolutePath()));
+        }
+        if ((harFile != null) && !harFile.isFile()) {
+            throw new JetTaskFailureException(s("JetApi.HttpWarmupFileNotFound.Failure", "harFile", harFile.getAbsolutePath()));
+        }
+        if ((port < 0) || (port > 0xFFFF)) {
+            throw new JetTaskFailureException(s("JetApi.InvalidHttpWarmupParameter.Failure", "port", port));
+        }
+        if (concurrency <= 0) {
+            throw new JetTaskFailureException(s("JetApi.InvalidHttpWarmupParameter.Failure", "concurrency", concurrency));
+        }
+        if (duration <= 0) {
+            throw new JetTaskFailureException(s("JetApi.InvalidHttpWarmupParameter.Failure", "duration", duration));
+        }
+        if (readinessTimeout <= 0) {
+            throw new JetTaskFailureException(s("JetApi.InvalidHttpWarmupParameter.Failure", "readinessTimeout", readinessTimeout));
+        }
+        if (requestTimeout <= 0) {
+            throw new JetTaskFailureException(s("JetApi.InvalidHttpWarmupParameter.Failure", "requestTimeout", requestTimeout));
+        }
+    }
+}
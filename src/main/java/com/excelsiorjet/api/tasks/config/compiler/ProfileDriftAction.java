@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks.config.compiler;
+
+import com.excelsiorjet.api.tasks.JetTaskFailureException;
+import com.excelsiorjet.api.util.Utils;
+
+import static com.excelsiorjet.api.util.Txt.s;
+
+/**
+ * Actions taken by a build if the application has drifted too far from the one the execution profiles
+ * were collected against.
+ *
+ * @see ExecProfilesConfig#profileDriftAction
+ */
+public enum ProfileDriftAction {
+    WARN,
+    FAIL,
+    RECOLLECT;
+
+    public String toString() {
+        return Utils.enumConstantNameToParameter(name());
+    }
+
+    public static ProfileDriftAction validate(String action) throws JetTaskFailureException {
+        try {
+            return ProfileDriftAction.valueOf(Utils.parameterToEnumConstantName(action));
+        } catch (Exception e) {
+            throw new JetTaskFailureException(s("JetApi.UnknownProfileDriftAction.Failure", action));
+        }
+    }
+
+    public static ProfileDriftAction fromString(String action) {
+        try {
+            return validate(action);
+        } catch (JetTaskFailureException e) {
+            throw new AssertionError("profileDriftAction should be valid here", e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks.config.compiler;
+
+import com.excelsiorjet.api.tasks.JetTaskFailureException;
+import com.excelsiorjet.api.tasks.config.LoadDriverConfig;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static com.excelsiorjet.api.util.Txt.s;
+
+/**
+ * Conditions for stopping the application during Test Run and profile runs.
+ * <p>
+ * The conditions complement {@link ExecProfilesConfig#testRunTimeout} and {@link ExecProfilesConfig#profileRunTimeout}:
+ * the application is stopped as soon as any of the configured conditions or the timeout fires,
+ * and the reason of the stop is logged.
+ * </p>
+ */
+public class StopConditionsConfig {
+
+    public static final int DEFAULT_CPU_IDLE_THRESHOLD = 2;
+
+    /**
+     * Regular expression that stops the application when a line of its stdout or stderr contains a match,
+     * for example {@code "Warm-up completed"}.
+     */
+    public String outputPattern;
+
+    /**
+     * Stops the application if it has printed nothing for the given number of seconds.
+     * If {@link #trackClassLoading} is set, the application is stopped if it has loaded no new classes instead.
+     */
+    public int quietPeriod;
+
+    /**
+     * If set, {@link #quietPeriod} is measured from the last class loading event rather than from the last output line.
+     * Class loading is tracked with the {@code -verbose:class} option of the JVM, so it is only available
+     * for Test Run and makes the application output considerably larger.
+     */
+    public boolean trackClassLoading;
+
+    /**
+     * Stops the application if its CPU usage stays below {@link #cpuIdleThreshold} for the given number of seconds.
+     */
+    public int cpuIdlePeriod;
+
+    /**
+     * CPU usage of the application, in percent of one CPU core, below which the application is considered idle.
+     * The default value is 2.
+     */
+    public int cpuIdleThreshold = DEFAULT_CPU_IDLE_THRESHOLD;
+
+    /**
+     * Workload driver started along with the application. The application is stopped once the driver
+     * completes its warm-up and measured runs.
+     */
+    public LoadDriverConfig workloadDriver = new LoadDriverConfig();
+
+    /**
+     * Built-in HTTP warm-up driver for server applications. The application is stopped once the warm-up is over.
+     */
+    public HttpWarmupConfig httpWarmup = new HttpWarmupConfig();
+
+    public boolean isDefined() {
+        return (outputPattern != null) || (quietPeriod > 0) || (cpuIdlePeriod > 0) || workloadDriver.isDefined() ||
+                httpWarmup.isDefined();
+    }
+
+    public void validate() throws JetTaskFailureException {
+        if (outputPattern != null) {
+            try {
+                Pattern.compile(outputPattern);
+            } catch (PatternSyntaxException e) {
+                throw new JetTaskFailureException(s("JetApi.InvalidStopOutputPattern.Failure", outputPattern, e.getDescription()));
+            }
+        }
+        if (quietPeriod < 0) {
+            throw new JetTaskFailureException(s("JetApi.InvalidStopCondition.Failure", "quietPeriod", quietPeriod));
+        }
+        if (cpuIdlePeriod < 0) {
+            throw new JetTaskFailureException(s("JetApi.InvalidStopCondition.Failure", "cpuIdlePeriod", cpuIdlePeriod));
+        }
+        if ((cpuIdleThreshold <= 0) || (cpuIdleThreshold > 100)) {
+            throw new JetTaskFailureException(s("JetApi.InvalidStopCondition.Failure", "cpuIdleThreshold", cpuIdleThreshold));
+        }
+        if (workloadDriver == null) {
+            workloadDriver = new LoadDriverConfig();
+        }
+        workloadDriver.validate();
+        if (httpWarmup == null) {
+            httpWarmup = new HttpWarmupConfig();
+        }
+        httpWarmup.validate();
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.tasks.config.compiler;
+
+import com.excelsiorjet.api.tasks.JetTaskFailureException;
+import com.excelsiorjet.api.tasks.TestRunTask;
+import com.excelsiorjet.api.util.Utils;
+
+import static com.excelsiorjet.api.util.Txt.s;
+
+/**
+ * Named workload scenario of the Test Run.
+ * <p>
+ * If several scenarios are configured, {@link TestRunTask} runs the application once per scenario
+ * and merges the usage lists collected by the scenarios into the resulting {@code .usg} profile.
+ * </p>
+ *
+ * @see ExecProfilesConfig#testRunScenarios
+ */
+public class TestRunScenario {
+
+    /**
+     * Scenario name, also used as the name of the scenario working directory. Required.
+     */
+    public String name;
+
+    /**
+     * Command line arguments of the application for the scenario.
+     * If not set, {@code runArgs} of the project are used.
+     */
+    public String[] args;
+
+    /**
+     * JVM arguments of the scenario that are added to {@code jvmArgs} of the project.
+     */
+    public String[] jvmArgs;
+
+    /**
+     * Timeout of the scenario run in seconds. If not set, {@link ExecProfilesConfig#testRunTimeout} is used.
+     */
+    public int timeout;
+
+    void validate() throws JetTaskFailureException {
+        if (Utils.isEmpty(name)) {
+            throw new JetTaskFailureException(s("JetApi.TestRunScenarioNameNull.Failure"));
+        }
+        if (!name.matches("[A-Za-z0-9_.\\-]+")) {
+            throw new JetTaskFailureException(s("JetApi.TestRunScenarioInvalidName.Failure", name));
+        }
+        if (timeout < 0) {
+            throw new JetTaskFailureException(s("JetApi.TestRunScenarioNegativeTimeout.Failure", name));
+        }
+        if (jvmArgs == null) {
+            jvmArgs = new String[0];
+        }
+    }
+}
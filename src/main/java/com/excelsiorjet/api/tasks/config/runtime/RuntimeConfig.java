@@ -87,6 +87,15 @@ public class RuntimeConfig {
      */
     public String[] locales;
 
+    /**
+     * If set, the {@link #components} and {@link #locales} that are not set explicitly are selected
+     * automatically during the build from the classes and resources of the application
+     * and the Test Run usage list, if any.
+     *
+     * @see RuntimeUsageTask
+     */
+    public boolean autoSelect;
+
     /**
      * Java SE API subset to be included in the package.
      * Java SE 8 defines three subsets of the standard Platform API called compact profiles.
@@ -139,6 +148,23 @@ public class RuntimeConfig {
      */
     public SlimDownConfig slimDown;
 
+    /**
+     * Returns a copy of this configuration that can be changed independently of it.
+     * The slim-down configuration is shared.
+     */
+    public RuntimeConfig copy() {
+        RuntimeConfig copy = new RuntimeConfig();
+        copy.flavor = flavor;
+        copy.location = location;
+        copy.components = components;
+        copy.locales = locales;
+        copy.autoSelect = autoSelect;
+        copy.profile = profile;
+        copy.diskFootprintReduction = diskFootprintReduction;
+        copy.slimDown = slimDown;
+        return copy;
+    }
+
     public void fillDefaults(JetProject jetProject, ExcelsiorJet excelsiorJet) throws JetTaskFailureException {
 
         if (flavor != null) {
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts a stream of lines of arbitrary length in bounded memory.
+ * <p>
+ * Lines are collected in memory up to the given limit, then sorted and written to a temporary run file.
+ * The runs are merged when the sorted lines are read, so at most {@code maxLinesInMemory} lines
+ * and one buffered line per run are held in memory. Duplicate lines are dropped.
+ * </p>
+ */
+public final class ExternalSort implements Closeable {
+
+    /**
+     * Sequence of lines read one at a time.
+     */
+    public interface Lines extends Closeable {
+
+        /**
+         * @return the next line or {@code null} if there are no more lines
+         */
+        String next() throws IOException;
+    }
+
+    private final File tempDir;
+    private final int maxLinesInMemory;
+    private final List<String> buffer = new ArrayList<>();
+    private final List<Path> runs = new ArrayList<>();
+
+    public ExternalSort(File tempDir, int maxLinesInMemory) {
+        if (maxLinesInMemory <= 0) {
+            throw new IllegalArgumentException("maxLinesInMemory: " + maxLinesInMemory);
+        }
+        this.tempDir = tempDir;
+        this.maxLinesInMemory = maxLinesInMemory;
+    }
+
+    public void add(String line) throws IOException {
+        buffer.add(line);
+        if (buffer.size() >= maxLinesInMemory) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        Collections.sort(buffer);
+        Files.createDirectories(tempDir.toPath());
+        Path run = Files.createTempFile(tempDir.toPath(), "sort", ".run");
+        runs.add(run);
+        try (BufferedWriter out = Files.newBufferedWriter(run, StandardCharsets.UTF_8)) {
+            String previous = null;
+            for (String line : buffer) {
+                if (!line.equals(previous)) {
+                    out.write(line);
+                    out.newLine();
+                    previous = line;
+                }
+            }
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Returns the added lines in the natural order without duplicates. No lines may be added afterwards.
+     */
+    public Lines sorted() throws IOException {
+        if (runs.isEmpty()) {
+            Collections.sort(buffer);
+            Iterator<String> lines = buffer.iterator();
+            return new Lines() {
+                String previous;
+
+                @Override
+                public String next() {
+                    while (lines.hasNext()) {
+                        String line = lines.next();
+                        if (!line.equals(previous)) {
+                            previous = line;
+                            return line;
+                        }
+                    }
+                    return null;
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+        if (!buffer.isEmpty()) {
+            flush();
+        }
+        return new Merge(runs);
+    }
+
+    /**
+     * Deletes the run files.
+     */
+    @Override
+    public void close() throws IOException {
+        for (Path run : runs) {
+            Files.deleteIfExists(run);
+        }
+        runs.clear();
+        buffer.clear();
+    }
+
+    private static final class Run implements Comparable<Run> {
+        final BufferedReader reader;
+        String line;
+
+        Run(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        boolean advance() throws IOException {
+            line = reader.readLine();
+            return line != null;
+        }
+
+        @Override
+        public int compareTo(Run other) {
+            return line.compareTo(other.line);
+        }
+    }
+
+    private static final class Merge implements Lines {
+        private final PriorityQueue<Run> queue = new PriorityQueue<>();
+        private final List<Run> opened = new ArrayList<>();
+        private String previous;
+
+        Merge(List<Path> runs) throws IOException {
+            try {
+                for (Path path : runs) {
+                    Run run = new Run(Files.newBufferedReader(path, StandardCharsets.UTF_8));
+                    opened.add(run);
+                    if (run.advance()) {
+                        queue.add(run);
+                    }
+                }
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        @Override
+        public String next() throws IOException {
+            while (!queue.isEmpty()) {
+                Run run = queue.poll();
+                String line = run.line;
+                if (run.advance()) {
+                    queue.add(run);
+                }
+                if (!line.equals(previous)) {
+                    previous = line;
+                    return line;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (Run run : opened) {
+                run.reader.close();
+            }
+        }
+    }
+}
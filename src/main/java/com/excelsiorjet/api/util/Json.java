@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON writer for reports produced by tasks and reader for JSON inputs of tasks.
+ * <p>
+ * Supports maps (written as objects in their iteration order), collections and arrays,
+ * numbers, booleans, {@code null} and strings. Any other value is written as its string representation.
+ * Non-finite numbers are written as {@code null}.
+ * </p>
+ */
+public class Json {
+
+    private static final String INDENT = "  ";
+
+    public static String toJson(Object value) {
+        StringBuilder out = new StringBuilder();
+        write(out, value, "");
+        return out.append(System.lineSeparator()).toString();
+    }
+
+    /**
+     * Parses the given JSON text.
+     *
+     * @return {@link Map} for an object (in the order of its members), {@link List} for an array,
+     *         {@link String}, {@link Double}, {@link Boolean} or {@code null} for the respective JSON values
+     * @throws IllegalArgumentException if the text is not a valid JSON
+     */
+    public static Object parse(String text) {
+        Parser parser = new Parser(text);
+        Object value = parser.value();
+        parser.skipWhitespace();
+        if (parser.pos != text.length()) {
+            throw parser.error();
+        }
+        return value;
+    }
+
+    private static void write(StringBuilder out, Object value, String indent) {
+        if (value == null) {
+            out.append("null");
+        } else if (value instanceof Map) {
+            writeObject(out, (Map<?, ?>) value, indent);
+        } else if (value instanceof Collection) {
+            writeArray(out, ((Collection<?>) value).iterator(), indent);
+        } else if (value instanceof Object[]) {
+            writeArray(out, Arrays.asList((Object[]) value).iterator(), indent);
+        } else if ((value instanceof Double) || (value instanceof Float)) {
+            double d = ((Number) value).doubleValue();
+            out.append(Double.isNaN(d) || Double.isInfinite(d) ? "null" : value.toString());
+        } else if ((value instanceof Number) || (value instanceof Boolean)) {
+            out.append(value);
+        } else {
+            quote(out, value.toString());
+        }
+    }
+
+    private static void writeObject(StringBuilder out, Map<?, ?> map, String indent) {
+        if (map.isEmpty()) {
+            out.append("{}");
+            return;
+        }
+        String nested = indent + INDENT;
+        out.append('{');
+        boolean first = true;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            out.append(first ? "" : ",").append(System.lineSeparator()).append(nested);
+            quote(out, String.valueOf(entry.getKey()));
+            out.append(": ");
+            write(out, entry.getValue(), nested);
+            first = false;
+        }
+        out.append(System.lineSeparator()).append(indent).append('}');
+    }
+
+    private static void writeArray(StringBuilder out, Iterator<?> items, String indent) {
+        if (!items.hasNext()) {
+            out.append("[]");
+            return;
+        }
+        String nested = indent + INDENT;
+        out.append('[');
+        boolean first = true;
+        while (items.hasNext()) {
+            out.append(first ? "" : ",").append(System.lineSeparator()).append(nested);
+            write(out, items.next(), nested);
+            first = false;
+        }
+        out.append(System.lineSeparator()).append(indent).append(']');
+    }
+
+    private static void quote(StringBuilder out, String s) {
+        out.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+
+    private static class Parser {
+
+        private final String text;
+        private int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Object value() {
+            skipWhitespace();
+            if (pos >= text.length()) {
+                throw error();
+            }
+            char c = text.charAt(pos);
+            switch (c) {
+                case '{':
+                    return object();
+                case '[':
+                    return array();
+                case '"':
+                    return string();
+                case 't':
+                    return literal("true", Boolean.TRUE);
+                case 'f':
+                    return literal("false", Boolean.FALSE);
+                case 'n':
+                    return literal("null", null);
+                default:
+                    return number();
+            }
+        }
+
+        private Map<String, Object> object() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            pos++;
+            skipWhitespace();
+            if (consume('}')) {
+                return map;
+            }
+            do {
+                skipWhitespace();
+                if ((pos >= text.length()) || (text.charAt(pos) != '"')) {
+                    throw error();
+                }
+                String key = string();
+                skipWhitespace();
+                expect(':');
+                map.put(key, value());
+                skipWhitespace();
+            } while (consume(','));
+            expect('}');
+            return map;
+        }
+
+        private List<Object> array() {
+            List<Object> list = new ArrayList<>();
+            pos++;
+            skipWhitespace();
+            if (consume(']')) {
+                return list;
+            }
+            do {
+                list.add(value());
+                skipWhitespace();
+            } while (consume(','));
+            expect(']');
+            return list;
+        }
+
+        private String string() {
+            StringBuilder out = new StringBuilder();
+            pos++;
+            while (pos < text.length()) {
+                char c = text.charAt(pos++);
+                if (c == '"') {
+                    return out.toString();
+                } else if (c != '\\') {
+                    out.append(c);
+                } else if (pos < text.length()) {
+                    char escaped = text.charAt(pos++);
+                    switch (escaped) {
+                        case 'b':
+                            out.append('\b');
+                            break;
+                        case 'f':
+                            out.append('\f');
+                            break;
+                        case 'n':
+                            out.append('\n');
+                            break;
+                        case 'r':
+                            out.append('\r');
+                            break;
+                        case 't':
+                            out.append('\t');
+                            break;
+                        case 'u':
+                            if (pos + 4 > text.length()) {
+                                throw error();
+                            }
+                            try {
+                                out.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                            } catch (NumberFormatException e) {
+                                throw error();
+                            }
+                            pos += 4;
+                            break;
+                        default:
+                            out.append(escaped);
+                    }
+                }
+            }
+            throw error();
+        }
+
+        private Double number() {
+            int start = pos;
+            while ((pos < text.length()) && ("+-.eE".indexOf(text.charAt(pos)) >= 0 || Character.isDigit(text.charAt(pos)))) {
+                pos++;
+            }
+            try {
+                return Double.valueOf(text.substring(start, pos));
+            } catch (NumberFormatException e) {
+                pos = start;
+                throw error();
+            }
+        }
+
+        private Object literal(String literal, Object value) {
+            if (!text.startsWith(literal, pos)) {
+                throw error();
+            }
+            pos += literal.length();
+            return value;
+        }
+
+        void skipWhitespace() {
+            while ((pos < text.length()) && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private boolean consume(char c) {
+            if ((pos < text.length()) && (text.charAt(pos) == c)) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!consume(c)) {
+                throw error();
+            }
+        }
+
+        IllegalArgumentException error() {
+            return new IllegalArgumentException("Invalid JSON at position " + pos);
+        }
+    }
+}
@@ -32,8 +32,14 @@ import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
 
 import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
 import java.nio.file.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -99,7 +105,36 @@ public class Utils {
 
     }
 
+    /**
+     * Makes {@code target} a hard link to {@code source}, or a copy of it if the file system does not
+     * support hard links between these locations.
+     */
+    public static void linkOrCopyFile(Path source, Path target) throws IOException {
+        if (Files.exists(target)) {
+            if (Files.isSameFile(source, target)) {
+                return;
+            }
+            Files.delete(target);
+        }
+        try {
+            Files.createLink(target, source);
+        } catch (UnsupportedOperationException | IOException e) {
+            copyFile(source, target);
+        }
+    }
+
     public static void copyDirectory(Path source, Path target) throws IOException {
+        copyDirectory(source, target, false);
+    }
+
+    /**
+     * Recreates the given directory with the files hard linked as by {@link #linkOrCopyFile(Path, Path)}.
+     */
+    public static void linkOrCopyDirectory(Path source, Path target) throws IOException {
+        copyDirectory(source, target, true);
+    }
+
+    private static void copyDirectory(Path source, Path target, boolean link) throws IOException {
         Files.walkFileTree(source, new FileVisitor<Path>() {
 
             @Override
@@ -111,7 +146,11 @@ public class Utils {
             @Override
             public FileVisitResult visitFile(Path sourceFile, BasicFileAttributes attrs) throws IOException {
                 Path targetFile = target.resolve(source.relativize(sourceFile));
-                copyFile(sourceFile, targetFile);
+                if (link) {
+                    linkOrCopyFile(sourceFile, targetFile);
+                } else {
+                    copyFile(sourceFile, targetFile);
+                }
                 return FileVisitResult.CONTINUE;
             }
 
@@ -135,6 +174,66 @@ public class Utils {
         return (strings == null) || (strings.length == 0);
     }
 
+    /**
+     * Computes SHA-256 digest of the given file in hex. For a directory, the digest covers
+     * relative paths and contents of all files within the directory.
+     */
+    public static String sha256(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+        if (file.isDirectory()) {
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(file.toPath())) {
+                files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+            for (Path f : files) {
+                digest.update(file.toPath().relativize(f).toString().replace(File.separatorChar, '/')
+                        .getBytes(StandardCharsets.UTF_8));
+                updateDigest(digest, f.toFile());
+            }
+        } else {
+            updateDigest(digest, file);
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Encodes the given bytes as a lowercase hex string.
+     */
+    public static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static void updateDigest(MessageDigest digest, File file) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = new FileInputStream(file)) {
+            int len;
+            while ((len = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, len);
+            }
+        }
+    }
+
+    /**
+     * Returns the size of the given file or the total size of all files within the given directory.
+     */
+    public static long sizeOf(File file) throws IOException {
+        if (!file.isDirectory()) {
+            return file.length();
+        }
+        try (Stream<Path> walk = Files.walk(file.toPath())) {
+            return walk.filter(Files::isRegularFile).mapToLong(p -> p.toFile().length()).sum();
+        }
+    }
+
     public static String randomAlphanumeric(int count) {
         char[] chars = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9',
                 'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'i', 'j', 'k', 'l', 'm', 'n', 'o', 'p', 'q', 'r', 's', 't', 'u', 'v', 'w', 'x', 'y', 'z',
@@ -343,4 +442,17 @@ public class Utils {
         }
         return file;
     }
+
+    /**
+     * Checks whether a server accepts connections on the given loopback {@code port}
+     * within {@code timeout} milliseconds.
+     */
+    public static boolean isLoopbackPortOpen(int port, int timeout) {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), timeout);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
 }
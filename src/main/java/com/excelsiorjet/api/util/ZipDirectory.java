@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2018, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET API.
+ *
+ *  Excelsior JET API is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET API is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET API.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.api.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipException;
+
+/**
+ * Reader of the central directory of a zip (jar) file.
+ * <p>
+ * Only the end of the file and the central directory are mapped into memory, so listing the entries
+ * of a jar neither reads nor inflates their contents. Zip64 archives and archives with a prefix
+ * (such as self-extracting executables) are supported.
+ * </p>
+ */
+public final class ZipDirectory {
+
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int EOCD_SIZE = 22;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int ZIP64_LOCATOR_SIZE = 20;
+    private static final int ZIP64_EOCD_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_EOCD_SIZE = 56;
+    private static final int CEN_SIGNATURE = 0x02014b50;
+    private static final int CEN_HEADER_SIZE = 46;
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+    /**
+     * Entry of the central directory.
+     */
+    public static final class Entry {
+        public final String name;
+        public final long size;
+        public final long compressedSize;
+
+        Entry(String name, long size, long compressedSize) {
+            this.name = name;
+            this.size = size;
+            this.compressedSize = compressedSize;
+        }
+
+        public boolean isDirectory() {
+            return name.endsWith("/");
+        }
+    }
+
+    private ZipDirectory() {
+    }
+
+    /**
+     * Returns the entries of the given zip file in the order of its central directory.
+     *
+     * @throws ZipException if the file is not a zip file or its central directory is damaged
+     */
+    public static List<Entry> read(File zip) throws IOException {
+        try (FileChannel channel = FileChannel.open(zip.toPath(), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < EOCD_SIZE) {
+                throw new ZipException(zip.getPath());
+            }
+            long tailStart = Math.max(0, fileSize - EOCD_SIZE - MAX_COMMENT_SIZE - ZIP64_LOCATOR_SIZE);
+            ByteBuffer tail = map(channel, tailStart, fileSize - tailStart);
+            int eocd = findEndOfCentralDirectory(tail);
+            if (eocd < 0) {
+                throw new ZipException(zip.getPath());
+            }
+            long entries = tail.getShort(eocd + 10) & 0xFFFF;
+            long cenSize = tail.getInt(eocd + 12) & ZIP64_MAGIC;
+            long cenOffset = tail.getInt(eocd + 16) & ZIP64_MAGIC;
+            // the central directory immediately precedes the end records
+            long cenEnd = tailStart + eocd;
+
+            int locator = eocd - ZIP64_LOCATOR_SIZE;
+            if ((locator >= 0) && (tail.getInt(locator) == ZIP64_LOCATOR_SIGNATURE)) {
+                long zip64Eocd = tail.getLong(locator + 8);
+                ByteBuffer record = map(channel, zip64Eocd, ZIP64_EOCD_SIZE);
+                if (record.getInt(0) == ZIP64_EOCD_SIGNATURE) {
+                    entries = record.getLong(32);
+                    cenSize = record.getLong(40);
+                    cenOffset = record.getLong(48);
+                    cenEnd = zip64Eocd;
+                }
+            }
+            if ((cenSize > Integer.MAX_VALUE) || (cenSize > cenEnd)) {
+                throw new ZipException(zip.getPath());
+            }
+            if (entries == 0) {
+                return Collections.emptyList();
+            }
+            // for archives with a prefix, offsets are relative to the beginning of the archive, not of the file
+            long cenStart = cenEnd - cenSize;
+            if (cenOffset != cenStart) {
+                ByteBuffer probe = map(channel, cenOffset, Math.min(4, fileSize - cenOffset));
+                if ((probe.limit() == 4) && (probe.getInt(0) == CEN_SIGNATURE)) {
+                    cenStart = cenOffset;
+                }
+            }
+            return readEntries(zip, map(channel, cenStart, cenSize), entries);
+        }
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    private static int findEndOfCentralDirectory(ByteBuffer tail) {
+        for (int i = tail.limit() - EOCD_SIZE; i >= 0; i--) {
+            if ((tail.getInt(i) == EOCD_SIGNATURE) &&
+                    (i + EOCD_SIZE + (tail.getShort(i + 20) & 0xFFFF) == tail.limit()))
+            {
+                return i;
+            }
+        }
+        // tolerate trailing garbage after the comment
+        for (int i = tail.limit() - EOCD_SIZE; i >= 0; i--) {
+            if (tail.getInt(i) == EOCD_SIGNATURE) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static List<Entry> readEntries(File zip, ByteBuffer cen, long count) throws ZipException {
+        List<Entry> entries = new ArrayList<>((int) Math.min(count, 1 << 16));
+        byte[] name = new byte[256];
+        int pos = 0;
+        while (pos + CEN_HEADER_SIZE <= cen.limit()) {
+            if (cen.getInt(pos) != CEN_SIGNATURE) {
+                throw new ZipException(zip.getPath());
+            }
+            long compressedSize = cen.getInt(pos + 20) & ZIP64_MAGIC;
+            long size = cen.getInt(pos + 24) & ZIP64_MAGIC;
+            int nameLength = cen.getShort(pos + 28) & 0xFFFF;
+            int extraLength = cen.getShort(pos + 30) & 0xFFFF;
+            int commentLength = cen.getShort(pos + 32) & 0xFFFF;
+            int next = pos + CEN_HEADER_SIZE + nameLength + extraLength + commentLength;
+            if (next > cen.limit()) {
+                throw new ZipException(zip.getPath());
+            }
+            if (name.length < nameLength) {
+                name = new byte[nameLength];
+            }
+            for (int i = 0; i < nameLength; i++) {
+                name[i] = cen.get(pos + CEN_HEADER_SIZE + i);
+            }
+            if ((size == ZIP64_MAGIC) || (compressedSize == ZIP64_MAGIC)) {
+                int extra = pos + CEN_HEADER_SIZE + nameLength;
+                int extraEnd = extra + extraLength;
+                while (extra + 4 <= extraEnd) {
+                    int id = cen.getShort(extra) & 0xFFFF;
+                    int length = cen.getShort(extra + 2) & 0xFFFF;
+                    if (id == ZIP64_EXTRA_ID) {
+                        // only the values that overflowed are present, in this order
+                        int field = extra + 4;
+                        if ((size == ZIP64_MAGIC) && (field + 8 <= extraEnd)) {
+                            size = cen.getLong(field);
+                            field += 8;
+                        }
+                        if ((compressedSize == ZIP64_MAGIC) && (field + 8 <= extraEnd)) {
+                            compressedSize = cen.getLong(field);
+                        }
+                        break;
+                    }
+                    extra += 4 + length;
+                }
+            }
+            entries.add(new Entry(new String(name, 0, nameLength, StandardCharsets.UTF_8), size, compressedSize));
+            pos = next;
+        }
+        return entries;
+    }
+}
@@ -8,6 +8,9 @@ import com.excelsiorjet.api.util.Utils;
 import org.junit.Test;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
@@ -50,6 +53,20 @@ public class CmdLineToolTest {
         verify(log).info("Hello world!");
     }
 
+    @Test
+    public void executeWithLogFilter() throws CmdLineToolException {
+        List<String> heard = new ArrayList<>();
+        assertEquals(0,
+                new CmdLineTool(getJavaExe(), "testClasses/HelloWorld")
+                .withLog(log)
+                .withOutputListener(heard::add)
+                .withLogFilter(line -> !line.startsWith("Hello"))
+                .workingDirectory(TestUtils.workDir())
+                .execute());
+        assertEquals(Collections.singletonList("Hello world!"), heard);
+        verify(log, never()).info("Hello world!");
+    }
+
     @Test
     public void executePatchedEnv() throws CmdLineToolException {
         assertEquals(0,
@@ -0,0 +1,224 @@
+package com.excelsiorjet;
+
+import com.excelsiorjet.api.ExcelsiorJet;
+import com.excelsiorjet.api.JetEdition;
+import com.excelsiorjet.api.JetHome;
+import com.excelsiorjet.api.JetHomeException;
+import com.excelsiorjet.api.log.Log;
+import com.excelsiorjet.api.platform.CpuArch;
+import com.excelsiorjet.api.platform.Host;
+import testClasses.FakeJetTool;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+/**
+ * Fake Excelsior JET home with {@code jc}, {@code xpack} and {@code xjava} launchers
+ * that run {@link FakeJetTool} instead of the real tools.
+ * <p>
+ * Unlike {@link TestUtils#getOrCreateFakeJetHome()}, whose tools are empty files, this toolchain can be executed:
+ * {@code jc} reports the configured version and edition and produces a placeholder executable,
+ * {@code xpack} produces a self-contained directory, zip or installer placeholder,
+ * and {@code xjava} runs the application on the JVM that runs the tests.
+ * Latency, output volume, memory use and exit code of every tool are configurable,
+ * so that the build pipeline and run/stop logic can be exercised at scale without a JET installation.
+ * </p>
+ * <p>
+ * The launchers are shell scripts, so the toolchain is supported on Unix hosts only, see {@link #isSupported()}.
+ * </p>
+ */
+public class FakeJetToolchain {
+
+    /**
+     * Simulated behavior of a single tool.
+     */
+    public static class Tool {
+
+        private final String name;
+        private long latency;
+        private int outputLines;
+        private int memoryMb;
+        private int exitCode;
+
+        Tool(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Sets the time in milliseconds the tool spends before producing its results.
+         */
+        public Tool latency(long latency) {
+            this.latency = latency;
+            return this;
+        }
+
+        /**
+         * Sets the number of lines the tool prints to its standard output besides the banner.
+         */
+        public Tool outputLines(int outputLines) {
+            this.outputLines = outputLines;
+            return this;
+        }
+
+        /**
+         * Sets the amount of memory in megabytes the tool allocates and keeps until exit.
+         */
+        public Tool memoryMb(int memoryMb) {
+            this.memoryMb = memoryMb;
+            return this;
+        }
+
+        /**
+         * Sets the exit code of the tool. The tool produces no results if the exit code is not zero.
+         */
+        public Tool exitCode(int exitCode) {
+            this.exitCode = exitCode;
+            return this;
+        }
+
+        private void store(Properties props) {
+            props.setProperty(name + ".latency", String.valueOf(latency));
+            props.setProperty(name + ".outputLines", String.valueOf(outputLines));
+            props.setProperty(name + ".memoryMb", String.valueOf(memoryMb));
+            props.setProperty(name + ".exitCode", String.valueOf(exitCode));
+        }
+    }
+
+    private static final int LAUNCHER_HEAP_RESERVE_MB = 64;
+
+    private final File home;
+
+    private int version = 1500;
+    private JetEdition edition = JetEdition.ENTERPRISE;
+    private CpuArch cpu = CpuArch.AMD64;
+    private int exeSizeKb;
+
+    private final Tool jc = new Tool("jc");
+    private final Tool xpack = new Tool("xpack");
+    private final Tool xjava = new Tool("xjava");
+
+    public FakeJetToolchain(File home) {
+        this.home = home;
+    }
+
+    public static boolean isSupported() {
+        return Host.isUnix();
+    }
+
+    /**
+     * Sets the Excelsior JET version "multiplied by 100", i.e. 1500 means 15.0.
+     */
+    public FakeJetToolchain version(int version) {
+        this.version = version;
+        return this;
+    }
+
+    public FakeJetToolchain edition(JetEdition edition) {
+        this.edition = edition;
+        return this;
+    }
+
+    public FakeJetToolchain cpu(CpuArch cpu) {
+        this.cpu = cpu;
+        return this;
+    }
+
+    /**
+     * Sets the approximate size in kilobytes of the placeholder executables produced by {@code jc}.
+     */
+    public FakeJetToolchain exeSizeKb(int exeSizeKb) {
+        this.exeSizeKb = exeSizeKb;
+        return this;
+    }
+
+    public Tool jc() {
+        return jc;
+    }
+
+    public Tool xpack() {
+        return xpack;
+    }
+
+    public Tool xjava() {
+        return xjava;
+    }
+
+    public File home() {
+        return home;
+    }
+
+    private File binDir() {
+        return new File(home, "bin");
+    }
+
+    private String banner() {
+        String versionString = (version / 100) + "." + (version % 100 / 10);
+        String cpuString;
+        switch (cpu) {
+            case AMD64:
+                cpuString = " (64-bit)";
+                break;
+            case ARM32:
+                cpuString = " for ARM";
+                break;
+            default:
+                cpuString = "";
+        }
+        return "Excelsior JET " + versionString + " " + edition.fullEditionName() + cpuString;
+    }
+
+    private void writeLauncher(Tool tool) throws IOException {
+        File launcher = new File(binDir(), tool.name);
+        String java = new File(new File(System.getProperty("java.home"), "bin"), "java").getAbsolutePath();
+        try (PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(launcher), StandardCharsets.UTF_8))) {
+            out.println("#!/bin/sh");
+            out.println("exec \"" + java + "\" -Xmx" + (tool.memoryMb + LAUNCHER_HEAP_RESERVE_MB) + "m" +
+                    " -Dfake.jet.bin=\"" + binDir().getAbsolutePath() + "\"" +
+                    " -cp \"" + TestUtils.workDir().getAbsolutePath() + "\"" +
+                    " " + FakeJetTool.class.getName() + " " + tool.name + " \"$@\"");
+        }
+        if (!launcher.setExecutable(true)) {
+            throw new IOException("Cannot make " + launcher + " executable");
+        }
+    }
+
+    /**
+     * Creates the fake Excelsior JET home or updates the behavior of its tools if it already exists.
+     *
+     * @return the created Excelsior JET home
+     */
+    public JetHome create() throws IOException, JetHomeException {
+        File bin = binDir();
+        if (!bin.isDirectory() && !bin.mkdirs()) {
+            throw new IOException("Cannot create " + bin);
+        }
+        File[] markers = bin.listFiles((dir, name) -> name.startsWith("jet") && name.endsWith(".home"));
+        if (markers != null) {
+            for (File marker : markers) {
+                marker.delete();
+            }
+        }
+        new File(bin, "jet" + version + ".home").createNewFile();
+        new File(bin, "jet.config").createNewFile();
+
+        Properties props = new Properties();
+        props.setProperty("banner", banner());
+        props.setProperty("jc.exeSizeKb", String.valueOf(exeSizeKb));
+        for (Tool tool : new Tool[]{jc, xpack, xjava}) {
+            tool.store(props);
+            writeLauncher(tool);
+        }
+        try (OutputStream out = new FileOutputStream(new File(bin, FakeJetTool.PROPERTIES_FILE))) {
+            props.store(out, null);
+        }
+        return new JetHome(home.getAbsolutePath());
+    }
+
+    /**
+     * Creates the fake Excelsior JET home and an {@link ExcelsiorJet} instance for it.
+     */
+    public ExcelsiorJet createExcelsiorJet(Log logger) throws IOException, JetHomeException {
+        return new ExcelsiorJet(create(), logger);
+    }
+}
@@ -0,0 +1,161 @@
+package com.excelsiorjet;
+
+import com.excelsiorjet.api.ExcelsiorJet;
+import com.excelsiorjet.api.JetEdition;
+import com.excelsiorjet.api.JetHome;
+import com.excelsiorjet.api.cmd.CmdLineTool;
+import com.excelsiorjet.api.log.Log;
+import com.excelsiorjet.api.platform.CpuArch;
+import com.excelsiorjet.api.platform.OS;
+import com.excelsiorjet.api.util.Utils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Mockito.mock;
+
+public class FakeJetToolchainTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private Log log = mock(Log.class);
+
+    @Before
+    public void unixOnly() {
+        assumeTrue(FakeJetToolchain.isSupported());
+    }
+
+    private int homes;
+
+    private FakeJetToolchain toolchain() throws Exception {
+        return new FakeJetToolchain(temp.newFolder("jet" + homes++));
+    }
+
+    @Test
+    public void detectsVersionEditionAndCpu() throws Exception {
+        ExcelsiorJet excelsiorJet = toolchain()
+                .version(1260).edition(JetEdition.PROFESSIONAL).cpu(CpuArch.X86)
+                .createExcelsiorJet(log);
+        assertEquals(JetEdition.PROFESSIONAL, excelsiorJet.getEdition());
+        assertTrue(excelsiorJet.since12_0());
+        // slim-down is available on x86 only
+        assertTrue(excelsiorJet.isSlimDownSupported());
+
+        excelsiorJet = toolchain().edition(JetEdition.EMBEDDED).cpu(CpuArch.ARM32).createExcelsiorJet(log);
+        assertEquals(JetEdition.EMBEDDED, excelsiorJet.getEdition());
+        assertEquals(OS.LINUX, excelsiorJet.getTargetOS());
+        assertFalse(excelsiorJet.isSlimDownSupported());
+        assertTrue(excelsiorJet.isPGOSupported());
+    }
+
+    @Test
+    public void compileProducesExecutableWithConfiguredLatencyAndOutput() throws Exception {
+        FakeJetToolchain toolchain = toolchain().exeSizeKb(100);
+        toolchain.jc().latency(500).outputLines(1000);
+        ExcelsiorJet excelsiorJet = toolchain.createExcelsiorJet(log);
+
+        File buildDir = temp.newFolder("build");
+        Files.write(new File(buildDir, "app.prj").toPath(), Arrays.asList("-outputname=app", "-decor=ht"),
+                StandardCharsets.UTF_8);
+        AtomicInteger lines = new AtomicInteger();
+        long start = System.currentTimeMillis();
+        int exitCode = new CmdLineTool(new File(toolchain.home(), "bin/jc").getAbsolutePath(), "=p", "app.prj")
+                .workingDirectory(buildDir)
+                .withLog(log)
+                .withOutputListener(line -> lines.incrementAndGet())
+                .execute();
+        assertEquals(0, exitCode);
+        assertTrue(System.currentTimeMillis() - start >= 500);
+        assertTrue(lines.get() >= 1000);
+
+        File exe = new File(buildDir, excelsiorJet.getTargetOS().mangleExeName("app"));
+        assertTrue(exe.canExecute());
+        assertTrue(exe.length() >= 100 * 1024);
+    }
+
+    @Test
+    public void exitCodeIsReported() throws Exception {
+        FakeJetToolchain toolchain = toolchain();
+        toolchain.jc().exitCode(3);
+        ExcelsiorJet excelsiorJet = toolchain.createExcelsiorJet(log);
+        File buildDir = temp.newFolder("build");
+        Files.write(new File(buildDir, "app.prj").toPath(), Arrays.asList("-outputname=app"), StandardCharsets.UTF_8);
+        assertEquals(3, excelsiorJet.compile(buildDir, "=p", "app.prj"));
+        assertFalse(new File(buildDir, "app").exists());
+
+        // behavior can be changed for an existing home
+        toolchain.jc().exitCode(0);
+        toolchain.create();
+        assertEquals(0, excelsiorJet.compile(buildDir, "=p", "app.prj"));
+        assertTrue(new File(buildDir, "app").exists());
+    }
+
+    @Test
+    public void packProducesAppDirectoryAndZip() throws Exception {
+        ExcelsiorJet excelsiorJet = toolchain().createExcelsiorJet(log);
+        File buildDir = temp.newFolder("build");
+        Files.write(new File(buildDir, "app").toPath(), Arrays.asList("exe"), StandardCharsets.UTF_8);
+        File packageFiles = temp.newFolder("packageFiles");
+        Files.write(new File(packageFiles, "README").toPath(), Arrays.asList("readme"), StandardCharsets.UTF_8);
+        File lib = new File(buildDir, "lib.jar");
+        Files.write(lib.toPath(), Arrays.asList("jar"), StandardCharsets.UTF_8);
+        File rsp = new File(buildDir, "app.SFD.xpack");
+        Utils.linesToFile(Arrays.asList(
+                "-source " + packageFiles.getAbsolutePath(),
+                "-add-file app /",
+                "-add-file \"" + lib.getAbsolutePath() + "\" /lib"), rsp);
+        File appDir = new File(temp.getRoot(), "app dir");
+
+        assertEquals(0, excelsiorJet.pack(buildDir, "-target", appDir.getAbsolutePath(), "-zip",
+                "-arg-file", rsp.getAbsolutePath()));
+        assertTrue(new File(appDir, "app").exists());
+        assertTrue(new File(appDir, "README").exists());
+        assertTrue(new File(appDir, "lib/lib.jar").exists());
+        assertTrue(new File(appDir, "rt").isDirectory());
+        assertTrue(new File(appDir.getAbsolutePath() + ".zip").exists());
+    }
+
+    @Test
+    public void testRunRunsApplicationAndWritesProfiles() throws Exception {
+        FakeJetToolchain toolchain = toolchain();
+        toolchain.xjava().memoryMb(16).outputLines(10);
+        ExcelsiorJet excelsiorJet = toolchain.createExcelsiorJet(log);
+        File usg = new File(temp.getRoot(), "app.usg");
+        File startup = new File(temp.getRoot(), "app.startup");
+        AtomicInteger helloLines = new AtomicInteger();
+        int exitCode = excelsiorJet.xjava("-Djet.usage.list=" + usg.getAbsolutePath(),
+                "-Djet.jit.profile.startup=" + startup.getAbsolutePath(),
+                "-cp", TestUtils.workDir().getAbsolutePath(), "testClasses.HelloWorld")
+                .withLog(log)
+                .withOutputListener(line -> {
+                    if (line.equals("Hello world!")) {
+                        helloLines.incrementAndGet();
+                    }
+                })
+                .execute();
+        assertEquals(0, exitCode);
+        assertEquals(1, helloLines.get());
+        List<String> usageList = Files.readAllLines(usg.toPath(), StandardCharsets.UTF_8);
+        assertTrue(usageList.contains("testClasses.HelloWorld"));
+        assertTrue(startup.exists());
+    }
+
+    @Test
+    public void homeIsRecognized() throws Exception {
+        FakeJetToolchain toolchain = toolchain().version(1100);
+        JetHome jetHome = toolchain.create();
+        assertEquals(1100, jetHome.getJetVersion());
+        assertEquals(new File(toolchain.home(), "bin").getAbsolutePath(), jetHome.getJetBinDirectory());
+    }
+}
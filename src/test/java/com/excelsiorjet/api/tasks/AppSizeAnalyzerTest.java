@@ -0,0 +1,106 @@
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.api.log.StdOutLog;
+import com.excelsiorjet.api.tasks.AppSizeAnalyzer.Contributor;
+import com.excelsiorjet.api.tasks.AppSizeAnalyzer.Report;
+import com.excelsiorjet.api.tasks.config.SizeBudgetConfig;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+
+import static org.junit.Assert.*;
+
+public class AppSizeAnalyzerTest {
+
+    static {
+        JetProject.configureEnvironment(new StdOutLog(), ResourceBundle.getBundle("Strings"));
+    }
+
+    private static final long MB = 1024 * 1024;
+
+    private static Contributor contributor(String category, String name, long bytes) {
+        Contributor contributor = new Contributor(category, name);
+        contributor.bytes = bytes;
+        contributor.files = 1;
+        return contributor;
+    }
+
+    private static Report report(Contributor... contributors) {
+        List<Contributor> list = new ArrayList<>();
+        for (Contributor c : contributors) {
+            list.add(c);
+        }
+        return new Report(list);
+    }
+
+    @Test
+    public void testAttribute() {
+        Map<String, Contributor> locations = new LinkedHashMap<>();
+        locations.put("app", new Contributor(AppSizeAnalyzer.EXECUTABLE, "app"));
+        locations.put("lib/dep.jar", new Contributor(AppSizeAnalyzer.CLASSPATH, "dep.jar"));
+        locations.put("conf", new Contributor(AppSizeAnalyzer.PACKAGE_FILES, "conf"));
+        locations.put("conf/extra", new Contributor(AppSizeAnalyzer.CLASSPATH, "extra"));
+
+        assertEquals("executable: app", AppSizeAnalyzer.attribute("app", locations).key());
+        assertEquals("classpath: dep.jar", AppSizeAnalyzer.attribute("lib/dep.jar", locations).key());
+        assertEquals("package files: conf", AppSizeAnalyzer.attribute("conf/app.properties", locations).key());
+        assertEquals("classpath: extra", AppSizeAnalyzer.attribute("conf/extra/a.class", locations).key());
+        assertEquals("runtime: bin/server", AppSizeAnalyzer.attribute("rt/bin/server/jvm.dll", locations).key());
+        assertEquals("runtime: locales", AppSizeAnalyzer.attribute("rt/lib/ext/localedata.jar", locations).key());
+        assertEquals("runtime: lib", AppSizeAnalyzer.attribute("rt/lib/rt.jar", locations).key());
+        assertEquals("other: lib", AppSizeAnalyzer.attribute("lib/unknown.jar", locations).key());
+        assertEquals("other: /", AppSizeAnalyzer.attribute("README", locations).key());
+    }
+
+    @Test
+    public void testDiff() {
+        Report previous = report(contributor("executable", "app", 10 * MB), contributor("classpath", "old.jar", MB));
+        Report current = report(contributor("executable", "app", 12 * MB), contributor("classpath", "new.jar", 5 * MB));
+        assertEquals(17 * MB, current.total);
+        assertEquals("classpath: new.jar", current.contributors.get(1).key());
+
+        Map<String, Long> diff = current.diff(previous);
+        assertEquals(3, diff.size());
+        assertEquals(Long.valueOf(5 * MB), diff.values().iterator().next());
+        assertEquals(Long.valueOf(2 * MB), diff.get("executable: app"));
+        assertEquals(Long.valueOf(-MB), diff.get("classpath: old.jar"));
+
+        Report restored = Report.fromMap(current.toMap());
+        assertEquals(current.total, restored.total);
+        assertEquals(current.contributors.size(), restored.contributors.size());
+    }
+
+    @Test
+    public void testBudget() throws Exception {
+        Report previous = report(contributor("executable", "app", 10 * MB));
+        Report current = report(contributor("executable", "app", 10 * MB), contributor("classpath", "big.jar", 5 * MB));
+
+        SizeBudgetConfig budget = new SizeBudgetConfig();
+        AppSizeAnalyzer.check(current, previous, budget);
+
+        budget.maxSizeMb = 20;
+        AppSizeAnalyzer.check(current, previous, budget);
+        budget.maxSizeMb = 12;
+        try {
+            AppSizeAnalyzer.check(current, previous, budget);
+            fail("Size budget is not checked");
+        } catch (JetTaskFailureException e) {
+            assertTrue(e.getMessage().contains("classpath: big.jar"));
+        }
+
+        budget.maxSizeMb = 0;
+        budget.maxGrowthPercent = 40;
+        try {
+            AppSizeAnalyzer.check(current, previous, budget);
+            fail("Growth budget is not checked");
+        } catch (JetTaskFailureException ignore) {
+        }
+
+        budget.failOnExceed = false;
+        AppSizeAnalyzer.check(current, previous, budget);
+    }
+}
@@ -0,0 +1,45 @@
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.api.util.Json;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BenchmarkStatsTest {
+
+    @Test
+    public void nearestRankPercentiles() {
+        List<Long> samples = new ArrayList<>();
+        for (long i = 100; i >= 1; i--) {
+            samples.add(i);
+        }
+        BenchmarkStats stats = BenchmarkStats.of(samples);
+        assertEquals(100, stats.count);
+        assertEquals(1, stats.min, 0);
+        assertEquals(50, stats.p50, 0);
+        assertEquals(90, stats.p90, 0);
+        assertEquals(99, stats.p99, 0);
+        assertEquals(100, stats.max, 0);
+        assertEquals(50.5, stats.mean, 1e-9);
+    }
+
+    @Test
+    public void singleSample() {
+        BenchmarkStats stats = BenchmarkStats.of(Collections.singletonList(7));
+        assertEquals(7, stats.p50, 0);
+        assertEquals(7, stats.p99, 0);
+        assertNull(BenchmarkStats.of(Collections.<Long>emptyList()));
+    }
+
+    @Test
+    public void toJson() {
+        String json = Json.toJson(BenchmarkStats.of(Collections.singletonList(2.5)).toMap());
+        assertTrue(json.startsWith("{"));
+        assertTrue(json.contains("\"count\": 1,"));
+        assertTrue(json.contains("\"p99\": 2.5"));
+    }
+}
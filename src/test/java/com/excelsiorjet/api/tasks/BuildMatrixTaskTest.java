@@ -0,0 +1,50 @@
+package com.excelsiorjet.api.tasks;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class BuildMatrixTaskTest {
+
+    private static BuildMatrixTask.VariantResult result(String name, double size, double startup, double throughput) {
+        BuildMatrixTask.VariantResult result = new BuildMatrixTask.VariantResult(name);
+        result.sizeMb = size;
+        result.startupMillis = startup;
+        result.throughput = throughput;
+        return result;
+    }
+
+    @Test
+    public void rankByMeanRank() {
+        BuildMatrixTask.VariantResult small = result("small", 10, 200, 100);
+        BuildMatrixTask.VariantResult fast = result("fast", 30, 100, 300);
+        BuildMatrixTask.VariantResult balanced = result("balanced", 20, 150, 200);
+        BuildMatrixTask.VariantResult failed = result("failed", 1, 1, 1000);
+        failed.failure = "compilation error";
+
+        List<BuildMatrixTask.VariantResult> ranked = BuildMatrixTask.rank(asList(small, fast, balanced, failed));
+
+        assertEquals(3, ranked.size());
+        assertEquals("fast", ranked.get(0).name);
+        assertEquals(5.0 / 3, fast.score, 1e-9);
+        assertEquals("balanced", ranked.get(1).name);
+        assertEquals(2.0, balanced.score, 1e-9);
+        assertEquals("small", ranked.get(2).name);
+        assertEquals(7.0 / 3, small.score, 1e-9);
+    }
+
+    @Test
+    public void unmeasuredMetricsAreIgnored() {
+        BuildMatrixTask.VariantResult a = result("a", 10, Double.NaN, Double.NaN);
+        BuildMatrixTask.VariantResult b = result("b", 10, Double.NaN, Double.NaN);
+
+        List<BuildMatrixTask.VariantResult> ranked = BuildMatrixTask.rank(asList(b, a));
+
+        assertEquals(asList(a, b), ranked);
+        assertEquals(1.0, a.score, 0);
+        assertEquals(1.0, b.score, 0);
+    }
+}
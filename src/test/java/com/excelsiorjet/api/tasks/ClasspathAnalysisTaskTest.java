@@ -0,0 +1,205 @@
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.TestUtils;
+import com.excelsiorjet.api.log.StdOutLog;
+import com.excelsiorjet.api.tasks.config.ApplicationType;
+import com.excelsiorjet.api.tasks.config.ClasspathAnalysisConfig;
+import com.excelsiorjet.api.tasks.config.PDBConfig;
+import com.excelsiorjet.api.tasks.config.compiler.ExecProfilesConfig;
+import com.excelsiorjet.api.tasks.config.compiler.WindowsVersionInfoConfig;
+import com.excelsiorjet.api.tasks.config.dependencies.ProjectDependency;
+import com.excelsiorjet.api.tasks.config.excelsiorinstaller.ExcelsiorInstallerConfig;
+import com.excelsiorjet.api.tasks.config.runtime.RuntimeConfig;
+import com.excelsiorjet.api.tasks.config.windowsservice.WindowsServiceConfig;
+import com.excelsiorjet.api.util.ZipDirectory;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class ClasspathAnalysisTaskTest {
+
+    static {
+        JetProject.configureEnvironment(new StdOutLog(), ResourceBundle.getBundle("Strings"));
+    }
+
+    private static final String PKG = "testClasses/classpath/";
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private static void addClass(ZipOutputStream zip, String name) throws Exception {
+        zip.putNextEntry(new ZipEntry(name));
+        Files.copy(new File(TestUtils.workDir(), name).toPath(), zip);
+        zip.closeEntry();
+    }
+
+    private File jar(String name, String... entries) throws Exception {
+        File jar = new File(temp.getRoot(), name);
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(jar))) {
+            for (String entry : entries) {
+                if (entry.endsWith(".class")) {
+                    addClass(zip, entry);
+                } else {
+                    zip.putNextEntry(new ZipEntry(entry));
+                    zip.write("content".getBytes(StandardCharsets.UTF_8));
+                    zip.closeEntry();
+                }
+            }
+        }
+        return jar;
+    }
+
+    private File classesDir(String name, String className) throws Exception {
+        File dir = temp.newFolder(name);
+        File target = new File(dir, className);
+        Files.createDirectories(target.getParentFile().toPath());
+        Files.copy(new File(TestUtils.workDir(), className).toPath(), target.toPath());
+        return dir;
+    }
+
+    private static ProjectDependency dependency(File path) {
+        String name = path.getName().replace(".jar", "");
+        return new ProjectDependency("com.example", name, "1.0", path, false);
+    }
+
+    private JetProject project(File mainJar, List<ProjectDependency> dependencies, ExecProfilesConfig execProfiles) {
+        File buildDir = temp.getRoot();
+        PDBConfig pdbConfig = new PDBConfig();
+        pdbConfig.keepInBuildDir = true;
+        return new JetProject("app", "app", "com.example", "1.0", ApplicationType.PLAIN, buildDir, buildDir)
+                .mainJar(mainJar)
+                .mainClass("testClasses.classpath.App")
+                .runArgs(new String[0])
+                .projectDependencies(dependencies)
+                .dependencies(Collections.emptyList())
+                .jetBuildDir(new File(buildDir, "jet/build"))
+                .jetAppDir(new File(buildDir, "jet/app"))
+                .packageFiles(Collections.emptyList())
+                .excelsiorInstallerConfiguration(new ExcelsiorInstallerConfig())
+                .windowsServiceConfiguration(new WindowsServiceConfig())
+                .windowsVersionInfoConfiguration(new WindowsVersionInfoConfig())
+                .runtimeConfiguration(new RuntimeConfig())
+                .execProfiles(execProfiles)
+                .outputName("app")
+                .excelsiorJetPackaging("none")
+                .pdbConfiguration(pdbConfig);
+    }
+
+    @Test
+    public void readsCentralDirectory() throws Exception {
+        File jar = jar("lib.jar", "META-INF/MANIFEST.MF", PKG + "Lib.class");
+        List<ZipDirectory.Entry> entries = ZipDirectory.read(jar);
+        assertEquals(asList("META-INF/MANIFEST.MF", PKG + "Lib.class"),
+                entries.stream().map(e -> e.name).collect(Collectors.toList()));
+        assertEquals(new File(TestUtils.workDir(), PKG + "Lib.class").length(), entries.get(1).size);
+    }
+
+    @Test
+    public void mapsEntryNamesToClasses() {
+        assertEquals("a/b/C", ClasspathAnalysisTask.className("a/b/C.class"));
+        assertEquals("a/b/C", ClasspathAnalysisTask.className("META-INF/versions/11/a/b/C.class"));
+        assertEquals("a/b/C", ClasspathAnalysisTask.className("BOOT-INF/classes/a/b/C.class"));
+        assertNull(ClasspathAnalysisTask.className("module-info.class"));
+        assertNull(ClasspathAnalysisTask.className("a/b/C.txt"));
+    }
+
+    @Test
+    public void readsConstantPoolReferences() throws Exception {
+        Set<String> referenced = new HashSet<>();
+        ClasspathAnalysisTask.referencedClasses(
+                Files.readAllBytes(new File(TestUtils.workDir(), PKG + "Lib.class").toPath()), referenced::add);
+        assertTrue(referenced.contains("testClasses/classpath/Transitive"));
+        assertTrue(referenced.contains("java/lang/String"));
+        assertFalse(referenced.contains("testClasses/classpath/Unused"));
+    }
+
+    @Test
+    public void reportsDuplicatesSplitPackagesAndUnreferencedEntries() throws Exception {
+        File app = jar("app.jar", PKG + "App.class");
+        File lib = jar("lib.jar", PKG + "Lib.class");
+        File transitive = classesDir("transitive", PKG + "Transitive.class");
+        File copy = jar("copy.jar", PKG + "Lib.class");
+        File unused = jar("unused.jar", PKG + "Unused.class");
+        File profiled = jar("profiled.jar", PKG + "Profiled.class");
+        File services = jar("services.jar", "META-INF/services/java.sql.Driver", "testClasses/HelloWorld.class");
+        File resources = jar("resources.jar", "messages.properties");
+        List<ProjectDependency> dependencies = new ArrayList<>(Arrays.asList(dependency(lib), dependency(transitive),
+                dependency(copy), dependency(unused), dependency(profiled), dependency(services), dependency(resources)));
+
+        ExecProfilesConfig execProfiles = new ExecProfilesConfig();
+        execProfiles.outputDir = temp.newFolder("profiles");
+        execProfiles.outputName = "app";
+        Files.write(new File(execProfiles.outputDir, "app.usg").toPath(),
+                asList("!classpath", profiled.getPath(), "!classes", "testClasses.classpath.Profiled"),
+                StandardCharsets.UTF_8);
+
+        JetProject project = project(app, dependencies, execProfiles);
+        ClasspathAnalysisConfig config = new ClasspathAnalysisConfig();
+        config.suggestDependencySettings = true;
+        project.classpathAnalysisConfiguration(config);
+
+        ClasspathAnalysisTask.Report report = new ClasspathAnalysisTask(Tests.excelsiorJet(), project).execute();
+
+        assertEquals(8, report.entries);
+        assertEquals(1, report.duplicates.size());
+        assertEquals(asList("lib.jar", "copy.jar"), report.duplicates.get(0).entries);
+        assertEquals(asList("testClasses.classpath.Lib"), report.duplicates.get(0).examples);
+        assertEquals(Collections.singleton("testClasses.classpath"), report.splitPackages.keySet());
+
+        assertEquals(1, report.unreferenced.size());
+        ClasspathAnalysisTask.UnreferencedEntry entry = report.unreferenced.get(0);
+        assertEquals(unused, entry.path);
+        assertEquals("unused", entry.suggestion.artifactId);
+        assertEquals("auto-detect", entry.suggestion.optimize);
+        assertTrue(report.removableBytes >= entry.bytes);
+        assertTrue(report.estimatedSavingPercent() > 0);
+        assertTrue(config.reportFile.isFile());
+    }
+
+    @Test
+    public void referencedEntriesAreNotReportedWithoutUsageList() throws Exception {
+        File app = jar("app.jar", PKG + "App.class");
+        File lib = jar("lib.jar", PKG + "Lib.class");
+        File transitive = jar("transitive.jar", PKG + "Transitive.class");
+        File profiled = jar("profiled.jar", PKG + "Profiled.class");
+        JetProject project = project(app, asList(dependency(lib), dependency(transitive), dependency(profiled)),
+                new ExecProfilesConfig());
+
+        ClasspathAnalysisTask.Report report = new ClasspathAnalysisTask(Tests.excelsiorJet(), project).execute();
+
+        assertTrue(report.duplicates.isEmpty());
+        assertEquals(Collections.singletonList(profiled),
+                report.unreferenced.stream().map(e -> e.path).collect(Collectors.toList()));
+        assertNull(report.unreferenced.get(0).suggestion);
+    }
+
+    @Test(expected = JetTaskFailureException.class)
+    public void failsOnDuplicatesIfConfigured() throws Exception {
+        File app = jar("app.jar", PKG + "App.class", PKG + "Lib.class", PKG + "Transitive.class");
+        File copy = jar("copy.jar", PKG + "Transitive.class");
+        JetProject project = project(app, Collections.singletonList(dependency(copy)), new ExecProfilesConfig());
+        ClasspathAnalysisConfig config = new ClasspathAnalysisConfig();
+        config.failOnDuplicates = true;
+        project.classpathAnalysisConfiguration(config);
+
+        new ClasspathAnalysisTask(Tests.excelsiorJet(), project).execute();
+    }
+}
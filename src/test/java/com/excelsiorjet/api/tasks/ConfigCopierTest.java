@@ -0,0 +1,49 @@
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.api.log.StdOutLog;
+import com.excelsiorjet.api.tasks.config.TomcatConfig;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ResourceBundle;
+
+import static org.junit.Assert.*;
+
+public class ConfigCopierTest {
+
+    static {
+        JetProject.configureEnvironment(new StdOutLog(), ResourceBundle.getBundle("Strings"));
+    }
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void copyForBuildDoesNotShareConfigurations() throws Exception {
+        TomcatConfig tomcat = new TomcatConfig();
+        tomcat.removeWebapps = new String[]{"docs"};
+        JetProject project = new SyntheticProject(temp.newFolder("prj")).dependencies(4).groups(2).rules(3).create()
+                .tomcatConfiguration(tomcat);
+        JetProject copy = project.copyForBuildIn(temp.newFolder("copy"), Tests.excelsiorJet());
+
+        assertNotSame(project.execProfiles(), copy.execProfiles());
+        assertNotSame(project.runtimeConfiguration(), copy.runtimeConfiguration());
+        assertNotSame(project.projectDependencies(), copy.projectDependencies());
+        assertNotSame(project.tomcatConfiguration(), copy.tomcatConfiguration());
+        assertNotSame(tomcat.removeWebapps, copy.tomcatConfiguration().removeWebapps);
+        assertArrayEquals(tomcat.removeWebapps, copy.tomcatConfiguration().removeWebapps);
+
+        copy.execProfiles().outputDir = new File("elsewhere");
+        copy.tomcatConfiguration().removeWebapps[0] = "examples";
+        assertNull(project.execProfiles().outputDir);
+        assertEquals("docs", tomcat.removeWebapps[0]);
+
+        // the validation of a copy fills defaults of its own configuration only
+        JetProject validated = project.copyForBuildIn(temp.newFolder("validated"), Tests.excelsiorJet());
+        validated.validate(Tests.excelsiorJet(), true);
+        assertNotNull(validated.execProfiles().outputDir);
+        assertNull(project.execProfiles().outputDir);
+    }
+}
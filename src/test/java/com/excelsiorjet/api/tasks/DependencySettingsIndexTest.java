@@ -0,0 +1,80 @@
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.api.tasks.config.dependencies.DependencySettings;
+import com.excelsiorjet.api.tasks.config.dependencies.ProjectDependency;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class DependencySettingsIndexTest {
+
+    private static Set<DependencySettings> identitySet(Collection<DependencySettings> settings) {
+        Set<DependencySettings> set = Collections.newSetFromMap(new IdentityHashMap<>());
+        set.addAll(settings);
+        return set;
+    }
+
+    @Test
+    public void matchesById() {
+        DependencySettings group = new DependencySettings("g", null, null, null);
+        DependencySettings artifact = new DependencySettings(null, "a", null, null);
+        DependencySettings groupArtifact = new DependencySettings("g", "a", null, null);
+        DependencySettings groupVersion = new DependencySettings("g", null, "1", null);
+        DependencySettings fullId = new DependencySettings("g", "a", "2", null);
+        DependencySettings otherGroup = new DependencySettings("h", "a", null, null);
+        DependencySettingsIndex index = new DependencySettingsIndex(
+                asList(group, artifact, groupArtifact, groupVersion, fullId, otherGroup));
+
+        ProjectDependency dep = new ProjectDependency("g", "a", "1", new File("/a.jar"), false);
+        assertEquals(identitySet(asList(group, artifact, groupArtifact, groupVersion)), identitySet(index.matching(dep)));
+
+        dep = new ProjectDependency("g", "b", "2", new File("/b.jar"), false);
+        assertEquals(identitySet(Collections.singletonList(group)), identitySet(index.matching(dep)));
+
+        dep = new ProjectDependency("x", "y", "1", new File("/y.jar"), false);
+        assertTrue(index.matching(dep).isEmpty());
+    }
+
+    @Test
+    public void matchesByCanonicalPath() {
+        DependencySettings path = new DependencySettings(new File("/lib/../lib/a.jar"), null, null);
+        DependencySettingsIndex index = new DependencySettingsIndex(Collections.singletonList(path));
+        assertEquals(1, index.matching(new ProjectDependency("g", "a", "1", new File("/lib/a.jar"), false)).size());
+        assertTrue(index.matching(new ProjectDependency("g", "a", "1", new File("/lib/b.jar"), false)).isEmpty());
+        assertTrue(index.matching(new ProjectDependency("g", "a", "1", null, false)).isEmpty());
+    }
+
+    @Test
+    public void agreesWithLinearMatching() {
+        Random random = new Random(42);
+        String[] groups = {"g1", "g2", "g3", null};
+        String[] artifacts = {"a1", "a2", "a3", "a4", null};
+        String[] versions = {"1", "2", null};
+        File[] paths = {new File("/a1.jar"), new File("/a2.jar"), new File("/x/../a3.jar")};
+
+        List<DependencySettings> settings = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            if (random.nextInt(5) == 0) {
+                settings.add(new DependencySettings(paths[random.nextInt(paths.length)], null, null));
+            } else {
+                settings.add(new DependencySettings(groups[random.nextInt(groups.length)],
+                        artifacts[random.nextInt(artifacts.length)], versions[random.nextInt(versions.length)], null));
+            }
+        }
+        DependencySettingsIndex index = new DependencySettingsIndex(settings);
+
+        for (int i = 0; i < 200; i++) {
+            String artifact = artifacts[random.nextInt(artifacts.length - 1)];
+            ProjectDependency dep = new ProjectDependency(groups[random.nextInt(groups.length - 1)], artifact,
+                    versions[random.nextInt(versions.length - 1)], new File("/" + artifact + ".jar"), false);
+            Set<DependencySettings> expected = identitySet(
+                    settings.stream().filter(s -> s.matches(dep)).collect(Collectors.toList()));
+            assertEquals(expected, identitySet(index.matching(dep)));
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.api.log.StdOutLog;
+import com.excelsiorjet.api.tasks.config.dependencies.DependencySettings;
+import com.excelsiorjet.api.tasks.config.dependencies.OptimizationPreset;
+import com.excelsiorjet.api.tasks.config.dependencies.ProjectDependency;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+public class DependencyTunerTest {
+
+    static {
+        JetProject.configureEnvironment(new StdOutLog(), ResourceBundle.getBundle("Strings"));
+    }
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File jar(String name, int classes, long resourceBytes) throws Exception {
+        File jar = new File(temp.getRoot(), name);
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(jar))) {
+            zip.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+            zip.closeEntry();
+            for (int i = 0; i < classes; i++) {
+                zip.putNextEntry(new ZipEntry("com/example/C" + i + ".class"));
+                zip.write(new byte[100]);
+                zip.closeEntry();
+            }
+            if (resourceBytes > 0) {
+                zip.putNextEntry(new ZipEntry("data/blob.bin"));
+                byte[] chunk = new byte[64 * 1024];
+                for (long written = 0; written < resourceBytes; written += chunk.length) {
+                    zip.write(chunk, 0, (int) Math.min(chunk.length, resourceBytes - written));
+                }
+                zip.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+    private static ProjectDependency dependency(File jar) {
+        return new ProjectDependency("com.lib", jar.getName(), "1.0", jar, false);
+    }
+
+    private static ClasspathEntry resolve(DependencyTuner tuner, ProjectDependency dependency,
+                                          DependencySettings... settings)
+    {
+        return new DependencySettingsResolver(OptimizationPreset.TYPICAL, "com.example", Arrays.asList(settings), tuner)
+                .resolve(dependency);
+    }
+
+    private static Set<String> used(int count) {
+        Set<String> used = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            used.add("com/example/C" + i);
+        }
+        return used;
+    }
+
+    @Test
+    public void resourceOnlyJarIsNotPacked() throws Exception {
+        DependencyTuner tuner = new DependencyTuner(Collections.emptySet(), false);
+        ClasspathEntry entry = resolve(tuner, dependency(jar("fonts.jar", 0, 1024)));
+        assertEquals(ClasspathEntry.PackType.NONE, entry.pack);
+        assertEquals(ClasspathEntry.OptimizationType.ALL, entry.optimize);
+        assertEquals(1, tuner.decisions().size());
+        assertEquals("pack=none", tuner.decisions().get(0).settings());
+    }
+
+    @Test
+    public void dataJarIsNotPacked() throws Exception {
+        DependencyTuner tuner = new DependencyTuner(Collections.emptySet(), false);
+        ClasspathEntry entry = resolve(tuner, dependency(jar("icu.jar", 10, DependencyTuner.DATA_MIN_BYTES)));
+        assertEquals(ClasspathEntry.PackType.NONE, entry.pack);
+
+        entry = resolve(tuner, dependency(jar("small-data.jar", 10, DependencyTuner.DATA_MIN_BYTES / 2)));
+        assertNull(entry.pack);
+    }
+
+    @Test
+    public void rarelyUsedLibraryIsCompiledSelectively() throws Exception {
+        DependencyTuner tuner = new DependencyTuner(used(2), true);
+        ClasspathEntry entry = resolve(tuner, dependency(jar("rare.jar", 40, 0)));
+        assertEquals(ClasspathEntry.OptimizationType.AUTO_DETECT, entry.optimize);
+        assertNull(entry.pack);
+
+        tuner = new DependencyTuner(used(20), true);
+        entry = resolve(tuner, dependency(jar("busy.jar", 40, 0)));
+        assertEquals(ClasspathEntry.OptimizationType.ALL, entry.optimize);
+        assertTrue(tuner.decisions().isEmpty());
+    }
+
+    @Test
+    public void usageIsUnknownWithoutUsageList() throws Exception {
+        DependencyTuner tuner = new DependencyTuner(Collections.emptySet(), false);
+        ClasspathEntry entry = resolve(tuner, dependency(jar("lib.jar", 40, 0)));
+        assertEquals(ClasspathEntry.OptimizationType.ALL, entry.optimize);
+    }
+
+    @Test
+    public void explicitSettingsAreKept() throws Exception {
+        DependencyTuner tuner = new DependencyTuner(Collections.emptySet(), true);
+        ProjectDependency dependency = dependency(jar("fonts.jar", 0, 1024));
+        DependencySettings settings = new DependencySettings("com.lib", "fonts.jar", null, null);
+        settings.pack = ClasspathEntry.PackType.ALL.userValue;
+        ClasspathEntry entry = resolve(tuner, dependency, settings);
+        assertEquals(ClasspathEntry.PackType.ALL, entry.pack);
+        assertTrue(tuner.decisions().isEmpty());
+
+        dependency = dependency(jar("lib.jar", 40, 0));
+        settings = new DependencySettings("com.lib", "lib.jar", null, null);
+        settings.isLibrary = false;
+        entry = resolve(tuner, dependency, settings);
+        assertEquals(ClasspathEntry.OptimizationType.ALL, entry.optimize);
+    }
+
+    @Test
+    public void projectTunesDependenciesIfEnabled() throws Exception {
+        SyntheticProject synthetic = new SyntheticProject(temp.newFolder("prj")).dependencies(4).groups(1).rules(0)
+                .directoryShare(0);
+        JetProject project = synthetic.create();
+        project.processDependencies();
+        assertTrue(project.classpathEntries().stream().allMatch(e -> e.pack == null));
+
+        project = synthetic.project().autoTuneDependencies(true);
+        File fonts = jar("fonts.jar", 0, 1024);
+        synthetic.projectDependencies().add(dependency(fonts));
+        project.processDependencies();
+        ClasspathEntry entry = project.classpathEntries().stream().filter(e -> e.path.equals(fonts)).findFirst().get();
+        assertEquals(ClasspathEntry.PackType.NONE, entry.pack);
+    }
+}
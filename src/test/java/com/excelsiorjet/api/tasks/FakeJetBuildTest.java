@@ -0,0 +1,129 @@
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.FakeJetToolchain;
+import com.excelsiorjet.TestUtils;
+import com.excelsiorjet.api.ExcelsiorJet;
+import com.excelsiorjet.api.log.StdOutLog;
+import com.excelsiorjet.api.tasks.config.ApplicationType;
+import com.excelsiorjet.api.tasks.config.PDBConfig;
+import com.excelsiorjet.api.tasks.config.SizeBudgetConfig;
+import com.excelsiorjet.api.tasks.config.compiler.ExecProfilesConfig;
+import com.excelsiorjet.api.tasks.config.compiler.WindowsVersionInfoConfig;
+import com.excelsiorjet.api.tasks.config.excelsiorinstaller.ExcelsiorInstallerConfig;
+import com.excelsiorjet.api.tasks.config.runtime.RuntimeConfig;
+import com.excelsiorjet.api.tasks.config.windowsservice.WindowsServiceConfig;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.ResourceBundle;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Runs the build pipeline end-to-end against a fake Excelsior JET toolchain.
+ */
+public class FakeJetBuildTest {
+
+    static {
+        JetProject.configureEnvironment(new StdOutLog(), ResourceBundle.getBundle("Strings"));
+    }
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private FakeJetToolchain toolchain;
+
+    @Before
+    public void setUp() throws Exception {
+        assumeTrue(FakeJetToolchain.isSupported());
+        toolchain = new FakeJetToolchain(temp.newFolder("jet"));
+    }
+
+    private JetProject project(String packaging) throws Exception {
+        File buildDir = temp.newFolder("build");
+        File mainJar = new File(buildDir, "test.jar");
+        try (JarOutputStream jar = new JarOutputStream(new FileOutputStream(mainJar))) {
+            jar.putNextEntry(new JarEntry("testClasses/HelloWorld.class"));
+            Files.copy(new File(TestUtils.workDir(), "testClasses/HelloWorld.class").toPath(), jar);
+            jar.closeEntry();
+        }
+        return new JetProject("test", "test", "prjGroup", "0.1", ApplicationType.PLAIN, buildDir, buildDir)
+                .mainJar(mainJar)
+                .mainClass("testClasses.HelloWorld")
+                .runArgs(new String[0])
+                .projectDependencies(emptyList())
+                .dependencies(emptyList())
+                .jetBuildDir(new File(buildDir, "jet/build"))
+                .jetAppDir(new File(buildDir, "jet/app"))
+                .packageFiles(Collections.emptyList())
+                .excelsiorInstallerConfiguration(new ExcelsiorInstallerConfig())
+                .windowsServiceConfiguration(new WindowsServiceConfig())
+                .windowsVersionInfoConfiguration(new WindowsVersionInfoConfig())
+                .runtimeConfiguration(new RuntimeConfig())
+                .execProfiles(new ExecProfilesConfig())
+                .outputName("test")
+                .excelsiorJetPackaging(packaging)
+                .pdbConfiguration(new PDBConfig());
+    }
+
+    @Test
+    public void buildsAppDirectory() throws Exception {
+        ExcelsiorJet excelsiorJet = toolchain.createExcelsiorJet(new StdOutLog());
+        JetProject project = project("none");
+        project.pdbConfiguration().keepInBuildDir = true;
+
+        new JetBuildTask(excelsiorJet, project, false).execute();
+
+        File exe = new File(project.jetAppDir(), excelsiorJet.getTargetOS().mangleExeName("test"));
+        assertTrue(exe.canExecute());
+        assertTrue(new File(project.jetAppDir(), "rt").isDirectory());
+        // without a size budget, the image is not analyzed
+        assertFalse(new File(project.jetOutputDir(), AppSizeAnalyzer.REPORT_FILE).exists());
+    }
+
+    @Test
+    public void sizeBudgetIsChecked() throws Exception {
+        ExcelsiorJet excelsiorJet = toolchain.createExcelsiorJet(new StdOutLog());
+        JetProject project = project("none");
+        project.pdbConfiguration().keepInBuildDir = true;
+        SizeBudgetConfig sizeBudget = new SizeBudgetConfig();
+        sizeBudget.maxSizeMb = 1000;
+        project.sizeBudgetConfiguration(sizeBudget);
+
+        new JetBuildTask(excelsiorJet, project, false).execute();
+
+        assertTrue(new File(project.jetOutputDir(), AppSizeAnalyzer.REPORT_FILE).exists());
+    }
+
+    @Test
+    public void buildsZip() throws Exception {
+        toolchain.xpack().latency(200).outputLines(500);
+        ExcelsiorJet excelsiorJet = toolchain.createExcelsiorJet(new StdOutLog());
+        JetProject project = project("zip");
+        project.pdbConfiguration().keepInBuildDir = true;
+
+        new JetBuildTask(excelsiorJet, project, false).execute();
+
+        assertTrue(new File(project.jetOutputDir(), project.artifactName() + ".zip").exists());
+    }
+
+    @Test(expected = JetTaskFailureException.class)
+    public void compilationFailureFailsBuild() throws Exception {
+        toolchain.jc().exitCode(1);
+        ExcelsiorJet excelsiorJet = toolchain.createExcelsiorJet(new StdOutLog());
+        JetProject project = project("none");
+        project.pdbConfiguration().keepInBuildDir = true;
+
+        new JetBuildTask(excelsiorJet, project, false).execute();
+    }
+}
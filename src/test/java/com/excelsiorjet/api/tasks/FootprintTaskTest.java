@@ -0,0 +1,65 @@
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.api.log.StdOutLog;
+import com.excelsiorjet.api.platform.Processes;
+import com.excelsiorjet.api.platform.Processes.MemoryUsage;
+import com.excelsiorjet.api.tasks.FootprintTask.Sample;
+import com.excelsiorjet.api.tasks.FootprintTask.VariantResult;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.ResourceBundle;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class FootprintTaskTest {
+
+    static {
+        JetProject.configureEnvironment(new StdOutLog(), ResourceBundle.getBundle("Strings"));
+    }
+
+    private static final long MB = 1024 * 1024;
+
+    @Test
+    public void testPeakAndSteadyState() {
+        List<Sample> series = asList(
+                new Sample(0, new MemoryUsage(10 * MB, 8 * MB, 6 * MB)),
+                new Sample(1000, new MemoryUsage(50 * MB, 40 * MB, 30 * MB)),
+                new Sample(2000, new MemoryUsage(30 * MB, 20 * MB, 10 * MB)),
+                new Sample(3000, new MemoryUsage(20 * MB, 10 * MB, 8 * MB)));
+        VariantResult result = new VariantResult("v");
+        result.summarize(series, 1000);
+        assertEquals(4, result.samples);
+        assertEquals(50 * MB, result.peakRss);
+        assertEquals(40 * MB, result.peakPss);
+        assertEquals(30 * MB, result.peakUss);
+        assertEquals(25 * MB, result.steadyRss);
+        assertEquals(15 * MB, result.steadyPss);
+        assertEquals(9 * MB, result.steadyUss);
+    }
+
+    @Test
+    public void testTable() {
+        VariantResult ok = new VariantResult("classic");
+        ok.summarize(asList(new Sample(0, new MemoryUsage(20 * MB, 10 * MB, 5 * MB))), 1000);
+        VariantResult failed = new VariantResult("server");
+        failed.failure = "build failed";
+        List<String> table = FootprintTask.table(asList(ok, failed));
+        assertEquals(4, table.size());
+        assertTrue(table.get(1).startsWith("classic"));
+        assertTrue(table.get(1).contains("20.0"));
+        assertTrue(table.get(2).contains("build failed"));
+    }
+
+    @Test
+    public void testCurrentProcessMemoryUsage() {
+        MemoryUsage usage = Processes.memoryUsage(Processes.currentPid());
+        Assume.assumeNotNull(usage);
+        assertTrue(usage.rss > 0);
+        assertTrue(usage.pss > 0);
+        assertTrue(usage.uss > 0);
+        assertTrue(usage.uss <= usage.rss);
+    }
+}
@@ -0,0 +1,96 @@
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.api.log.StdOutLog;
+import com.excelsiorjet.api.platform.Processes.MemoryUsage;
+import com.excelsiorjet.api.tasks.FootprintTask.Sample;
+import com.excelsiorjet.api.tasks.HeapAdvisorTask.Advice;
+import com.excelsiorjet.api.tasks.HeapAdvisorTask.Candidate;
+import com.excelsiorjet.api.tasks.config.HeapAdvisorConfig;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.stream.Collectors;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class HeapAdvisorTaskTest {
+
+    static {
+        JetProject.configureEnvironment(new StdOutLog(), ResourceBundle.getBundle("Strings"));
+    }
+
+    private static final long MB = 1024 * 1024;
+
+    private static HeapAdvisorConfig config(int limit) throws Exception {
+        HeapAdvisorConfig config = new HeapAdvisorConfig();
+        config.containerMemoryLimit = limit;
+        config.fillDefaults(new File("out"));
+        return config;
+    }
+
+    private static Candidate candidate(int maxHeap, long peakRssMb, double throughput, double... latencies) {
+        Candidate candidate = new Candidate(maxHeap, null);
+        candidate.footprint.summarize(asList(
+                new Sample(0, new MemoryUsage(peakRssMb * MB, 0, 0)),
+                new Sample(1000, new MemoryUsage(peakRssMb * MB / 2, 0, 0))), 500);
+        candidate.throughput = BenchmarkStats.of(asList(throughput, throughput));
+        candidate.latency = BenchmarkStats.of(asList(latencies[0], latencies[0], latencies[1]));
+        return candidate;
+    }
+
+    @Test
+    public void candidatesFitContainerLimit() throws Exception {
+        HeapAdvisorConfig config = config(1000);
+        assertEquals(asList("Xmx400m", "Xmx550m", "Xmx700m"),
+                HeapAdvisorTask.candidates(config).stream().map(Candidate::name).collect(Collectors.toList()));
+
+        config.heapSizes = new int[]{256, 1024};
+        config.gcRatios = new int[]{5, 20};
+        List<Candidate> candidates = HeapAdvisorTask.candidates(config);
+        assertEquals(asList("Xmx256m-gc5", "Xmx256m-gc20"),
+                candidates.stream().map(Candidate::name).collect(Collectors.toList()));
+        assertEquals(asList("-Xmx256m", "-Djet.gc.ratio=20"), candidates.get(1).properties());
+    }
+
+    @Test
+    public void smallestHeapWithinToleranceIsRecommended() throws Exception {
+        HeapAdvisorConfig config = config(1000);
+        Candidate small = candidate(300, 500, 97, 10, 12);
+        Candidate medium = candidate(500, 700, 100, 10, 11);
+        Candidate tooSlow = candidate(200, 400, 50, 10, 12);
+        Advice advice = HeapAdvisorTask.advise(asList(medium, small, tooSlow), config);
+        assertSame(small, advice.candidate);
+        assertEquals(asList("-Xms250m", "-Xmx300m"), advice.properties());
+    }
+
+    @Test
+    public void longPausesAndUnsafeCandidatesAreAvoided() throws Exception {
+        HeapAdvisorConfig config = config(1000);
+        Candidate pausing = candidate(300, 500, 100, 10, 200);
+        Candidate smooth = candidate(500, 700, 100, 10, 15);
+        Candidate oomKilled = candidate(700, 950, 100, 10, 11);
+        assertSame(smooth, HeapAdvisorTask.advise(asList(pausing, smooth, oomKilled), config).candidate);
+
+        Candidate failed = new Candidate(100, null);
+        failed.footprint.failure = "exited";
+        assertNull(HeapAdvisorTask.advise(asList(oomKilled, failed), config));
+    }
+
+    @Test
+    public void recommendedArgsReplaceHandWrittenOnes() {
+        String[] merged = HeapAdvisorTask.mergeJvmArgs(new String[]{"-Xmx2g", "-Dfoo=bar", "-Djet.gc.ratio=10", "-Xms1g"},
+                asList("-Xms200m", "-Xmx300m"));
+        assertArrayEquals(new String[]{"-Dfoo=bar", "-Xms200m", "-Xmx300m"}, merged);
+        assertArrayEquals(new String[]{"-Xmx300m"}, HeapAdvisorTask.mergeJvmArgs(null, asList("-Xmx300m")));
+    }
+
+    @Test(expected = JetTaskFailureException.class)
+    public void invalidHeadroomFails() throws Exception {
+        HeapAdvisorConfig config = new HeapAdvisorConfig();
+        config.headroom = 100;
+        config.fillDefaults(new File("out"));
+    }
+}
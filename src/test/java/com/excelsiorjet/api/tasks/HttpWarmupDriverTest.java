@@ -0,0 +1,114 @@
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.api.log.StdOutLog;
+import com.excelsiorjet.api.tasks.config.compiler.HttpWarmupConfig;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class HttpWarmupDriverTest {
+
+    static {
+        JetProject.configureEnvironment(new StdOutLog(), ResourceBundle.getBundle("Strings"));
+    }
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testPathOf() {
+        assertEquals("/app/index.html", HttpWarmupDriver.pathOf("https://example.com:8443/app/index.html"));
+        assertEquals("/", HttpWarmupDriver.pathOf("http://example.com"));
+        assertEquals("/api?id=1", HttpWarmupDriver.pathOf("api?id=1"));
+        assertEquals("/api", HttpWarmupDriver.pathOf("/api"));
+    }
+
+    @Test
+    public void testHarRequests() {
+        String har = "{\"log\": {\"entries\": [" +
+                "{\"request\": {\"method\": \"GET\", \"url\": \"http://prod.example.com/app/list\"," +
+                " \"headers\": [{\"name\": \"Host\", \"value\": \"prod.example.com\"}, {\"name\": \"Accept\", \"value\": \"text/html\"}]}}," +
+                "{\"request\": {\"method\": \"post\", \"url\": \"http://prod.example.com/app/order\", \"headers\": []," +
+                " \"postData\": {\"mimeType\": \"application/json\", \"text\": \"{\\\"id\\\": 1}\"}}}" +
+                "]}}";
+        List<HttpWarmupDriver.Request> requests = HttpWarmupDriver.harRequests(har);
+        assertEquals(2, requests.size());
+        assertEquals("/app/list", requests.get(0).path);
+        assertFalse(requests.get(0).headers.containsKey("Host"));
+        assertEquals("text/html", requests.get(0).headers.get("Accept"));
+        assertEquals("POST", requests.get(1).method);
+        assertEquals("{\"id\": 1}", requests.get(1).body);
+        assertEquals("application/json", requests.get(1).headers.get("Content-Type"));
+    }
+
+    @Test
+    public void testTomcatPort() throws Exception {
+        File serverXml = temp.newFile("server.xml");
+        Files.write(serverXml.toPath(), ("<Server port=\"8005\" shutdown=\"SHUTDOWN\"><Service name=\"Catalina\">" +
+                "<Connector port=\"8009\" protocol=\"AJP/1.3\"/>" +
+                "<Connector port=\"8443\" protocol=\"HTTP/1.1\" SSLEnabled=\"true\"/>" +
+                "<Connector port=\"8181\" protocol=\"HTTP/1.1\" connectionTimeout=\"20000\"/>" +
+                "</Service></Server>").getBytes(StandardCharsets.UTF_8));
+        assertEquals(Integer.valueOf(8181), HttpWarmupDriver.tomcatPort(serverXml));
+        assertNull(HttpWarmupDriver.tomcatPort(new File(temp.getRoot(), "missing.xml")));
+    }
+
+    @Test
+    public void testSpringBootPortFromArgs() throws Exception {
+        assertEquals(Integer.valueOf(9090), HttpWarmupDriver.springBootPort(new String[]{"-Dserver.port=9191"},
+                new String[]{"--server.port=9090"}, null));
+        assertEquals(Integer.valueOf(9191), HttpWarmupDriver.springBootPort(new String[]{"-Dserver.port=9191"},
+                new String[0], null));
+        assertNull(HttpWarmupDriver.springBootPort(new String[0], new String[0], null));
+    }
+
+    @Test
+    public void testReplay() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        Map<String, AtomicInteger> hits = new ConcurrentHashMap<>();
+        server.createContext("/", exchange -> {
+            hits.computeIfAbsent(exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath(),
+                    k -> new AtomicInteger()).incrementAndGet();
+            byte[] response = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        server.start();
+        try {
+            File urls = temp.newFile("urls.txt");
+            Files.write(urls.toPath(), "# warm-up\n/b\nPOST /c\n".getBytes(StandardCharsets.UTF_8));
+            HttpWarmupConfig config = new HttpWarmupConfig();
+            config.urls = new String[]{"/a"};
+            config.urlsFile = urls;
+            config.concurrency = 2;
+            config.duration = 1;
+            config.validate();
+
+            HttpWarmupDriver driver = new HttpWarmupDriver(config, server.getAddress().getPort(),
+                    HttpWarmupDriver.loadRequests(config));
+            HttpWarmupDriver.Result result = driver.run();
+            assertTrue(result.requests > 0);
+            assertEquals(0, result.errors);
+            assertTrue(hits.containsKey("GET /a"));
+            assertTrue(hits.containsKey("GET /b"));
+            assertTrue(hits.containsKey("POST /c"));
+        } finally {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.excelsiorjet.api.tasks;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class MeanDifferenceTest {
+
+    @Test
+    public void welchInterval() {
+        List<Double> baseline = asList(10.0, 11.0, 9.0, 10.0);
+        List<Double> candidate = asList(12.0, 13.0, 11.0, 12.0);
+        MeanDifference delta = MeanDifference.welch(baseline, candidate);
+        assertEquals(2.0, delta.difference, 1e-9);
+        assertEquals(20.0, delta.relativePercent(), 1e-9);
+        // equal variances 2/3, df = 6, t = 2.447, se = sqrt(1/3)
+        double margin = 2.447 * Math.sqrt(1.0 / 3);
+        assertEquals(2.0 - margin, delta.lower, 1e-9);
+        assertEquals(2.0 + margin, delta.upper, 1e-9);
+        assertTrue(delta.isSignificantlyGreater());
+        assertFalse(delta.isSignificantlyLess());
+    }
+
+    @Test
+    public void overlappingSeriesAreNotSignificant() {
+        MeanDifference delta = MeanDifference.welch(asList(10, 20, 15), asList(11, 21, 14));
+        assertFalse(delta.isSignificantlyGreater());
+        assertFalse(delta.isSignificantlyLess());
+    }
+
+    @Test
+    public void criticalValues() {
+        assertEquals(12.706, MeanDifference.t95(1), 0);
+        assertEquals(12.706, MeanDifference.t95(0.5), 0);
+        assertEquals(2.571, MeanDifference.t95(5.9), 0);
+        assertEquals(2.021, MeanDifference.t95(40), 1e-9);
+        assertTrue(MeanDifference.t95(50) < 2.021 && MeanDifference.t95(50) > 2.000);
+        assertEquals(1.960, MeanDifference.t95(1e9), 1e-3);
+    }
+}
@@ -0,0 +1,147 @@
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.FakeJetToolchain;
+import com.excelsiorjet.TestUtils;
+import com.excelsiorjet.api.log.StdOutLog;
+import com.excelsiorjet.api.platform.CpuArch;
+import com.excelsiorjet.api.tasks.MultiTargetBuildTask.TargetResult;
+import com.excelsiorjet.api.tasks.config.ApplicationType;
+import com.excelsiorjet.api.tasks.config.BuildTarget;
+import com.excelsiorjet.api.tasks.config.MultiTargetConfig;
+import com.excelsiorjet.api.tasks.config.PDBConfig;
+import com.excelsiorjet.api.tasks.config.compiler.ExecProfilesConfig;
+import com.excelsiorjet.api.tasks.config.compiler.WindowsVersionInfoConfig;
+import com.excelsiorjet.api.tasks.config.dependencies.ProjectDependency;
+import com.excelsiorjet.api.tasks.config.excelsiorinstaller.ExcelsiorInstallerConfig;
+import com.excelsiorjet.api.tasks.config.runtime.RuntimeConfig;
+import com.excelsiorjet.api.tasks.config.windowsservice.WindowsServiceConfig;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class MultiTargetBuildTaskTest {
+
+    static {
+        JetProject.configureEnvironment(new StdOutLog(), ResourceBundle.getBundle("Strings"));
+    }
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private FakeJetToolchain amd64;
+    private FakeJetToolchain arm32;
+
+    @Before
+    public void setUp() throws Exception {
+        assumeTrue(FakeJetToolchain.isSupported());
+        amd64 = new FakeJetToolchain(temp.newFolder("jet-amd64")).cpu(CpuArch.AMD64);
+        amd64.create();
+        arm32 = new FakeJetToolchain(temp.newFolder("jet-arm32")).cpu(CpuArch.ARM32);
+        arm32.create();
+    }
+
+    private static BuildTarget target(String name, FakeJetToolchain toolchain) {
+        BuildTarget target = new BuildTarget();
+        target.name = name;
+        target.jetHome = toolchain.home().getAbsolutePath();
+        return target;
+    }
+
+    private JetProject project(BuildTarget... targets) throws Exception {
+        File buildDir = temp.newFolder("build");
+        File mainJar = new File(buildDir, "test.jar");
+        try (JarOutputStream jar = new JarOutputStream(new FileOutputStream(mainJar))) {
+            jar.putNextEntry(new JarEntry("testClasses/HelloWorld.class"));
+            Files.copy(new File(TestUtils.workDir(), "testClasses/HelloWorld.class").toPath(), jar);
+            jar.closeEntry();
+        }
+        File lib = new File(temp.newFolder("repo"), "lib.jar");
+        Files.copy(mainJar.toPath(), lib.toPath());
+        MultiTargetConfig multiTarget = new MultiTargetConfig();
+        multiTarget.targets = Arrays.asList(targets);
+        JetProject project = new JetProject("test", "test", "prjGroup", "0.1", ApplicationType.PLAIN, buildDir, buildDir)
+                .mainJar(mainJar)
+                .mainClass("testClasses.HelloWorld")
+                .runArgs(new String[0])
+                .projectDependencies(Collections.singletonList(
+                        new ProjectDependency("com.example", "lib", "1.0", lib, false)))
+                .dependencies(emptyList())
+                .jetBuildDir(new File(buildDir, "jet/build"))
+                .jetAppDir(new File(buildDir, "jet/app"))
+                .packageFiles(Collections.emptyList())
+                .excelsiorInstallerConfiguration(new ExcelsiorInstallerConfig())
+                .windowsServiceConfiguration(new WindowsServiceConfig())
+                .windowsVersionInfoConfiguration(new WindowsVersionInfoConfig())
+                .runtimeConfiguration(new RuntimeConfig())
+                .execProfiles(new ExecProfilesConfig())
+                .outputName("test")
+                .excelsiorJetPackaging("none")
+                .multiTargetConfiguration(multiTarget);
+        PDBConfig pdb = new PDBConfig();
+        pdb.keepInBuildDir = true;
+        return project.pdbConfiguration(pdb);
+    }
+
+    @Test
+    public void buildsEachTargetInIsolatedDirectories() throws Exception {
+        JetProject project = project(target(null, amd64), target(null, arm32));
+        List<TargetResult> results = new MultiTargetBuildTask(project).execute();
+
+        assertEquals(2, results.size());
+        assertEquals("linux-amd64", results.get(0).name);
+        assertEquals("linux-arm32", results.get(1).name);
+        File outputDir = project.multiTargetConfiguration().outputDir;
+        for (TargetResult result : results) {
+            assertNull(result.failure);
+            assertEquals(new File(new File(outputDir, result.name), "app"), result.appDir);
+            assertTrue(new File(result.appDir, "rt").isDirectory());
+        }
+        assertTrue(new File(outputDir, MultiTargetBuildTask.REPORT_FILE).exists());
+
+        // the classpath is staged once and linked into the build directory of each target
+        File staged = new File(outputDir, MultiTargetBuildTask.STAGING_DIR + "/lib/lib.jar");
+        assertTrue(staged.exists());
+        assertEquals(1 + results.size(), Files.getAttribute(staged.toPath(), "unix:nlink"));
+        for (TargetResult result : results) {
+            File linked = new File(new File(outputDir, result.name), "build/lib/lib.jar");
+            assertTrue(linked.exists());
+            assertArrayEquals(Files.readAllBytes(staged.toPath()), Files.readAllBytes(linked.toPath()));
+        }
+    }
+
+    @Test
+    public void failedTargetIsReportedAfterOthersAreBuilt() throws Exception {
+        arm32.jc().exitCode(1);
+        arm32.create();
+        JetProject project = project(target("x64", amd64), target("arm", arm32));
+        try {
+            new MultiTargetBuildTask(project).execute();
+            fail("failure expected");
+        } catch (JetTaskFailureException e) {
+            assertTrue(e.getMessage().contains("arm"));
+        }
+        File outputDir = project.multiTargetConfiguration().outputDir;
+        assertTrue(new File(outputDir, "x64/app/rt").isDirectory());
+        assertTrue(new File(outputDir, MultiTargetBuildTask.REPORT_FILE).exists());
+    }
+
+    @Test(expected = JetTaskFailureException.class)
+    public void duplicateTargetNamesFail() throws Exception {
+        new MultiTargetBuildTask(project(target("same", amd64), target("same", arm32))).execute();
+    }
+}
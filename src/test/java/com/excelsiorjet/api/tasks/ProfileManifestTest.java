@@ -0,0 +1,86 @@
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.TestUtils;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class ProfileManifestTest {
+
+    private ProfileManifest manifest(String name, String... lines) throws IOException {
+        File dir = new File(TestUtils.workDir(), "profileManifestTest");
+        dir.mkdirs();
+        File file = new File(dir, name);
+        Files.write(file.toPath(), asList(lines), StandardCharsets.ISO_8859_1);
+        return ProfileManifest.readIfExists(file);
+    }
+
+    @Test
+    public void drift() throws IOException {
+        ProfileManifest recorded = manifest("recorded.manifest",
+                "mainClass=HelloWorld",
+                "entry.lib/a.jar=100 1 aaaa",
+                "entry.lib/b.jar=300 1 bbbb",
+                "entry.lib/c.jar=600 1 cccc");
+
+        ProfileManifest sameContent = manifest("same.manifest",
+                "mainClass=HelloWorld",
+                "entry.lib/a.jar=100 2 aaaa",
+                "entry.lib/b.jar=300 2 bbbb",
+                "entry.lib/c.jar=600 2 cccc");
+        assertEquals(0, recorded.driftTo(sameContent).percent());
+
+        // one of three jars changed, but it is 60% of the bytes
+        ProfileManifest changed = manifest("changed.manifest",
+                "mainClass=HelloWorld",
+                "entry.lib/a.jar=100 1 aaaa",
+                "entry.lib/b.jar=300 1 bbbb",
+                "entry.lib/c.jar=600 1 dddd");
+        ProfileManifest.Drift drift = recorded.driftTo(changed);
+        assertEquals(1, drift.changedEntries);
+        assertEquals(3, drift.totalEntries);
+        assertEquals(60, drift.percent());
+
+        ProfileManifest otherMain = manifest("otherMain.manifest",
+                "mainClass=Other",
+                "entry.lib/a.jar=100 1 aaaa",
+                "entry.lib/b.jar=300 1 bbbb",
+                "entry.lib/c.jar=600 1 cccc");
+        assertEquals(100, recorded.driftTo(otherMain).percent());
+    }
+
+    @Test
+    public void manifestRecordsHashesOnly() throws IOException {
+        ProfileManifest recorded = manifest("stamped.manifest",
+                "mainClass=HelloWorld",
+                "entry.lib/b.jar=300 1 bbbb",
+                "entry.lib/a\\ b.jar=100 1 aaaa");
+        File file = new File(TestUtils.workDir(), "profileManifestTest/written.manifest");
+        recorded.write(file);
+        assertEquals(asList(
+                "#Application state the execution profiles were collected against",
+                "entry.lib/a\\ b.jar=aaaa",
+                "entry.lib/b.jar=bbbb",
+                "mainClass=HelloWorld"),
+                Files.readAllLines(file.toPath(), StandardCharsets.ISO_8859_1));
+
+        ProfileManifest changed = manifest("changedSize.manifest",
+                "mainClass=HelloWorld",
+                "entry.lib/a\\ b.jar=100 2 aaaa",
+                "entry.lib/b.jar=900 2 cccc");
+        ProfileManifest.Drift drift = ProfileManifest.readIfExists(file).driftTo(changed);
+        assertEquals(1, drift.changedEntries);
+        assertEquals(90, drift.percent());
+    }
+
+    @Test
+    public void noManifest() throws IOException {
+        assertNull(ProfileManifest.readIfExists(new File(TestUtils.workDir(), "no.manifest")));
+    }
+}
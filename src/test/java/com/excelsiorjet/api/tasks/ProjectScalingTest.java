@@ -0,0 +1,161 @@
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.api.ExcelsiorJet;
+import com.excelsiorjet.api.log.StdOutLog;
+import com.excelsiorjet.api.util.Utils;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.ResourceBundle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the project model scales to large projects: validation, dependency processing,
+ * compiler project generation and classpath staging at 100, 1000 and 10000 dependencies
+ * must fit a per-dependency allocation budget, and their allocations must not grow faster
+ * than {@link #MAX_GROWTH_PER_10X} times per 10 times more dependencies.
+ * <p>
+ * Only allocations are checked, as they do not depend on the machine load.
+ * The execution times are measured by the JMH benchmarks of the {@code benchmarks} module.
+ * </p>
+ */
+public class ProjectScalingTest {
+
+    static {
+        JetProject.configureEnvironment(new StdOutLog(), ResourceBundle.getBundle("Strings"));
+    }
+
+    private static final int[] SIZES = {100, 1000, 10000};
+
+    // per-dependency budget at the largest size
+    private static final long MAX_BYTES_PER_DEPENDENCY = 64 * 1024;
+
+    // linear growth gives 10x per 10x more dependencies, quadratic one gives 100x
+    private static final double MAX_GROWTH_PER_10X = 30.0;
+
+    private static final Map<Integer, SyntheticProject> synthetics = new LinkedHashMap<>();
+    private static final Map<Integer, JetProject> projects = new LinkedHashMap<>();
+    private static SyntheticProject warmUp;
+    private static JetProject warmUpProject;
+    private static File baseDir;
+    private static ExcelsiorJet excelsiorJet;
+
+    interface Operation {
+        void run(JetProject project) throws Exception;
+    }
+
+    @BeforeClass
+    public static void generateProjects() throws Exception {
+        baseDir = Files.createTempDirectory("excelsior-jet-api-scaling").toFile();
+        excelsiorJet = Tests.excelsiorJet();
+        for (int size : SIZES) {
+            SyntheticProject synthetic = synthetic(new File(baseDir, String.valueOf(size)), size);
+            synthetics.put(size, synthetic);
+            JetProject project = synthetic.create();
+            // the operations other than validation expect a validated project
+            project.validate(excelsiorJet, true);
+            projects.put(size, project);
+        }
+        warmUp = synthetic(new File(baseDir, "warm-up"), SIZES[0]);
+        warmUpProject = warmUp.create();
+        warmUpProject.validate(excelsiorJet, true);
+    }
+
+    private static SyntheticProject synthetic(File dir, int size) {
+        return new SyntheticProject(dir)
+                .dependencies(size)
+                .groups(50)
+                .rules(50 + size / 10)
+                .directoryShare(0.1);
+    }
+
+    @AfterClass
+    public static void cleanup() throws IOException {
+        Utils.cleanDirectory(baseDir);
+    }
+
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    private static long measure(JetProject project, Operation operation) throws Exception {
+        long bytes = allocatedBytes();
+        operation.run(project);
+        return allocatedBytes() - bytes;
+    }
+
+    private static void assertScales(String name, Operation operation) throws Exception {
+        assertScales(name, false, operation);
+    }
+
+    /**
+     * @param fresh whether the operation is measured on new project instances with the validation cache cleared,
+     *              so that memoized results of previous operations are not reused
+     */
+    private static void assertScales(String name, boolean fresh, Operation operation) throws Exception {
+        // warm up the code on a separate project of the smallest size
+        operation.run(fresh ? warmUp.project() : warmUpProject);
+        Map<Integer, Long> allocations = new LinkedHashMap<>();
+        for (int size : SIZES) {
+            JetProject project = projects.get(size);
+            if (fresh) {
+                project = synthetics.get(size).project();
+                ValidationCache.clear();
+            }
+            allocations.put(size, measure(project, operation));
+        }
+        int largest = SIZES[SIZES.length - 1];
+        long bytes = allocations.get(largest);
+        long bytesPerDependency = bytes / largest;
+        assertTrue(name + " allocates " + bytesPerDependency + " bytes per dependency",
+                bytesPerDependency <= MAX_BYTES_PER_DEPENDENCY);
+
+        // compare the two largest sizes, the smallest one is dominated by fixed costs
+        long previous = allocations.get(SIZES[SIZES.length - 2]);
+        if (previous > 0) {
+            double growth = (double) bytes / previous;
+            assertTrue(name + " allocation grows " + growth + "x per 10x dependencies", growth <= MAX_GROWTH_PER_10X);
+        }
+    }
+
+    @Test
+    public void processDependenciesScales() throws Exception {
+        assertScales("processDependencies", JetProject::processDependencies);
+        assertEquals(10001, projects.get(10000).classpathEntries().size());
+    }
+
+    @Test
+    public void validateScales() throws Exception {
+        assertScales("validate", true, project -> project.validate(excelsiorJet, true));
+    }
+
+    @Test
+    public void projectFileGenerationScales() throws Exception {
+        assertScales("project file generation", project -> {
+            project.processDependencies();
+            new CompilerArgsGenerator(project, excelsiorJet, false).projectFileContent();
+        });
+    }
+
+    @Test
+    public void classpathStagingScales() throws Exception {
+        assertScales("classpath staging", project -> {
+            project.processDependencies();
+            project.copyClasspathEntries();
+        });
+    }
+}
@@ -1,24 +1,38 @@
 package com.excelsiorjet.api.tasks;
 
 import com.excelsiorjet.TestUtils;
+import com.excelsiorjet.api.log.StdOutLog;
+import com.excelsiorjet.api.tasks.config.StagedStopConfig;
+import com.excelsiorjet.api.tasks.config.TerminationPolicy;
 import com.excelsiorjet.api.util.Txt;
+import com.excelsiorjet.api.util.Utils;
 import org.junit.Test;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
 
 public class RunStopSupportTest {
 
+    static {
+        JetProject.configureEnvironment(new StdOutLog(), ResourceBundle.getBundle("Strings"));
+    }
+
     //1 min timeout
     private static int RUN_TIMEOUT = 60000;
 
+    private static int STOP_GRACE_TIME = 1000;
+
     private RunStopSupport runStopSupport(boolean toStop) {
         return new RunStopSupport(TestUtils.workDir(), toStop);
     }
 
     /**
      * Simulates running a task via creating a thread, RunStopSupport object and waiting for the termination file.
+     * The halt file of the staged termination policy is always obeyed.
      */
     private class RunTask {
 
@@ -29,7 +43,35 @@ public class RunStopSupportTest {
         private File termFile;
 
         RunTask(long duration) {
-            RunStopSupport runStopSupport = runStopSupport(false);
+            this(duration, false);
+        }
+
+        RunTask(long duration, boolean ignoreStop) {
+            this(duration, ignoreStop, false);
+        }
+
+        RunTask(long duration, boolean ignoreStop, boolean controlChannel) {
+            this(duration, ignoreStop, controlChannel, null);
+        }
+
+        RunTask(String name) {
+            this(RUN_TIMEOUT, false, false, name);
+        }
+
+        RunTask(long duration, boolean ignoreStop, boolean controlChannel, String name) {
+            this(duration, ignoreStop, controlChannel, name, TerminationPolicy.CTRL_C);
+        }
+
+        RunTask(long duration, boolean ignoreStop, boolean controlChannel, String name,
+                TerminationPolicy terminationPolicy) {
+            this(duration, ignoreStop, controlChannel, name, terminationPolicy.toString());
+        }
+
+        RunTask(long duration, boolean ignoreStop, boolean controlChannel, String name, String terminationPolicy) {
+            RunStopSupport runStopSupport = runStopSupport(false)
+                    .withControlChannel(controlChannel)
+                    .withInstanceName(name)
+                    .withTerminationPolicy(terminationPolicy);
             try {
                 termFile = runStopSupport.prepareToRunTask();
             } catch (JetTaskFailureException e) {
@@ -44,7 +86,10 @@ public class RunStopSupportTest {
                         break;
                     }
                     timeToEnd -= SLEEP_TIME;
-                    if (termFile.exists()) {
+                    if (!ignoreStop && termFile.exists()) {
+                        break;
+                    }
+                    if (RunStopSupport.haltFileFor(termFile).exists()) {
                         break;
                     }
                 }
@@ -75,10 +120,13 @@ public class RunStopSupportTest {
 
     private void stopTask(RunTask expectedToStop) {
         try {
-            runStopSupport(true).stopRunTask();
+            long stopLatency = runStopSupport(true).stopRunTask();
+            assertTrue(stopLatency >= 0 && stopLatency < RunStopSupport.DEFAULT_STOP_TIMEOUT);
         } catch (JetTaskFailureException e) {
             fail(e.getMessage());
         }
+        // the termination file is deleted by the task thread right before it exits
+        expectedToStop.join(STOP_GRACE_TIME);
         assertTrue(expectedToStop.isCompleted());
     }
 
@@ -142,4 +190,129 @@ public class RunStopSupportTest {
         }
     }
 
-}
\ No newline at end of file
+    @Test
+    public void stopTimeout() {
+        RunTask runTask = new RunTask(2000, true);
+        try {
+            new RunStopSupport(TestUtils.workDir(), true, 200).stopRunTask();
+            fail("Stopped task that ignores termination");
+        } catch (JetTaskFailureException e) {
+            assertEquals(e.getMessage(), Txt.s("StopTask.StopTimeout.Error"));
+        }
+        runTask.join(RUN_TIMEOUT);
+        assertTrue(runTask.isCompleted());
+    }
+
+    @Test
+    public void controlChannel() throws JetTaskFailureException {
+        RunTask runTask = new RunTask(RUN_TIMEOUT, false, true);
+        RunStatus status = runStopSupport(true).queryStatus();
+        assertTrue(status.running);
+        assertTrue(status.pid != -1);
+
+        long stopLatency = runStopSupport(true).stopRunTask();
+        assertTrue(stopLatency >= 0 && stopLatency < RunStopSupport.DEFAULT_STOP_TIMEOUT);
+        runTask.join(RUN_TIMEOUT);
+        assertTrue(runTask.isCompleted());
+        assertFalse(runStopSupport(true).queryStatus().running);
+    }
+
+    @Test
+    public void namedInstances() throws JetTaskFailureException {
+        RunTask first = new RunTask("first");
+        RunTask second = new RunTask("second");
+        RunTask third = new RunTask("third");
+
+        List<RunInstance> instances = runStopSupport(true).listRunTasks();
+        assertEquals(Arrays.asList("first", "second", "third"),
+                instances.stream().map(i -> i.name).collect(Collectors.toList()));
+
+        runStopSupport(true).stopRunTask("first");
+        first.join(RUN_TIMEOUT);
+        assertTrue(first.isCompleted());
+        assertFalse(second.isCompleted());
+
+        Map<String, StopReport> stopped = runStopSupport(true).stopAllRunTasks();
+        assertEquals(new HashSet<>(Arrays.asList("second", "third")), stopped.keySet());
+        second.join(RUN_TIMEOUT);
+        third.join(RUN_TIMEOUT);
+        assertTrue(second.isCompleted());
+        assertTrue(third.isCompleted());
+        assertTrue(runStopSupport(true).listRunTasks().isEmpty());
+    }
+
+    @Test
+    public void duplicateInstanceName() throws JetTaskFailureException {
+        RunTask runTask = new RunTask("dup");
+        try {
+            runStopSupport(false).withInstanceName("dup").prepareToRunTask();
+            fail("Two instances with the same name");
+        } catch (JetTaskFailureException e) {
+            assertEquals(e.getMessage(), Txt.s("RunTask.InstanceAlreadyRunning.Error", "dup"));
+        }
+        try {
+            runStopSupport(true).stopRunTask("unknown");
+            fail("Stopped unknown instance");
+        } catch (JetTaskFailureException e) {
+            assertEquals(e.getMessage(), Txt.s("StopTask.NoRunInstance.Error", "unknown"));
+        }
+        runStopSupport(true).stopRunTask("dup");
+        runTask.join(RUN_TIMEOUT);
+        assertTrue(runTask.isCompleted());
+    }
+
+    @Test
+    public void stagedStop() throws JetTaskFailureException {
+        RunTask runTask = new RunTask(RUN_TIMEOUT, true, false, "staged", TerminationPolicy.STAGED);
+        StagedStopConfig stagedStop = new StagedStopConfig();
+        stagedStop.ctrlCTimeout = 1;
+        stagedStop.fillDefaults();
+
+        StopReport report = runStopSupport(true).withStagedStop(stagedStop).stopInstance("staged");
+        assertEquals(Arrays.asList("ctrl-c", "halt"), new ArrayList<>(report.stageLatencies.keySet()));
+        assertEquals("halt", report.finalStage());
+        assertTrue(report.stageLatencies.get("ctrl-c") >= 1000);
+        assertTrue(report.stageLatencies.get("halt") < StagedStopConfig.DEFAULT_HALT_TIMEOUT * 1000);
+        runTask.join(STOP_GRACE_TIME);
+        assertTrue(runTask.isCompleted());
+    }
+
+    @Test
+    public void stagedStopWithPolicyInUpperCase() throws JetTaskFailureException {
+        RunTask runTask = new RunTask(RUN_TIMEOUT, true, false, "upper", "STAGED");
+        StagedStopConfig stagedStop = new StagedStopConfig();
+        stagedStop.ctrlCTimeout = 1;
+        stagedStop.fillDefaults();
+
+        RunInstance instance = runStopSupport(true).listRunTasks().stream()
+                .filter(i -> i.name.equals("upper")).findFirst().orElse(null);
+        assertNotNull(instance);
+        assertEquals("staged", instance.terminationPolicy);
+        StopReport report = runStopSupport(true).withStagedStop(stagedStop).stopInstance("upper");
+        assertEquals("halt", report.finalStage());
+        runTask.join(STOP_GRACE_TIME);
+        assertTrue(runTask.isCompleted());
+    }
+
+    @Test
+    public void corruptedRegistryEntryIsSkipped() throws Exception {
+        File dir = Files.createTempDirectory("run-registry").toFile();
+        try {
+            Files.write(new File(dir, "instances.index").toPath(), (
+                    "next.id=1\n" +
+                    "3.name=alive\n3.pid=42\n3.startTime=1000\n" +
+                    "x.name=broken\n" +
+                    "5.name=bad-pid\n5.pid=oops\n").getBytes());
+            RunRegistry registry = new RunRegistry(dir);
+            int id = registry.update(index -> {
+                assertEquals(Collections.singleton(3), index.instances.keySet());
+                assertEquals(42, index.byName("alive").pid);
+                return index.allocateId();
+            });
+            assertEquals(4, id);
+        } finally {
+            Utils.cleanDirectorySilently(dir);
+        }
+    }
+
+}
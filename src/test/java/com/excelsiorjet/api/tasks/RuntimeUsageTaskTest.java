@@ -0,0 +1,113 @@
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.TestUtils;
+import com.excelsiorjet.api.log.StdOutLog;
+import com.excelsiorjet.api.tasks.config.runtime.RuntimeConfig;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.ResourceBundle;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.Assert.*;
+
+public class RuntimeUsageTaskTest {
+
+    static {
+        JetProject.configureEnvironment(new StdOutLog(), ResourceBundle.getBundle("Strings"));
+    }
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File jar(String name, String... entries) throws Exception {
+        File jar = new File(temp.getRoot(), name);
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            for (String entry : entries) {
+                out.putNextEntry(new JarEntry(entry));
+                if (entry.endsWith(".class")) {
+                    Files.copy(new File(TestUtils.workDir(), entry).toPath(), out);
+                }
+                out.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+    @Test
+    public void detectsComponentsAndLocalesFromBytecode() throws Exception {
+        File jar = jar("client.jar", "testClasses/runtime/SecureClient.class", "messages/Messages_th.properties");
+        RuntimeUsageTask.Usage usage = RuntimeUsageTask.scan(jar);
+        assertEquals(Collections.singleton("jce"), usage.components.keySet());
+        assertEquals(Arrays.asList("Japanese", "Korean", "Thai"), Arrays.asList(usage.locales.keySet().toArray()));
+        assertTrue(usage.components.get("jce").contains("javax.crypto.Cipher in client.jar"));
+    }
+
+    @Test
+    public void plainClassesNeedNoComponents() throws Exception {
+        RuntimeUsageTask.Usage usage = RuntimeUsageTask.scan(jar("plain.jar", "testClasses/runtime/Plain.class"));
+        RuntimeUsageTask.Recommendation recommendation = new RuntimeUsageTask.Recommendation(usage);
+        assertArrayEquals(new String[]{"none"}, recommendation.componentsValue());
+        assertEquals(Collections.singletonList(RuntimeUsageTask.EUROPEAN), recommendation.locales);
+    }
+
+    @Test
+    public void recognizesCharsets() {
+        assertEquals("Japanese", RuntimeUsageTask.charsetLocale("Shift_JIS"));
+        assertEquals("Extended_Chinese", RuntimeUsageTask.charsetLocale("GB18030"));
+        assertEquals("Extended_Macintosh", RuntimeUsageTask.charsetLocale("x-MacRoman"));
+        assertEquals("Extended_IBM", RuntimeUsageTask.charsetLocale("IBM037"));
+        assertNull(RuntimeUsageTask.charsetLocale("windows-1252"));
+        assertNull(RuntimeUsageTask.charsetLocale("UTF-8"));
+    }
+
+    @Test
+    public void detectsUsageFromUsageList() throws Exception {
+        File usg = temp.newFile("app.usg");
+        Files.write(usg.toPath(), ("!classes\nsun.nio.cs.ext.SJIS\njavax.swing.JFrame\n" +
+                "sun.text.resources.ko.FormatData_ko\n").getBytes());
+        RuntimeUsageTask.Usage usage = RuntimeUsageTask.scanUsageList(usg);
+        assertEquals(Arrays.asList("awt_natives", "fonts"), Arrays.asList(usage.components.keySet().toArray()));
+        assertEquals(Arrays.asList("Japanese", "Korean"), Arrays.asList(usage.locales.keySet().toArray()));
+    }
+
+    @Test
+    public void measuresSizeDeltaInPreviousImage() throws Exception {
+        File rt = temp.newFolder("rt");
+        Files.write(new File(rt, "nashorn.jar").toPath(), new byte[1000]);
+        Files.createDirectories(new File(rt, "lib/fonts").toPath());
+        Files.write(new File(rt, "lib/fonts/LucidaSans.ttf").toPath(), new byte[300]);
+        Files.write(new File(rt, "sunjce_provider.jar").toPath(), new byte[200]);
+        Files.write(new File(rt, "jet.dll").toPath(), new byte[5000]);
+
+        RuntimeUsageTask.Usage usage = new RuntimeUsageTask.Usage();
+        usage.component("jce", "javax.crypto.Cipher");
+        RuntimeUsageTask.Recommendation recommendation = new RuntimeUsageTask.Recommendation(usage);
+        recommendation.imageComponentBytes.putAll(RuntimeUsageTask.componentBytes(rt));
+        assertEquals(3, recommendation.imageComponentBytes.size());
+
+        recommendation.current.addAll(RuntimeUsageTask.currentComponents(new String[]{"all"}));
+        assertEquals(-1300, recommendation.sizeDelta());
+    }
+
+    @Test
+    public void appliesRecommendationToImplicitSettingsOnly() throws Exception {
+        JetProject project = new SyntheticProject(temp.newFolder("prj")).dependencies(2).groups(1).rules(1).create();
+        RuntimeConfig runtime = project.runtimeConfiguration();
+        runtime.autoSelect = true;
+        runtime.locales = new String[]{"all"};
+        project.validate(Tests.excelsiorJet(), false);
+
+        new RuntimeUsageTask(Tests.excelsiorJet(), project).apply(runtime);
+        assertArrayEquals(new String[]{"none"}, runtime.components);
+        assertArrayEquals(new String[]{"all"}, runtime.locales);
+        assertTrue(new File(project.jetOutputDir(), RuntimeUsageTask.REPORT_FILE).exists());
+    }
+}
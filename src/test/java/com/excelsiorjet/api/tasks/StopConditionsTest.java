@@ -0,0 +1,71 @@
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.api.log.StdOutLog;
+import com.excelsiorjet.api.tasks.config.compiler.StopConditionsConfig;
+import org.junit.Test;
+
+import java.util.ResourceBundle;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class StopConditionsTest {
+
+    static {
+        JetProject.configureEnvironment(new StdOutLog(), ResourceBundle.getBundle("Strings"));
+    }
+
+    @Test
+    public void testOutputPatternFires() throws Exception {
+        StopConditionsConfig config = new StopConditionsConfig();
+        config.outputPattern = "Warm-up (done|completed)";
+        CountDownLatch stopped = new CountDownLatch(1);
+        StopConditions conditions = new StopConditions(config, 0, false, stopped::countDown);
+
+        conditions.onOutput("Starting");
+        assertNull(conditions.reason());
+        conditions.onOutput("Warm-up completed in 3 s");
+        assertTrue(stopped.await(5, TimeUnit.SECONDS));
+        assertNotNull(conditions.reason());
+
+        // only the first condition fires
+        conditions.onOutput("Warm-up done");
+        assertEquals(0, stopped.getCount());
+    }
+
+    @Test
+    public void testQuietPeriodTracksClassLoading() {
+        StopConditionsConfig config = new StopConditionsConfig();
+        config.quietPeriod = 1;
+        config.trackClassLoading = true;
+        assertTrue(new StopConditions(config, 0, true, () -> {}).tracksClassLoading());
+        assertFalse(new StopConditions(config, 0, false, () -> {}).tracksClassLoading());
+    }
+
+    @Test
+    public void testClassLoadingEventsAreNotLogged() {
+        StopConditionsConfig config = new StopConditionsConfig();
+        config.quietPeriod = 1;
+        config.trackClassLoading = true;
+        StopConditions tracking = new StopConditions(config, 0, true, () -> {});
+        assertFalse(tracking.isLogged("[Loaded java.lang.Object from /jre/lib/rt.jar]"));
+        assertFalse(tracking.isLogged("[0.012s][info][class,load] java.lang.Object source: jrt:/java.base"));
+        assertTrue(tracking.isLogged("Server started"));
+        assertTrue(new StopConditions(config, 0, false, () -> {}).isLogged("[Loaded java.lang.Object]"));
+    }
+
+    @Test
+    public void testNoneIsNotDefined() {
+        assertFalse(StopConditions.NONE.isDefined());
+        StopConditions.NONE.onOutput("any");
+        assertNull(StopConditions.NONE.reason());
+    }
+
+    @Test(expected = JetTaskFailureException.class)
+    public void testInvalidOutputPattern() throws Exception {
+        StopConditionsConfig config = new StopConditionsConfig();
+        config.outputPattern = "(unclosed";
+        config.validate();
+    }
+}
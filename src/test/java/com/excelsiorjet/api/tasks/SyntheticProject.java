@@ -0,0 +1,204 @@
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.api.tasks.config.ApplicationType;
+import com.excelsiorjet.api.tasks.config.PDBConfig;
+import com.excelsiorjet.api.tasks.config.compiler.ExecProfilesConfig;
+import com.excelsiorjet.api.tasks.config.compiler.WindowsVersionInfoConfig;
+import com.excelsiorjet.api.tasks.config.dependencies.DependencySettings;
+import com.excelsiorjet.api.tasks.config.dependencies.ProjectDependency;
+import com.excelsiorjet.api.tasks.config.excelsiorinstaller.ExcelsiorInstallerConfig;
+import com.excelsiorjet.api.tasks.config.runtime.RuntimeConfig;
+import com.excelsiorjet.api.tasks.config.windowsservice.WindowsServiceConfig;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Generator of synthetic {@link JetProject}s with many dependencies backed by real files on disk.
+ * <p>
+ * Dependencies are spread evenly over {@link #groups(int)} groups, and a share of them
+ * ({@link #directoryShare(double)}) are class directories rather than jars.
+ * The dependency settings rules are generated in rounds: one rule per group first, then
+ * artifact rules (group and artifact id) for every k-th dependency, with every
+ * {@link #PATH_RULE_PERIOD}-th artifact rule replaced by a rule that identifies the dependency by its path.
+ * </p>
+ */
+class SyntheticProject {
+
+    static final String PROJECT_GROUP = "com.example.app";
+
+    /**
+     * Every such artifact rule identifies its dependency by the path instead of ids.
+     */
+    static final int PATH_RULE_PERIOD = 10;
+
+    private static final byte[] JAR_CONTENT = jarContent();
+
+    private final File baseDir;
+
+    private int dependencies = 100;
+    private int rules = 10;
+    private int groups = 10;
+    private double directoryShare = 0.1;
+
+    private final List<ProjectDependency> projectDependencies = new ArrayList<>();
+    private final List<DependencySettings> dependencySettings = new ArrayList<>();
+
+    SyntheticProject(File baseDir) {
+        this.baseDir = baseDir;
+    }
+
+    SyntheticProject dependencies(int dependencies) {
+        this.dependencies = dependencies;
+        return this;
+    }
+
+    /**
+     * Sets the number of dependency settings rules. Should not exceed the number of groups plus dependencies.
+     */
+    SyntheticProject rules(int rules) {
+        this.rules = rules;
+        return this;
+    }
+
+    SyntheticProject groups(int groups) {
+        this.groups = groups;
+        return this;
+    }
+
+    /**
+     * Sets the share of dependencies that are class directories, from 0 to 1.
+     */
+    SyntheticProject directoryShare(double directoryShare) {
+        this.directoryShare = directoryShare;
+        return this;
+    }
+
+    List<ProjectDependency> projectDependencies() {
+        return projectDependencies;
+    }
+
+    List<DependencySettings> dependencySettings() {
+        return dependencySettings;
+    }
+
+    private static byte[] jarContent() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (JarOutputStream jar = new JarOutputStream(bytes)) {
+            jar.putNextEntry(new JarEntry("com/example/Lib.class"));
+            jar.write(new byte[]{(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE});
+            jar.closeEntry();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String group(int g) {
+        return "com.example.lib" + g;
+    }
+
+    private boolean isDirectory(int i) {
+        // spread directories evenly among the dependencies
+        return (int) ((i + 1) * directoryShare) != (int) (i * directoryShare);
+    }
+
+    private File createDependency(Path repository, int i) throws IOException {
+        String name = "artifact-" + i;
+        Path groupDir = repository.resolve(group(i % groups));
+        if (isDirectory(i)) {
+            Path classes = Files.createDirectories(groupDir.resolve(name).resolve("com/example"));
+            Files.write(classes.resolve("Lib" + i + ".class"), JAR_CONTENT);
+            return groupDir.resolve(name).toFile();
+        } else {
+            Files.createDirectories(groupDir);
+            return Files.write(groupDir.resolve(name + ".jar"), JAR_CONTENT).toFile();
+        }
+    }
+
+    private void generateRules() {
+        int groupRules = Math.min(rules, groups);
+        for (int g = 0; g < groupRules; g++) {
+            DependencySettings group = new DependencySettings();
+            group.groupId = group(g);
+            group.isLibrary = true;
+            dependencySettings.add(group);
+        }
+        int artifactRules = rules - groupRules;
+        if (artifactRules <= 0) {
+            return;
+        }
+        int step = Math.max(1, dependencies / artifactRules);
+        for (int r = 0, i = 0; r < artifactRules && i < dependencies; r++, i += step) {
+            ProjectDependency dependency = projectDependencies.get(i);
+            boolean directory = dependency.path.isDirectory();
+            DependencySettings rule = (r % PATH_RULE_PERIOD == PATH_RULE_PERIOD - 1) ?
+                    new DependencySettings(dependency.path, null, null) :
+                    new DependencySettings(dependency.groupId, dependency.artifactId, null, null);
+            if (directory) {
+                rule.pack = ClasspathEntry.PackType.NONE.userValue;
+            } else {
+                rule.protect = ClasspathEntry.ProtectionType.ALL.userValue;
+                rule.optimize = ClasspathEntry.OptimizationType.ALL.userValue;
+            }
+            dependencySettings.add(rule);
+        }
+    }
+
+    /**
+     * Generates the dependency files and settings and creates the project.
+     */
+    JetProject create() throws IOException {
+        Path repository = Files.createDirectories(baseDir.toPath().resolve("repository"));
+        Files.write(Files.createDirectories(buildDir()).resolve("app.jar"), JAR_CONTENT);
+
+        projectDependencies.clear();
+        dependencySettings.clear();
+        for (int i = 0; i < dependencies; i++) {
+            File file = createDependency(repository, i);
+            projectDependencies.add(new ProjectDependency(group(i % groups), "artifact-" + i, "1.0", file, false));
+        }
+        generateRules();
+        return project();
+    }
+
+    private Path buildDir() {
+        return baseDir.toPath().resolve("build");
+    }
+
+    /**
+     * Creates one more project for the files and settings generated by {@link #create()}.
+     */
+    JetProject project() {
+        Path buildDir = buildDir();
+        File mainJar = buildDir.resolve("app.jar").toFile();
+        PDBConfig pdbConfig = new PDBConfig();
+        pdbConfig.keepInBuildDir = true;
+        return new JetProject("app", "app", PROJECT_GROUP, "1.0", ApplicationType.PLAIN,
+                buildDir.toFile(), baseDir.toPath().resolve("jetresources").toFile())
+                .mainJar(mainJar)
+                .mainClass("com.example.app.Main")
+                .runArgs(new String[0])
+                .projectDependencies(projectDependencies)
+                .dependencies(dependencySettings)
+                .jetBuildDir(buildDir.resolve("jet/build").toFile())
+                .jetAppDir(buildDir.resolve("jet/app").toFile())
+                .packageFiles(Collections.emptyList())
+                .excelsiorInstallerConfiguration(new ExcelsiorInstallerConfig())
+                .windowsServiceConfiguration(new WindowsServiceConfig())
+                .windowsVersionInfoConfiguration(new WindowsVersionInfoConfig())
+                .runtimeConfiguration(new RuntimeConfig())
+                .execProfiles(new ExecProfilesConfig())
+                .outputName("app")
+                .excelsiorJetPackaging("none")
+                .pdbConfiguration(pdbConfig);
+    }
+}
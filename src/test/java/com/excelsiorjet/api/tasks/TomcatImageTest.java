@@ -0,0 +1,96 @@
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.api.log.StdOutLog;
+import com.excelsiorjet.api.tasks.config.TomcatConfig;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ResourceBundle;
+
+import static org.junit.Assert.*;
+
+public class TomcatImageTest {
+
+    static {
+        JetProject.configureEnvironment(new StdOutLog(), ResourceBundle.getBundle("Strings"));
+    }
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private TomcatConfig config;
+
+    private static void write(Path file, String content) throws Exception {
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes());
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        Path tomcat = temp.newFolder("tomcat").toPath();
+        write(tomcat.resolve("bin/catalina.sh"), "#!/bin/sh");
+        write(tomcat.resolve("conf/server.xml"), "<Server/>");
+        write(tomcat.resolve("lib/catalina.jar"), "catalina");
+        write(tomcat.resolve("lib/tomcat-dbcp.jar"), "dbcp");
+        write(tomcat.resolve("lib/ecj.jar"), "ecj");
+        write(tomcat.resolve("webapps/ROOT/index.jsp"), "root");
+        write(tomcat.resolve("webapps/docs/index.html"), "docs");
+        write(tomcat.resolve("webapps/examples/index.html"), "examples");
+
+        config = new TomcatConfig();
+        config.tomcatHome = tomcat.toString();
+        config.cacheDir = temp.newFolder("cache");
+        config.libAllowList = new String[]{"tomcat-*.jar"};
+    }
+
+    @Test
+    public void prunesWebappsAndLibs() throws Exception {
+        File image = TomcatImage.prepare(config);
+        assertTrue(new File(image, "conf/server.xml").exists());
+        assertTrue(new File(image, "webapps/ROOT/index.jsp").exists());
+        assertFalse(new File(image, "webapps/docs").exists());
+        assertFalse(new File(image, "webapps/examples").exists());
+        assertTrue(new File(image, "lib/catalina.jar").exists());
+        assertTrue(new File(image, "lib/tomcat-dbcp.jar").exists());
+        assertFalse(new File(image, "lib/ecj.jar").exists());
+        // the master installation is intact
+        assertTrue(new File(config.tomcatHome, "lib/ecj.jar").exists());
+    }
+
+    @Test
+    public void keepsAllLibsWithoutAllowList() throws Exception {
+        config.libAllowList = null;
+        assertTrue(new File(TomcatImage.prepare(config), "lib/ecj.jar").exists());
+    }
+
+    @Test
+    public void reusesImageOfUnchangedTomcat() throws Exception {
+        File image = TomcatImage.prepare(config);
+        Files.write(new File(image, "marker").toPath(), new byte[0]);
+        assertEquals(image, TomcatImage.prepare(config));
+        assertTrue(new File(image, "marker").exists());
+    }
+
+    @Test
+    public void changedTomcatGetsNewImage() throws Exception {
+        File image = TomcatImage.prepare(config);
+        write(new File(config.tomcatHome, "conf/server.xml").toPath(), "<Server port=\"8006\"/>");
+        File changed = TomcatImage.prepare(config);
+        assertFalse(image.equals(changed));
+        assertEquals("<Server port=\"8006\"/>", new String(Files.readAllBytes(new File(changed, "conf/server.xml").toPath())));
+    }
+
+    @Test
+    public void changedPruningGetsNewImage() throws Exception {
+        File image = TomcatImage.prepare(config);
+        config.removeWebapps = new String[]{"docs"};
+        File changed = TomcatImage.prepare(config);
+        assertFalse(image.equals(changed));
+        assertTrue(new File(changed, "webapps/examples").exists());
+    }
+}
@@ -0,0 +1,92 @@
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.api.log.StdOutLog;
+import com.excelsiorjet.api.tasks.config.UsageListAnalysisConfig;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ResourceBundle;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class UsageListAnalysisTaskTest {
+
+    static {
+        JetProject.configureEnvironment(new StdOutLog(), ResourceBundle.getBundle("Strings"));
+    }
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File usg(String name, List<String> lines) throws Exception {
+        File usg = new File(temp.getRoot(), name);
+        Files.write(usg.toPath(), lines, StandardCharsets.UTF_8);
+        return usg;
+    }
+
+    private static List<String> classes(String prefix, int from, int to) {
+        List<String> lines = new ArrayList<>();
+        lines.add("!classes");
+        for (int i = from; i < to; i++) {
+            lines.add(prefix + i);
+        }
+        return lines;
+    }
+
+    @Test
+    public void diffsLargeListsInBoundedMemory() throws Exception {
+        File baseline = usg("baseline.usg", classes("com.example.C", 0, 3000));
+        File current = usg("current.usg", classes("com.example.C", 500, 3200));
+        File diffFile = new File(temp.getRoot(), "diff.txt");
+        File sortDir = temp.newFolder("sort");
+
+        UsageListAnalysisTask.Diff diff = UsageListAnalysisTask.diff(baseline, current, diffFile, sortDir, 100);
+
+        assertEquals(3000, diff.baselineEntries);
+        assertEquals(2700, diff.currentEntries);
+        assertEquals(200, diff.appeared);
+        assertEquals(500, diff.disappeared);
+        assertEquals(700 * 100.0 / 3200, diff.churnPercent(), 1e-9);
+        List<String> lines = Files.readAllLines(diffFile.toPath(), StandardCharsets.UTF_8);
+        assertEquals(700, lines.size());
+        assertTrue(lines.contains("- !classes com.example.C0"));
+        assertTrue(lines.contains("+ !classes com.example.C3199"));
+        assertEquals(0, sortDir.list().length);
+    }
+
+    @Test
+    public void reportsCoverageAndRecommendsReprofiling() throws Exception {
+        SyntheticProject synthetic = new SyntheticProject(temp.newFolder("prj")).dependencies(3).groups(1).rules(0)
+                .directoryShare(0);
+        JetProject project = synthetic.create();
+        UsageListAnalysisConfig config = new UsageListAnalysisConfig();
+        config.baseline = usg("baseline.usg", asList("!classes", "com.example.Old1", "com.example.Old2"));
+        project.usageListAnalysisConfiguration(config);
+        project.validate(Tests.excelsiorJet(), false);
+        project.execProfiles().profileDriftThreshold = 20;
+        File usg = project.execProfiles().getUsg();
+        Files.createDirectories(usg.getParentFile().toPath());
+        // every synthetic jar contains com/example/Lib, so only the main jar that goes first is covered
+        Files.write(usg.toPath(), asList("!classpath", "app.jar", "!classes", "com.example.Lib"),
+                StandardCharsets.UTF_8);
+
+        UsageListAnalysisTask.Report report = new UsageListAnalysisTask(Tests.excelsiorJet(), project).execute();
+
+        assertEquals(1, report.totalClasses);
+        assertEquals(1, report.usedClasses);
+        assertEquals(1, report.unresolvedEntries);
+        assertEquals(1, report.coverage.get(0).usedClasses);
+        assertEquals(asList("artifact-0.jar", "artifact-1.jar", "artifact-2.jar"), report.zeroCoverage());
+        assertEquals(2, report.diff.appeared);
+        assertEquals(2, report.diff.disappeared);
+        assertTrue(report.reprofileRecommended);
+        assertTrue(config.reportFile.isFile());
+    }
+}
@@ -0,0 +1,43 @@
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.TestUtils;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class UsageListTest {
+
+    private File usg(String name, String... lines) throws IOException {
+        File dir = new File(TestUtils.workDir(), "usageListTest");
+        dir.mkdirs();
+        File usg = new File(dir, name);
+        Files.write(usg.toPath(), asList(lines), StandardCharsets.UTF_8);
+        return usg;
+    }
+
+    @Test
+    public void mergeScenarios() throws IOException {
+        LinkedHashMap<String, File> scenarioUsgs = new LinkedHashMap<>();
+        scenarioUsgs.put("batch", usg("batch.usg", "!classes", "a/A", "a/B", "!resources", "r1"));
+        scenarioUsgs.put("api", usg("api.usg", "!classes", "a/B", "a/C", "!bundles", "b1"));
+        File merged = new File(TestUtils.workDir(), "usageListTest/merged.usg");
+        File report = new File(TestUtils.workDir(), "usageListTest/report.txt");
+
+        Map<String, Integer> contributions = UsageList.mergeScenarios(scenarioUsgs, merged, report);
+
+        assertEquals(asList("!classes", "a/A", "a/B", "a/C", "!resources", "r1", "!bundles", "b1"),
+                Files.readAllLines(merged.toPath(), StandardCharsets.UTF_8));
+        assertEquals(Integer.valueOf(2), contributions.get("batch"));
+        assertEquals(Integer.valueOf(2), contributions.get("api"));
+        List<String> reportLines = Files.readAllLines(report.toPath(), StandardCharsets.UTF_8);
+        assertTrue(reportLines.contains("!classes a/C"));
+        assertFalse(reportLines.contains("!classes a/B"));
+    }
+}
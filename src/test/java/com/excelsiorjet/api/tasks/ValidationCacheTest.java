@@ -0,0 +1,129 @@
+package com.excelsiorjet.api.tasks;
+
+import com.excelsiorjet.api.ExcelsiorJet;
+import com.excelsiorjet.api.log.StdOutLog;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ResourceBundle;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class ValidationCacheTest {
+
+    static {
+        JetProject.configureEnvironment(new StdOutLog(), ResourceBundle.getBundle("Strings"));
+    }
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private ExcelsiorJet excelsiorJet;
+
+    @Before
+    public void setUp() {
+        ValidationCache.clear();
+        excelsiorJet = Tests.excelsiorJet();
+    }
+
+    private JetProject project(String dir) throws Exception {
+        return new SyntheticProject(temp.newFolder(dir)).dependencies(20).groups(4).rules(8).create();
+    }
+
+    @Test
+    public void unchangedProjectIsNotRevalidated() throws Exception {
+        JetProject project = Mockito.spy(project("prj"));
+        project.validate(excelsiorJet, true);
+        project.validate(excelsiorJet, true);
+        project.validate(excelsiorJet, false);
+        verify(project, times(1)).processDependencies();
+    }
+
+    @Test
+    public void changedParameterTriggersRevalidation() throws Exception {
+        JetProject project = Mockito.spy(project("prj"));
+        project.validate(excelsiorJet, true);
+        project.optimizationPreset("smart");
+        project.validate(excelsiorJet, true);
+        verify(project, times(2)).processDependencies();
+    }
+
+    @Test
+    public void changedInputFileTriggersRevalidation() throws Exception {
+        JetProject project = Mockito.spy(project("prj"));
+        project.validate(excelsiorJet, true);
+        File mainJar = project.mainArtifact();
+        Files.write(mainJar.toPath(), new byte[]{1, 2, 3});
+        project.validate(excelsiorJet, true);
+        verify(project, times(2)).processDependencies();
+    }
+
+    @Test
+    public void changedDirectoryDependencyTriggersRevalidation() throws Exception {
+        JetProject project = Mockito.spy(project("prj"));
+        project.validate(excelsiorJet, true);
+        Path classDir;
+        try (Stream<Path> paths = Files.walk(temp.getRoot().toPath())) {
+            classDir = paths.filter(p -> Files.isDirectory(p) && p.getFileName().toString().startsWith("artifact-"))
+                    .findFirst().get();
+        }
+        Files.write(classDir.resolve("Added.class"), new byte[]{1, 2, 3});
+        project.validate(excelsiorJet, true);
+        verify(project, times(2)).processDependencies();
+    }
+
+    @Test
+    public void validationForBuildIsNotCoveredByLighterValidation() throws Exception {
+        JetProject project = Mockito.spy(project("prj"));
+        project.validate(excelsiorJet, false);
+        project.validate(excelsiorJet, true);
+        verify(project, times(2)).processDependencies();
+        project.validate(excelsiorJet, false);
+        verify(project, times(2)).processDependencies();
+    }
+
+    @Test
+    public void anotherExcelsiorJetTriggersRevalidation() throws Exception {
+        JetProject project = project("prj");
+        project.validate(excelsiorJet, true);
+        String fingerprint = ValidationCache.fingerprint(project);
+        assertFalse(new ValidationCache.Stamp(fingerprint, excelsiorJet, true)
+                .covers(fingerprint, Tests.excelsiorJet(), true));
+        assertTrue(new ValidationCache.Stamp(fingerprint, excelsiorJet, true)
+                .covers(fingerprint, excelsiorJet, false));
+    }
+
+    @Test
+    public void sameConfigurationSharesClasspath() throws Exception {
+        File dir = temp.newFolder("prj");
+        SyntheticProject synthetic = new SyntheticProject(dir).dependencies(20).groups(4).rules(8);
+        JetProject first = synthetic.create();
+        first.validate(excelsiorJet, true);
+
+        // another instance for the same files, as a build tool creates for the next task
+        JetProject second = Mockito.spy(synthetic.project());
+        second.validate(excelsiorJet, true);
+        verify(second, times(0)).processDependencies();
+        assertSame(first.classpathEntries(), second.classpathEntries());
+    }
+
+    @Test
+    public void usageListChangeTriggersRevalidationOfTunedProject() throws Exception {
+        JetProject project = Mockito.spy(project("prj").autoTuneDependencies(true));
+        project.validate(excelsiorJet, false);
+        File usg = project.execProfiles().getUsg();
+        Files.createDirectories(usg.getParentFile().toPath());
+        Files.write(usg.toPath(), "!classes\ncom.example.Lib\n".getBytes());
+        project.validate(excelsiorJet, false);
+        verify(project, times(2)).processDependencies();
+    }
+}
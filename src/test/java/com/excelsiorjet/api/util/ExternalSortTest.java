@@ -0,0 +1,56 @@
+package com.excelsiorjet.api.util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class ExternalSortTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private static List<String> readAll(ExternalSort.Lines lines) throws Exception {
+        List<String> result = new ArrayList<>();
+        String line;
+        while ((line = lines.next()) != null) {
+            result.add(line);
+        }
+        lines.close();
+        return result;
+    }
+
+    @Test
+    public void sortsInMemoryWithoutDuplicates() throws Exception {
+        try (ExternalSort sort = new ExternalSort(temp.getRoot(), 100)) {
+            for (String s : new String[]{"c", "a", "b", "a", "c"}) {
+                sort.add(s);
+            }
+            assertEquals(Arrays.asList("a", "b", "c"), readAll(sort.sorted()));
+        }
+        assertEquals(0, temp.getRoot().list().length);
+    }
+
+    @Test
+    public void mergesRunsAndDeletesThem() throws Exception {
+        Random random = new Random(7);
+        TreeSet<String> expected = new TreeSet<>();
+        try (ExternalSort sort = new ExternalSort(temp.getRoot(), 64)) {
+            for (int i = 0; i < 5000; i++) {
+                String line = "class/C" + random.nextInt(3000);
+                expected.add(line);
+                sort.add(line);
+            }
+            assertTrue(temp.getRoot().list().length > 1);
+            assertEquals(new ArrayList<>(expected), readAll(sort.sorted()));
+        }
+        assertEquals(0, temp.getRoot().list().length);
+    }
+}
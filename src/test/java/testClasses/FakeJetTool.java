@@ -0,0 +1,391 @@
+package testClasses;
+
+import java.io.*;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Stand-in for the {@code jc}, {@code xpack} and {@code xjava} tools of a fake Excelsior JET home
+ * created by {@code com.excelsiorjet.FakeJetToolchain}.
+ * <p>
+ * The launchers in the fake {@code bin} directory run this class passing the tool name as the first argument.
+ * The behavior of every tool (latency, output volume, memory use, exit code) is read from
+ * {@code bin/fake-jet.properties} on each invocation.
+ * </p>
+ */
+public class FakeJetTool {
+
+    public static final String PROPERTIES_FILE = "fake-jet.properties";
+
+    private static final int MB = 1024 * 1024;
+
+    private static final int OUTPUT_BATCHES = 10;
+
+    private final String tool;
+    private final Properties props = new Properties();
+
+    // keeps the simulated memory use reachable until exit
+    private static final List<byte[]> ballast = new ArrayList<>();
+
+    private FakeJetTool(String tool, File binDir) throws IOException {
+        this.tool = tool;
+        try (InputStream in = new FileInputStream(new File(binDir, PROPERTIES_FILE))) {
+            props.load(in);
+        }
+    }
+
+    private int intProp(String name) {
+        return Integer.parseInt(props.getProperty(tool + "." + name, "0"));
+    }
+
+    private void allocate() {
+        for (int i = 0; i < intProp("memoryMb"); i++) {
+            byte[] chunk = new byte[MB];
+            // touch every page, so that the memory is really committed
+            for (int j = 0; j < chunk.length; j += 4096) {
+                chunk[j] = 1;
+            }
+            ballast.add(chunk);
+        }
+    }
+
+    /**
+     * Prints the configured number of output lines in several batches spreading the configured latency between them.
+     */
+    private void simulateWork() throws InterruptedException {
+        allocate();
+        int lines = intProp("outputLines");
+        long latency = intProp("latency");
+        long start = System.currentTimeMillis();
+        int printed = 0;
+        for (int batch = 1; batch <= OUTPUT_BATCHES; batch++) {
+            int upTo = (int) ((long) lines * batch / OUTPUT_BATCHES);
+            for (; printed < upTo; printed++) {
+                System.out.println(tool + ": processing item " + (printed + 1) + " of " + lines);
+            }
+            System.out.flush();
+            long wait = start + latency * batch / OUTPUT_BATCHES - System.currentTimeMillis();
+            if (wait > 0) {
+                Thread.sleep(wait);
+            }
+        }
+    }
+
+    private int run(String[] args) throws Exception {
+        System.out.println(props.getProperty("banner"));
+        switch (tool) {
+            case "jc":
+                if (args.length == 0) {
+                    // the version/edition query
+                    return 0;
+                }
+                simulateWork();
+                int exitCode = intProp("exitCode");
+                if (exitCode == 0) {
+                    compile(args);
+                }
+                return exitCode;
+            case "xpack":
+                simulateWork();
+                exitCode = intProp("exitCode");
+                if (exitCode == 0) {
+                    pack(args);
+                }
+                return exitCode;
+            case "xjava":
+                simulateWork();
+                exitCode = intProp("exitCode");
+                if (exitCode == 0) {
+                    testRun(args);
+                }
+                return exitCode;
+            default:
+                System.err.println("Unknown tool " + tool);
+                return 2;
+        }
+    }
+
+    // ------------------------------------------------------------------ jc
+
+    /**
+     * Produces a placeholder executable named after the {@code -outputname} of the {@code =p} project file.
+     */
+    private void compile(String[] args) throws IOException {
+        if (args.length < 2 || !args[0].equals("=p")) {
+            return;
+        }
+        String outputName = null;
+        boolean dll = false;
+        boolean tomcat = false;
+        for (String line : Files.readAllLines(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+            line = line.trim();
+            if (line.startsWith("-outputname=")) {
+                outputName = line.substring("-outputname=".length());
+            } else if (line.equals("-gendll+")) {
+                dll = true;
+            } else if (line.equals("-apptype=tomcat")) {
+                tomcat = true;
+            }
+        }
+        if (outputName == null) {
+            return;
+        }
+        String exeName = dll ? outputName + dllExtension() : outputName;
+        File exe = tomcat ? new File("bin", exeName) : new File(exeName);
+        if (exe.getParentFile() != null) {
+            exe.getParentFile().mkdirs();
+        }
+        try (PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(exe), StandardCharsets.UTF_8))) {
+            out.println("#!/bin/sh");
+            out.println("echo \"" + outputName + " $@\"");
+            out.println("exit 0");
+            // padding to the configured executable size
+            int padding = Integer.parseInt(props.getProperty("jc.exeSizeKb", "0"));
+            char[] line = new char[1023];
+            Arrays.fill(line, 'x');
+            line[0] = '#';
+            for (int i = 0; i < padding; i++) {
+                out.println(line);
+            }
+        }
+        exe.setExecutable(true);
+    }
+
+    private static String dllExtension() {
+        return System.getProperty("os.name").contains("Mac") ? ".dylib" : ".so";
+    }
+
+    // ------------------------------------------------------------------ xpack
+
+    /**
+     * Splits xpack arguments and the contents of {@code -arg-file} into options with their parameters.
+     */
+    private static List<List<String>> options(String[] args) throws IOException {
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-arg-file") && i + 1 < args.length) {
+                for (String line : Files.readAllLines(Paths.get(args[++i]), StandardCharsets.UTF_8)) {
+                    if (!line.startsWith("#")) {
+                        tokens.addAll(tokenize(line));
+                    }
+                }
+            } else {
+                tokens.add(args[i]);
+            }
+        }
+        List<List<String>> options = new ArrayList<>();
+        for (String token : tokens) {
+            if (token.startsWith("-") || options.isEmpty()) {
+                options.add(new ArrayList<>());
+            }
+            options.get(options.size() - 1).add(token);
+        }
+        return options;
+    }
+
+    private static List<String> tokenize(String line) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = null;
+        boolean quoted = false;
+        for (char c : line.toCharArray()) {
+            if (c == '"') {
+                quoted = !quoted;
+                if (token == null) {
+                    token = new StringBuilder();
+                }
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (token != null) {
+                    tokens.add(token.toString());
+                    token = null;
+                }
+            } else {
+                if (token == null) {
+                    token = new StringBuilder();
+                }
+                token.append(c);
+            }
+        }
+        if (token != null) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+
+    /**
+     * Produces a self-contained directory (optionally zipped) or a placeholder installer
+     * at the {@code -target} location.
+     */
+    private void pack(String[] args) throws IOException {
+        File target = null;
+        boolean zip = false;
+        boolean installer = false;
+        List<File> sources = new ArrayList<>();
+        List<String[]> addedFiles = new ArrayList<>();
+        for (List<String> option : options(args)) {
+            String name = option.get(0);
+            switch (name) {
+                case "-target":
+                    target = new File(option.get(1));
+                    break;
+                case "-zip":
+                    zip = true;
+                    break;
+                case "-backend":
+                    installer = option.get(1).equals("excelsior-installer");
+                    break;
+                case "-source":
+                    sources.add(new File(option.get(1)));
+                    break;
+                case "-add-file":
+                    addedFiles.add(new String[]{option.get(1), option.get(2)});
+                    break;
+                default:
+                    // other options do not affect the produced placeholders
+            }
+        }
+        if (target == null) {
+            return;
+        }
+        if (installer) {
+            target.getAbsoluteFile().getParentFile().mkdirs();
+            Files.write(target.toPath(), Collections.singletonList("fake installer"), StandardCharsets.UTF_8);
+            return;
+        }
+        target.mkdirs();
+        for (File source : sources) {
+            copyTree(source.toPath(), target.toPath());
+        }
+        for (String[] file : addedFiles) {
+            Path src = Paths.get(file[0]);
+            Path dstDir = target.toPath().resolve(file[1].startsWith("/") ? file[1].substring(1) : file[1]);
+            if (Files.isDirectory(src)) {
+                copyTree(src, dstDir.resolve(src.getFileName().toString()));
+            } else if (Files.exists(src)) {
+                Files.createDirectories(dstDir);
+                Files.copy(src, dstDir.resolve(src.getFileName().toString()), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.COPY_ATTRIBUTES);
+            }
+        }
+        File rt = new File(target, "rt");
+        new File(rt, "bin").mkdirs();
+        new File(rt, "lib").mkdirs();
+        Files.write(new File(new File(rt, "bin"), "jet.rt").toPath(), Collections.singletonList("fake runtime"),
+                StandardCharsets.UTF_8);
+        if (zip) {
+            zipDirectory(target.toPath(), new File(target.getAbsolutePath() + ".zip"));
+        }
+    }
+
+    private static void copyTree(Path from, Path to) throws IOException {
+        if (!Files.exists(from)) {
+            return;
+        }
+        Files.walkFileTree(from, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(to.resolve(from.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.copy(file, to.resolve(from.relativize(file).toString()), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.COPY_ATTRIBUTES);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static void zipDirectory(Path dir, File zipFile) throws IOException {
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zipFile))) {
+            Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    out.putNextEntry(new ZipEntry(dir.getFileName() + "/" +
+                            dir.relativize(file).toString().replace(File.separatorChar, '/')));
+                    Files.copy(file, out);
+                    out.closeEntry();
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+    }
+
+    // ------------------------------------------------------------------ xjava
+
+    /**
+     * Runs the application in this JVM, applying {@code -D} options as system properties,
+     * and writes the usage list and startup profile requested via {@code jet.usage.list}
+     * and {@code jet.jit.profile.startup} on exit, as the real Test Run does.
+     */
+    private void testRun(String[] args) throws Exception {
+        String classpath = ".";
+        int i = 0;
+        for (; i < args.length && args[i].startsWith("-"); i++) {
+            String arg = args[i];
+            if ((arg.equals("-cp") || arg.equals("-classpath")) && i + 1 < args.length) {
+                classpath = args[++i];
+            } else if (arg.startsWith("-D")) {
+                int eq = arg.indexOf('=');
+                if (eq < 0) {
+                    System.setProperty(arg.substring(2), "");
+                } else {
+                    System.setProperty(arg.substring(2, eq), arg.substring(eq + 1));
+                }
+            }
+        }
+        if (i == args.length) {
+            return;
+        }
+        String mainClass = args[i];
+        String[] appArgs = Arrays.copyOfRange(args, i + 1, args.length);
+        String[] cpEntries = classpath.split(File.pathSeparator);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> writeProfiles(mainClass, cpEntries)));
+
+        URL[] urls = new URL[cpEntries.length];
+        for (int j = 0; j < cpEntries.length; j++) {
+            urls[j] = new File(cpEntries[j]).toURI().toURL();
+        }
+        ClassLoader loader = new URLClassLoader(urls, FakeJetTool.class.getClassLoader().getParent());
+        Thread.currentThread().setContextClassLoader(loader);
+        Method main = Class.forName(mainClass, true, loader).getMethod("main", String[].class);
+        main.invoke(null, (Object) appArgs);
+    }
+
+    private static void writeProfiles(String mainClass, String[] cpEntries) {
+        try {
+            String usg = System.getProperty("jet.usage.list");
+            if (usg != null) {
+                List<String> lines = new ArrayList<>();
+                lines.add("!classpath");
+                lines.addAll(Arrays.asList(cpEntries));
+                lines.add("!classes");
+                lines.add(mainClass);
+                Files.write(Paths.get(usg), lines, StandardCharsets.UTF_8);
+            }
+            String startup = System.getProperty("jet.jit.profile.startup");
+            if (startup != null) {
+                Files.write(Paths.get(startup), new byte[]{0});
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String tool = args[0];
+        File binDir = new File(System.getProperty("fake.jet.bin"));
+        int exitCode = new FakeJetTool(tool, binDir).run(Arrays.copyOfRange(args, 1, args.length));
+        if (exitCode != 0 || !tool.equals("xjava")) {
+            System.exit(exitCode);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package testClasses.classpath;
+
+public class App {
+    public static void main(String[] args) {
+        System.out.println(new Lib().greeting());
+    }
+}
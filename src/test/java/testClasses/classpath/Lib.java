@@ -0,0 +1,7 @@
+package testClasses.classpath;
+
+public class Lib {
+    public String greeting() {
+        return Transitive.format("Hello");
+    }
+}
@@ -0,0 +1,7 @@
+package testClasses.classpath;
+
+/**
+ * Loaded only via reflection, so it is known to be used from the usage list alone.
+ */
+public class Profiled {
+}
@@ -0,0 +1,7 @@
+package testClasses.classpath;
+
+public class Transitive {
+    public static String format(String s) {
+        return s + "!";
+    }
+}
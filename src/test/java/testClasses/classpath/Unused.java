@@ -0,0 +1,4 @@
+package testClasses.classpath;
+
+public class Unused {
+}
@@ -0,0 +1,7 @@
+package testClasses.runtime;
+
+public class Plain {
+    public String name() {
+        return "en";
+    }
+}
@@ -0,0 +1,21 @@
+package testClasses.runtime;
+
+import javax.crypto.Cipher;
+import java.nio.charset.Charset;
+import java.util.Locale;
+
+public class SecureClient {
+    static final String SERVER = "https://example.com";
+
+    public Cipher cipher() throws Exception {
+        return Cipher.getInstance("AES");
+    }
+
+    public Charset charset() {
+        return Charset.forName("Shift_JIS");
+    }
+
+    public Locale locale() {
+        return Locale.KOREA;
+    }
+}